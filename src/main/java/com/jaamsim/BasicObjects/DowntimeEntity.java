@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -97,6 +97,7 @@ public class DowntimeEntity extends StateEntity implements StateEntityListener {
 	private double endTime;          // the end time of the latest downtime event
 
 	private static final String STATE_DOWNTIME = "Downtime";
+	private static final int ID_DOWNTIME = getStateId(STATE_DOWNTIME);
 
 	private int numLateEvents;    // Number of events that did not finish within the completion time limit
 	private double targetCompletionTime; // the time that the latest downtime event should be completed
@@ -435,9 +436,9 @@ public class DowntimeEntity extends StateEntity implements StateEntityListener {
 	private void setDown(boolean b) {
 		down = b;
 		if (down)
-			setPresentState(STATE_DOWNTIME);
+			setPresentState(ID_DOWNTIME);
 		else
-			setPresentState(STATE_WORKING);
+			setPresentState(ID_WORKING);
 	}
 
 	final void endDowntime() {
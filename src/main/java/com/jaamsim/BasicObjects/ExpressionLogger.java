@@ -24,6 +24,7 @@ import com.jaamsim.Graphics.DisplayEntity;
 import com.jaamsim.Samples.SampleInput;
 import com.jaamsim.StringProviders.StringProvListInput;
 import com.jaamsim.StringProviders.StringProvider;
+import com.jaamsim.basicsim.ColumnFileWriter;
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.basicsim.EntityTarget;
 import com.jaamsim.basicsim.FileEntity;
@@ -272,6 +273,24 @@ public class ExpressionLogger extends Logger implements StateEntityListener, Obs
 		}
 	}
 
+	@Override
+	protected void addColumns(ColumnFileWriter writer) {
+
+		// Traced entities
+		for (StateEntity ent : stateTraceList.getValue()) {
+			writer.addStringColumn(String.format("[%s].State", ent.getName()));
+		}
+
+		// Traced values
+		ArrayList<String> valToks = new ArrayList<>();
+		valueTraceList.getValueTokens(valToks);
+		for (String str : valToks) {
+			if (str.equals("{") || str.equals("}"))
+				continue;
+			writer.addStringColumn(str);
+		}
+	}
+
 	private void startAction() {
 
 		// Schedule the next time an entry in the log file will be written
@@ -324,6 +343,32 @@ public class ExpressionLogger extends Logger implements StateEntityListener, Obs
 		}
 	}
 
+	@Override
+	protected void recordColumns(ColumnFileWriter writer, double simTime, DisplayEntity dEnt) {
+
+		// Write the state values
+		int col = 1;
+		for (StateEntity ent : stateTraceList.getValue()) {
+			writer.setString(col, ent.getPresentState(simTime));
+			col++;
+		}
+
+		try {
+			// Write the traced expression values
+			for (int i=0; i<valueTraceList.getListSize(); i++) {
+				String str = valueTraceList.getNextString(i, this, simTime);
+				writer.setString(col, str);
+				col++;
+
+				// Update the saved values
+				lastValueList.set(i, str);
+			}
+		}
+		catch (Exception e) {
+			error(e.getMessage());
+		}
+	}
+
 	@Override
 	public boolean isWatching(StateEntity ent) {
 		return stateTraceList.getValue().contains(ent);
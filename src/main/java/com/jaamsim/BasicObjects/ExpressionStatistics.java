@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2023 JaamSim Software Inc.
+ * Copyright (C) 2023-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,9 @@ import java.util.ArrayList;
 import com.jaamsim.BooleanProviders.BooleanProvInput;
 import com.jaamsim.Graphics.DisplayEntity;
 import com.jaamsim.Samples.SampleInput;
+import com.jaamsim.Samples.SampleListInput;
+import com.jaamsim.Statistics.QuantileSketch;
+import com.jaamsim.Statistics.QuantileSketchProvider;
 import com.jaamsim.Statistics.TimeBasedFrequency;
 import com.jaamsim.Statistics.TimeBasedStatistics;
 import com.jaamsim.basicsim.Entity;
@@ -40,7 +43,7 @@ import com.jaamsim.units.DimensionlessUnit;
 import com.jaamsim.units.Unit;
 import com.jaamsim.units.UserSpecifiedUnit;
 
-public class ExpressionStatistics extends DisplayEntity implements ObserverEntity {
+public class ExpressionStatistics extends DisplayEntity implements ObserverEntity, QuantileSketchProvider {
 
 	@Keyword(description = "Unit type for the variable whose statistics will be collected.",
 	         exampleList = {"DistanceUnit"})
@@ -56,6 +59,13 @@ public class ExpressionStatistics extends DisplayEntity implements ObserverEntit
 	         exampleList = {"1 h"})
 	private final SampleInput histogramBinWidth;
 
+	@Keyword(description = "List of percentiles for which the corresponding values will be "
+	                     + "returned by the 'PercentileValues' output. "
+	                     + "Each value is weighted by the duration for which it was held, and is "
+	                     + "estimated to within 1% of the recorded values.",
+	         exampleList = {"90 95 99"})
+	private final SampleListInput targetPercentiles;
+
 	@Keyword(description = "Optional list of objects to monitor.\n\n"
 	                     + "If the 'WatchList' input is provided, then the 'DataSource' input is "
 	                     + "evaluated ONLY when triggered by an object in its 'WatchList'. "
@@ -84,6 +94,11 @@ public class ExpressionStatistics extends DisplayEntity implements ObserverEntit
 	private final TimeBasedStatistics timeStats = new TimeBasedStatistics();
 	private final TimeBasedFrequency freq = new TimeBasedFrequency(0, 10);
 
+	// Values weighted by their durations, up to the time of the last value
+	private final QuantileSketch sketch = new QuantileSketch();
+	private double sketchTime;
+	private double sketchValue = Double.NaN;
+
 	{
 		unitType = new UnitTypeInput("UnitType", KEY_INPUTS, UserSpecifiedUnit.class);
 		unitType.setRequired(true);
@@ -99,6 +114,11 @@ public class ExpressionStatistics extends DisplayEntity implements ObserverEntit
 		histogramBinWidth.setUnitType(UserSpecifiedUnit.class);
 		this.addInput(histogramBinWidth);
 
+		targetPercentiles = new SampleListInput("TargetPercentiles", KEY_INPUTS, null);
+		targetPercentiles.setUnitType(DimensionlessUnit.class);
+		targetPercentiles.setDimensionless(true);
+		this.addInput(targetPercentiles);
+
 		watchList = new InterfaceEntityListInput<>(SubjectEntity.class, "WatchList", KEY_INPUTS, new ArrayList<>());
 		watchList.setIncludeSelf(false);
 		watchList.setUnique(true);
@@ -126,6 +146,7 @@ public class ExpressionStatistics extends DisplayEntity implements ObserverEntit
 		super.earlyInit();
 		timeStats.clear();
 		freq.clear();
+		clearSketch();
 	}
 
 	@Override
@@ -144,6 +165,21 @@ public class ExpressionStatistics extends DisplayEntity implements ObserverEntit
 		super.clearStatistics();
 		timeStats.clear();
 		freq.clear();
+		clearSketch();
+	}
+
+	private void clearSketch() {
+		sketch.clear();
+		sketchTime = 0.0d;
+		sketchValue = Double.NaN;
+	}
+
+	/**
+	 * Returns true if the values are needed for the percentiles, either for this entity or for
+	 * the pooled percentiles printed for each scenario.
+	 */
+	private boolean isRecordSketch() {
+		return targetPercentiles.getListSize() > 0 || getSimulation().getPrintPooledPercentiles();
 	}
 
 	private double getBinWidth() {
@@ -175,11 +211,25 @@ public class ExpressionStatistics extends DisplayEntity implements ObserverEntit
 
 		double val = getValue(simTime);
 		timeStats.addValue(simTime, val);
+		if (!Double.isNaN(sketchValue) && isRecordSketch()) {
+			sketch.addValue(sketchValue, simTime - sketchTime);
+		}
+		sketchTime = simTime;
+		sketchValue = val;
 		if (!histogramBinWidth.isDefault()) {
 			freq.addValue(simTime, (int) Math.round(val/getBinWidth()));
 		}
 	}
 
+	@Override
+	public QuantileSketch getQuantileSketch(double simTime) {
+		QuantileSketch ret = new QuantileSketch(sketch);
+		if (!Double.isNaN(sketchValue)) {
+			ret.addValue(sketchValue, simTime - sketchTime);
+		}
+		return ret;
+	}
+
 	final boolean isValueChanged() {
 		double simTime = getSimTime();
 		double value = getValue(simTime);
@@ -295,4 +345,36 @@ public class ExpressionStatistics extends DisplayEntity implements ObserverEntit
 		return freq.getBinFractions(simTime);
 	}
 
+	@Output(name = "TargetPercentiles",
+	 description = "Percentiles specified by the 'TargetPercentiles' input.",
+	  reportable = true,
+	    sequence = 8)
+	public double[] getTargetPercentiles(double simTime) {
+		double[] ret = new double[targetPercentiles.getListSize()];
+		for (int i = 0; i < targetPercentiles.getListSize(); i++) {
+			ret[i] = targetPercentiles.getNextSample(i, this, simTime);
+		}
+		return ret;
+	}
+
+	@Output(name = "PercentileValues",
+	 description = "Values corresponding to the percentiles specified by the "
+	             + "'TargetPercentiles' input, weighted by the duration of each value.",
+	    unitType = UserSpecifiedUnit.class,
+	  reportable = true,
+	    sequence = 9)
+	public double[] getPercentileValues(double simTime) {
+		double[] ret = new double[targetPercentiles.getListSize()];
+		if (ret.length == 0)
+			return ret;
+
+		// The present value is included for the time it has been held so far
+		double weight = simTime - sketchTime;
+		for (int i = 0; i < targetPercentiles.getListSize(); i++) {
+			double targetFraction = targetPercentiles.getNextSample(i, this, simTime) / 100.0d;
+			ret[i] = sketch.getQuantile(targetFraction, sketchValue, weight);
+		}
+		return ret;
+	}
+
 }
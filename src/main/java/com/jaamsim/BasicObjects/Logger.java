@@ -24,15 +24,19 @@ import com.jaamsim.Graphics.DisplayEntity;
 import com.jaamsim.Samples.SampleInput;
 import com.jaamsim.StringProviders.StringProvListInput;
 import com.jaamsim.StringProviders.StringProvider;
+import com.jaamsim.basicsim.ColumnFileWriter;
 import com.jaamsim.basicsim.EntityTarget;
 import com.jaamsim.basicsim.FileEntity;
 import com.jaamsim.basicsim.JaamSimModel;
 import com.jaamsim.events.EventHandle;
 import com.jaamsim.events.EventManager;
+import com.jaamsim.input.BooleanInput;
 import com.jaamsim.input.InputAgent;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.Output;
 import com.jaamsim.input.UnitTypeListInput;
+import com.jaamsim.input.ValueInput;
+import com.jaamsim.units.DimensionlessUnit;
 import com.jaamsim.units.TimeUnit;
 
 public abstract class Logger extends DisplayEntity {
@@ -75,10 +79,43 @@ public abstract class Logger extends DisplayEntity {
 	         exampleList = { "8760.0 h" })
 	private final SampleInput endTime;
 
+	@Keyword(description = "If TRUE, the log file is written by a background thread so that "
+	                     + "the simulation does not wait for each entry to be written to disk. "
+	                     + "All the entries are written to the file at the end of each run.")
+	private final BooleanInput asyncOutput;
+
+	@Keyword(description = "The minimum interval of real (wall-clock) time between writes to "
+	                     + "the log file when AsynchronousOutput is TRUE.",
+	         exampleList = { "5 s" })
+	private final ValueInput flushInterval;
+
+	@Keyword(description = "If TRUE, the log file is compressed in GZIP format and the suffix "
+	                     + "'.gz' is added to the file name. "
+	                     + "The compressed entries are flushed to the file at the end of each run.")
+	private final BooleanInput compressOutput;
+
+	@Keyword(description = "If TRUE, the log is written in a binary column format to a file "
+	                     + "with the suffix '.jsc' instead of a text .log file. "
+	                     + "Numbers are stored without conversion to text, which is much faster "
+	                     + "for large logs. "
+	                     + "The DataSource values are stored as numbers in SI units, with NaN for "
+	                     + "any value that is not a number. "
+	                     + "A separate file is always created for each simulation run. "
+	                     + "The file can be converted to text using the ColumnFileReader "
+	                     + "utility.")
+	private final BooleanInput binaryOutput;
+
 	private FileEntity file;
+	private ColumnFileWriter colFile;
+	private int firstDataCol;  // index of the first DataSource column in the binary file
 	private double logTime;
 	private DisplayEntity logEntity;
 
+	// Throughput measurements
+	private long numEntries;
+	private long startNanos;
+	private long startBytes;
+
 	{
 		active.setHidden(false);
 
@@ -105,6 +142,20 @@ public abstract class Logger extends DisplayEntity {
 		endTime.setUnitType(TimeUnit.class);
 		endTime.setValidRange(0.0d, Double.POSITIVE_INFINITY);
 		this.addInput(endTime);
+
+		asyncOutput = new BooleanInput("AsynchronousOutput", OPTIONS, false);
+		this.addInput(asyncOutput);
+
+		flushInterval = new ValueInput("FlushInterval", OPTIONS, 1.0d);
+		flushInterval.setUnitType(TimeUnit.class);
+		flushInterval.setValidRange(0.0d, Double.POSITIVE_INFINITY);
+		this.addInput(flushInterval);
+
+		compressOutput = new BooleanInput("CompressOutput", OPTIONS, false);
+		this.addInput(compressOutput);
+
+		binaryOutput = new BooleanInput("BinaryOutput", OPTIONS, false);
+		this.addInput(binaryOutput);
 	}
 
 	public Logger() {}
@@ -124,10 +175,20 @@ public abstract class Logger extends DisplayEntity {
 			file.close();
 			file = null;
 		}
+		if (colFile != null) {
+			colFile.close();
+			colFile = null;
+		}
 
 		if (!isActive())
 			return;
 
+		// Create the binary log file
+		if (binaryOutput.getValue()) {
+			openColumnFile();
+			return;
+		}
+
 		// Create the report file
 		if (file == null) {
 			StringBuilder sb = new StringBuilder();
@@ -137,13 +198,17 @@ public abstract class Logger extends DisplayEntity {
 				sb.append("r").append(simModel.getReplicationNumber());
 			}
 			sb.append(".log");
+			if (compressOutput.getValue())
+				sb.append(".gz");
 			String fileName = simModel.getReportFileName(sb.toString());
 			if (fileName == null)
 				return;
 			File f = new File(fileName);
 			if (f.exists() && !f.delete())
 				error("Cannot delete the existing log file %s", f);
-			file = new FileEntity(f);
+			long flushMillis = (long) Math.min(flushInterval.getValue() * 1000.0d, Long.MAX_VALUE);
+			file = new FileEntity(f, false, asyncOutput.getValue(), flushMillis,
+					compressOutput.getValue());
 		}
 
 		// Print the detailed run information to the file
@@ -177,6 +242,45 @@ public abstract class Logger extends DisplayEntity {
 
 		// Empty the output buffer
 		file.flush();
+
+		numEntries = 0L;
+		startNanos = System.nanoTime();
+		startBytes = file.getNumBytes();
+	}
+
+	private void openColumnFile() {
+		JaamSimModel simModel = getJaamSimModel();
+		StringBuilder sb = new StringBuilder();
+		sb.append("-").append(this.getName());
+		if (simModel.isMultipleRuns()) {
+			sb.append("-s").append(simModel.getScenarioNumber());
+			sb.append("r").append(simModel.getReplicationNumber());
+		}
+		sb.append(".jsc");
+		String fileName = simModel.getReportFileName(sb.toString());
+		if (fileName == null)
+			return;
+		File f = new File(fileName);
+		if (f.exists() && !f.delete())
+			error("Cannot delete the existing log file %s", f);
+		colFile = new ColumnFileWriter(f, asyncOutput.getValue(), ColumnFileWriter.DEFAULT_CHUNK_ROWS);
+
+		// Define the columns
+		String unit = simModel.getDisplayedUnit(TimeUnit.class);
+		colFile.addDoubleColumn(String.format("this.SimTime/1[%s]", unit));
+		this.addColumns(colFile);
+		firstDataCol = colFile.getNumColumns();
+		ArrayList<String> toks = new ArrayList<>();
+		dataSource.getValueTokens(toks);
+		for (String str : toks) {
+			if (str.equals("{") || str.equals("}"))
+				continue;
+			colFile.addDoubleColumn(str);
+		}
+
+		numEntries = 0L;
+		startNanos = System.nanoTime();
+		startBytes = 0L;
 	}
 
 	private boolean isSeparateFiles(double simTime) {
@@ -212,7 +316,7 @@ public abstract class Logger extends DisplayEntity {
 			return;
 
 		// Skip the log entry if the log file has been closed at the end of the run duration
-		if (file == null)
+		if (file == null && colFile == null)
 			return;
 
 		// Skip the log entry if the run is still initializing
@@ -227,6 +331,11 @@ public abstract class Logger extends DisplayEntity {
 		logTime = simTime;
 		logEntity = ent;
 
+		if (colFile != null) {
+			recordColumnEntry(simTime, ent);
+			return;
+		}
+
 		// Write the time for the log entry
 		double factor = getJaamSimModel().getDisplayedUnitFactor(TimeUnit.class);
 		file.format("%n%s", simTime/factor);
@@ -245,12 +354,34 @@ public abstract class Logger extends DisplayEntity {
 			}
 			file.format("\t%s", str);
 		}
+		numEntries++;
 
 		// If running in real time mode, empty the file buffer after each entity is logged
 		if (!getJaamSimModel().isBatchRun() && getJaamSimModel().isRealTime())
 			file.flush();
 	}
 
+	/**
+	 * Writes an entry to the binary log file.
+	 */
+	private void recordColumnEntry(double simTime, DisplayEntity ent) {
+		double factor = getJaamSimModel().getDisplayedUnitFactor(TimeUnit.class);
+		colFile.setDouble(0, simTime/factor);
+		this.recordColumns(colFile, simTime, ent);
+		for (int i=0; i<dataSource.getListSize(); i++) {
+			double val;
+			try {
+				val = dataSource.getNextValue(i, this, simTime);
+			}
+			catch (Exception e) {
+				val = Double.NaN;
+			}
+			colFile.setDouble(firstDataCol + i, val);
+		}
+		colFile.endRow();
+		numEntries++;
+	}
+
 	protected double getStartTime(double simTime) {
 		return startTime.getNextSample(this, simTime);
 	}
@@ -263,6 +394,21 @@ public abstract class Logger extends DisplayEntity {
 
 	protected abstract void recordEntry(FileEntity file, double simTime, DisplayEntity ent);
 
+	/**
+	 * Defines any additional columns for the binary log file. The columns are placed between the
+	 * simulation time and the DataSource values.
+	 * @param writer - binary log file
+	 */
+	protected void addColumns(ColumnFileWriter writer) {}
+
+	/**
+	 * Sets the values for the additional columns defined by addColumns.
+	 * @param writer - binary log file
+	 * @param simTime - present simulation time
+	 * @param ent - entity that triggered the log entry
+	 */
+	protected void recordColumns(ColumnFileWriter writer, double simTime, DisplayEntity ent) {}
+
 	@Override
 	public void doEnd() {
 		super.doEnd();
@@ -273,10 +419,16 @@ public abstract class Logger extends DisplayEntity {
 			recordLogEntry(getSimTime(), null);
 		}
 
+		// Close the binary log file
+		if (colFile != null) {
+			colFile.close();
+			colFile = null;
+		}
+
 		// Flush the log file's print buffer
 		if (file == null)
 			return;
-		file.flush();
+		file.sync();
 
 		// Close the report file
 		if (getJaamSimModel().isLastRun() || isSeparateFiles(getSimTime())) {
@@ -288,6 +440,10 @@ public abstract class Logger extends DisplayEntity {
 	@Override
 	public void close() {
 		super.close();
+		if (colFile != null) {
+			colFile.close();
+			colFile = null;
+		}
 		if (file == null)
 			return;
 		file.flush();
@@ -308,4 +464,40 @@ public abstract class Logger extends DisplayEntity {
 		return logEntity;
 	}
 
+	@Output(name = "NumberOfEntries",
+	 description = "The number of entries written to the log file during the present run.",
+	    unitType = DimensionlessUnit.class)
+	public long getNumberOfEntries(double simTime) {
+		return numEntries;
+	}
+
+	@Output(name = "EntriesPerSecond",
+	 description = "The average number of entries written to the log file per second of real "
+	             + "(wall-clock) time since the start of the present run.",
+	    unitType = DimensionlessUnit.class)
+	public double getEntriesPerSecond(double simTime) {
+		double secs = getElapsedSeconds();
+		if (secs <= 0.0d)
+			return 0.0d;
+		return numEntries / secs;
+	}
+
+	@Output(name = "BytesPerSecond",
+	 description = "The average number of bytes written to the text log file per second of real "
+	             + "(wall-clock) time since the start of the present run. "
+	             + "The bytes are counted after compression when CompressOutput is TRUE.",
+	    unitType = DimensionlessUnit.class)
+	public double getBytesPerSecond(double simTime) {
+		double secs = getElapsedSeconds();
+		if (file == null || secs <= 0.0d)
+			return 0.0d;
+		return (file.getNumBytes() - startBytes) / secs;
+	}
+
+	private double getElapsedSeconds() {
+		if (startNanos == 0L)
+			return 0.0d;
+		return (System.nanoTime() - startNanos) * 1.0e-9d;
+	}
+
 }
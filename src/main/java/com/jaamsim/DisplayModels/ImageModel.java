@@ -29,6 +29,7 @@ import com.jaamsim.datatypes.IntegerVector;
 import com.jaamsim.input.ColourInput;
 import com.jaamsim.input.FileInput;
 import com.jaamsim.input.Keyword;
+import com.jaamsim.math.AABB;
 import com.jaamsim.math.Transform;
 import com.jaamsim.math.Vec2d;
 import com.jaamsim.math.Vec3d;
@@ -190,6 +191,13 @@ public class ImageModel extends DisplayModel {
 
 			out.addAll(cachedProxies);
 		}
+
+		@Override
+		public AABB getBounds(double simTime) {
+			if (dispEnt == null)
+				return null;
+			return getEntityBoxBounds();
+		}
 	}
 
 	private class OverlayBinding extends DisplayModelBinding {
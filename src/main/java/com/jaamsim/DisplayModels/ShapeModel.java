@@ -29,6 +29,7 @@ import com.jaamsim.basicsim.Entity;
 import com.jaamsim.input.ColourInput;
 import com.jaamsim.input.EnumInput;
 import com.jaamsim.input.Keyword;
+import com.jaamsim.math.AABB;
 import com.jaamsim.math.Color4d;
 import com.jaamsim.math.Transform;
 import com.jaamsim.math.Vec3d;
@@ -239,6 +240,13 @@ public class ShapeModel extends AbstractShapeModel {
 			out.addAll(cachedProxies);
 		}
 
+		@Override
+		public AABB getBounds(double simTime) {
+			if (dispEnt == null)
+				return null;
+			return getEntityBoxBounds();
+		}
+
 		private Transform getTransform(double simTime) {
 			if (dispEnt == null) {
 				return Transform.ident;
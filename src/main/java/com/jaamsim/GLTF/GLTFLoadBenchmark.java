@@ -0,0 +1,244 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.GLTF;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import com.jaamsim.MeshFiles.MeshData;
+
+/**
+ * Measures the time and the memory allocated to load a generated glTF model, in both its .gltf
+ * form with an external .bin buffer and its .glb form. The model contains the specified number
+ * of meshes, each a square grid of vertices with POSITION, NORMAL and TEXCOORD_0 attributes and
+ * uint32 indices. The memory is the total allocated by all threads, since the mesh primitives
+ * can be decoded on the asset loader threads.
+ * <p>
+ * Arguments: [meshes] [vertices per side] [loads]
+ */
+public class GLTFLoadBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int numMeshes = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+		int side = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int numLoads = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		File dir = Files.createTempDirectory("GLTFLoadBenchmark").toFile();
+		File gltfFile = new File(dir, "model.gltf");
+		File binFile = new File(dir, "model.bin");
+		File glbFile = new File(dir, "model.glb");
+		writeModel(numMeshes, side, gltfFile, binFile, glbFile);
+		System.out.println(String.format("%d meshes of %d vertices, glb size %.1f MB",
+				numMeshes, side*side, glbFile.length() / 1.0e6d));
+
+		com.sun.management.ThreadMXBean bean = null;
+		ThreadMXBean tmx = ManagementFactory.getThreadMXBean();
+		if (tmx instanceof com.sun.management.ThreadMXBean) {
+			bean = (com.sun.management.ThreadMXBean) tmx;
+			if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled())
+				bean = null;
+		}
+
+		try {
+			for (int j = 0; j < 3; j++) {
+				for (int glb = 0; glb < 2; glb++) {
+					long startBytes = getAllocatedBytes(bean);
+					long startTime = System.nanoTime();
+					int numSubMeshes = 0;
+					for (int k = 0; k < numLoads; k++) {
+						MeshData data;
+						if (glb == 1)
+							data = GLTFReader.parseGLB(glbFile.toURI());
+						else
+							data = GLTFReader.parseGLTF(gltfFile.toURI());
+						numSubMeshes = data.getSubMeshData().size();
+					}
+					double millis = (System.nanoTime() - startTime) / 1.0e6d / numLoads;
+					double mBytes = (getAllocatedBytes(bean) - startBytes) / 1.0e6d / numLoads;
+					System.out.println(String.format("%s: %.0f ms, %.0f MB per load (%d sub meshes)",
+							(glb == 1) ? "glb" : "gltf", millis, mBytes, numSubMeshes));
+				}
+			}
+		}
+		finally {
+			gltfFile.delete();
+			binFile.delete();
+			glbFile.delete();
+			dir.delete();
+		}
+		System.exit(0);
+	}
+
+	private static long getAllocatedBytes(com.sun.management.ThreadMXBean bean) {
+		if (bean == null)
+			return 0L;
+		long ret = 0L;
+		for (long bytes : bean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+			if (bytes > 0L)
+				ret += bytes;
+		}
+		return ret;
+	}
+
+	/**
+	 * Writes the model as a .gltf file with an external buffer, and as a .glb file.
+	 */
+	private static void writeModel(int numMeshes, int side, File gltfFile, File binFile, File glbFile)
+			throws IOException {
+		int numVerts = side*side;
+		int numInds = (side - 1)*(side - 1)*6;
+		int meshBytes = numVerts*(12 + 12 + 8) + numInds*4;
+		ByteBuffer bin = ByteBuffer.allocate(numMeshes*meshBytes).order(ByteOrder.LITTLE_ENDIAN);
+
+		ArrayList<String> views = new ArrayList<>();
+		ArrayList<String> accessors = new ArrayList<>();
+		ArrayList<String> meshes = new ArrayList<>();
+		ArrayList<String> nodes = new ArrayList<>();
+		for (int m = 0; m < numMeshes; m++) {
+			// Positions, each mesh a differently shaped surface
+			int start = bin.position();
+			for (int i = 0; i < side; i++) {
+				for (int k = 0; k < side; k++) {
+					bin.putFloat((float)i / side);
+					bin.putFloat((float)k / side);
+					bin.putFloat(getHeight(m, i, k, side));
+				}
+			}
+			int pos = addView(views, accessors, start, bin.position(), 5126, "VEC3", numVerts,
+					", \"min\": [0, 0, -1], \"max\": [1, 1, 1]");
+
+			// Normals
+			start = bin.position();
+			for (int i = 0; i < side; i++) {
+				for (int k = 0; k < side; k++) {
+					float z = getHeight(m, i, k, side);
+					float len = (float) Math.sqrt(2.0d*z*z + 1.0d);
+					bin.putFloat(-z/len);
+					bin.putFloat(z/len);
+					bin.putFloat(1.0f/len);
+				}
+			}
+			int norm = addView(views, accessors, start, bin.position(), 5126, "VEC3", numVerts, "");
+
+			// Texture coordinates
+			start = bin.position();
+			for (int i = 0; i < side; i++) {
+				for (int k = 0; k < side; k++) {
+					bin.putFloat((float)i / side);
+					bin.putFloat((float)k / side);
+				}
+			}
+			int tex = addView(views, accessors, start, bin.position(), 5126, "VEC2", numVerts, "");
+
+			// Indices
+			start = bin.position();
+			for (int i = 0; i < side - 1; i++) {
+				for (int k = 0; k < side - 1; k++) {
+					int v = i*side + k;
+					bin.putInt(v);
+					bin.putInt(v + side);
+					bin.putInt(v + 1);
+					bin.putInt(v + 1);
+					bin.putInt(v + side);
+					bin.putInt(v + side + 1);
+				}
+			}
+			int inds = addView(views, accessors, start, bin.position(), 5125, "SCALAR", numInds, "");
+
+			meshes.add(String.format("{\"primitives\": [{\"attributes\": {\"POSITION\": %d, \"NORMAL\": %d, "
+					+ "\"TEXCOORD_0\": %d}, \"indices\": %d, \"material\": 0}]}", pos, norm, tex, inds));
+			nodes.add(String.format("{\"mesh\": %d, \"translation\": [%d, 0, 0]}", m, m));
+		}
+
+		ArrayList<String> nodeIndices = new ArrayList<>();
+		for (int m = 0; m < numMeshes; m++) {
+			nodeIndices.add(Integer.toString(m));
+		}
+
+		for (int glb = 0; glb < 2; glb++) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("{\"asset\": {\"version\": \"2.0\"}, \"scene\": 0, ");
+			sb.append("\"scenes\": [{\"nodes\": [").append(String.join(", ", nodeIndices)).append("]}], ");
+			sb.append("\"nodes\": [").append(String.join(", ", nodes)).append("], ");
+			sb.append("\"meshes\": [").append(String.join(", ", meshes)).append("], ");
+			sb.append("\"materials\": [{\"pbrMetallicRoughness\": {\"baseColorTexture\": {\"index\": 0}}}], ");
+			sb.append("\"textures\": [{\"source\": 0}], \"images\": [{\"uri\": \"model.png\"}], ");
+			if (glb == 1)
+				sb.append(String.format("\"buffers\": [{\"byteLength\": %d}], ", bin.position()));
+			else
+				sb.append(String.format("\"buffers\": [{\"uri\": \"%s\", \"byteLength\": %d}], ",
+						binFile.getName(), bin.position()));
+			sb.append("\"bufferViews\": [").append(String.join(", ", views)).append("], ");
+			sb.append("\"accessors\": [").append(String.join(", ", accessors)).append("]}");
+			byte[] json = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+			if (glb == 0) {
+				Files.write(gltfFile.toPath(), json);
+				try (FileOutputStream out = new FileOutputStream(binFile)) {
+					out.write(bin.array(), 0, bin.position());
+				}
+				continue;
+			}
+
+			// The chunks are padded to a multiple of 4 bytes
+			int jsonLength = (json.length + 3) & ~3;
+			int binLength = (bin.position() + 3) & ~3;
+			ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(0x46546C67);
+			header.putInt(2);
+			header.putInt(12 + 8 + jsonLength + 8 + binLength);
+			header.putInt(jsonLength);
+			header.putInt(0x4E4F534A);
+			ByteBuffer binHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			binHeader.putInt(binLength);
+			binHeader.putInt(0x004E4942);
+			try (FileOutputStream out = new FileOutputStream(glbFile)) {
+				out.write(header.array());
+				out.write(json);
+				for (int i = json.length; i < jsonLength; i++) {
+					out.write(' ');
+				}
+				out.write(binHeader.array());
+				out.write(bin.array(), 0, bin.position());
+				for (int i = bin.position(); i < binLength; i++) {
+					out.write(0);
+				}
+			}
+		}
+	}
+
+	private static float getHeight(int m, int i, int k, int side) {
+		return (float) (0.05d*Math.sin(10.0d*i/side + m)*Math.cos(10.0d*k/side));
+	}
+
+	private static int addView(ArrayList<String> views, ArrayList<String> accessors, int start, int end,
+			int compType, String type, int count, String extra) {
+		views.add(String.format("{\"buffer\": 0, \"byteOffset\": %d, \"byteLength\": %d}", start, end - start));
+		accessors.add(String.format("{\"bufferView\": %d, \"componentType\": %d, \"type\": \"%s\", \"count\": %d%s}",
+				views.size() - 1, compType, type, count, extra));
+		return accessors.size() - 1;
+	}
+
+}
@@ -29,7 +29,9 @@ import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Stack;
 
 import com.jaamsim.JSON.JSONError;
@@ -43,6 +45,7 @@ import com.jaamsim.math.Mat4d;
 import com.jaamsim.math.Quaternion;
 import com.jaamsim.math.Vec2d;
 import com.jaamsim.math.Vec3d;
+import com.jaamsim.render.LoaderPool;
 import com.jaamsim.render.RenderException;
 
 public class GLTFReader {
@@ -295,11 +298,10 @@ public class GLTFReader {
 		case uint32:
 			val = buff.getInt(pos);
 			if (val < 0) {
-				long realVal = val + (1<<32);
 				// We technically could represent this in a long but
 				// this means there's a scalar value > 2 billion so we're going
 				// to error out for now until we find a model where this is valid
-				throw new RenderException(String.format("Exceptionally large integer value, probably an error: %d", realVal));
+				throw largeIntException(val);
 			}
 			return val;
 		case float32:
@@ -313,6 +315,12 @@ public class GLTFReader {
 
 	}
 
+	// Returns the error for a uint32 value that does not fit in a Java int
+	private static RenderException largeIntException(int val) {
+		long realVal = val & 0xFFFFFFFFL;
+		return new RenderException(String.format("Exceptionally large integer value, probably an error: %d", realVal));
+	}
+
 	private final MeshData outputData = new MeshData(false);
 	private final URI contextURI;
 	private final ByteBuffer defaultBuffer;
@@ -833,28 +841,21 @@ public class GLTFReader {
 		}
 
 
-		//Path buffPath = FileSystems.getDefault().getPath(buffURL.getPath());
 		ByteBuffer byteBuff;
-		try {
-			File buffFile = new File(buffURI);
-			FileInputStream buffStream = new FileInputStream(buffFile);
+		File buffFile = new File(buffURI);
+		try (FileInputStream buffStream = new FileInputStream(buffFile)) {
 			FileChannel buffChann = buffStream.getChannel();
 
-			//FileChannel buffChann = FileChannel.open(buffPath, StandardOpenOption.READ);
 			long fileSize = buffChann.size();
 			if (fileSize < byteLen) {
-				String msg = String.format("Buffer file (%s) too small. The file is %d bytes, but must be at least %d", uri, byteLen);
-				buffStream.close();
+				String msg = String.format("Buffer file (%s) too small. The file is %d bytes, but must be at least %d", uri, fileSize, byteLen);
 				throw new RenderException(msg);
 			}
-			byteBuff = ByteBuffer.allocateDirect(byteLen);
-			buffChann.read(byteBuff);
+			byteBuff = readBuffer(buffChann, byteLen);
 
 			// GLTF buffers are little endian
 			byteBuff.order(ByteOrder.LITTLE_ENDIAN);
 
-			buffStream.close();
-
 		} catch (IOException io) {
 			throw new RenderException(io.getMessage());
 		}
@@ -988,9 +989,9 @@ public class GLTFReader {
 			// Allocate an indirect buffer for the image data
 			// this technically is an extra copy but can be made to play more nicely with ImageIO
 			image.imageData = ByteBuffer.allocate(view.length);
-			buff.contents.position(view.offset);
-			buff.contents.get(image.imageData.array(), 0, view.length);
-			buff.contents.position(0);
+			ByteBuffer contents = buff.contents.duplicate();
+			contents.position(view.offset);
+			contents.get(image.imageData.array(), 0, view.length);
 
 			// Create a new URI format for embedded images
 			try {
@@ -1115,117 +1116,84 @@ public class GLTFReader {
 		return outMatIdx;
 	}
 
-	private Quaternion[] accToQuatArray(int accIdx) {
+	/**
+	 * Returns the float components of the specified accessor in a single array, with the
+	 * components of each element stored together. Tightly packed data is copied in bulk.
+	 */
+	private float[] accToFloats(int accIdx, VectorType vecType) {
 		Accessor acc = getAccessor(accIdx);
 		BufferView view = getBufferView(acc.bufferView);
 		Buffer buff = getBuffer(view.buffIdx);
 
-		if (acc.vecType != VectorType.VEC4) {
-			throw new RenderException(String.format("Accessor %d expected to be VEC3", accIdx));
+		if (acc.vecType != vecType) {
+			throw new RenderException(String.format("Accessor %d expected to be %s", accIdx, vecType));
 		}
-		// TODO: GLTF allows normalized integer values here
 		if (acc.compType != ComponentType.float32) {
-			throw new RenderException(String.format("Accessor %d expected to be float32. Only float based animation rotations are currently supported", accIdx));
+			throw new RenderException(String.format("Accessor %d expected to be float32", accIdx));
 		}
 
-		int stride = 4*4; // float32 * vec4
+		int numComps = vecType.numComps;
+		int stride = 4*numComps;
 		if (view.stride != 0) {
 			stride = view.stride;
 		}
 		int offset = acc.byteOffset + view.offset;
-		Quaternion[] ret = new Quaternion[acc.count];
-		for (int i = 0; i < acc.count; ++i) {
-			float xVal = buff.contents.getFloat(offset + i*stride + 0);
-			float yVal = buff.contents.getFloat(offset + i*stride + 4);
-			float zVal = buff.contents.getFloat(offset + i*stride + 8);
-			float wVal = buff.contents.getFloat(offset + i*stride + 12);
-			ret[i] = new Quaternion(xVal, yVal, zVal, wVal);
-		}
-		return ret;
-	}
-
-	private Vec3d[] accToVec3dArray(int accIdx) {
-		Accessor acc = getAccessor(accIdx);
-		BufferView view = getBufferView(acc.bufferView);
-		Buffer buff = getBuffer(view.buffIdx);
+		float[] ret = new float[acc.count*numComps];
 
-		if (acc.vecType != VectorType.VEC3) {
-			throw new RenderException(String.format("Accessor %d expected to be VEC3", accIdx));
-		}
-		if (acc.compType != ComponentType.float32) {
-			throw new RenderException(String.format("Accessor %d expected to be float32", accIdx));
+		// Use a separate view of the buffer so that accessors can be decoded on several threads
+		ByteBuffer contents = buff.contents.duplicate();
+		contents.order(ByteOrder.LITTLE_ENDIAN);
+		if (stride == 4*numComps) {
+			contents.position(offset);
+			contents.asFloatBuffer().get(ret);
+			return ret;
 		}
 
-		int stride = 4*3; // float32 * vec3
-		if (view.stride != 0) {
-			stride = view.stride;
-		}
-		int offset = acc.byteOffset + view.offset;
-		Vec3d[] ret = new Vec3d[acc.count];
 		for (int i = 0; i < acc.count; ++i) {
-			float xVal = buff.contents.getFloat(offset + i*stride + 0);
-			float yVal = buff.contents.getFloat(offset + i*stride + 4);
-			float zVal = buff.contents.getFloat(offset + i*stride + 8);
-			ret[i] = new Vec3d(xVal, yVal, zVal);
+			for (int j = 0; j < numComps; ++j) {
+				ret[i*numComps + j] = contents.getFloat(offset + i*stride + j*4);
+			}
 		}
 		return ret;
 	}
 
-	private Vec2d[] accToVec2dArray(int accIdx) {
+	private Quaternion[] accToQuatArray(int accIdx) {
+		// TODO: GLTF allows normalized integer values here
 		Accessor acc = getAccessor(accIdx);
-		BufferView view = getBufferView(acc.bufferView);
-		Buffer buff = getBuffer(view.buffIdx);
-
-		if (acc.vecType != VectorType.VEC2) {
-			throw new RenderException(String.format("Accessor %d expected to be VEC2", accIdx));
-		}
-		if (acc.compType != ComponentType.float32) {
-			throw new RenderException(String.format("Accessor %d expected to be float32", accIdx));
-		}
-
-		int stride = 4*2; // float32 * vec3
-		if (view.stride != 0) {
-			stride = view.stride;
+		if (acc.vecType == VectorType.VEC4 && acc.compType != ComponentType.float32) {
+			throw new RenderException(String.format("Accessor %d expected to be float32. Only float based animation rotations are currently supported", accIdx));
 		}
-		int offset = acc.byteOffset + view.offset;
-		Vec2d[] ret = new Vec2d[acc.count];
 
-		for (int i = 0; i < acc.count; ++i) {
-			float xVal = buff.contents.getFloat(offset + i*stride + 0);
-			float yVal = buff.contents.getFloat(offset + i*stride + 4);
-			ret[i] = new Vec2d(xVal, yVal);
+		float[] vals = accToFloats(accIdx, VectorType.VEC4);
+		Quaternion[] ret = new Quaternion[vals.length/4];
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i] = new Quaternion(vals[i*4], vals[i*4 + 1], vals[i*4 + 2], vals[i*4 + 3]);
 		}
 		return ret;
 	}
 
-	private float[] accToFloatArray(int accIdx) {
-		Accessor acc = getAccessor(accIdx);
-		BufferView view = getBufferView(acc.bufferView);
-		Buffer buff = getBuffer(view.buffIdx);
-
-		if (acc.vecType != VectorType.SCALAR) {
-			throw new RenderException(String.format("Accessor %d expected to be SCALAR", accIdx));
-		}
-
-		if (acc.compType != ComponentType.float32) {
-			throw new RenderException(String.format("Accessor %d expected to be float32", accIdx));
-		}
-
-		int stride = 4;
-
-		if (view.stride != 0) {
-			stride = view.stride;
+	private Vec3d[] accToVec3dArray(int accIdx) {
+		float[] vals = accToFloats(accIdx, VectorType.VEC3);
+		Vec3d[] ret = new Vec3d[vals.length/3];
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i] = new Vec3d(vals[i*3], vals[i*3 + 1], vals[i*3 + 2]);
 		}
+		return ret;
+	}
 
-		int offset = acc.byteOffset + view.offset;
-		float[] ret = new float[acc.count];
-
-		for (int i = 0; i < acc.count; ++i) {
-			ret[i] = buff.contents.getFloat(offset + i*stride);
+	private Vec2d[] accToVec2dArray(int accIdx) {
+		float[] vals = accToFloats(accIdx, VectorType.VEC2);
+		Vec2d[] ret = new Vec2d[vals.length/2];
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i] = new Vec2d(vals[i*2], vals[i*2 + 1]);
 		}
 		return ret;
 	}
 
+	private float[] accToFloatArray(int accIdx) {
+		return accToFloats(accIdx, VectorType.SCALAR);
+	}
+
 	private int[] accToIntArray(int accIdx) {
 		Accessor acc = getAccessor(accIdx);
 		BufferView view = getBufferView(acc.bufferView);
@@ -1243,10 +1211,35 @@ public class GLTFReader {
 		int offset = acc.byteOffset + view.offset;
 		int[] ret = new int[acc.count];
 
+		ByteBuffer contents = buff.contents.duplicate();
+		contents.order(ByteOrder.LITTLE_ENDIAN);
+
+		// Tightly packed indices are copied in bulk
+		if (acc.compType == ComponentType.uint32 && stride == 4) {
+			contents.position(offset);
+			contents.asIntBuffer().get(ret);
+			for (int i = 0; i < acc.count; ++i) {
+				// A negative value is a uint32 that does not fit in an int
+				if (ret[i] < 0) {
+					throw largeIntException(ret[i]);
+				}
+			}
+			return ret;
+		}
+		if (acc.compType == ComponentType.uint16 && stride == 2) {
+			short[] shorts = new short[acc.count];
+			contents.position(offset);
+			contents.asShortBuffer().get(shorts);
+			for (int i = 0; i < acc.count; ++i) {
+				ret[i] = shorts[i] & 0xFFFF;
+			}
+			return ret;
+		}
+
 		for (int i = 0; i < acc.count; ++i) {
 			int pos = offset + i*stride;
 
-			ret[i] = readIntFromBuffer(buff.contents, pos, acc.compType);
+			ret[i] = readIntFromBuffer(contents, pos, acc.compType);
 		}
 		return ret;
 	}
@@ -1280,86 +1273,161 @@ public class GLTFReader {
 		return ret;
 	}
 
-	// Returns a list of the sub meshes (each matching a mesh primitive) in the final MeshData
-	private int[] getProcessedMesh(int meshIdx) {
+	/**
+	 * Adds the meshes used by the specified scene nodes to the output data. The primitives do not
+	 * depend on each other, so for a large model they are decoded in parallel on the asset loader
+	 * threads. They are added as sub meshes in the order in which the scene first uses them.
+	 */
+	private void processMeshes(int[] sceneNodes) {
+		ArrayList<Integer> meshList = new ArrayList<>();
+		HashSet<Integer> visited = new HashSet<>();
+		HashSet<Integer> meshSet = new HashSet<>();
+		for (int nodeIdx : sceneNodes) {
+			collectMeshes(nodeIdx, visited, meshSet, meshList);
+		}
+
+		// Read every accessor in advance so that the tasks only read from the lazily filled maps
+		ArrayList<PrimitiveTask> tasks = new ArrayList<>();
+		for (int meshIdx : meshList) {
+			for (MeshPrimitive prim : getMesh(meshIdx).primitives) {
+				getAccessor(prim.posAcc);
+				if (prim.normAcc != null)
+					getAccessor(prim.normAcc);
+				if (prim.texCoord0Acc != null)
+					getAccessor(prim.texCoord0Acc);
+				if (prim.indicesAcc != null)
+					getAccessor(prim.indicesAcc);
+				tasks.add(new PrimitiveTask(prim));
+			}
+		}
+
+		boolean parallel = tasks.size() >= 2 && LoaderPool.getNumThreads() >= 2;
+		if (parallel) {
+			LoaderPool.invokeAll(tasks);
+		}
+
+		int taskIdx = 0;
+		for (int meshIdx : meshList) {
+			Mesh mesh = getMesh(meshIdx);
+			int[] ret = new int[mesh.primitives.size()];
+			for (int primIdx = 0; primIdx < ret.length; ++primIdx) {
+				PrimitiveTask task = tasks.get(taskIdx);
+				tasks.set(taskIdx++, null);
+				if (!parallel) {
+					task.run();
+				}
+
+				ret[primIdx] = numPrims++;
+				outputData.addSubMesh(task.vMap.getVertList(), task.outIndices);
+			}
+			processedMeshes.put(meshIdx, ret);
+		}
+	}
 
-		if (processedMeshes.get(meshIdx) != null) {
-			return processedMeshes.get(meshIdx);
+	// Lists the meshes below a scene node in the order that buildOutputNode will reach them
+	private void collectMeshes(int nodeIdx, HashSet<Integer> visited, HashSet<Integer> meshSet, ArrayList<Integer> meshList) {
+		if (!visited.add(nodeIdx)) {
+			return;
+		}
+		SceneNode node = getNode(nodeIdx);
+		if (node.meshIdx != null && meshSet.add(node.meshIdx)) {
+			meshList.add(node.meshIdx);
 		}
+		if (node.children != null) {
+			for (int childIdx: node.children) {
+				collectMeshes(childIdx, visited, meshSet, meshList);
+			}
+		}
+	}
 
-		Mesh mesh = getMesh(meshIdx);
+	private class PrimitiveTask implements Runnable {
+		final MeshPrimitive prim;
+		final VertexMap vMap = new VertexMap();
+		int[] outIndices;
 
-		int[] ret = new int[mesh.primitives.size()];
-		for (int primIdx = 0; primIdx < ret.length; ++ primIdx) {
-			MeshPrimitive prim = mesh.primitives.get(primIdx);
+		PrimitiveTask(MeshPrimitive p) {
+			prim = p;
+		}
 
-			Vec3d[] vertPos = accToVec3dArray(prim.posAcc);
-			Vec3d[] vertNorms;
-			if (prim.normAcc != null) {
-				vertNorms = accToVec3dArray(prim.normAcc);
-			} else {
-				vertNorms = generateNormals(vertPos);
-			}
+		@Override
+		public void run() {
+			outIndices = decodePrimitive(prim, vMap);
+		}
+	}
 
-			Vec2d[] texCoords = null;
-			if (prim.texCoord0Acc != null) {
-				texCoords = accToVec2dArray(prim.texCoord0Acc);
-				for (Vec2d tc: texCoords) {
-					// GLTF specifies the texture origin is top left,
-					// while we use bottom left. Flip the y-coordinate
-					tc.y = 1.0 - tc.y;
-				}
-			}
+	// Fills the vertex map with the unique vertices of a mesh primitive and returns their indices
+	private int[] decodePrimitive(MeshPrimitive prim, VertexMap vMap) {
+		Vec3d[] vertPos = accToVec3dArray(prim.posAcc);
+		Vec3d[] vertNorms;
+		if (prim.normAcc != null) {
+			vertNorms = accToVec3dArray(prim.normAcc);
+		} else {
+			vertNorms = generateNormals(vertPos);
+		}
 
-			int[] indices = null;
-			if (prim.indicesAcc != null) {
-				indices = accToIntArray(prim.indicesAcc);
+		Vec2d[] texCoords = null;
+		if (prim.texCoord0Acc != null) {
+			texCoords = accToVec2dArray(prim.texCoord0Acc);
+			for (Vec2d tc: texCoords) {
+				// GLTF specifies the texture origin is top left,
+				// while we use bottom left. Flip the y-coordinate
+				tc.y = 1.0 - tc.y;
 			}
+		}
 
-			int numVerts;
-			if (indices != null) {
-				numVerts = indices.length;
-			} else {
-				numVerts = vertPos.length;
+		int[] indices = null;
+		if (prim.indicesAcc != null) {
+			indices = accToIntArray(prim.indicesAcc);
+		}
+
+		int numVerts;
+		if (indices != null) {
+			numVerts = indices.length;
+		} else {
+			numVerts = vertPos.length;
+		}
+
+		// Optional validation code
+		Accessor posAcc = getAccessor(prim.posAcc);
+		if (posAcc.min == null || posAcc.max == null || posAcc.min.length != 3 || posAcc.max.length != 3) {
+			throw new RenderException("Mesh position accessors missing min or max bounds");
+		}
+		Vec3d posMin = new Vec3d(posAcc.min[0], posAcc.min[1], posAcc.min[2]);
+		Vec3d posMax = new Vec3d(posAcc.max[0], posAcc.max[1], posAcc.max[2]);
+		AABB posBounds = new AABB(posMax, posMin);
+		for (Vec3d pos: vertPos) {
+			if (!posBounds.collides(pos, 0.0001)) {
+				throw new RenderException("Mesh position fails bounds check");
 			}
+		}
 
-			// Optional validation code
-			Accessor posAcc = getAccessor(prim.posAcc);
-			if (posAcc.min == null || posAcc.max == null || posAcc.min.length != 3 || posAcc.max.length != 3) {
-				throw new RenderException("Mesh position accessors missing min or max bounds");
+		// An accessor vertex that is used by several triangles is only looked up once
+		int[] outIndexForVert = new int[vertPos.length];
+		Arrays.fill(outIndexForVert, -1);
+
+		int[] outIndices = new int[numVerts];
+		for (int i = 0; i < numVerts; ++i) {
+			int vertIdx = i;
+			if (indices != null) {
+				vertIdx = indices[i];
 			}
-			Vec3d posMin = new Vec3d(posAcc.min[0], posAcc.min[1], posAcc.min[2]);
-			Vec3d posMax = new Vec3d(posAcc.max[0], posAcc.max[1], posAcc.max[2]);
-			AABB posBounds = new AABB(posMax, posMin);
-			for (Vec3d pos: vertPos) {
-				if (!posBounds.collides(pos, 0.0001)) {
-					throw new RenderException("Mesh position fails bounds check");
-				}
+			if (vertIdx >= vertPos.length) {
+				throw new RenderException(String.format("Mesh index out of range: %d", vertIdx));
 			}
-
-			VertexMap vMap = new VertexMap();
-			int[] outIndices = new int[numVerts];
-			for (int i = 0; i < numVerts; ++i) {
-				int vertIdx = i;
-				if (indices != null) {
-					vertIdx = indices[i];
-				}
+			int outIdx = outIndexForVert[vertIdx];
+			if (outIdx < 0) {
 				Vec3d pos = vertPos[vertIdx];
 				Vec3d norm = vertNorms[vertIdx];
 				Vec2d texCoord = null;
 				if (texCoords != null) {
 					texCoord = texCoords[vertIdx];
 				}
-				outIndices[i] = vMap.getVertIndex(pos, norm, texCoord);
+				outIdx = vMap.getVertIndex(pos, norm, texCoord);
+				outIndexForVert[vertIdx] = outIdx;
 			}
-
-
-			ret[primIdx] = numPrims++;
-			outputData.addSubMesh(vMap.getVertList(), outIndices);
+			outIndices[i] = outIdx;
 		}
-
-		processedMeshes.put(meshIdx, ret);
-		return ret;
+		return outIndices;
 	}
 
 	public static MeshData parseGLTF(URI asset) throws RenderException {
@@ -1372,94 +1440,74 @@ public class GLTFReader {
 
 		ByteBuffer gltfBuff = null;
 		ByteBuffer defaultBuff = null;
-		try {
-			if (asset.getScheme() != null && !asset.getScheme().equals("file")) {
-				throw new RenderException("GLB assets must be files");
-			}
+		if (asset.getScheme() != null && !asset.getScheme().equals("file")) {
+			throw new RenderException("GLB assets must be files");
+		}
 
-			File buffFile = new File(asset);
-			FileInputStream buffStream = new FileInputStream(buffFile);
+		File buffFile = new File(asset);
+		try (FileInputStream buffStream = new FileInputStream(buffFile)) {
 			FileChannel buffChann = buffStream.getChannel();
 
 			long fileSize = buffChann.size();
 			if (fileSize > (1 << 30)) {
 				// Arbitrary file size limit. We most likely do not want to support assets > 1GB
-				buffStream.close();
 				throw new RenderException("GLB asset is too large");
 			}
 
 			if (fileSize < 256) {
 				// Arbitrary file size limit. It is likely impossible to have a meaningful GLB asset this small
-				buffStream.close();
 				throw new RenderException("GLB asset is too small");
 			}
 
-			ByteBuffer headerBuff = ByteBuffer.allocateDirect(20);
-			buffChann.read(headerBuff);
+			// The file is read once and the chunks are views of it, so the binary data is not copied
+			ByteBuffer fileBuff = readBuffer(buffChann, (int)fileSize);
 
 			// GLB buffers are little endian
-			headerBuff.order(ByteOrder.LITTLE_ENDIAN);
-			headerBuff.flip();
+			fileBuff.order(ByteOrder.LITTLE_ENDIAN);
 
-			int magic = headerBuff.getInt();
-			int version = headerBuff.getInt();
-			int length = headerBuff.getInt();
+			int magic = fileBuff.getInt();
+			int version = fileBuff.getInt();
+			int length = fileBuff.getInt();
 
 			if (magic != 0x46546C67) {
-				buffStream.close();
 				throw new RenderException("Asset is not a GLB file");
 			}
 			if (version != 2) {
-				buffStream.close();
 				throw new RenderException("Unsupport GLTF version");
 			}
 
 			if (length != fileSize) {
-				buffStream.close();
 				throw new RenderException(String.format("GLB asset is incorrect size. Expected: %d, got: %d", length, fileSize));
 			}
 
-			int gltfChunkLength = headerBuff.getInt();
-			int gltfChunkType = headerBuff.getInt();
+			int gltfChunkLength = fileBuff.getInt();
+			int gltfChunkType = fileBuff.getInt();
 			if (gltfChunkType != 0x4E4F534A) {
-				buffStream.close();
 				throw new RenderException("GLTF chunk missing in GLB file");
 			}
-			if (fileSize < gltfChunkLength + 20) {
-				buffStream.close();
+			if (gltfChunkLength < 0 || fileSize < gltfChunkLength + 20) {
 				throw new RenderException("GLTF chuck reported size is too large for GLB file");
 			}
-			gltfBuff = ByteBuffer.allocateDirect(gltfChunkLength);
-			buffChann.read(gltfBuff);
-			gltfBuff.flip();
+			gltfBuff = sliceBuffer(fileBuff, 20, gltfChunkLength);
 
-			if (buffChann.position() != fileSize) {
+			int binPos = 20 + gltfChunkLength;
+			if (binPos != fileSize) {
 				// We are not at the end of the file, there is a binary chunk
-				ByteBuffer binHeaderBuff = ByteBuffer.allocateDirect(8);
-				buffChann.read(binHeaderBuff);
-
-				// GLB buffers are little endian
-				binHeaderBuff.order(ByteOrder.LITTLE_ENDIAN);
-				binHeaderBuff.flip();
-
-				int binChunkLength = binHeaderBuff.getInt();
-				int binChunkType = binHeaderBuff.getInt();
+				if (fileSize - binPos < 8) {
+					throw new RenderException("GLB chunk size is too large");
+				}
+				int binChunkLength = fileBuff.getInt(binPos);
+				int binChunkType = fileBuff.getInt(binPos + 4);
 				if (binChunkType != 0x004E4942) {
-					buffStream.close();
 					throw new RenderException("Unknown second GLB chunk type");
 				}
-				if (binChunkLength > fileSize - buffChann.position()) {
-					buffStream.close();
+				if (binChunkLength < 0 || binChunkLength > fileSize - binPos - 8) {
 					throw new RenderException("GLB chunk size is too large");
 				}
-				defaultBuff = ByteBuffer.allocateDirect(binChunkLength);
-				buffChann.read(defaultBuff);
+				defaultBuff = sliceBuffer(fileBuff, binPos + 8, binChunkLength);
 				defaultBuff.order(ByteOrder.LITTLE_ENDIAN);
-				defaultBuff.flip();
 			}
 
-			buffStream.close();
-
 		} catch(RenderException ex) {
 			throw ex;
 		} catch (Exception ex) {
@@ -1469,6 +1517,26 @@ public class GLTFReader {
 		return parser.outputData;
 	}
 
+	// Reads the start of a file into a heap buffer. The file is not mapped, since a mapping keeps
+	// the file locked on Windows until the buffer is garbage collected.
+	private static ByteBuffer readBuffer(FileChannel chann, int len) throws IOException {
+		ByteBuffer ret = ByteBuffer.allocate(len);
+		while (ret.hasRemaining()) {
+			if (chann.read(ret) < 0)
+				throw new RenderException("Unexpected end of file");
+		}
+		ret.flip();
+		return ret;
+	}
+
+	// Returns a buffer that shares the specified range of bytes
+	private static ByteBuffer sliceBuffer(ByteBuffer buff, int pos, int len) {
+		ByteBuffer ret = buff.duplicate();
+		ret.position(pos);
+		ret.limit(pos + len);
+		return ret.slice();
+	}
+
 	private GLTFReader(URI context, ByteBuffer gltfBuff, ByteBuffer defBuff) {
 		contextURI = context;
 		contextURI.normalize();
@@ -1526,7 +1594,7 @@ public class GLTFReader {
 			// Process the mesh and add a mesh instance
 
 			Mesh mesh = getMesh(node.meshIdx);
-			int[] subMeshes = getProcessedMesh(node.meshIdx);
+			int[] subMeshes = processedMeshes.get(node.meshIdx);
 			for (int i = 0; i < mesh.primitives.size(); ++i) {
 				// Add a sub mesh instance for each primitive in the mesh
 				int subMeshIdx = subMeshes[i];
@@ -1702,6 +1770,8 @@ public class GLTFReader {
 		// Stack for node loop detection
 		Stack<Integer> nodeStack = new Stack<>();
 
+		processMeshes(nodes);
+
 		MeshData.TreeNode rootNode = new MeshData.TreeNode();
 		rootNode.trans = new MeshData.StaticTrans(rotMat);
 		for (int node: nodes) {
@@ -119,6 +119,11 @@ public class Graph extends AbstractGraph  {
 	@Override
 	public void startUp() {
 		super.startUp();
+
+		// The graph data is used only for display
+		if (getJaamSimModel().isPresentationDisabled())
+			return;
+
 		extraStartGraph();
 
 		for (int i = 0; i < primarySeriesSize(); ++ i) {
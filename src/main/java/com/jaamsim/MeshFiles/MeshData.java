@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
- * Copyright (C) 2015-2020 JaamSim Software Inc.
+ * Copyright (C) 2015-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -41,6 +43,7 @@ import com.jaamsim.math.Vec3dInterner;
 import com.jaamsim.math.Vec4d;
 import com.jaamsim.math.Vec4dInterner;
 import com.jaamsim.render.Action;
+import com.jaamsim.render.LoaderPool;
 import com.jaamsim.render.RenderException;
 import com.jaamsim.render.RenderUtils;
 import com.jaamsim.render.Renderer;
@@ -55,7 +58,6 @@ public class MeshData {
 
 	private final static boolean LOG_DATA = false;
 
-	public final static int MAX_HULL_ATTEMPTS = 5;
 	public final static int MAX_HULL_POINTS = 100;
 	public final static int MAX_SUBINST_HULL_POINTS = 30;
 
@@ -734,8 +736,7 @@ public class MeshData {
 			}
 		}
 
-		sub.staticHull = ConvexHull.TryBuildHull(sub.verts, MAX_HULL_ATTEMPTS, MAX_SUBINST_HULL_POINTS, v3Interner);
-		sub.localBounds = sub.staticHull.getAABB(new Mat4d());
+		// The hull is built by finalizeData()
 	}
 
 	public void addSubLine(Vec3d[] vertices,
@@ -754,7 +755,7 @@ public class MeshData {
 			sub.verts.add(v3Interner.intern(v));
 		}
 
-		sub.hull = ConvexHull.TryBuildHull(sub.verts, MAX_HULL_ATTEMPTS, MAX_SUBINST_HULL_POINTS, v3Interner);
+		sub.hull = ConvexHull.TryBuildHull(sub.verts, MAX_SUBINST_HULL_POINTS, v3Interner);
 	}
 
 	public boolean hasTransparent() {
@@ -917,10 +918,46 @@ public class MeshData {
 
 	}
 
+	/**
+	 * Builds the convex hulls for any sub meshes that do not have one yet, in parallel if possible.
+	 */
+	private void buildSubMeshHulls() {
+		ArrayList<HullTask> tasks = new ArrayList<>();
+		for (SubMeshData sub : _subMeshesData) {
+			if (sub.staticHull == null)
+				tasks.add(new HullTask(sub));
+		}
+
+		if (tasks.size() < 2 || LoaderPool.getNumThreads() < 2) {
+			for (HullTask task : tasks) {
+				task.run();
+			}
+			return;
+		}
+		LoaderPool.invokeAll(tasks);
+	}
+
+	private static class HullTask implements Runnable {
+		private final SubMeshData sub;
+
+		HullTask(SubMeshData sub) {
+			this.sub = sub;
+		}
+
+		@Override
+		public void run() {
+			// The vertices are already interned, so the hull can be built without the interner
+			sub.staticHull = ConvexHull.TryBuildHull(sub.verts, MAX_SUBINST_HULL_POINTS, null);
+			sub.localBounds = sub.staticHull.getAABB(new Mat4d());
+		}
+	}
+
 	/**
 	 * Builds the convex hull of the current mesh based on all the existing sub meshes.
 	 */
 	public void finalizeData() {
+		buildSubMeshHulls();
+
 		// Scan the tree to see if any animated transforms are effectively static
 		class StaticWalker extends TreeWalker {
 			public int numMatricesRemoved = 0;
@@ -1042,7 +1079,7 @@ public class MeshData {
 			System.out.printf("Tree optimization - nodes: %d, passes: %d in %fms\n", optimTreeNodes, numPasses, optMS);
 		}
 
-		_staticHull = ConvexHull.TryBuildHull(totalHullPoints, MAX_HULL_ATTEMPTS, MAX_HULL_POINTS, v3Interner);
+		_staticHull = ConvexHull.TryBuildHull(totalHullPoints, MAX_HULL_POINTS, v3Interner);
 		_defaultBounds = _staticHull.getAABB(new Mat4d());
 
 		populateActionList();
@@ -1211,7 +1248,7 @@ public class MeshData {
 			hullPoints.addAll(subPoints);
 		}
 
-		ConvexHull ret = ConvexHull.TryBuildHull(hullPoints, MAX_HULL_ATTEMPTS, MAX_HULL_POINTS, null);
+		ConvexHull ret = ConvexHull.TryBuildHull(hullPoints, MAX_HULL_POINTS, null);
 		return ret;
 	}
 
@@ -1252,6 +1289,44 @@ public class MeshData {
 		return _actionDesc;
 	}
 
+	/**
+	 * Returns an estimate of the heap memory in bytes used by the vertex, index, transform and
+	 * image data for this mesh.
+	 */
+	public long getEstimatedSize() {
+		final long vec3Size = 48L;  // object and reference
+		final long vec2Size = 40L;
+		final long matSize = 152L;
+		long ret = 0L;
+		for (SubMeshData smd : _subMeshesData) {
+			ret += vec3Size*(smd.verts == null ? 0 : smd.verts.size());
+			ret += vec3Size*(smd.normals == null ? 0 : smd.normals.size());
+			ret += vec2Size*(smd.texCoords == null ? 0 : smd.texCoords.size());
+			ret += 4L*(smd.indices == null ? 0 : smd.indices.length);
+		}
+		for (SubLineData sld : _subLinesData) {
+			ret += vec3Size*sld.verts.size();
+		}
+		ret += 2L*matSize*(_staticMeshInstances.size() + _staticLineInstances.size());
+		for (StaticMeshBatch batch : _staticBatches.values()) {
+			ret += matSize*(batch.transform.size() + batch.invTrans.size());
+		}
+		if (meshBatchPos != null)
+			ret += vec3Size*meshBatchPos.size();
+		if (meshBatchNor != null)
+			ret += vec3Size*meshBatchNor.size();
+		if (meshBatchTex != null)
+			ret += vec2Size*meshBatchTex.size();
+		if (meshBatchIndices != null)
+			ret += 24L*meshBatchIndices.size();
+		if (lineBatchPos != null)
+			ret += vec3Size*lineBatchPos.size();
+		for (ByteBuffer buf : explicitImages.values()) {
+			ret += buf.capacity();
+		}
+		return ret;
+	}
+
 	public ArrayList<SubMeshData> getSubMeshData() {
 		return _subMeshesData;
 	}
@@ -1354,6 +1429,24 @@ public class MeshData {
 		b.writeByte((byte)(col.a*255));
 	}
 
+	// Returns the data in a block as an array of doubles
+	private static double[] readDoubles(DataBlock block) {
+		if (block == null)
+			return new double[0];
+		DoubleBuffer buf = ByteBuffer.wrap(block.getData(), 0, block.getDataSize()).asDoubleBuffer();
+		double[] ret = new double[buf.remaining()];
+		buf.get(ret);
+		return ret;
+	}
+
+	// Returns the data in a block as an array of ints
+	private static int[] readInts(DataBlock block) {
+		IntBuffer buf = ByteBuffer.wrap(block.getData(), 0, block.getDataSize()).asIntBuffer();
+		int[] ret = new int[buf.remaining()];
+		buf.get(ret);
+		return ret;
+	}
+
 	private Color4d readColorFromBlock(DataBlock block) {
 		int r = block.readByte() & 0x000000FF;
 		int g = block.readByte() & 0x000000FF;
@@ -1377,22 +1470,23 @@ public class MeshData {
 		DataBlock v3s = vectorsBlock.findChildByName("Vec3ds");
 		DataBlock v4s = vectorsBlock.findChildByName("Vec4ds");
 
-		int vec2dSize = (v2s != null) ? v2s.getDataSize() / 16 : 0;
-		Vec2d[] vec2ds = new Vec2d[vec2dSize];
-		for (int i = 0; i < vec2dSize; ++i) {
-			vec2ds[i] = new Vec2d(v2s.readDouble(), v2s.readDouble());
+		// The vector libraries and index lists are copied from the block buffers in bulk
+		double[] vals = readDoubles(v2s);
+		Vec2d[] vec2ds = new Vec2d[vals.length / 2];
+		for (int i = 0; i < vec2ds.length; ++i) {
+			vec2ds[i] = new Vec2d(vals[2*i], vals[2*i + 1]);
 		}
 
-		int vec3dSize = (v3s != null) ? v3s.getDataSize() / 24 : 0;
-		Vec3d[] vec3ds = new Vec3d[vec3dSize];
-		for (int i = 0; i < vec3dSize; ++i) {
-			vec3ds[i] = new Vec3d(v3s.readDouble(), v3s.readDouble(), v3s.readDouble());
+		vals = readDoubles(v3s);
+		Vec3d[] vec3ds = new Vec3d[vals.length / 3];
+		for (int i = 0; i < vec3ds.length; ++i) {
+			vec3ds[i] = new Vec3d(vals[3*i], vals[3*i + 1], vals[3*i + 2]);
 		}
 
-		int vec4dSize = (v4s != null) ? v4s.getDataSize() / 32 : 0;
-		Vec4d[] vec4ds = new Vec4d[vec4dSize];
-		for (int i = 0; i < vec4dSize; ++i) {
-			vec4ds[i] = new Vec4d(v4s.readDouble(), v4s.readDouble(), v4s.readDouble(), v4s.readDouble());
+		vals = readDoubles(v4s);
+		Vec4d[] vec4ds = new Vec4d[vals.length / 4];
+		for (int i = 0; i < vec4ds.length; ++i) {
+			vec4ds[i] = new Vec4d(vals[4*i], vals[4*i + 1], vals[4*i + 2], vals[4*i + 3]);
 		}
 
 		// Build up the sub mesh data
@@ -1406,35 +1500,32 @@ public class MeshData {
 
 			DataBlock vertBlock = subMeshBlock.findChildByName("Vertices");
 			if (vertBlock == null) throw new RenderException("Missing vertices in submesh");
-			subData.verts = new ArrayList<>(vertBlock.getDataSize() / 4);
-			for (int i = 0; i < vertBlock.getDataSize() / 4; ++i) {
-				int vertInd = vertBlock.readInt();
-				subData.verts.add(vec3ds[vertInd]);
+			int[] vertInds = readInts(vertBlock);
+			subData.verts = new ArrayList<>(vertInds.length);
+			for (int ind : vertInds) {
+				subData.verts.add(vec3ds[ind]);
 			}
 
 			DataBlock normBlock = subMeshBlock.findChildByName("Normals");
 			if (normBlock == null) throw new RenderException("Missing normals in submesh");
-			subData.normals = new ArrayList<>(normBlock.getDataSize() / 4);
-			for (int i = 0; i < normBlock.getDataSize() / 4; ++i) {
-				int normInd = normBlock.readInt();
-				subData.normals.add(vec3ds[normInd]);
+			int[] normInds = readInts(normBlock);
+			subData.normals = new ArrayList<>(normInds.length);
+			for (int ind : normInds) {
+				subData.normals.add(vec3ds[ind]);
 			}
 
 			DataBlock texCoordBlock = subMeshBlock.findChildByName("TexCoords");
 			if (texCoordBlock != null) {
-				subData.texCoords = new ArrayList<>(texCoordBlock.getDataSize() / 4);
-				for (int i = 0; i < texCoordBlock.getDataSize() / 4; ++i) {
-					int texInd = texCoordBlock.readInt();
-					subData.texCoords.add(vec2ds[texInd]);
+				int[] texInds = readInts(texCoordBlock);
+				subData.texCoords = new ArrayList<>(texInds.length);
+				for (int ind : texInds) {
+					subData.texCoords.add(vec2ds[ind]);
 				}
 			}
 
 			DataBlock indicesBlock = subMeshBlock.findChildByName("Indices");
 			if (indicesBlock == null) throw new RenderException("Missing indices in submesh");
-			subData.indices = new int[indicesBlock.getDataSize() / 4];
-			for (int i = 0; i < indicesBlock.getDataSize() / 4; ++i) {
-				subData.indices[i] = indicesBlock.readInt();
-			}
+			subData.indices = readInts(indicesBlock);
 
 			DataBlock hullBlock = subMeshBlock.findChildByName("ConvexHull");
 			if (hullBlock == null) throw new RenderException("Missing hull in submesh");
@@ -1463,7 +1554,7 @@ public class MeshData {
 			if (colorBlock == null) throw new RenderException("Missing color in subline");
 			subLine.diffuseColor = readColorFromBlock(colorBlock);
 
-			subLine.hull = ConvexHull.TryBuildHull(subLine.verts, MAX_HULL_ATTEMPTS, MAX_HULL_POINTS, v3Interner);
+			subLine.hull = ConvexHull.TryBuildHull(subLine.verts, MAX_HULL_POINTS, v3Interner);
 
 			_subLinesData.add(subLine);
 		}
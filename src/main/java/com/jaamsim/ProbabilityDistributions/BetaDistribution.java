@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -56,7 +56,7 @@ public class BetaDistribution extends Distribution {
 	@Override
 	public void earlyInit() {
 		super.earlyInit();
-		rng.setSeedStream(getStreamNumber(), getSubstreamNumber());
+		rng.setSeedStream(getStreamNumber(), getSubstreamNumber(), isAntithetic());
 	}
 
 	@Override
@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2022 JaamSim Software Inc.
+ * Copyright (C) 2022-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -60,7 +60,7 @@ public class BinomialDistribution extends Distribution {
 	@Override
 	public void earlyInit() {
 		super.earlyInit();
-		rng.setSeedStream(getStreamNumber(), getSubstreamNumber());
+		rng.setSeedStream(getStreamNumber(), getSubstreamNumber(), isAntithetic());
 	}
 
 	@Override
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -205,6 +205,14 @@ implements SampleProvider, RandomStreamUser {
 		return getSimulation().getSubstreamNumber();
 	}
 
+	/**
+	 * Returns true if the random generators are to return the antithetic values for the
+	 * present replication.
+	 */
+	public boolean isAntithetic() {
+		return getSimulation().isAntitheticReplication();
+	}
+
 	/**
 	 * Returns the next sample from the probability distribution.
 	 */
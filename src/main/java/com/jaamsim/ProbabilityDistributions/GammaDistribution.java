@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2022 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,8 +63,8 @@ public class GammaDistribution extends Distribution {
 	public void earlyInit() {
 		super.earlyInit();
 
-		rng1.setSeedStream(getStreamNumber()    , getSubstreamNumber());
-		rng2.setSeedStream(getStreamNumber() + 1, getSubstreamNumber());
+		rng1.setSeedStream(getStreamNumber()    , getSubstreamNumber(), isAntithetic());
+		rng2.setSeedStream(getStreamNumber() + 1, getSubstreamNumber(), isAntithetic());
 	}
 
 	@Override
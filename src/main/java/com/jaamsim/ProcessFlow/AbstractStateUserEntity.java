@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2020-2023 JaamSim Software Inc.
+ * Copyright (C) 2020-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,13 @@ public abstract class AbstractStateUserEntity extends StateEntity {
 	public static final String STATE_SETUP = "Setup";
 	public static final String STATE_SETDOWN = "Setdown";
 
+	protected static final int ID_MAINTENANCE = getStateId(STATE_MAINTENANCE);
+	protected static final int ID_BREAKDOWN = getStateId(STATE_BREAKDOWN);
+	protected static final int ID_STOPPED = getStateId(STATE_STOPPED);
+	protected static final int ID_BLOCKED = getStateId(STATE_BLOCKED);
+	protected static final int ID_SETUP = getStateId(STATE_SETUP);
+	protected static final int ID_SETDOWN = getStateId(STATE_SETDOWN);
+
 	protected static final Color4d COL_MAINTENANCE = ColourInput.RED;
 	protected static final Color4d COL_BREAKDOWN = ColourInput.RED;
 	protected static final Color4d COL_STOPPED = ColourInput.getColorWithName("gray25");
@@ -133,44 +140,44 @@ public abstract class AbstractStateUserEntity extends StateEntity {
 
 		// Inactive
 		if (!this.isActive()) {
-			this.setPresentState(STATE_INACTIVE);
+			this.setPresentState(ID_INACTIVE);
 			return;
 		}
 
 		// Working (Busy)
 		if (this.isBusy()) {
-			this.setPresentState(STATE_WORKING);
+			this.setPresentState(ID_WORKING);
 			return;
 		}
 
 		// Setup
 		if (this.isSetup()) {
-			this.setPresentState(STATE_SETUP);
+			this.setPresentState(ID_SETUP);
 			return;
 		}
 
 		// Setdown
 		if (this.isSetdown()) {
-			this.setPresentState(STATE_SETDOWN);
+			this.setPresentState(ID_SETDOWN);
 			return;
 		}
 
 		// Not working because of maintenance or a closure (UnableToWork)
 		if (this.isMaintenance()) {
-			this.setPresentState(STATE_MAINTENANCE);
+			this.setPresentState(ID_MAINTENANCE);
 			return;
 		}
 		if (this.isBreakdown()) {
-			this.setPresentState(STATE_BREAKDOWN);
+			this.setPresentState(ID_BREAKDOWN);
 			return;
 		}
 		if (this.isStopped()) {
-			this.setPresentState(STATE_STOPPED);
+			this.setPresentState(ID_STOPPED);
 			return;
 		}
 
 		// Not working because there is nothing to do (Idle)
-		this.setPresentState(STATE_IDLE);
+		this.setPresentState(ID_IDLE);
 		return;
 	}
 
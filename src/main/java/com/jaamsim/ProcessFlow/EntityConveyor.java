@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -427,7 +427,7 @@ public class EntityConveyor extends LinkedService implements LineEntity {
 	@Override
 	public void setPresentState() {
 		if (isIdle() && !entryList.isEmpty()) {
-			setPresentState(STATE_BLOCKED);
+			setPresentState(ID_BLOCKED);
 			return;
 		}
 		super.setPresentState();
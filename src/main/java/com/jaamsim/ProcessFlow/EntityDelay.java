@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
- * Copyright (C) 2019-2023 JaamSim Software Inc.
+ * Copyright (C) 2019-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import com.jaamsim.SubModels.CompoundEntity;
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.basicsim.EntityTarget;
 import com.jaamsim.events.EventManager;
+import com.jaamsim.events.FifoLane;
 import com.jaamsim.input.ColourInput;
 import com.jaamsim.input.Input;
 import com.jaamsim.input.InputCallback;
@@ -78,6 +79,7 @@ public class EntityDelay extends LinkedComponent implements LineEntity {
 
 	private long exitTicks;  // ticks at which the previous entity will leave the path
 	private final LinkedHashMap<Long, EntityDelayEntry> entityMap = new LinkedHashMap<>();  // Entities being handled
+	private final DelayLane lane = new DelayLane(this);  // Entities that cannot be overtaken
 
 	{
 		displayModelListInput.clearValidClasses();
@@ -139,6 +141,7 @@ public class EntityDelay extends LinkedComponent implements LineEntity {
 		super.earlyInit();
 		exitTicks = -1L;
 		entityMap.clear();
+		lane.clear();
 	}
 
 	@Override
@@ -183,8 +186,11 @@ public class EntityDelay extends LinkedComponent implements LineEntity {
 			entityMap.put(ent.getEntityNumber(), entry);
 		}
 
-		RemoveDisplayEntityTarget target = new RemoveDisplayEntityTarget(this, ent);
-		scheduleProcessTicks(durTicks, 5, true, target, null); // FIFO
+		// Entities that leave in the order they arrived share a single event
+		if (!lane.add(durTicks, ent)) {
+			RemoveDisplayEntityTarget target = new RemoveDisplayEntityTarget(this, ent);
+			scheduleProcessTicks(durTicks, 5, true, target, null); // FIFO
+		}
 
 		// Set the present state to Working
 		this.setPresentState();
@@ -204,6 +210,30 @@ public class EntityDelay extends LinkedComponent implements LineEntity {
 		}
 	}
 
+	private static class DelayLane extends FifoLane<DisplayEntity> {
+		private final EntityDelay delay;
+
+		DelayLane(EntityDelay d) {
+			super(5);
+			delay = d;
+		}
+
+		@Override
+		protected void release(DisplayEntity ent) {
+			delay.removeDisplayEntity(ent);
+		}
+
+		@Override
+		public String getDescription() {
+			return delay.getName() + ".removeDisplayEntity";
+		}
+
+		@Override
+		public Object getOwner() {
+			return delay;
+		}
+	}
+
 	public void removeDisplayEntity(DisplayEntity ent) {
 
 		// Remove the entity from the lists
@@ -221,10 +251,10 @@ public class EntityDelay extends LinkedComponent implements LineEntity {
 
 	public void setPresentState() {
 		if (this.getNumberInProgress() > 0) {
-			this.setPresentState("Working");
+			this.setPresentState(ID_WORKING);
 		}
 		else {
-			this.setPresentState("Idle");
+			this.setPresentState(ID_IDLE);
 		}
 	}
 
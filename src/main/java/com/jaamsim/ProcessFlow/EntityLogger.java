@@ -23,6 +23,7 @@ import com.jaamsim.BasicObjects.Logger;
 import com.jaamsim.BooleanProviders.BooleanProvInput;
 import com.jaamsim.Commands.KeywordCommand;
 import com.jaamsim.Graphics.DisplayEntity;
+import com.jaamsim.basicsim.ColumnFileWriter;
 import com.jaamsim.basicsim.FileEntity;
 import com.jaamsim.input.InputAgent;
 import com.jaamsim.input.InterfaceEntityInput;
@@ -105,6 +106,30 @@ public class EntityLogger extends Logger implements Linkable, StateEntityListene
 		file.format("\t%s", ent);
 	}
 
+	@Override
+	protected void addColumns(ColumnFileWriter writer) {
+		double simTime = getSimTime();
+		if (isTraceEntityStates(simTime)) {
+			writer.addStringColumn("Entity");
+			writer.addStringColumn("State");
+			return;
+		}
+		writer.addStringColumn("this.obj");
+	}
+
+	@Override
+	protected void recordColumns(ColumnFileWriter writer, double simTime, DisplayEntity ent) {
+		if (isTraceEntityStates(simTime)) {
+			writer.setString(1, ent == null ? null : ent.getName());
+			String state = null;
+			if (ent instanceof StateEntity)
+				state = ((StateEntity) ent).getPresentState(simTime);
+			writer.setString(2, state);
+			return;
+		}
+		writer.setString(1, ent == null ? null : ent.getName());
+	}
+
 	@Override
 	public boolean isWatching(StateEntity ent) {
 		// Method not used
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2003-2011 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -280,6 +280,7 @@ public class Queue extends LinkedComponent {
 
 		QueueEntry entry = new QueueEntry(ent, m, pri, n, simTime, rh);
 		storage.add(entry);
+		invalidateOutputs();
 
 		int maxLength = (int) maxValidLength.getNextSample(this, simTime);
 		if (storage.size() > maxLength)
@@ -349,6 +350,7 @@ public class Queue extends LinkedComponent {
 
 		// Remove the entity from the storage
 		boolean found = storage.remove(entry);
+		invalidateOutputs();
 		if (!found)
 			error("Cannot find the entry in itemSet.");
 
@@ -685,7 +687,8 @@ public class Queue extends LinkedComponent {
 	@Output(name = "QueueLength",
 	 description = "The present number of entities in the queue.",
 	    unitType = DimensionlessUnit.class,
-	    sequence = 0)
+	    sequence = 0,
+	  pure = true)
 	public int getQueueLength(double simTime) {
 		return getCount();
 	}
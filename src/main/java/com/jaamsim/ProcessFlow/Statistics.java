@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2018-2023 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,6 @@
  */
 package com.jaamsim.ProcessFlow;
 
-import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -25,6 +24,8 @@ import com.jaamsim.BooleanProviders.BooleanProvInput;
 import com.jaamsim.Graphics.DisplayEntity;
 import com.jaamsim.Samples.SampleInput;
 import com.jaamsim.Samples.SampleListInput;
+import com.jaamsim.Statistics.QuantileSketch;
+import com.jaamsim.Statistics.QuantileSketchProvider;
 import com.jaamsim.Statistics.SampleFrequency;
 import com.jaamsim.Statistics.SampleStatistics;
 import com.jaamsim.Statistics.TimeBasedStatistics;
@@ -47,7 +48,7 @@ import com.jaamsim.units.UserSpecifiedUnit;
  * @author Harry King
  *
  */
-public class Statistics extends LinkedComponent {
+public class Statistics extends LinkedComponent implements QuantileSketchProvider {
 
 	@Keyword(description = "The unit type for the variable whose statistics will be collected.",
 	         exampleList = {"DistanceUnit"})
@@ -65,9 +66,8 @@ public class Statistics extends LinkedComponent {
 
 	@Keyword(description = "List of percentiles for which the corresponding recording values will "
 	                     + "be returned by the 'PercentileValues' output. "
-	                     + "This input requires the 'HistogramBinWidth' input to be specified, "
-	                     + "and the accuracy of the values for the specified percentiles will "
-	                     + "depend on the size of the bin width.",
+	                     + "The values are estimated to within 1% of the recorded values and do "
+	                     + "not require the 'HistogramBinWidth' input.",
 	         exampleList = {"90 95 99"})
 	private final SampleListInput targetPercentiles;
 
@@ -85,6 +85,7 @@ public class Statistics extends LinkedComponent {
 	private final SampleStatistics sampStats = new SampleStatistics();
 	private final TimeBasedStatistics timeStats = new TimeBasedStatistics();
 	private final SampleFrequency freq = new SampleFrequency(0, 10);
+	private final QuantileSketch sketch = new QuantileSketch();
 	private final LinkedHashMap<String, SampleStatistics> stateStats = new LinkedHashMap<>();
 
 	{
@@ -136,6 +137,7 @@ public class Statistics extends LinkedComponent {
 		sampStats.clear();
 		timeStats.clear();
 		freq.clear();
+		sketch.clear();
 		stateStats.clear();
 	}
 
@@ -143,6 +145,14 @@ public class Statistics extends LinkedComponent {
 		return histogramBinWidth.getNextSample(this, 0.0d);
 	}
 
+	/**
+	 * Returns true if the values are needed for the percentiles, either for this entity or for
+	 * the pooled percentiles printed for each scenario.
+	 */
+	private boolean isRecordSketch() {
+		return targetPercentiles.getListSize() > 0 || getSimulation().getPrintPooledPercentiles();
+	}
+
 	public boolean isRecordEntityStateTimes(double simTime) {
 		return recordEntityStateTimes.getNextBoolean(this, simTime);
 	}
@@ -161,6 +171,9 @@ public class Statistics extends LinkedComponent {
 			double val = sampleValue.getNextSample(this, simTime);
 			sampStats.addValue(val);
 			timeStats.addValue(simTime, val);
+			if (isRecordSketch()) {
+				sketch.addValue(val);
+			}
 			if (!histogramBinWidth.isDefault()) {
 				freq.addValue((int) Math.round(val/getBinWidth()));
 			}
@@ -202,6 +215,7 @@ public class Statistics extends LinkedComponent {
 		sampStats.clear();
 		timeStats.clear();
 		freq.clear();
+		sketch.clear();
 		stateStats.clear();
 	}
 
@@ -210,6 +224,11 @@ public class Statistics extends LinkedComponent {
 		return unitType.getUnitType();
 	}
 
+	@Override
+	public QuantileSketch getQuantileSketch(double simTime) {
+		return new QuantileSketch(sketch);
+	}
+
 	// ******************************************************************************************************
 	// OUTPUT METHODS
 	// ******************************************************************************************************
@@ -346,33 +365,9 @@ public class Statistics extends LinkedComponent {
 	    sequence = 12)
 	public double[] getPercentileValues(double simTime) {
 		double[] ret = new double[targetPercentiles.getListSize()];
-		if (histogramBinWidth.isDefault()) {
-			return ret;
-		}
-		double[] cumFractions = getHistogramCumulativeBinFractions(simTime);
-		double[] values = getHistogramBinUpperLimits(simTime);
 		for (int i = 0; i < targetPercentiles.getListSize(); i++) {
 			double targetFraction = targetPercentiles.getNextSample(i, this, simTime) / 100.0d;
-			targetFraction = Math.min(targetFraction, 1.0d);
-			targetFraction = Math.max(targetFraction, 0.0d);
-			int k = Arrays.binarySearch(cumFractions, targetFraction);
-			if (k >= 0) {
-				ret[i] = values[k];
-				continue;
-			}
-			int index = -k - 1;
-			index = Math.min(index, cumFractions.length - 1);
-			if (index == 0) {
-				ret[i] = values[0] * targetFraction / cumFractions[0];
-				continue;
-			}
-			if (index >= values.length) {
-				ret[i] = values[values.length - 1];
-				continue;
-			}
-			double ratio = (targetFraction - cumFractions[index - 1])
-					/ (cumFractions[index] - cumFractions[index - 1]);
-			ret[i] = values[index - 1] + ratio * (values[index] - values[index - 1]);
+			ret[i] = sketch.getQuantile(targetFraction);
 		}
 		return ret;
 	}
@@ -0,0 +1,399 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.Statistics;
+
+import com.jaamsim.basicsim.ErrorException;
+
+/**
+ * Estimates the quantiles of a stream of weighted values using a fixed amount of memory.
+ * <p>
+ * Each value is counted in a logarithmically spaced bin so that the returned quantiles are within
+ * a given relative accuracy of the true values (DDSketch). Positive and negative values are held
+ * in separate sets of bins. If the number of bins for either sign exceeds the maximum, the bins
+ * closest to zero are combined, so only the accuracy for the smallest magnitudes is lost.
+ * Sketches with the same accuracy can be merged, which gives the same result as recording all
+ * of the values in one sketch.
+ */
+public class QuantileSketch {
+
+	public static final double DEFAULT_ACCURACY = 0.01d;
+	public static final int DEFAULT_MAX_BINS = 2048;
+
+	private final double accuracy;
+	private final double gamma;
+	private final double logGamma;
+	private final int maxBins;
+
+	private final BinStore positive;
+	private final BinStore negative;
+	private double zeroCount;
+	private double count;
+	private double minVal = Double.NaN;
+	private double maxVal = Double.NaN;
+
+	public QuantileSketch() {
+		this(DEFAULT_ACCURACY, DEFAULT_MAX_BINS);
+	}
+
+	/**
+	 * Constructs a sketch with the specified accuracy and memory limit.
+	 * @param acc - relative accuracy of the returned quantiles, between 0 and 1
+	 * @param max - maximum number of bins for the positive values and for the negative values
+	 */
+	public QuantileSketch(double acc, int max) {
+		if (acc <= 0.0d || acc >= 1.0d || max < 2)
+			throw new ErrorException("Invalid quantile sketch parameters: %s, %s", acc, max);
+		accuracy = acc;
+		gamma = (1.0d + acc)/(1.0d - acc);
+		logGamma = Math.log(gamma);
+		maxBins = max;
+		positive = new BinStore(max);
+		negative = new BinStore(max);
+	}
+
+	/**
+	 * Constructs a copy of the specified sketch.
+	 * @param sketch - sketch to be copied
+	 */
+	public QuantileSketch(QuantileSketch sketch) {
+		this(sketch.accuracy, sketch.maxBins);
+		merge(sketch);
+	}
+
+	public void clear() {
+		positive.clear();
+		negative.clear();
+		zeroCount = 0.0d;
+		count = 0.0d;
+		minVal = Double.NaN;
+		maxVal = Double.NaN;
+	}
+
+	public void addValue(double val) {
+		addValue(val, 1.0d);
+	}
+
+	/**
+	 * Records the specified value with the specified weight, such as the length of time for which
+	 * the value was held.
+	 * @param val - value to be recorded
+	 * @param weight - non-negative weight for the value
+	 */
+	public void addValue(double val, double weight) {
+		if (Double.isNaN(val) || !(weight > 0.0d))
+			return;
+
+		if (val >= Double.MIN_NORMAL)
+			positive.add(getIndex(val), weight);
+		else if (val <= -Double.MIN_NORMAL)
+			negative.add(getIndex(-val), weight);
+		else
+			zeroCount += weight;
+
+		count += weight;
+		if (Double.isNaN(minVal) || val < minVal) {
+			minVal = val;
+		}
+		if (Double.isNaN(maxVal) || val > maxVal) {
+			maxVal = val;
+		}
+	}
+
+	/**
+	 * Adds the values recorded by the specified sketch to this one.
+	 * @param sketch - sketch whose values are to be added
+	 */
+	public void merge(QuantileSketch sketch) {
+		if (sketch.accuracy != accuracy)
+			throw new ErrorException("Cannot merge quantile sketches with different accuracies: %s, %s",
+					accuracy, sketch.accuracy);
+		if (sketch.count == 0.0d)
+			return;
+
+		positive.merge(sketch.positive);
+		negative.merge(sketch.negative);
+		zeroCount += sketch.zeroCount;
+
+		count += sketch.count;
+		if (Double.isNaN(minVal) || sketch.minVal < minVal) {
+			minVal = sketch.minVal;
+		}
+		if (Double.isNaN(maxVal) || sketch.maxVal > maxVal) {
+			maxVal = sketch.maxVal;
+		}
+	}
+
+	/**
+	 * Returns the total weight of the recorded values.
+	 */
+	public double getCount() {
+		return count;
+	}
+
+	public double getMin() {
+		return minVal;
+	}
+
+	public double getMax() {
+		return maxVal;
+	}
+
+	public double getAccuracy() {
+		return accuracy;
+	}
+
+	/**
+	 * Returns the number of bins that hold recorded values.
+	 */
+	public int getNumBins() {
+		return positive.getNumBins() + negative.getNumBins();
+	}
+
+	/**
+	 * Returns the estimated value below which the specified fraction of the recorded values lie.
+	 * @param q - fraction between 0 and 1
+	 * @return estimated quantile, or NaN if no values have been recorded
+	 */
+	public double getQuantile(double q) {
+		return getQuantile(q, Double.NaN, 0.0d);
+	}
+
+	/**
+	 * Returns the estimated quantile for the recorded values together with one further value,
+	 * without recording that value. The result is the same as for a copy of this sketch to which
+	 * the value has been added.
+	 * @param q - fraction between 0 and 1
+	 * @param val - further value, ignored if NaN
+	 * @param weight - weight for the further value, ignored if not positive
+	 * @return estimated quantile, or NaN if there are no values
+	 */
+	public double getQuantile(double q, double val, double weight) {
+		if (Double.isNaN(val) || !(weight > 0.0d)) {
+			val = Double.NaN;
+			weight = 0.0d;
+		}
+
+		double total = count + weight;
+		if (total == 0.0d)
+			return Double.NaN;
+
+		double min = minVal;
+		double max = maxVal;
+		if (!Double.isNaN(val)) {
+			min = Double.isNaN(min) ? val : Math.min(min, val);
+			max = Double.isNaN(max) ? val : Math.max(max, val);
+		}
+		if (q <= 0.0d)
+			return min;
+		if (q >= 1.0d)
+			return max;
+
+		// Bin for the further value
+		double negWeight = 0.0d;
+		double zeroWeight = 0.0d;
+		double posWeight = 0.0d;
+		int extraIndex = 0;
+		if (val >= Double.MIN_NORMAL) {
+			extraIndex = getIndex(val);
+			posWeight = weight;
+		}
+		else if (val <= -Double.MIN_NORMAL) {
+			extraIndex = getIndex(-val);
+			negWeight = weight;
+		}
+		else {
+			zeroWeight = weight;
+		}
+
+		double rank = q*total;
+		double ret;
+
+		// Negative values, starting with the largest magnitude
+		double cum = negative.total + negWeight;
+		if (cum >= rank) {
+			int ind = negative.getIndexAtRank(rank, true, extraIndex, negWeight);
+			ret = -getValue(ind);
+		}
+		else {
+			cum += zeroCount + zeroWeight;
+			if (cum >= rank) {
+				ret = 0.0d;
+			}
+			else {
+				int ind = positive.getIndexAtRank(rank - cum, false, extraIndex, posWeight);
+				ret = getValue(ind);
+			}
+		}
+		return Math.max(min, Math.min(max, ret));
+	}
+
+	private int getIndex(double val) {
+		return (int) Math.ceil(Math.log(val)/logGamma);
+	}
+
+	private double getValue(int index) {
+		return 2.0d*Math.exp(index*logGamma)/(gamma + 1.0d);
+	}
+
+	/**
+	 * Weights for a contiguous range of bin indices. The array is re-centred when a value falls
+	 * outside it, and never covers more than twice the maximum number of bins.
+	 */
+	private static final class BinStore {
+		private static final int INITIAL_SIZE = 64;
+
+		private final int maxBins;
+		private double[] counts;
+		private int offset;  // bin index for counts[0]
+		private int minIndex;
+		private int maxIndex;
+		double total;
+
+		BinStore(int max) {
+			maxBins = max;
+		}
+
+		void clear() {
+			counts = null;
+			total = 0.0d;
+		}
+
+		int getNumBins() {
+			if (total == 0.0d)
+				return 0;
+			int ret = 0;
+			for (int i = minIndex; i <= maxIndex; i++) {
+				if (counts[i - offset] > 0.0d)
+					ret++;
+			}
+			return ret;
+		}
+
+		void add(int index, double weight) {
+			if (total == 0.0d) {
+				if (counts == null || index < offset || index >= offset + counts.length) {
+					counts = new double[INITIAL_SIZE];
+					offset = index - INITIAL_SIZE/2;
+				}
+				minIndex = index;
+				maxIndex = index;
+			}
+			else if (index < minIndex || index > maxIndex) {
+				int lo = Math.min(minIndex, index);
+				int hi = Math.max(maxIndex, index);
+
+				// Values beyond the limit are counted in the lowest bin
+				if (hi - lo >= maxBins) {
+					lo = hi - maxBins + 1;
+					index = Math.max(index, lo);
+				}
+				setRange(lo, hi);
+			}
+			counts[index - offset] += weight;
+			total += weight;
+		}
+
+		private void setRange(int lo, int hi) {
+
+			// Combine the bins below the new lowest index
+			double folded = 0.0d;
+			for (int i = minIndex; i < lo && i <= maxIndex; i++) {
+				folded += counts[i - offset];
+				counts[i - offset] = 0.0d;
+			}
+
+			// Move the bins to a larger array, centred on the new range
+			if (lo < offset || hi >= offset + counts.length) {
+				int num = hi - lo + 1;
+				int len = Math.max(num, Math.min(2*counts.length, 2*maxBins));
+				double[] newCounts = new double[len];
+				int newOffset = lo - (len - num)/2;
+				int start = Math.max(minIndex, lo);
+				if (start <= maxIndex) {
+					System.arraycopy(counts, start - offset, newCounts, start - newOffset, maxIndex - start + 1);
+				}
+				counts = newCounts;
+				offset = newOffset;
+			}
+
+			counts[lo - offset] += folded;
+			minIndex = lo;
+			maxIndex = hi;
+		}
+
+		void merge(BinStore store) {
+			if (store.total == 0.0d)
+				return;
+			for (int i = store.minIndex; i <= store.maxIndex; i++) {
+				double val = store.counts[i - store.offset];
+				if (val > 0.0d)
+					add(i, val);
+			}
+		}
+
+		/**
+		 * Returns the index of the bin that contains the specified cumulative weight, counted from
+		 * the lowest or highest index. A further weight is included for the specified index, with
+		 * the lowest bins combined as they would be if that weight had been added.
+		 */
+		int getIndexAtRank(double rank, boolean fromHighest, int extraIndex, double extraWeight) {
+			int lo = minIndex;
+			int hi = maxIndex;
+			if (total == 0.0d) {
+				lo = extraIndex;
+				hi = extraIndex;
+			}
+			else if (extraWeight > 0.0d) {
+				lo = Math.min(lo, extraIndex);
+				hi = Math.max(hi, extraIndex);
+				if (hi - lo >= maxBins) {
+					lo = hi - maxBins + 1;
+					extraIndex = Math.max(extraIndex, lo);
+				}
+			}
+
+			double cum = 0.0d;
+			if (fromHighest) {
+				for (int i = hi; i > lo; i--) {
+					cum += getWeight(i, extraIndex, extraWeight);
+					if (cum >= rank)
+						return i;
+				}
+				return lo;
+			}
+
+			// The bins below the lowest index are combined with it
+			for (int i = minIndex; i < lo && i <= maxIndex && total > 0.0d; i++) {
+				cum += counts[i - offset];
+			}
+			for (int i = lo; i < hi; i++) {
+				cum += getWeight(i, extraIndex, extraWeight);
+				if (cum >= rank)
+					return i;
+			}
+			return hi;
+		}
+
+		private double getWeight(int index, int extraIndex, double extraWeight) {
+			double ret = (index == extraIndex) ? extraWeight : 0.0d;
+			if (total > 0.0d && index >= minIndex && index <= maxIndex)
+				ret += counts[index - offset];
+			return ret;
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.Statistics;
+
+/**
+ * An object whose recorded values are summarised by a QuantileSketch. The sketches for each
+ * replication of a scenario are merged by the Scenario.
+ */
+public interface QuantileSketchProvider {
+
+	/**
+	 * Returns a copy of the sketch of the values that have been recorded up to the specified
+	 * simulation time.
+	 * @param simTime - present simulation time
+	 * @return new sketch
+	 */
+	public QuantileSketch getQuantileSketch(double simTime);
+
+}
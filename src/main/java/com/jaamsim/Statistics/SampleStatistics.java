@@ -30,6 +30,16 @@ public class SampleStatistics {
 
 	public SampleStatistics() {}
 
+	public SampleStatistics(SampleStatistics stats) {
+		count = stats.count;
+		avg = stats.avg;
+		q = stats.q;
+		sum = stats.sum;
+		sumSquared = stats.sumSquared;
+		minVal = stats.minVal;
+		maxVal = stats.maxVal;
+	}
+
 	public void clear() {
 		count = 0L;
 		avg = 0.0d;
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2019-2023 JaamSim Software Inc.
+ * Copyright (C) 2019-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -55,6 +55,8 @@ public class Threshold extends StateEntity implements SubjectEntity {
 
 	private static final String STATE_OPEN = "Open";
 	private static final String STATE_CLOSED = "Closed";
+	private static final int ID_OPEN = getStateId(STATE_OPEN);
+	private static final int ID_CLOSED = getStateId(STATE_CLOSED);
 
 	private final SubjectEntityDelegate subject = new SubjectEntityDelegate(this);
 
@@ -176,10 +178,10 @@ public class Threshold extends StateEntity implements SubjectEntity {
 
 	public void setPresentState() {
 		if (open) {
-			setPresentState(STATE_OPEN);
+			setPresentState(ID_OPEN);
 		}
 		else {
-			setPresentState(STATE_CLOSED);
+			setPresentState(ID_CLOSED);
 		}
 	}
 
@@ -0,0 +1,312 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream that hands its data to a background thread for writing.
+ * <p>
+ * Bytes are collected in fixed-size chunks that are held in a bounded ring buffer. The producing
+ * thread fills the chunk at the head of the ring and the writer thread drains the chunks at the
+ * tail to the underlying stream. The producer only blocks when every chunk in the ring is waiting
+ * to be written, which bounds the memory used by the stream.
+ * <p>
+ * A call to flush() is asynchronous: the partially filled chunk is passed to the writer thread
+ * only if the flush interval has elapsed since the last hand-off. The underlying stream is
+ * flushed only by sync() and close(). The sync() method waits until all the data has been
+ * written and flushed. The close() method always writes out the remaining
+ * data and waits for the writer thread to finish.
+ * <p>
+ * The stream is intended for a single producing thread.
+ */
+public class AsyncOutputStream extends OutputStream {
+
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+	public static final int DEFAULT_NUM_CHUNKS = 16;
+
+	private final OutputStream out;
+	private final Thread writerThread;
+	private final long flushIntervalNanos;
+
+	// Ring buffer state, the counters are guarded by 'lock'
+	private final Object lock = new Object();
+	private final byte[][] chunks;
+	private final int[] lengths;
+	private long published;  // number of chunks handed to the writer thread
+	private long written;    // number of chunks written by the writer thread
+	private boolean flushRequested;
+	private long synced;     // number of chunks written before the last flush of the underlying stream
+	private boolean closed;
+	private IOException writeError;
+
+	// Producer state
+	private byte[] curChunk;
+	private int curLen;
+	private long lastPublishNanos;
+	private long bytesIn;
+
+	// Writer state
+	private volatile long bytesOut;
+
+	public AsyncOutputStream(OutputStream out, String name) {
+		this(out, name, DEFAULT_CHUNK_SIZE, DEFAULT_NUM_CHUNKS, 0L);
+	}
+
+	/**
+	 * Creates a new stream and starts its writer thread.
+	 * @param out - stream to which the data is written
+	 * @param name - name for the writer thread
+	 * @param chunkSize - size of each chunk in bytes
+	 * @param numChunks - number of chunks in the ring buffer
+	 * @param flushIntervalMillis - minimum time between hand-offs of partial chunks by flush()
+	 */
+	public AsyncOutputStream(OutputStream out, String name, int chunkSize, int numChunks, long flushIntervalMillis) {
+		if (chunkSize <= 0 || numChunks < 2)
+			throw new IllegalArgumentException("Invalid ring buffer size");
+
+		this.out = out;
+		flushIntervalNanos = Math.max(0L, flushIntervalMillis) * 1000000L;
+		chunks = new byte[numChunks][chunkSize];
+		lengths = new int[numChunks];
+		published = 0;
+		written = 0;
+		curChunk = chunks[0];
+		curLen = 0;
+		lastPublishNanos = System.nanoTime();
+
+		writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeLoop();
+			}
+		}, name);
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (curLen == curChunk.length)
+			publish();
+		curChunk[curLen++] = (byte)b;
+		bytesIn++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		bytesIn += len;
+		while (len > 0) {
+			if (curLen == curChunk.length)
+				publish();
+			int n = Math.min(len, curChunk.length - curLen);
+			System.arraycopy(b, off, curChunk, curLen, n);
+			curLen += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Passes any buffered data to the writer thread if the flush interval has elapsed since the
+	 * last hand-off. The data is not guaranteed to be written when this method returns, and the
+	 * underlying stream is not flushed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (curLen == 0)
+			return;
+		if (System.nanoTime() - lastPublishNanos < flushIntervalNanos)
+			return;
+		publish();
+	}
+
+	/**
+	 * Writes all the buffered data to the underlying stream and flushes it. Returns once the
+	 * writer thread has flushed the underlying stream after writing the last chunk handed to it.
+	 */
+	public void sync() throws IOException {
+		if (curLen > 0)
+			publish();
+
+		synchronized (lock) {
+			long target = published;
+			if (synced < target) {
+				flushRequested = true;
+				lock.notifyAll();
+			}
+			while (synced < target) {
+				if (writeError != null)
+					throw writeError;
+				if (closed)
+					return;
+				try {
+					lock.wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the writer thread");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes all the buffered data to the underlying stream, waits for the writer thread to
+	 * finish, and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (closed)
+				return;
+		}
+		if (curLen > 0)
+			publish();
+
+		synchronized (lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+
+		try {
+			writerThread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		IOException err;
+		synchronized (lock) {
+			err = writeError;
+		}
+		try {
+			out.close();
+		}
+		catch (IOException e) {
+			if (err == null)
+				err = e;
+		}
+		if (err != null)
+			throw err;
+	}
+
+	/**
+	 * Returns the number of bytes that have been passed to this stream.
+	 */
+	public long getBytesIn() {
+		return bytesIn;
+	}
+
+	/**
+	 * Returns the number of bytes that have been written to the underlying stream.
+	 */
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	/**
+	 * Hands the present chunk to the writer thread and waits for a free chunk to fill.
+	 */
+	private void publish() throws IOException {
+		synchronized (lock) {
+			if (writeError != null)
+				throw writeError;
+			if (closed)
+				throw new IOException("Stream closed");
+
+			lengths[(int)(published % chunks.length)] = curLen;
+			published++;
+			lock.notifyAll();
+
+			// Wait for the writer thread to free up the next chunk in the ring
+			while (published - written >= chunks.length) {
+				if (writeError != null)
+					throw writeError;
+				try {
+					lock.wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the writer thread");
+				}
+			}
+			curChunk = chunks[(int)(published % chunks.length)];
+		}
+		curLen = 0;
+		lastPublishNanos = System.nanoTime();
+	}
+
+	private void writeLoop() {
+		while (true) {
+			int idx;
+			long seq;
+			boolean doFlush;
+			synchronized (lock) {
+				while (written == published && !closed && !flushRequested) {
+					try {
+						lock.wait();
+					}
+					catch (InterruptedException e) {}
+				}
+				if (written == published && closed)
+					break;
+				doFlush = flushRequested && written == published;
+				if (doFlush)
+					flushRequested = false;
+				idx = (int)(written % chunks.length);
+				seq = written;
+			}
+
+			try {
+				if (doFlush) {
+					out.flush();
+					synchronized (lock) {
+						synced = Math.max(synced, seq);
+						lock.notifyAll();
+					}
+					continue;
+				}
+				out.write(chunks[idx], 0, lengths[idx]);
+				bytesOut += lengths[idx];
+			}
+			catch (IOException e) {
+				synchronized (lock) {
+					writeError = e;
+					lock.notifyAll();
+				}
+				return;
+			}
+
+			synchronized (lock) {
+				written++;
+				lock.notifyAll();
+			}
+		}
+
+		try {
+			out.flush();
+		}
+		catch (IOException e) {
+			synchronized (lock) {
+				writeError = e;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,230 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import com.jaamsim.events.EventTraceListener;
+import com.jaamsim.events.ProcessTarget;
+import com.jaamsim.input.InputErrorException;
+
+/**
+ * Records the events executed by a model to a compact binary trace file.
+ * <p>
+ * The file starts with a header (MAGIC, VERSION) that is followed by a sequence of blocks, each
+ * starting with a one byte tag:
+ * <ul>
+ * <li>STRING: int id, UTF string - defines an event description before its first use</li>
+ * <li>RECORD: int n, followed by n entries of (byte type, byte level, long tick, int priority,
+ * int description id)</li>
+ * <li>TICK: long tick, int number of records, long hash - written after the last record for a
+ * simulation time</li>
+ * <li>END: marks the end of the file</li>
+ * </ul>
+ * The hash for each simulation time is the sum of the hashes for its records, so that it does not
+ * depend on the order in which the records were executed within that time. This matches the
+ * behaviour of the text-based verification.
+ * <p>
+ * Encoding is performed on the simulation thread and the file is written by a background thread
+ * using an AsyncOutputStream.
+ */
+class BinaryEventRecorder implements EventTraceListener {
+
+	static final int MAGIC = 0x4A534554;  // "JSET"
+	static final int VERSION = 1;
+
+	static final byte STRING = 1;
+	static final byte RECORD = 2;
+	static final byte TICK = 3;
+	static final byte END = 4;
+
+	private final DataOutputStream outputStream;
+	private final BinaryTraceRecord trcRecord = new BinaryTraceRecord();
+	private final HashMap<String, Integer> stringIds = new HashMap<>();
+
+	private long curTick;
+	private int numRecords;
+	private long tickHash;
+	private boolean closed;
+
+	public BinaryEventRecorder(String fileName) {
+		try {
+			File backingFileObject = new File(fileName);
+			backingFileObject.createNewFile();
+			FileOutputStream fos = new FileOutputStream(backingFileObject, false);
+			outputStream = new DataOutputStream(new AsyncOutputStream(fos, "EventRecorder"));
+			outputStream.writeInt(MAGIC);
+			outputStream.writeInt(VERSION);
+		}
+		catch (IOException e) {
+			throw new InputErrorException("IOException thrown trying to open event recording file:%n%s",
+					e.getMessage());
+		}
+		catch (IllegalArgumentException e) {
+			throw new InputErrorException("IllegalArgumentException thrown trying to open event recording file:%n%s",
+					e.getMessage());
+		}
+		catch (SecurityException e) {
+			throw new InputErrorException("SecurityException thrown trying to open event recording file:%n%s",
+					e.getMessage());
+		}
+	}
+
+	private int getStringId(String str) throws IOException {
+		if (str == null)
+			return -1;
+
+		Integer id = stringIds.get(str);
+		if (id != null)
+			return id;
+
+		int ret = stringIds.size();
+		stringIds.put(str, ret);
+		outputStream.writeByte(STRING);
+		outputStream.writeInt(ret);
+		outputStream.writeUTF(str);
+		return ret;
+	}
+
+	private void writeTick() throws IOException {
+		if (numRecords == 0)
+			return;
+
+		outputStream.writeByte(TICK);
+		outputStream.writeLong(curTick);
+		outputStream.writeInt(numRecords);
+		outputStream.writeLong(tickHash);
+		numRecords = 0;
+		tickHash = 0;
+	}
+
+	private void finish() {
+		if (trcRecord.traceLevel != 0)
+			return;
+
+		try {
+			long tick = trcRecord.getInternalTime();
+			if (tick != curTick)
+				writeTick();
+			curTick = tick;
+
+			// Define any new strings before the record that uses them
+			int n = trcRecord.size();
+			for (int i = 0; i < n; i++) {
+				getStringId(trcRecord.getDescription(i));
+			}
+
+			outputStream.writeByte(RECORD);
+			outputStream.writeInt(n);
+			for (int i = 0; i < n; i++) {
+				outputStream.writeByte(trcRecord.getType(i));
+				outputStream.writeByte(trcRecord.getLevel(i));
+				outputStream.writeLong(trcRecord.getTick(i));
+				outputStream.writeInt(trcRecord.getPriority(i));
+				outputStream.writeInt(getStringId(trcRecord.getDescription(i)));
+			}
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to write to the event recording file: %s", e.getMessage());
+		}
+
+		tickHash += trcRecord.hash();
+		numRecords++;
+		trcRecord.clear();
+	}
+
+	/**
+	 * Writes the remaining records and closes the trace file.
+	 */
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+
+		try {
+			writeTick();
+			outputStream.writeByte(END);
+			outputStream.close();
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to close the event recording file: %s", e.getMessage());
+		}
+	}
+
+	@Override
+	public void traceEvent(long tick, int priority, ProcessTarget t) {
+		// Don't write anything if not at level 0
+		if (trcRecord.traceLevel != 0)
+			throw new ErrorException("Tracing started incorrectly");
+
+		trcRecord.traceEvent(tick, priority, t);
+	}
+
+	@Override
+	public void traceInterrupt(long tick, int priority, ProcessTarget t) {
+		trcRecord.traceInterrupt(tick, priority, t);
+	}
+
+	@Override
+	public void traceProcessStart(ProcessTarget t) {
+		trcRecord.traceProcessStart(t);
+	}
+
+	@Override
+	public void traceProcessEnd() {
+		trcRecord.traceProcessEnd();
+		this.finish();
+	}
+
+	@Override
+	public void traceWait(long tick, int priority, ProcessTarget t) {
+		trcRecord.traceWait(tick, priority, t);
+		this.finish();
+	}
+
+	@Override
+	public void traceWaitUntil() {
+		trcRecord.traceWaitUntil();
+		this.finish();
+	}
+
+	@Override
+	public void traceSchedUntil(ProcessTarget t) {
+		trcRecord.traceSchedUntil(t);
+	}
+
+	@Override
+	public void traceSchedProcess(long tick, int priority, ProcessTarget t) {
+		trcRecord.traceSchedProcess(tick, priority, t);
+	}
+
+	@Override
+	public void traceKill(long tick, int priority, ProcessTarget t) {
+		trcRecord.traceKill(tick, priority, t);
+	}
+
+	@Override
+	public void traceConditionalEval(ProcessTarget t) {}
+
+	@Override
+	public void traceConditionalEvalEnded(boolean wakeup, ProcessTarget t) {}
+
+}
@@ -0,0 +1,305 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.jaamsim.datatypes.IntegerVector;
+import com.jaamsim.events.EventTraceListener;
+import com.jaamsim.events.ProcessTarget;
+import com.jaamsim.input.InputErrorException;
+
+/**
+ * Verifies the events executed by a model against a binary trace file written by
+ * BinaryEventRecorder.
+ * <p>
+ * The records executed at each simulation time are reduced to a count and a hash which are
+ * compared to the values stored in the trace file. The records in the trace file are kept as raw
+ * bytes and are only decoded if a mismatch is found, in which case the events at that time are
+ * reported in the same text format as the EventTracer.
+ */
+class BinaryEventTracer implements EventTraceListener {
+	private final DataInputStream inputStream;
+	private final ArrayList<String> strings = new ArrayList<>();
+
+	// Records executed by the model at the present simulation time
+	private BinaryTraceRecord reader;
+	private final ArrayList<BinaryTraceRecord> liveRecords = new ArrayList<>();
+	private int numRecords;
+	private long curTick;
+	private long tickHash;
+
+	// Records read from the trace file for the present simulation time
+	private byte[] fileData = new byte[1024];
+	private int fileDataLen;
+	private final IntegerVector fileRecordSizes = new IntegerVector();
+	private long fileTick;
+	private int fileNumRecords;
+	private long fileHash;
+	private boolean endOfFile;
+
+	private int numTicksVerified;
+	private int numErrors;
+
+	public BinaryEventTracer(String evtName) {
+		File evtFile = new File(evtName);
+		try {
+			inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(evtFile), 64 * 1024));
+		}
+		catch (FileNotFoundException e) {
+			throw new InputErrorException("Unable to open the event verification file:%n%s", evtName);
+		}
+
+		try {
+			if (inputStream.readInt() != BinaryEventRecorder.MAGIC)
+				throw new InputErrorException("The event verification file is not a binary event trace:%n%s", evtName);
+			int ver = inputStream.readInt();
+			if (ver != BinaryEventRecorder.VERSION)
+				throw new InputErrorException("Unsupported binary event trace version %s:%n%s", ver, evtName);
+		}
+		catch (IOException e) {
+			throw new InputErrorException("Unable to read the event verification file:%n%s", evtName);
+		}
+
+		reader = new BinaryTraceRecord();
+	}
+
+	int getNumErrors() {
+		return numErrors;
+	}
+
+	int getNumTicksVerified() {
+		return numTicksVerified;
+	}
+
+	/**
+	 * Reads the trace file up to and including the next TICK block.
+	 * @return false if the end of the file was reached
+	 */
+	private boolean readNextTick() {
+		fileDataLen = 0;
+		fileRecordSizes.clear();
+		if (endOfFile)
+			return false;
+
+		try {
+			while (true) {
+				byte tag = inputStream.readByte();
+				switch (tag) {
+				case BinaryEventRecorder.STRING:
+					int id = inputStream.readInt();
+					String str = inputStream.readUTF();
+					if (id != strings.size())
+						throw new ErrorException("Corrupt binary event trace: string id %s out of sequence", id);
+					strings.add(str);
+					break;
+
+				case BinaryEventRecorder.RECORD:
+					int n = inputStream.readInt();
+					int len = n * BinaryTraceRecord.ENTRY_SIZE;
+					if (fileDataLen + len > fileData.length)
+						fileData = Arrays.copyOf(fileData, Math.max(fileData.length * 2, fileDataLen + len));
+					inputStream.readFully(fileData, fileDataLen, len);
+					fileDataLen += len;
+					fileRecordSizes.add(n);
+					break;
+
+				case BinaryEventRecorder.TICK:
+					fileTick = inputStream.readLong();
+					fileNumRecords = inputStream.readInt();
+					fileHash = inputStream.readLong();
+					return true;
+
+				case BinaryEventRecorder.END:
+					endOfFile = true;
+					return false;
+
+				default:
+					throw new ErrorException("Corrupt binary event trace: unknown block type %s", tag);
+				}
+			}
+		}
+		catch (EOFException e) {
+			endOfFile = true;
+			return false;
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to read the event verification file: %s", e.getMessage());
+		}
+	}
+
+	/**
+	 * Compares the records executed at the present simulation time with the next time in the
+	 * trace file.
+	 */
+	private void verifyTick() {
+		if (numRecords == 0 || numErrors > 0)
+			return;
+
+		boolean found = readNextTick();
+		if (found && fileTick == curTick && fileNumRecords == numRecords && fileHash == tickHash) {
+			numTicksVerified++;
+			return;
+		}
+
+		// Decode the records to find the differences
+		numErrors++;
+		StringBuilder sb = new StringBuilder();
+		sb.append("List of events at the present time:\n");
+		ArrayList<String> lines = new ArrayList<>();
+		for (int i = 0; i < numRecords; i++) {
+			liveRecords.get(i).toLines(lines);
+		}
+		for (String line : lines) {
+			sb.append(line).append("\n");
+		}
+
+		sb.append("List of events at the next time in the trace file:\n");
+		for (String line : decodeFileRecords()) {
+			sb.append(line).append("\n");
+		}
+
+		String brief;
+		if (!found)
+			brief = "Present event has no matching event at this time in the trace file.";
+		else if (fileTick != curTick)
+			brief = String.format("Events were executed at tick %d, but the next events in the "
+					+ "trace file are at tick %d.", curTick, fileTick);
+		else
+			brief = "Present events do not match the events at this time in the trace file.";
+		EventTracer.reportError(brief, sb.toString());
+	}
+
+	private ArrayList<String> decodeFileRecords() {
+		ArrayList<String> ret = new ArrayList<>();
+		ByteBuffer buf = ByteBuffer.wrap(fileData, 0, fileDataLen);
+		for (int i = 0; i < fileRecordSizes.size(); i++) {
+			int n = fileRecordSizes.get(i);
+			for (int j = 0; j < n; j++) {
+				byte type = buf.get();
+				byte level = buf.get();
+				long tick = buf.getLong();
+				int priority = buf.getInt();
+				int id = buf.getInt();
+				String desc = (id == -1) ? null : strings.get(id);
+				ret.add(BinaryTraceRecord.getLine(type, level, tick, priority, desc));
+			}
+			ret.add("");
+		}
+		return ret;
+	}
+
+	private void finish() {
+		if (reader.traceLevel != 0)
+			return;
+
+		long tick = reader.getInternalTime();
+		if (tick != curTick) {
+			verifyTick();
+			numRecords = 0;
+			tickHash = 0;
+		}
+		curTick = tick;
+		tickHash += reader.hash();
+
+		// Keep the record in case it is needed for an error message
+		if (numRecords == liveRecords.size())
+			liveRecords.add(new BinaryTraceRecord());
+		BinaryTraceRecord next = liveRecords.get(numRecords);
+		liveRecords.set(numRecords, reader);
+		numRecords++;
+		next.clear();
+		reader = next;
+	}
+
+	/**
+	 * Verifies the records for the last simulation time and closes the trace file.
+	 */
+	public void close() {
+		verifyTick();
+		numRecords = 0;
+		tickHash = 0;
+		try {
+			inputStream.close();
+		}
+		catch (IOException e) {}
+	}
+
+	@Override
+	public void traceWait(long tick, int priority, ProcessTarget t) {
+		reader.traceWait(tick, priority, t);
+		this.finish();
+	}
+
+	@Override
+	public void traceEvent(long tick, int priority, ProcessTarget t) {
+		reader.traceEvent(tick, priority, t);
+	}
+
+	@Override
+	public void traceSchedProcess(long tick, int priority, ProcessTarget t) {
+		reader.traceSchedProcess(tick, priority, t);
+	}
+
+	@Override
+	public void traceProcessStart(ProcessTarget t) {
+		reader.traceProcessStart(t);
+	}
+
+	@Override
+	public void traceProcessEnd() {
+		reader.traceProcessEnd();
+		this.finish();
+	}
+
+	@Override
+	public void traceInterrupt(long tick, int priority, ProcessTarget t) {
+		reader.traceInterrupt(tick, priority, t);
+	}
+
+	@Override
+	public void traceKill(long tick, int priority, ProcessTarget t) {
+		reader.traceKill(tick, priority, t);
+	}
+
+	@Override
+	public void traceWaitUntil() {
+		reader.traceWaitUntil();
+		this.finish();
+	}
+
+	@Override
+	public void traceSchedUntil(ProcessTarget t) {
+		reader.traceSchedUntil(t);
+	}
+
+	@Override
+	public void traceConditionalEval(ProcessTarget t) {}
+
+	@Override
+	public void traceConditionalEvalEnded(boolean wakeup, ProcessTarget t) {}
+
+}
@@ -0,0 +1,252 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.jaamsim.events.EventTraceListener;
+import com.jaamsim.events.ProcessTarget;
+
+/**
+ * Binary counterpart to EventTraceRecord. The entries for a single trace record are held in
+ * primitive arrays and are only converted to text when a verification error is reported.
+ * <p>
+ * Each record has a 64-bit hash computed from its entries. The hash uses String.hashCode for the
+ * event descriptions so that it is identical from one run of the program to the next.
+ */
+class BinaryTraceRecord implements EventTraceListener {
+
+	// Entry types
+	static final byte EVENT = 1;
+	static final byte WAIT = 2;
+	static final byte INTERRUPT = 3;
+	static final byte KILL = 4;
+	static final byte WAIT_UNTIL = 5;
+	static final byte SCHED_UNTIL = 6;
+	static final byte START_PROCESS = 7;
+	static final byte EXIT = 8;
+	static final byte SCHED_PROCESS = 9;
+
+	// Number of bytes used to encode an entry in a trace file
+	static final int ENTRY_SIZE = 1 + 1 + 8 + 4 + 4;
+
+	private byte[] types = new byte[16];
+	private byte[] levels = new byte[16];
+	private long[] ticks = new long[16];
+	private int[] priorities = new int[16];
+	private String[] descs = new String[16];
+	private int size;
+
+	int traceLevel;
+
+	public BinaryTraceRecord() {
+		clear();
+	}
+
+	void clear() {
+		Arrays.fill(descs, 0, size, null);
+		size = 0;
+		traceLevel = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	byte getType(int i) {
+		return types[i];
+	}
+
+	byte getLevel(int i) {
+		return levels[i];
+	}
+
+	long getTick(int i) {
+		return ticks[i];
+	}
+
+	int getPriority(int i) {
+		return priorities[i];
+	}
+
+	String getDescription(int i) {
+		return descs[i];
+	}
+
+	/**
+	 * Returns the simulation time for the record, given by its first entry.
+	 */
+	long getInternalTime() {
+		if (size == 0 || types[0] != EVENT)
+			throw new ErrorException("All events must start with an event record");
+		return ticks[0];
+	}
+
+	void add(byte type, int level, long tick, int priority, String desc) {
+		if (size == types.length) {
+			int cap = size * 2;
+			types = Arrays.copyOf(types, cap);
+			levels = Arrays.copyOf(levels, cap);
+			ticks = Arrays.copyOf(ticks, cap);
+			priorities = Arrays.copyOf(priorities, cap);
+			descs = Arrays.copyOf(descs, cap);
+		}
+		types[size] = type;
+		levels[size] = (byte)level;
+		ticks[size] = tick;
+		priorities[size] = priority;
+		descs[size] = desc;
+		size++;
+	}
+
+	/**
+	 * Returns a hash of the entries in this record.
+	 */
+	long hash() {
+		long h = 0x9E3779B97F4A7C15L;
+		for (int i = 0; i < size; i++) {
+			h = mix(h ^ entryHash(types[i], levels[i], ticks[i], priorities[i], descs[i]));
+		}
+		return h;
+	}
+
+	static long entryHash(byte type, byte level, long tick, int priority, String desc) {
+		long h = ((long)type << 8) | (level & 0xFF);
+		h = mix(h ^ tick);
+		h = mix(h ^ priority);
+		if (desc != null)
+			h = mix(h ^ desc.hashCode());
+		return h;
+	}
+
+	/**
+	 * Finalisation step of the SplitMix64 generator, used to spread the bits of each field.
+	 */
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Appends the text lines for this record in the format used by EventTraceRecord.
+	 */
+	void toLines(ArrayList<String> lines) {
+		for (int i = 0; i < size; i++) {
+			lines.add(getLine(types[i], levels[i], ticks[i], priorities[i], descs[i]));
+		}
+		lines.add("");
+	}
+
+	static String getLine(byte type, int level, long tick, int priority, String desc) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < level; i++) {
+			sb.append("\t");
+		}
+		switch (type) {
+		case EVENT:
+			sb.append(String.format("Event\t%d\t%d\t%s", tick, priority, desc));
+			break;
+		case WAIT:
+			sb.append(String.format("Wait\t%d\t%d\t%s", tick, priority, desc));
+			break;
+		case INTERRUPT:
+			sb.append(String.format("Int\t%d\t%d\t%s", tick, priority, desc));
+			break;
+		case KILL:
+			sb.append(String.format("Kill\t%d\t%d\t%s", tick, priority, desc));
+			break;
+		case WAIT_UNTIL:
+			sb.append("WaitUntil");
+			break;
+		case SCHED_UNTIL:
+			sb.append(String.format("SchedUntil\t%s", desc));
+			break;
+		case START_PROCESS:
+			sb.append(String.format("StartProcess\t%s", desc));
+			break;
+		case EXIT:
+			sb.append("Exit");
+			break;
+		case SCHED_PROCESS:
+			sb.append(String.format("SchedProcess\t%d\t%d\t%s", tick, priority, desc));
+			break;
+		default:
+			sb.append(String.format("Unknown(%d)", type));
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public final void traceWait(long tick, int priority, ProcessTarget t) {
+		traceLevel--;
+		this.add(WAIT, traceLevel, tick, priority, EventTraceRecord.getWaitDescription());
+	}
+
+	@Override
+	public final void traceEvent(long tick, int priority, ProcessTarget t) {
+		this.add(EVENT, traceLevel, tick, priority, t.getDescription());
+		traceLevel++;
+	}
+
+	@Override
+	public final void traceInterrupt(long tick, int priority, ProcessTarget t) {
+		this.add(INTERRUPT, traceLevel, tick, priority, t.getDescription());
+		traceLevel++;
+	}
+
+	@Override
+	public final void traceKill(long tick, int priority, ProcessTarget t) {
+		this.add(KILL, traceLevel, tick, priority, t.getDescription());
+	}
+
+	@Override
+	public final void traceWaitUntil() {
+		traceLevel--;
+		this.add(WAIT_UNTIL, traceLevel, 0L, 0, null);
+	}
+
+	@Override
+	public final void traceSchedUntil(ProcessTarget t) {
+		this.add(SCHED_UNTIL, traceLevel, 0L, 0, t.getDescription());
+	}
+
+	@Override
+	public final void traceProcessStart(ProcessTarget t) {
+		this.add(START_PROCESS, traceLevel, 0L, 0, t.getDescription());
+		traceLevel++;
+	}
+
+	@Override
+	public final void traceProcessEnd() {
+		traceLevel--;
+		this.add(EXIT, traceLevel, 0L, 0, null);
+	}
+
+	@Override
+	public final void traceSchedProcess(long tick, int priority, ProcessTarget t) {
+		this.add(SCHED_PROCESS, traceLevel, tick, priority, t.getDescription());
+	}
+
+	@Override
+	public final void traceConditionalEval(ProcessTarget t) {}
+
+	@Override
+	public final void traceConditionalEvalEnded(boolean wakeup, ProcessTarget t) {}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.util.Calendar;
+
+/**
+ * Measures the time to convert simulation times to calendar dates, both by setting the fields
+ * of a shared Calendar object and by the day number arithmetic used by SimCalendar.getDate.
+ * <p>
+ * Arguments: [conversions] [step in seconds]
+ */
+public class CalendarBenchmark {
+
+	private static final long START_MILLIS = 1704067200000L;  // 2024-01-01 00:00 GMT
+
+	public static void main(String[] args) {
+		int num = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		long step = args.length > 1 ? Math.round(Double.parseDouble(args[1])*1000.0d) : 60000L;
+
+		for (boolean bool : new boolean[]{true, false}) {
+			SimCalendar calendar = new SimCalendar();
+			calendar.setGregorian(bool);
+			for (int j = 0; j < 3; j++) {
+				long sum = 0L;
+				long startTime = System.nanoTime();
+				for (int i = 0; i < num; i++) {
+					synchronized (calendar) {
+						calendar.setTimeInMillis(START_MILLIS + i*step);
+						SimDate date = calendar.getSimDate();
+						sum += date.dayOfMonth + calendar.get(Calendar.DAY_OF_WEEK);
+					}
+				}
+				double calNanos = (System.nanoTime() - startTime) / (double) num;
+
+				int[] date = new int[7];
+				startTime = System.nanoTime();
+				for (int i = 0; i < num; i++) {
+					calendar.getDate(START_MILLIS + i*step, date);
+					sum -= date[2] + calendar.getDayOfWeek(START_MILLIS + i*step);
+				}
+				double dayNanos = (System.nanoTime() - startTime) / (double) num;
+
+				System.out.println(String.format("%s calendar, step %d ms: Calendar fields %.1f ns, "
+						+ "day arithmetic %.1f ns (check=%d)",
+						bool ? "Gregorian" : "simple", step, calNanos, dayNanos, sum));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Measures the time to write a log of numbers, both as tab-separated text using FileEntity in
+ * the same way as a Logger, and in the binary column format using ColumnFileWriter. The time
+ * to read each file back into arrays of numbers is also measured, by parsing the text and by
+ * using ColumnFileReader.
+ * <p>
+ * Arguments: [rows] [columns]
+ */
+public class ColumnFileBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int numCols = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+
+		File dir = new File(System.getProperty("java.io.tmpdir"));
+		File textFile = File.createTempFile("ColumnFileBenchmark", ".log", dir);
+		File colFile = File.createTempFile("ColumnFileBenchmark", ".jsc", dir);
+		textFile.deleteOnExit();
+		colFile.deleteOnExit();
+
+		for (int j = 0; j < 3; j++) {
+			long startTime = System.nanoTime();
+			writeText(textFile, numRows, numCols);
+			double textWrite = (System.nanoTime() - startTime) / 1.0e6d;
+
+			startTime = System.nanoTime();
+			writeColumns(colFile, numRows, numCols);
+			double colWrite = (System.nanoTime() - startTime) / 1.0e6d;
+
+			startTime = System.nanoTime();
+			double textSum = readText(textFile, numRows, numCols);
+			double textRead = (System.nanoTime() - startTime) / 1.0e6d;
+
+			startTime = System.nanoTime();
+			double colSum = readColumns(colFile);
+			double colRead = (System.nanoTime() - startTime) / 1.0e6d;
+
+			System.out.println(String.format("%d rows, %d columns: write text %.0f ms (%.1f MB), "
+					+ "columns %.0f ms (%.1f MB); read text %.0f ms, columns %.0f ms (check=%s)",
+					numRows, numCols + 1, textWrite, textFile.length()/1.0e6d,
+					colWrite, colFile.length()/1.0e6d, textRead, colRead,
+					Math.abs(textSum - colSum) <= 1.0e-6d*Math.abs(colSum)));
+		}
+		textFile.delete();
+		colFile.delete();
+	}
+
+	private static double getValue(int row, int col) {
+		return 1000.0d*Math.sin(0.001d*row + col);
+	}
+
+	/**
+	 * Writes the log as text, formatting each value in the same way as Logger.
+	 */
+	private static void writeText(File f, int numRows, int numCols) {
+		FileEntity file = new FileEntity(f);
+		file.format("SimTime");
+		for (int col = 0; col < numCols; col++) {
+			file.format("\tValue%d", col);
+		}
+		for (int row = 0; row < numRows; row++) {
+			file.format("%n%s", row*0.25d);
+			for (int col = 0; col < numCols; col++) {
+				file.format("\t%s", getValue(row, col));
+			}
+		}
+		file.close();
+	}
+
+	private static void writeColumns(File f, int numRows, int numCols) {
+		ColumnFileWriter writer = new ColumnFileWriter(f);
+		writer.addDoubleColumn("SimTime");
+		for (int col = 0; col < numCols; col++) {
+			writer.addDoubleColumn("Value" + col);
+		}
+		for (int row = 0; row < numRows; row++) {
+			writer.setDouble(0, row*0.25d);
+			for (int col = 0; col < numCols; col++) {
+				writer.setDouble(col + 1, getValue(row, col));
+			}
+			writer.endRow();
+		}
+		writer.close();
+	}
+
+	/**
+	 * Parses the text log into an array for each column and returns the sum of the values.
+	 */
+	private static double readText(File f, int numRows, int numCols) throws IOException {
+		double[][] vals = new double[numCols + 1][numRows];
+		try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
+			reader.readLine();
+			for (int row = 0; row < numRows; row++) {
+				String[] fields = reader.readLine().split("\t");
+				for (int col = 0; col < fields.length; col++) {
+					vals[col][row] = Double.parseDouble(fields[col]);
+				}
+			}
+		}
+		return sum(vals);
+	}
+
+	private static double readColumns(File f) throws IOException {
+		ColumnFileReader reader = new ColumnFileReader(f);
+		double[][] vals = new double[reader.getNumColumns()][];
+		for (int col = 0; col < vals.length; col++) {
+			vals[col] = reader.getDoubleColumn(col);
+		}
+		return sum(vals);
+	}
+
+	private static double sum(double[][] vals) {
+		double ret = 0.0d;
+		for (double[] col : vals) {
+			for (double val : col) {
+				ret += val;
+			}
+		}
+		return ret;
+	}
+
+}
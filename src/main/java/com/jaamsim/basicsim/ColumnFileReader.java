@@ -0,0 +1,225 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reads a file written by ColumnFileWriter. The entire file is loaded into primitive arrays, one
+ * per column.
+ * <p>
+ * The main method converts a column file to tab-separated text:
+ * <pre>
+ * java -cp JaamSim.jar com.jaamsim.basicsim.ColumnFileReader file.jsc [out.txt]
+ * </pre>
+ */
+public class ColumnFileReader {
+
+	private final ArrayList<String> names = new ArrayList<>();
+	private final ArrayList<Byte> types = new ArrayList<>();
+	private final ArrayList<String> strings = new ArrayList<>();
+	private double[][] doubleCols;
+	private int[][] stringCols;
+	private int numRows;
+
+	public ColumnFileReader(File f) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 64 * 1024));
+		try {
+			read(in);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private void read(DataInputStream in) throws IOException {
+		if (in.readInt() != ColumnFileWriter.MAGIC)
+			throw new IOException("Not a column file");
+		int ver = in.readInt();
+		if (ver != ColumnFileWriter.VERSION)
+			throw new IOException("Unsupported column file version: " + ver);
+
+		int n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			types.add(in.readByte());
+			names.add(readString(in));
+		}
+
+		int capacity = 1024;
+		doubleCols = new double[n][];
+		stringCols = new int[n][];
+		for (int i = 0; i < n; i++) {
+			if (types.get(i) == ColumnFileWriter.DOUBLE)
+				doubleCols[i] = new double[capacity];
+			else
+				stringCols[i] = new int[capacity];
+		}
+
+		byte[] scratch = new byte[0];
+		try {
+			while (true) {
+				byte tag = in.readByte();
+				if (tag == ColumnFileWriter.TAG_END)
+					break;
+
+				if (tag == ColumnFileWriter.TAG_STRING) {
+					int id = in.readInt();
+					if (id != strings.size())
+						throw new IOException("Corrupt column file: string id out of sequence");
+					strings.add(readString(in));
+					continue;
+				}
+
+				if (tag != ColumnFileWriter.TAG_CHUNK)
+					throw new IOException("Corrupt column file: unknown block type " + tag);
+
+				int rows = in.readInt();
+				if (numRows + rows > capacity) {
+					capacity = Math.max(capacity * 2, numRows + rows);
+					for (int i = 0; i < n; i++) {
+						if (doubleCols[i] != null)
+							doubleCols[i] = Arrays.copyOf(doubleCols[i], capacity);
+						else
+							stringCols[i] = Arrays.copyOf(stringCols[i], capacity);
+					}
+				}
+				if (scratch.length < rows * 8)
+					scratch = new byte[rows * 8];
+
+				ByteBuffer buf = ByteBuffer.wrap(scratch);
+				for (int i = 0; i < n; i++) {
+					buf.clear();
+					if (doubleCols[i] != null) {
+						in.readFully(scratch, 0, rows * 8);
+						buf.asDoubleBuffer().get(doubleCols[i], numRows, rows);
+					}
+					else {
+						in.readFully(scratch, 0, rows * 4);
+						buf.asIntBuffer().get(stringCols[i], numRows, rows);
+					}
+				}
+				numRows += rows;
+			}
+		}
+		catch (EOFException e) {
+			// A file that was not closed properly contains all the chunks that were written
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int len = in.readInt();
+		if (len < 0)
+			throw new IOException("Corrupt column file: negative string length");
+		byte[] bytes = new byte[len];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public int getNumColumns() {
+		return names.size();
+	}
+
+	public int getNumRows() {
+		return numRows;
+	}
+
+	public String getColumnName(int col) {
+		return names.get(col);
+	}
+
+	/**
+	 * Returns the index of the column with the specified name, or -1 if not found.
+	 */
+	public int getColumnIndex(String name) {
+		return names.indexOf(name);
+	}
+
+	public byte getColumnType(int col) {
+		return types.get(col);
+	}
+
+	public double getDouble(int col, int row) {
+		return doubleCols[col][row];
+	}
+
+	public String getString(int col, int row) {
+		int id = stringCols[col][row];
+		if (id == -1)
+			return null;
+		return strings.get(id);
+	}
+
+	/**
+	 * Returns the values for a DOUBLE column.
+	 */
+	public double[] getDoubleColumn(int col) {
+		return Arrays.copyOf(doubleCols[col], numRows);
+	}
+
+	/**
+	 * Writes the contents of the file as tab-separated text.
+	 */
+	public void printText(PrintStream out) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < names.size(); i++) {
+			if (i > 0)
+				sb.append("\t");
+			sb.append(names.get(i));
+		}
+		out.println(sb.toString());
+
+		for (int row = 0; row < numRows; row++) {
+			sb.setLength(0);
+			for (int i = 0; i < names.size(); i++) {
+				if (i > 0)
+					sb.append("\t");
+				if (doubleCols[i] != null)
+					sb.append(doubleCols[i][row]);
+				else
+					sb.append(getString(i, row));
+			}
+			out.println(sb.toString());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: ColumnFileReader <column file> [<text file>]");
+			return;
+		}
+
+		ColumnFileReader reader = new ColumnFileReader(new File(args[0]));
+		PrintStream out = System.out;
+		if (args.length > 1)
+			out = new PrintStream(args[1]);
+		reader.printText(out);
+		out.flush();
+		if (out != System.out)
+			out.close();
+	}
+
+}
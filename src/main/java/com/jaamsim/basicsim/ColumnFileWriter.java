@@ -0,0 +1,312 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.jaamsim.input.InputErrorException;
+
+/**
+ * Writes tabular data to a self-describing binary file in which the values are stored by column.
+ * <p>
+ * The file starts with a header (MAGIC, VERSION, number of columns) followed by the type and name
+ * of each column. The rows are then written in chunks. Each chunk is preceded by any new entries
+ * for the string dictionary:
+ * <ul>
+ * <li>STRING: int id, string - adds an entry to the string dictionary</li>
+ * <li>CHUNK: int n, followed by the n values for each column in turn. A DOUBLE column is stored
+ * as n big-endian doubles and a STRING column as n int dictionary ids (-1 for null).</li>
+ * <li>END: marks the end of the file</li>
+ * </ul>
+ * Each string, including the column names, is stored as an int length followed by that number of
+ * bytes in UTF-8. Values are held in primitive arrays until a chunk is full so that no text
+ * formatting is required. The file can be read with ColumnFileReader.
+ */
+public class ColumnFileWriter {
+
+	static final int MAGIC = 0x4A534346;  // "JSCF"
+	static final int VERSION = 2;
+
+	public static final byte DOUBLE = 1;
+	public static final byte STRING = 2;
+
+	static final byte TAG_STRING = 1;
+	static final byte TAG_CHUNK = 2;
+	static final byte TAG_END = 3;
+
+	public static final int DEFAULT_CHUNK_ROWS = 4096;
+
+	private final File file;
+	private final DataOutputStream outputStream;
+	private final int chunkRows;
+
+	private final ArrayList<String> names = new ArrayList<>();
+	private final ArrayList<Byte> types = new ArrayList<>();
+	private double[][] doubleCols;
+	private int[][] stringCols;
+	private final HashMap<String, Integer> stringIds = new HashMap<>();
+	private byte[] scratch;
+
+	private int numRows;     // rows in the present chunk
+	private long totalRows;  // rows written to the file
+	private boolean started;
+
+	public ColumnFileWriter(File f) {
+		this(f, false, DEFAULT_CHUNK_ROWS);
+	}
+
+	/**
+	 * Opens a column file for writing.
+	 * @param f - file to be written
+	 * @param async - if TRUE, the file is written by a background thread
+	 * @param rows - number of rows in each chunk
+	 */
+	public ColumnFileWriter(File f, boolean async, int rows) {
+		file = f;
+		chunkRows = rows;
+		try {
+			file.createNewFile();
+			OutputStream out = new FileOutputStream(file, false);
+			if (async)
+				out = new AsyncOutputStream(out, "ColumnWriter-" + file.getName());
+			else
+				out = new BufferedOutputStream(out, 64 * 1024);
+			outputStream = new DataOutputStream(out);
+		}
+		catch (IOException e) {
+			throw new InputErrorException("IOException thrown trying to open file: '%s'%n%s",
+					file.getPath(), e.getMessage());
+		}
+		catch (SecurityException e) {
+			throw new InputErrorException("SecurityException thrown trying to open file: '%s'%n%s",
+					file.getPath(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Adds a column of numbers. Columns must be added before the first row is written.
+	 * @return index of the column
+	 */
+	public int addDoubleColumn(String name) {
+		return addColumn(name, DOUBLE);
+	}
+
+	/**
+	 * Adds a column of strings. Columns must be added before the first row is written.
+	 * @return index of the column
+	 */
+	public int addStringColumn(String name) {
+		return addColumn(name, STRING);
+	}
+
+	private int addColumn(String name, byte type) {
+		if (started)
+			throw new ErrorException("Columns cannot be added after the first row has been written");
+		names.add(name);
+		types.add(type);
+		return names.size() - 1;
+	}
+
+	public int getNumColumns() {
+		return names.size();
+	}
+
+	/**
+	 * Returns the number of rows that have been completed.
+	 */
+	public long getNumRows() {
+		return totalRows + numRows;
+	}
+
+	private void start() throws IOException {
+		started = true;
+		int n = names.size();
+		doubleCols = new double[n][];
+		stringCols = new int[n][];
+		for (int i = 0; i < n; i++) {
+			if (types.get(i) == DOUBLE)
+				doubleCols[i] = new double[chunkRows];
+			else
+				stringCols[i] = new int[chunkRows];
+		}
+		scratch = new byte[chunkRows * 8];
+		clearRow();
+
+		outputStream.writeInt(MAGIC);
+		outputStream.writeInt(VERSION);
+		outputStream.writeInt(n);
+		for (int i = 0; i < n; i++) {
+			outputStream.writeByte(types.get(i));
+			writeString(outputStream, names.get(i));
+		}
+	}
+
+	static void writeString(DataOutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void ensureStarted() {
+		if (started)
+			return;
+		try {
+			start();
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to write to file %s: %s", file, e.getMessage());
+		}
+	}
+
+	/**
+	 * Sets the value for a DOUBLE column in the present row.
+	 */
+	public void setDouble(int col, double val) {
+		ensureStarted();
+		doubleCols[col][numRows] = val;
+	}
+
+	/**
+	 * Sets the value for a STRING column in the present row.
+	 */
+	public void setString(int col, String str) {
+		ensureStarted();
+		stringCols[col][numRows] = getStringId(str);
+	}
+
+	private int getStringId(String str) {
+		if (str == null)
+			return -1;
+
+		Integer id = stringIds.get(str);
+		if (id != null)
+			return id;
+
+		// Strings are defined in the file before the chunk that uses them
+		int ret = stringIds.size();
+		stringIds.put(str, ret);
+		try {
+			outputStream.writeByte(TAG_STRING);
+			outputStream.writeInt(ret);
+			writeString(outputStream, str);
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to write to file %s: %s", file, e.getMessage());
+		}
+		return ret;
+	}
+
+	/**
+	 * Completes the present row. A column whose value was not set in the row is written as NaN
+	 * for a DOUBLE column or as null for a STRING column.
+	 */
+	public void endRow() {
+		ensureStarted();
+		numRows++;
+		if (numRows == chunkRows)
+			writeChunk();
+		clearRow();
+	}
+
+	// Sets every value in the present row to missing
+	private void clearRow() {
+		for (int i = 0; i < names.size(); i++) {
+			if (doubleCols[i] != null)
+				doubleCols[i][numRows] = Double.NaN;
+			else
+				stringCols[i][numRows] = -1;
+		}
+	}
+
+	private void writeChunk() {
+		if (numRows == 0)
+			return;
+
+		try {
+			outputStream.writeByte(TAG_CHUNK);
+			outputStream.writeInt(numRows);
+			ByteBuffer buf = ByteBuffer.wrap(scratch);
+			for (int i = 0; i < names.size(); i++) {
+				buf.clear();
+				if (doubleCols[i] != null) {
+					buf.asDoubleBuffer().put(doubleCols[i], 0, numRows);
+					outputStream.write(scratch, 0, numRows * 8);
+				}
+				else {
+					buf.asIntBuffer().put(stringCols[i], 0, numRows);
+					outputStream.write(scratch, 0, numRows * 4);
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to write to file %s: %s", file, e.getMessage());
+		}
+		totalRows += numRows;
+
+		// Move the row in progress to the start of the next chunk
+		if (numRows < chunkRows) {
+			for (int i = 0; i < names.size(); i++) {
+				if (doubleCols[i] != null)
+					doubleCols[i][0] = doubleCols[i][numRows];
+				else
+					stringCols[i][0] = stringCols[i][numRows];
+			}
+		}
+		numRows = 0;
+	}
+
+	/**
+	 * Writes the completed rows to the file.
+	 */
+	public void flush() {
+		ensureStarted();
+		writeChunk();
+		try {
+			outputStream.flush();
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to write to file %s: %s", file, e.getMessage());
+		}
+	}
+
+	public void close() {
+		ensureStarted();
+		writeChunk();
+		try {
+			outputStream.writeByte(TAG_END);
+			outputStream.close();
+		}
+		catch (IOException e) {
+			throw new ErrorException("Unable to close file %s: %s", file, e.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return file.toString();
+	}
+
+}
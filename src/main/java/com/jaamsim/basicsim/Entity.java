@@ -48,6 +48,7 @@ import com.jaamsim.input.NamedExpression;
 import com.jaamsim.input.NamedExpressionListInput;
 import com.jaamsim.input.Output;
 import com.jaamsim.input.OutputHandle;
+import com.jaamsim.input.OutputMemo;
 import com.jaamsim.input.ParseContext;
 import com.jaamsim.input.StringInput;
 import com.jaamsim.input.SynonymInput;
@@ -96,6 +97,7 @@ public class Entity {
 
 	private final HashMap<String, AttributeHandle> attributeMap = new LinkedHashMap<>();
 	private final HashMap<String, ExpressionHandle> customOutputMap = new LinkedHashMap<>();
+	private OutputMemo outputMemo;  // values for the pure outputs, created when first required
 
 	public static final String KEY_INPUTS = "Key Inputs";
 	public static final String OPTIONS = "Options";
@@ -242,6 +244,9 @@ public class Entity {
 
 		// Clear the clone pool
 		clonePool = null;
+
+		// Discard the memoized output values from any previous run
+		outputMemo = null;
 	}
 
 	/**
@@ -987,6 +992,25 @@ public class Entity {
 		return DimensionlessUnit.class;
 	}
 
+	/**
+	 * Returns the memoized values for the entity's pure outputs.
+	 */
+	public final OutputMemo getOutputMemo() {
+		if (outputMemo == null)
+			outputMemo = new OutputMemo();
+		return outputMemo;
+	}
+
+	/**
+	 * Signals that the entity's state has changed, so that its pure outputs must be
+	 * recalculated.
+	 */
+	public final void invalidateOutputs() {
+		if (outputMemo == null)
+			return;
+		outputMemo.invalidate();
+	}
+
 	public ValueHandle getOutputHandle(String outputName) {
 		ValueHandle ret;
 		ret = attributeMap.get(outputName);
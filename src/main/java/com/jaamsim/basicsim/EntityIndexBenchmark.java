@@ -0,0 +1,106 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import com.jaamsim.ProcessFlow.QueueUser;
+
+/**
+ * Measures the time for the earlyInit and lateInit stages of initialization as the number of
+ * entities in the model is increased. The model contains a fixed number of Queue, Server, and
+ * EntityDelay objects together with the specified numbers of SimEntities.
+ * <p>
+ * The time to find the QueueUsers using the entity lists for each class is also compared with
+ * the time to test every entity in the model.
+ * <p>
+ * Arguments: [components] [entities] [entities] ...
+ */
+public class EntityIndexBenchmark {
+
+	public static void main(String[] args) {
+		int num = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int[] counts = {10000, 25000, 50000};
+		if (args.length > 1) {
+			counts = new int[args.length - 1];
+			for (int i = 1; i < args.length; i++) {
+				counts[i - 1] = Integer.parseInt(args[i]);
+			}
+		}
+
+		for (int count : counts) {
+			JaamSimModel simModel = buildModel(num, count);
+			for (int j = 0; j < 3; j++) {
+				long startTime = System.nanoTime();
+				simModel.earlyInit();
+				double earlyMillis = (System.nanoTime() - startTime) / 1.0e6d;
+
+				startTime = System.nanoTime();
+				simModel.lateInit();
+				double lateMillis = (System.nanoTime() - startTime) / 1.0e6d;
+
+				int numIndexed = 0;
+				startTime = System.nanoTime();
+				for (int i = 0; i < num; i++) {
+					for (Entity ent : simModel.getClonesOfIterator(Entity.class, QueueUser.class)) {
+						if (ent != null)
+							numIndexed++;
+					}
+				}
+				double indexMicros = (System.nanoTime() - startTime) / 1.0e3d / num;
+
+				int numTested = 0;
+				startTime = System.nanoTime();
+				for (int i = 0; i < num; i++) {
+					for (Entity ent : simModel.getClonesOfIterator(Entity.class)) {
+						if (QueueUser.class.isAssignableFrom(ent.getClass()))
+							numTested++;
+					}
+				}
+				double testMicros = (System.nanoTime() - startTime) / 1.0e3d / num;
+
+				System.out.println(String.format("%d entities: earlyInit %.0f ms, lateInit %.0f ms; "
+						+ "QueueUser search: class lists %.1f us, all entities %.1f us (check=%s)",
+						count, earlyMillis, lateMillis, indexMicros, testMicros,
+						numIndexed == numTested));
+			}
+			simModel.closeLogFile();
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Returns a model with the specified numbers of components and SimEntities.
+	 */
+	private static JaamSimModel buildModel(int num, int count) {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+		simModel.defineEntity("EntitySink", "Sink");
+		for (int i = 1; i <= num; i++) {
+			simModel.defineEntity("Queue", "Queue" + i);
+			simModel.defineEntity("Server", "Server" + i);
+			simModel.defineEntity("EntityDelay", "Delay" + i);
+			simModel.setInput("Server" + i, "WaitQueue", "Queue" + i);
+			simModel.setInput("Server" + i, "NextComponent", "Delay" + i);
+			simModel.setInput("Delay" + i, "Duration", "1 s");
+			simModel.setInput("Delay" + i, "NextComponent", "Sink");
+		}
+		for (int i = 1; i <= count; i++) {
+			simModel.defineEntity("SimEntity", "Ent" + i);
+		}
+		return simModel;
+	}
+
+}
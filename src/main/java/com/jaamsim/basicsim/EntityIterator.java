@@ -17,17 +17,33 @@
  */
 package com.jaamsim.basicsim;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 
+/**
+ * Iterates over the entities whose classes are accepted by the matches() method, in the order in
+ * which they were created.
+ * <p>
+ * When only a few classes of entity match, the iterator merges the lists of entities maintained
+ * by JaamSimModel for each of these classes instead of testing every entity in the model.
+ */
 public abstract class EntityIterator<T extends Entity> implements Iterable<T>, Iterator<T> {
 	private boolean needAdvance = true;
 	protected final Class<T> entClass;
+	private final JaamSimModel simModel;
 	private EntityListNode curNode;
 	private EntityListNode endNode;
 
+	// Last node visited and head node for each class list when the lists are merged
+	private boolean started;
+	private EntityListNode[] classNodes;
+	private EntityListNode[] classHeads;
+	private int numClassLists;  // number of classes in the model when the lists were selected
+
 	public EntityIterator(JaamSimModel simModel, Class<T> aClass) {
+		this.simModel = simModel;
 		endNode = simModel.getEntityList();
 		curNode = endNode;
 		entClass = aClass;
@@ -35,14 +51,34 @@ public abstract class EntityIterator<T extends Entity> implements Iterable<T>, I
 
 	abstract boolean matches(Class<?> entklass);
 
+	// Select the class lists on the first use of the iterator, after the sub-class has been
+	// initialised
+	private void start() {
+		started = true;
+		numClassLists = simModel.getClassListArray().length;
+		classHeads = simModel.getClassLists(this);
+		if (classHeads == null)
+			return;
+
+		classNodes = Arrays.copyOf(classHeads, classHeads.length);
+	}
+
 	// Advance the current pointer past any dead entities, or entities that do not match
 	private void advance() {
 		if (!needAdvance) {
 			return;
 		}
-		curNode = curNode.next;
 		needAdvance = false;
 
+		if (!started)
+			start();
+
+		if (classNodes != null) {
+			advanceClassLists();
+			return;
+		}
+
+		curNode = curNode.next;
 		while (true) {
 			if (curNode == endNode) {
 				return;
@@ -60,6 +96,53 @@ public abstract class EntityIterator<T extends Entity> implements Iterable<T>, I
 		}
 	}
 
+	// Add the lists for any matching classes whose first entity was created after the
+	// iteration started
+	private void addNewClassLists() {
+		EntityListNode[] array = simModel.getClassListArray();
+		for (int i = numClassLists; i < array.length; i++) {
+			EntityListNode head = array[i];
+			if (!matches(head.entClass))
+				continue;
+			classHeads = Arrays.copyOf(classHeads, classHeads.length + 1);
+			classNodes = Arrays.copyOf(classNodes, classNodes.length + 1);
+			classHeads[classHeads.length - 1] = head;
+			classNodes[classNodes.length - 1] = head;
+		}
+		numClassLists = array.length;
+	}
+
+	// Select the live entity with the lowest entity number that follows the last node visited in
+	// each class list. The last node is re-checked each time so that entities added to a list
+	// after it was exhausted are still found.
+	private void advanceClassLists() {
+		if (simModel.getClassListArray().length != numClassLists)
+			addNewClassLists();
+
+		int curList = -1;
+		curNode = endNode;
+		long minNum = Long.MAX_VALUE;
+		for (int i = 0; i < classNodes.length; i++) {
+			EntityListNode node = classNodes[i].nextOfClass;
+			while (node != null && node != classHeads[i] && node.ent == null) {
+				node = node.nextOfClass;
+			}
+
+			// A null node is likely a race condition, skip the rest of the list
+			if (node == null || node == classHeads[i])
+				continue;
+
+			if (node.entNum < minNum) {
+				minNum = node.entNum;
+				curList = i;
+				curNode = node;
+			}
+		}
+
+		if (curList >= 0)
+			classNodes[curList] = curNode;
+	}
+
 	@Override
 	public boolean hasNext() {
 		advance();
@@ -27,22 +27,33 @@ public class EntityListNode {
 	public EntityListNode next;
 	public EntityListNode prev;
 
+	// Links to the adjacent entities of the same class
+	public EntityListNode nextOfClass;
+	public EntityListNode prevOfClass;
+
 	// This is a minor optimization, caching entClass prevents needing to dereference ent during
 	// iteration of the entity list
 	public Class<? extends Entity> entClass;
 
 	public Entity ent;
+	public long entNum;
 
 	// Initialize to a closed loop
 	public EntityListNode() {
 		next = this;
 		prev = this;
+		nextOfClass = this;
+		prevOfClass = this;
+	}
+	public EntityListNode(Class<? extends Entity> klass) {
+		this();
+		entClass = klass;
 	}
 	public EntityListNode(Entity e) {
-		next = this;
-		prev = this;
+		this();
 		ent = e;
 		e.listNode = this;
 		entClass = e.getClass();
+		entNum = e.getEntityNumber();
 	}
 }
@@ -114,18 +114,8 @@ class EventTracer implements EventTraceListener {
 						sb.append(line).append("\n");
 					}
 
-					String msg = sb.toString();
-					System.out.println(msg);
-					LogBox.logLine(msg);
-					EventManager.current().pause();
-
-					if (GUIFrame.getInstance() != null) {
-						GUIFrame.getRunManager().pause();
-						GUIFrame.invokeErrorDialog("Event Verification Error",
-								"Present event does not match the next event at this time in the "
-								+ "trace file.",
-								msg, "This message is repeated in the Log Viewer.");
-					}
+					reportError("Present event does not match the next event at this time in the "
+							+ "trace file.", sb.toString());
 					break;
 				}
 			}
@@ -148,15 +138,24 @@ class EventTracer implements EventTraceListener {
 			}
 		}
 
-		String msg = sb.toString();
+		reportError("Present event has no matching event at this time in the trace file.",
+				sb.toString());
+	}
+
+	/**
+	 * Reports an event verification error and pauses the model.
+	 * @param brief - short description of the error
+	 * @param msg - full text of the error message
+	 */
+	static void reportError(String brief, String msg) {
 		System.out.println(msg);
 		LogBox.logLine(msg);
-		EventManager.current().pause();
+		if (EventManager.hasCurrent())
+			EventManager.current().pause();
 
 		if (GUIFrame.getInstance() != null) {
 			GUIFrame.getRunManager().pause();
-			GUIFrame.invokeErrorDialog("Event Verification Error",
-					"Present event has no matching event at this time in the trace file.",
+			GUIFrame.invokeErrorDialog("Event Verification Error", brief,
 					msg, "This message is repeated in the Log Viewer.");
 		}
 	}
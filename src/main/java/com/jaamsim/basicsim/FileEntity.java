@@ -19,8 +19,12 @@ package com.jaamsim.basicsim;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.zip.GZIPOutputStream;
 
 import com.jaamsim.input.InputAgent;
 import com.jaamsim.input.InputErrorException;
@@ -32,17 +36,56 @@ public class FileEntity {
 
 	private File backingFileObject;
 	private BufferedWriter outputStream;
+	private AsyncOutputStream asyncStream;  // background writer, or null if writing directly
+	private GZIPOutputStream gzipStream;    // compressor, or null if the file is not compressed
+	private CountingOutputStream fileStream;
 
 	public FileEntity(File file) {
 		this(file, false);
 	}
 
 	public FileEntity(File file, boolean append) {
+		this(file, append, false, 0L, false);
+	}
+
+	/**
+	 * Opens a file for writing.
+	 * @param file - file to be written
+	 * @param append - if TRUE, text is added to the end of an existing file
+	 * @param async - if TRUE, the file is written by a background thread
+	 * @param flushIntervalMillis - minimum time between flushes for a file written in the
+	 *                              background
+	 * @param compress - if TRUE, the file is written in GZIP format
+	 */
+	public FileEntity(File file, boolean append, boolean async, long flushIntervalMillis, boolean compress) {
 		backingFileObject = file;
 
 		try {
 			backingFileObject.createNewFile();
-			outputStream = new BufferedWriter( new FileWriter(backingFileObject, append) );
+			fileStream = new CountingOutputStream(new FileOutputStream(backingFileObject, append));
+			OutputStream out = fileStream;
+			if (compress) {
+				gzipStream = new GZIPOutputStream(out, 8192, true);
+				out = gzipStream;
+			}
+			if (async) {
+				asyncStream = new AsyncOutputStream(out, "FileWriter-" + file.getName(),
+						AsyncOutputStream.DEFAULT_CHUNK_SIZE, AsyncOutputStream.DEFAULT_NUM_CHUNKS,
+						flushIntervalMillis);
+				out = asyncStream;
+			}
+			else if (compress) {
+				// Compressed data is flushed only by sync() and close()
+				out = new FilterOutputStream(out) {
+					@Override
+					public void write(byte[] b, int off, int len) throws IOException {
+						out.write(b, off, len);
+					}
+					@Override
+					public void flush() {}
+				};
+			}
+			outputStream = new BufferedWriter( new OutputStreamWriter(out) );
 		}
 		catch (IOException e) {
 			throw new InputErrorException("IOException thrown trying to open file: '%s'%n%s",
@@ -84,6 +127,34 @@ public class FileEntity {
 		}
 	}
 
+	/**
+	 * Writes all the buffered text to the file. Unlike flush(), this method waits for the
+	 * background writer thread when one is used, and flushes the compressor for a compressed
+	 * file.
+	 */
+	public void sync() {
+		try {
+			if( outputStream != null ) {
+				outputStream.flush();
+				if (asyncStream != null)
+					asyncStream.sync();
+				else if (gzipStream != null)
+					gzipStream.flush();
+			}
+		}
+		catch( IOException e ) {
+			throw new ErrorException( "Unable to flush FileEntity: " + e );
+		}
+	}
+
+	/**
+	 * Returns the number of bytes that have been written to the file, after compression for a
+	 * compressed file. Text that is still held in a buffer is not included.
+	 */
+	public long getNumBytes() {
+		return fileStream.getCount();
+	}
+
 	public void format(String format, Object... args) {
 		write(String.format(format, args));
 	}
@@ -127,4 +198,32 @@ public class FileEntity {
 		return backingFileObject.toString();
 	}
 
+	/**
+	 * Counts the bytes written to a stream. The count can be read by a different thread from the
+	 * one that writes the bytes.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+		private volatile long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
 }
@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,7 +21,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -39,9 +38,12 @@ import com.jaamsim.datatypes.IntegerVector;
 import com.jaamsim.events.Conditional;
 import com.jaamsim.events.EventHandle;
 import com.jaamsim.events.EventManager;
+import com.jaamsim.events.EventProfiler;
 import com.jaamsim.events.EventTimeListener;
+import com.jaamsim.events.EventTraceListener;
 import com.jaamsim.events.ProcessTarget;
 import com.jaamsim.input.ExpError;
+import com.jaamsim.input.ExpParser;
 import com.jaamsim.input.Input;
 import com.jaamsim.input.InputAgent;
 import com.jaamsim.input.InputErrorException;
@@ -62,6 +64,10 @@ public class JaamSimModel implements EventTimeListener {
 	// Perform debug only entity list validation logic
 	private static final boolean VALIDATE_ENT_LIST = false;
 
+	// Maximum number of class lists that an entity iterator will merge instead of searching
+	// the full list of entities
+	static final int MAX_MERGED_CLASS_LISTS = 16;
+
 	private final EventManager eventManager;
 	private Simulation simulation;
 	private String name;
@@ -78,18 +84,25 @@ public class JaamSimModel implements EventTimeListener {
 	// Note, entityList is an empty list node used to identify the end of the list
 	// The first real entity is at entityList.next.ent
 	private final EntityListNode entityList = new EntityListNode();
+
+	// Index of the entities by class. Each node is also linked into a list of the entities with
+	// the same class, whose empty head node is held here.
+	private final HashMap<Class<? extends Entity>, EntityListNode> classLists = new HashMap<>();
+	private volatile EntityListNode[] classListArray = new EntityListNode[0];
 	private int numLiveEnts;
 
 	private File configFile;           // present configuration file
 	private File reportDir;         // directory for the output reports
 
 	private boolean batchRun;       // true if the run is to be terminated automatically
+	private boolean presentationDisabled;  // true if the model will never be displayed
 	private boolean scriptMode;     // TRUE if script mode (command line) is specified
 	private boolean sessionEdited;  // TRUE if any inputs have been changed after loading a configuration file
 	private boolean recordEditsFound;  // TRUE if the "RecordEdits" marker is found in the configuration file
 	private boolean recordEdits;       // TRUE if input changes are to be marked as edited
 
 	private FileEntity logFile;
+	private EventTraceListener eventTrace;  // binary event recorder or verifier
 	private int numErrors = 0;
 	private int numWarnings = 0;
 
@@ -101,13 +114,21 @@ public class JaamSimModel implements EventTimeListener {
 
 	private final SimCalendar calendar = new SimCalendar();
 	private long startMillis;  // start time in milliseonds from the epoch
+	private int startDayOfWeek = calendar.getDayOfWeek(0L);  // Sunday = 1, ..., Saturday = 7
 	private boolean calendarUsed;  // records whether the calendar has been used
 	private boolean reloadReqd;  // indicates that the simulation must be saved and reloaded
 
 	private final HashMap<String, MRG1999a[]> rngMap = new HashMap<>();
 
+	private final ExpParser.ParseCache parseCache = new ExpParser.ParseCache();
+
 	private int simState;
 
+	private boolean memoizeOutputs;  // true if the values of pure outputs are to be memoized
+	private int memoEpoch;           // incremented each time the model is started or resumed
+	private long memoHits;
+	private long memoMisses;
+
 	/** model was executed, but no configuration performed */
 	public static final int SIM_STATE_LOADED = 0;
 	/** essential model elements created, no configuration performed */
@@ -145,6 +166,7 @@ public class JaamSimModel implements EventTimeListener {
 
 		configFile = sm.configFile;
 		reportDir = sm.reportDir;
+		presentationDisabled = sm.presentationDisabled;
 
 		// Ensure that 'getReportDirectory' works correctly for an Example Model
 		if (reportDir == null && configFile == null)
@@ -367,6 +389,7 @@ public class JaamSimModel implements EventTimeListener {
 		// Reset calendar
 		calendar.setGregorian(false);
 		startMillis = 0L;
+		startDayOfWeek = calendar.getDayOfWeek(startMillis);
 		calendarUsed = false;
 		reloadReqd = false;
 
@@ -375,6 +398,7 @@ public class JaamSimModel implements EventTimeListener {
 
 		// close warning/error trace file
 		closeLogFile();
+		closeEventTrace();
 
 		// Reset the run number and run indices
 		scenarioNumber = 1;
@@ -520,9 +544,22 @@ public class JaamSimModel implements EventTimeListener {
 		eventManager.clear();
 
 		// Set up any tracing to be performed
+		closeEventTrace();
 		eventManager.setTraceListener(null);
 		try {
-			if (getSimulation().traceEvents()) {
+			if (getSimulation().traceEvents() && getSimulation().isBinaryEventTrace()) {
+				String evtName = configFile.getParentFile() + File.separator + getRunName() + ".evb";
+				BinaryEventRecorder rec = new BinaryEventRecorder(evtName);
+				eventTrace = rec;
+				eventManager.setTraceListener(rec);
+			}
+			else if (getSimulation().verifyEvents() && getSimulation().isBinaryEventTrace()) {
+				String evtName = configFile.getParentFile() + File.separator + getRunName() + ".evb";
+				BinaryEventTracer trc = new BinaryEventTracer(evtName);
+				eventTrace = trc;
+				eventManager.setTraceListener(trc);
+			}
+			else if (getSimulation().traceEvents()) {
 				String evtName = configFile.getParentFile() + File.separator + getRunName() + ".evt";
 				EventRecorder rec = new EventRecorder(evtName);
 				eventManager.setTraceListener(rec);
@@ -548,6 +585,14 @@ public class JaamSimModel implements EventTimeListener {
 	}
 
 	void initRun() {
+		EventProfiler prof = null;
+		if (getSimulation().isProfileEvents())
+			prof = new EventProfiler();
+		eventManager.setProfiler(prof);
+		memoizeOutputs = getSimulation().isMemoizeOutputs();
+		memoEpoch++;
+		memoHits = 0L;
+		memoMisses = 0L;
 		eventManager.scheduleProcessExternal(0, 0, false, new InitModelTarget(this), null);
 	}
 
@@ -649,9 +694,51 @@ public class JaamSimModel implements EventTimeListener {
 	 * @param simTime - next pause time
 	 */
 	public void resume(double simTime) {
+		// Inputs may have been changed while the model was paused
+		memoEpoch++;
 		eventManager.resume(eventManager.secondsToNearestTick(simTime));
 	}
 
+	/**
+	 * Returns true if the values of pure outputs are memoized during the present run.
+	 */
+	public boolean isMemoizeOutputs() {
+		return memoizeOutputs;
+	}
+
+	/**
+	 * Returns a number that changes each time the model is started or resumed. Memoized output
+	 * values are valid only for the epoch in which they were calculated.
+	 */
+	public int getMemoEpoch() {
+		return memoEpoch;
+	}
+
+	/**
+	 * Records whether a memoized output value was re-used or had to be calculated.
+	 */
+	public void countMemoizedOutput(boolean hit) {
+		if (hit)
+			memoHits++;
+		else
+			memoMisses++;
+	}
+
+	public long getMemoizedOutputHits() {
+		return memoHits;
+	}
+
+	public long getMemoizedOutputMisses() {
+		return memoMisses;
+	}
+
+	/**
+	 * Returns the cache that shares the parsed expressions for identical expression inputs.
+	 */
+	public ExpParser.ParseCache getParseCache() {
+		return parseCache;
+	}
+
 	/**
 	 * Executes the end of run method for each entity.
 	 */
@@ -703,6 +790,9 @@ public class JaamSimModel implements EventTimeListener {
 		// Execute the end of run method for each entity
 		doEnd();
 
+		// Complete any binary event tracing
+		closeEventTrace();
+
 		// Stop the model
 		pause();
 
@@ -734,6 +824,7 @@ public class JaamSimModel implements EventTimeListener {
 		// Close warning/error trace file
 		LogBox.logLine("Made it to do end at");
 		closeLogFile();
+		closeEventTrace();
 
 		// Always terminate the run when in batch mode
 		if (isBatchRun() || getSimulation().getExitAtStop()) {
@@ -867,8 +958,17 @@ public class JaamSimModel implements EventTimeListener {
 		return isFirstScenario() && replicationNumber == 1;
 	}
 
+	/**
+	 * Returns true if the present run is the last one to be performed. When replications are
+	 * added until a precision target is met, the last replication is the one that meets the
+	 * target or reaches the maximum number of replications.
+	 */
 	public boolean isLastRun() {
-		return isLastScenario() && replicationNumber == getSimulation().getNumberOfReplications();
+		if (!isLastScenario())
+			return false;
+		if (runListener instanceof SimRun)
+			return ((SimRun) runListener).isLastRun();
+		return replicationNumber == getSimulation().getNumberOfReplications();
 	}
 
 	public boolean isFirstScenario() {
@@ -961,7 +1061,7 @@ public class JaamSimModel implements EventTimeListener {
 	}
 
 	public int getRunNumber() {
-		int numberOfReplications = getSimulation().getNumberOfReplications();
+		int numberOfReplications = getSimulation().getMaximumNumberOfReplications();
 		return (scenarioNumber - 1) * numberOfReplications + replicationNumber;
 	}
 
@@ -1112,6 +1212,9 @@ public class JaamSimModel implements EventTimeListener {
 	}
 
 	public final void removeNamedEntity(Entity ent) {
+		// Parsed expressions that refer to the entity by name can no longer be shared
+		parseCache.clear();
+
 		if (ent.parent != null) {
 			ent.parent.removeChild(ent);
 			return;
@@ -1254,10 +1357,70 @@ public class JaamSimModel implements EventTimeListener {
 			newNode.next = entityList;
 			oldLast.next = newNode;
 			entityList.prev = newNode;
+
+			// Append the entity to the list for its class
+			EntityListNode classList = getClassList(newNode.entClass);
+			oldLast = classList.prevOfClass;
+			newNode.prevOfClass = oldLast;
+			newNode.nextOfClass = classList;
+			oldLast.nextOfClass = newNode;
+			classList.prevOfClass = newNode;
 			validateEntList();
 		}
 	}
 
+	/**
+	 * Returns the head node for the list of entities of the specified class, creating it if
+	 * necessary. Must hold the namedEntities lock.
+	 */
+	private EntityListNode getClassList(Class<? extends Entity> klass) {
+		EntityListNode ret = classLists.get(klass);
+		if (ret != null)
+			return ret;
+
+		ret = new EntityListNode(klass);
+		classLists.put(klass, ret);
+		EntityListNode[] array = Arrays.copyOf(classListArray, classListArray.length + 1);
+		array[array.length - 1] = ret;
+		classListArray = array;
+		return ret;
+	}
+
+	/**
+	 * Returns the head node for the list of entities for each class, in the order in which the
+	 * classes were first used.
+	 */
+	final EntityListNode[] getClassListArray() {
+		return classListArray;
+	}
+
+	/**
+	 * Returns the head nodes for the lists of entities whose classes are accepted by the
+	 * specified iterator. Returns null if there are too many lists for the iterator to merge
+	 * efficiently, in which case the full list of entities should be searched.
+	 * @param itr - entity iterator
+	 * @return head node for each class list
+	 */
+	final EntityListNode[] getClassLists(EntityIterator<?> itr) {
+		EntityListNode[] array = classListArray;
+		int num = 0;
+		for (EntityListNode head : array) {
+			if (itr.matches(head.entClass)) {
+				num++;
+				if (num > MAX_MERGED_CLASS_LISTS)
+					return null;
+			}
+		}
+
+		EntityListNode[] ret = new EntityListNode[num];
+		int ind = 0;
+		for (EntityListNode head : array) {
+			if (itr.matches(head.entClass))
+				ret[ind++] = head;
+		}
+		return ret;
+	}
+
 	final void restoreInstance(Entity e) {
 		synchronized (namedEntities) {
 			validateEntList();
@@ -1279,6 +1442,17 @@ public class JaamSimModel implements EventTimeListener {
 					newNode.prev = curNode;
 					curNode.next = newNode;
 					newNode.next.prev = newNode;
+
+					// Insert the node at the correct location in the list for its class
+					EntityListNode classList = getClassList(newNode.entClass);
+					EntityListNode classNode = classList.prevOfClass;
+					while (classNode != classList && classNode.entNum > entNum) {
+						classNode = classNode.prevOfClass;
+					}
+					newNode.nextOfClass = classNode.nextOfClass;
+					newNode.prevOfClass = classNode;
+					classNode.nextOfClass = newNode;
+					newNode.nextOfClass.prevOfClass = newNode;
 					validateEntList();
 					return;
 				}
@@ -1305,6 +1479,8 @@ public class JaamSimModel implements EventTimeListener {
 
 			listNode.next.prev = listNode.prev;
 			listNode.prev.next = listNode.next;
+			listNode.nextOfClass.prevOfClass = listNode.prevOfClass;
+			listNode.prevOfClass.nextOfClass = listNode.nextOfClass;
 
 			// Note, leaving the nodes next and prev pointers intact so that any outstanding iterators
 			// can finish traversing the list
@@ -1486,12 +1662,22 @@ public class JaamSimModel implements EventTimeListener {
 
 	public void setBatchRun(boolean bool) {
 		batchRun = bool;
+		presentationDisabled = bool;
 	}
 
 	public boolean isBatchRun() {
 		return batchRun;
 	}
 
+	/**
+	 * Returns whether the model can never be displayed, in which case any work that affects only
+	 * the graphics can be skipped. The views are not rendered during a batch run.
+	 * @return true if the presentation is disabled
+	 */
+	public boolean isPresentationDisabled() {
+		return presentationDisabled;
+	}
+
 	public void setScriptMode(boolean bool) {
 		scriptMode = bool;
 	}
@@ -1586,6 +1772,22 @@ public class JaamSimModel implements EventTimeListener {
 		logFile = null;
 	}
 
+	/**
+	 * Writes out or verifies the remaining records for a binary event trace and closes the
+	 * event file.
+	 */
+	public void closeEventTrace() {
+		if (eventTrace == null)
+			return;
+
+		eventManager.setTraceListener(null);
+		if (eventTrace instanceof BinaryEventRecorder)
+			((BinaryEventRecorder) eventTrace).close();
+		else if (eventTrace instanceof BinaryEventTracer)
+			((BinaryEventTracer) eventTrace).close();
+		eventTrace = null;
+	}
+
 	public void logMessage(String msg) {
 		if (logFile == null)
 			return;
@@ -1655,6 +1857,7 @@ public class JaamSimModel implements EventTimeListener {
 		calendar.setGregorian(bool);
 		startMillis = calendar.getTimeInMillis(date.year, date.month - 1, date.dayOfMonth,
 				date.hourOfDay, date.minute, date.second, date.millisecond);
+		startDayOfWeek = calendar.getDayOfWeek(startMillis);
 	}
 
 	/**
@@ -1709,11 +1912,8 @@ public class JaamSimModel implements EventTimeListener {
 	 * @param millis - time in milliseconds from the epoch
 	 * @return date for the specified time
 	 */
-	public synchronized Date getCalendarDate(long millis) {
-		synchronized (calendar) {
-			calendar.setTimeInMillis(millis);
-			return calendar.getTime();
-		}
+	public Date getCalendarDate(long millis) {
+		return calendar.getCalendarDate(millis);
 	}
 
 	/**
@@ -1722,10 +1922,19 @@ public class JaamSimModel implements EventTimeListener {
 	 * @return SimDate for the specified time
 	 */
 	public SimDate getSimDate(long millis) {
-		synchronized (calendar) {
-			calendar.setTimeInMillis(millis);
-			return calendar.getSimDate();
-		}
+		int[] date = new int[7];
+		calendar.getDate(millis, date);
+		return new SimDate(date[0], date[1], date[2], date[3], date[4], date[5], date[6]);
+	}
+
+	/**
+	 * Sets the calendar date and time for the specified time in milliseconds from the epoch.
+	 * @param millis - time in milliseconds from the epoch
+	 * @param date - array to receive the year, month (1 - 12), day of month, hour, minute,
+	 * second, and millisecond
+	 */
+	public void getSimDate(long millis, int[] date) {
+		calendar.getDate(millis, date);
 	}
 
 	/**
@@ -1734,15 +1943,10 @@ public class JaamSimModel implements EventTimeListener {
 	 * @return day of week (Sunday = 1, Monday = 2, ..., Saturday = 7)
 	 */
 	public int getDayOfWeek(long millis) {
-		synchronized (calendar) {
-			if (calendar.isGregorian()) {
-				calendar.setTimeInMillis(millis);
-				return calendar.get(Calendar.DAY_OF_WEEK);
-			}
-			calendar.setTimeInMillis(startMillis);
-			long simDay = (millis - startMillis)/(1000*60*60*24);
-			return (int) ((calendar.get(Calendar.DAY_OF_WEEK) - 1 + simDay) % 7L) + 1;
-		}
+		if (calendar.isGregorian())
+			return calendar.getDayOfWeek(millis);
+		long simDay = (millis - startMillis)/(1000*60*60*24);
+		return (int) ((startDayOfWeek - 1 + simDay) % 7L) + 1;
 	}
 
 	public final void setPreferredUnitList(ArrayList<? extends Unit> list) {
@@ -1821,8 +2025,10 @@ public class JaamSimModel implements EventTimeListener {
 			if (seed == -1)
 				streamNumber = getSmallestAvailableStreamNumber();
 			int substreamNumber = getSimulation().getSubstreamNumber();
+			boolean anti = getSimulation().isAntitheticReplication();
 			for (int i = 0; i < num; i++) {
 				ret[i] = new MRG1999a(streamNumber + i, substreamNumber);
+				ret[i].setAntithetic(anti);
 			}
 			rngMap.put(key, ret);
 		}
@@ -1883,6 +2089,8 @@ public class JaamSimModel implements EventTimeListener {
 	}
 
 	public void showTemporaryLabels(boolean bool) {
+		if (bool && isPresentationDisabled())
+			return;
 		for (DisplayEntity ent : getClonesOfIterator(DisplayEntity.class)) {
 			if (!EntityLabel.canLabel(ent))
 				continue;
@@ -58,6 +58,11 @@ public class ReflectionTarget extends ProcessTarget {
 		return String.format("%s.%s", target.getName(), method.getName());
 	}
 
+	@Override
+	public Object getOwner() {
+		return target;
+	}
+
 	// Look up the method with the given name for the given entity and argument list.
 	private Method findEntityMethod(Class<?> targetClass, String methodName, Object... arguments) {
 		Class<?>[] argClasses = new Class<?>[arguments.length];
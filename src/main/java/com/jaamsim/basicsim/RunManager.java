@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2021-2022 JaamSim Software Inc.
+ * Copyright (C) 2021-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,13 +38,19 @@ public class RunManager implements RunListener {
 	private final JaamSimModel simModel;
 	private PrintStream outStream;  // location where the custom outputs will be written
 	private FileEntity reportFile;  // main output report
+	private ColumnFileWriter runOutputFile;  // binary copy of the custom outputs
+	private PrintStream percentileStream;  // pooled percentiles for each scenario
+	private ColumnFileWriter percentileFile;  // binary copy of the pooled percentiles
 
 	private final ArrayList<JaamSimModel> simModelList;
+	private final ArrayList<JaamSimModel> idleModelList;  // models waiting for a run to start
 	private final ArrayList<Scenario> scenarioList;
+	private int numScenariosEnded;  // scenarios whose outputs have been printed
 
 	public RunManager(JaamSimModel sm) {
 		simModel = sm;
 		simModelList = new ArrayList<>();
+		idleModelList = new ArrayList<>();
 		scenarioList = new ArrayList<>();
 	}
 
@@ -71,35 +77,80 @@ public class RunManager implements RunListener {
 
 		// Start a new simulation run on each thread
 		simModelList.clear();
+		idleModelList.clear();
 		scenarioList.clear();
+		numScenariosEnded = 0;
 		for (int i = 0; i < getNumberOfThreads(); i++) {
+			if (!hasRunsToStart())
+				return;
 
 			// Create a JaamSimModel for each thread
-			JaamSimModel sm = simModel;
-			if (i > 0) {
-				try {
-					sm = new JaamSimModel(simModel);
-					sm.setName(String.format("%s(%s)", simModel.getName(), simModelList.size() + 1));
-				}
-				catch (Exception e) {
-					pause();
-					GUIFrame.invokeErrorDialog("Runtime Error",
-							"The following runtime error has occurred while starting the model "
-							+ "on multiple threads:",
-							e.getMessage(),
-							"More information about the error can be found in the Log Viewer.");
-					LogBox.logException(e);
-					return;
-				}
-			}
-			if (!hasRunsToStart())
+			JaamSimModel sm = (i == 0) ? simModel : copyModel();
+			if (sm == null)
 				return;
 			synchronized (simModelList) {
 				simModelList.add(sm);
 			}
 
 			// Start the next simulation run for the present scenario
-			startNextRun(sm, pauseTime);
+			if (!startNextRun(sm, pauseTime)) {
+				synchronized (simModelList) {
+					idleModelList.add(sm);
+				}
+			}
+		}
+	}
+
+	// Returns a copy of the model to be run on another thread, or null if it cannot be created
+	private JaamSimModel copyModel() {
+		try {
+			JaamSimModel sm = new JaamSimModel(simModel);
+			sm.setName(String.format("%s(%s)", simModel.getName(), simModelList.size() + 1));
+			return sm;
+		}
+		catch (Exception e) {
+			pause();
+			GUIFrame.invokeErrorDialog("Runtime Error",
+					"The following runtime error has occurred while starting the model "
+					+ "on multiple threads:",
+					e.getMessage(),
+					"More information about the error can be found in the Log Viewer.");
+			LogBox.logException(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Starts runs on the threads that are waiting for one, and on any threads that were not
+	 * needed when the runs were started. A scenario can add replications after its runs have
+	 * been started, when it has not met its precision target.
+	 */
+	private void startIdleRuns(double pauseTime) {
+		while (hasRunsToStart()) {
+			JaamSimModel sm = null;
+			int numModels;
+			synchronized (simModelList) {
+				if (!idleModelList.isEmpty()) {
+					sm = idleModelList.remove(idleModelList.size() - 1);
+				}
+				numModels = simModelList.size();
+			}
+			if (sm == null) {
+				if (numModels >= getNumberOfThreads())
+					return;
+				sm = copyModel();
+				if (sm == null)
+					return;
+				synchronized (simModelList) {
+					simModelList.add(sm);
+				}
+			}
+			if (!startNextRun(sm, pauseTime)) {
+				synchronized (simModelList) {
+					idleModelList.add(sm);
+				}
+				return;
+			}
 		}
 	}
 
@@ -119,7 +170,9 @@ public class RunManager implements RunListener {
 		simModelList.remove(simModel);
 		close();
 		simModelList.clear();
+		idleModelList.clear();
 		scenarioList.clear();
+		numScenariosEnded = 0;
 
 		simModel.setScenarioNumber(getStartingScenarioNumber());
 		simModel.setReplicationNumber(1);
@@ -135,6 +188,18 @@ public class RunManager implements RunListener {
 			reportFile.close();
 			reportFile = null;
 		}
+		if (runOutputFile != null) {
+			runOutputFile.close();
+			runOutputFile = null;
+		}
+		if (percentileStream != null) {
+			percentileStream.close();
+			percentileStream = null;
+		}
+		if (percentileFile != null) {
+			percentileFile.close();
+			percentileFile = null;
+		}
 		for (JaamSimModel sm : simModelList) {
 			sm.closeLogFile();
 			sm.pause();
@@ -150,16 +215,30 @@ public class RunManager implements RunListener {
 		}
 	}
 
+	/**
+	 * Returns true if the specified scenario has been started.
+	 */
+	public boolean hasScenario(int scenarioNumber) {
+		synchronized (scenarioList) {
+			int i = scenarioNumber - getStartingScenarioNumber();
+			return i >= 0 && i < scenarioList.size();
+		}
+	}
+
 	public boolean hasRunsToStart() {
 		synchronized (scenarioList) {
-			return scenarioList.size() < getNumberOfScenarios()
-					|| scenarioList.get(scenarioList.size() - 1).hasRunsToStart();
+			if (scenarioList.size() < getNumberOfScenarios())
+				return true;
+			for (Scenario scene : scenarioList) {
+				if (scene.hasRunsToStart())
+					return true;
+			}
+			return false;
 		}
 	}
 
 	@Override
 	public void runEnded(SimRun run) {
-		Simulation simulation = simModel.getSimulation();
 		if (RunProgressBox.hasInstance())
 			GUIFrame.updateUI();
 
@@ -168,93 +247,177 @@ public class RunManager implements RunListener {
 			if (reportFile != null)
 				InputAgent.printReport(run.getJaamSimModel(), EventManager.simSeconds(), reportFile);
 
-			// Is the scenario finished?
-			Scenario scene = getScenario(run.getScenarioNumber());
-			if (scene.isFinished()) {
-
-				// Print the results
-				int numOuts = simulation.getRunOutputListSize();
-				if (numOuts > 0) {
-					outStream = getOutStream();
-					if (outStream != null) {
-						boolean labels = simulation.getPrintRunLabels();
-						boolean reps = simulation.getPrintReplications();
-						boolean bool = simulation.getPrintConfidenceIntervals();
-						if (run.getScenarioNumber() == getStartingScenarioNumber())
-							InputAgent.printRunOutputHeaders(simModel, labels, reps, bool, outStream);
-						InputAgent.printScenarioOutputs(scene, labels, reps, bool, outStream);
-						if (reps && run.getScenarioNumber() < getEndingScenarioNumber()) {
-							outStream.println();
-						}
-					}
+			// Print the results for the scenarios that have finished, in order
+			while (true) {
+				Scenario scene;
+				synchronized (scenarioList) {
+					if (numScenariosEnded >= scenarioList.size())
+						break;
+					scene = scenarioList.get(numScenariosEnded);
 				}
+				if (!scene.isFinished())
+					break;
+				printScenarioOutputs(scene);
+				printScenarioPercentiles(scene);
+				numScenariosEnded++;
+			}
 
-				// Exit if this is the last scenario
-				if (run.getScenarioNumber() == getEndingScenarioNumber()) {
-					if (outStream != null) {
-						outStream.close();
-						outStream = null;
-					}
-					if (reportFile != null) {
-						reportFile.close();
-						reportFile = null;
-					}
-					simModel.end();
-
-					// Are there any runs with errors
-					ArrayList<SimRun> errorRuns = getErrorRuns();
-					if (GUIFrame.getInstance() != null && !errorRuns.isEmpty()) {
-						StringBuilder sb = new StringBuilder();
-						for (SimRun r : errorRuns) {
-							sb.append(String.format("replication %s of scenario %s%n",
-									r.getReplicationNumber(), r.getScenarioNumber()));
-						}
-						GUIFrame.invokeErrorDialog("Runtime Error",
-								"Runtime errors occured in the following simulation runs:",
-								sb.toString(),
-								"More information can be found in the Log Viewer.");
+			// Exit if the last scenario is finished
+			if (numScenariosEnded == getNumberOfScenarios()) {
+				if (simModel.isScriptMode() && simModel.getSimulation().getPrintPooledPercentiles())
+					printPooledPercentiles(getOutStream());
+				if (outStream != null) {
+					outStream.close();
+					outStream = null;
+				}
+				if (reportFile != null) {
+					reportFile.close();
+					reportFile = null;
+				}
+				if (runOutputFile != null) {
+					runOutputFile.close();
+					runOutputFile = null;
+				}
+				if (percentileStream != null) {
+					percentileStream.close();
+					percentileStream = null;
+				}
+				if (percentileFile != null) {
+					percentileFile.close();
+					percentileFile = null;
+				}
+				simModel.end();
+
+				// Are there any runs with errors
+				ArrayList<SimRun> errorRuns = getErrorRuns();
+				if (GUIFrame.getInstance() != null && !errorRuns.isEmpty()) {
+					StringBuilder sb = new StringBuilder();
+					for (SimRun r : errorRuns) {
+						sb.append(String.format("replication %s of scenario %s%n",
+								r.getReplicationNumber(), r.getScenarioNumber()));
 					}
-					return;
+					GUIFrame.invokeErrorDialog("Runtime Error",
+							"Runtime errors occured in the following simulation runs:",
+							sb.toString(),
+							"More information can be found in the Log Viewer.");
 				}
+				return;
 			}
 		}
 
-		// Start the next run
+		// Start the next run, and any runs that were added for the idle threads
 		JaamSimModel sm = run.getJaamSimModel();
 		double pauseTime = simModel.getSimulation().getPauseTime();
-		startNextRun(sm, pauseTime);
+		if (!startNextRun(sm, pauseTime)) {
+			synchronized (simModelList) {
+				idleModelList.add(sm);
+			}
+		}
+		startIdleRuns(pauseTime);
 	}
 
 	@Override
 	public void handleError(Throwable t) {}
 
-	private void startNextRun(JaamSimModel sm, double pauseTime) {
+	private void printScenarioOutputs(Scenario scene) {
+		Simulation simulation = simModel.getSimulation();
+		int numOuts = simulation.getRunOutputListSize();
+		if (numOuts == 0)
+			return;
+
+		outStream = getOutStream();
+		if (outStream != null) {
+			boolean labels = simulation.getPrintRunLabels();
+			boolean reps = simulation.getPrintReplications();
+			boolean bool = simulation.getPrintConfidenceIntervals();
+			if (scene.getScenarioNumber() == getStartingScenarioNumber())
+				InputAgent.printRunOutputHeaders(simModel, labels, reps, bool, outStream);
+			InputAgent.printScenarioOutputs(scene, labels, reps, bool, outStream);
+			if (simulation.isPairedDifferences() && scene.getScenarioNumber() > getStartingScenarioNumber()) {
+				Scenario base = getScenario(getStartingScenarioNumber());
+				InputAgent.printPairedDifferences(scene, base, labels, reps, bool, outStream);
+			}
+			if (reps && scene.getScenarioNumber() < getEndingScenarioNumber()) {
+				outStream.println();
+			}
+		}
+
+		// Binary copy of the outputs
+		if (simulation.isBinaryRunOutputs() && !simModel.isScriptMode()) {
+			ColumnFileWriter colFile = getRunOutputFile();
+			InputAgent.writeScenarioOutputs(scene, colFile);
+			colFile.flush();
+		}
+	}
+
+	// Writes the pooled percentiles to their own files, since their columns differ from those
+	// of the custom outputs
+	private void printScenarioPercentiles(Scenario scene) {
+		Simulation simulation = simModel.getSimulation();
+		if (!simulation.getPrintPooledPercentiles() || simModel.isScriptMode())
+			return;
+
+		PrintStream stream = getPercentileStream();
+		InputAgent.printPooledPercentiles(scene, stream);
+		stream.flush();
+
+		if (simulation.isBinaryRunOutputs()) {
+			ColumnFileWriter colFile = getPercentileFile();
+			InputAgent.writePooledPercentiles(scene, colFile);
+			colFile.flush();
+		}
+	}
+
+	// In script mode, the pooled percentiles follow the custom outputs as a separate section
+	private void printPooledPercentiles(PrintStream stream) {
+		stream.println();
+		stream.println("Pooled Percentiles");
+		InputAgent.printPooledPercentileHeaders(stream);
+		for (int i = 0; i < numScenariosEnded; i++) {
+			InputAgent.printPooledPercentiles(scenarioList.get(i), stream);
+		}
+	}
+
+	/**
+	 * Starts the next simulation run on the specified model.
+	 * @return false if there was no run to start
+	 */
+	private boolean startNextRun(JaamSimModel sm, double pauseTime) {
 		synchronized (scenarioList) {
 			Simulation simulation = simModel.getSimulation();
 
-			// Set the present scenario
+			// Use the earliest scenario that needs another run, which can be an earlier one
+			// that is adding replications to meet its precision target
 			Scenario presentScenario = null;
-			if (!scenarioList.isEmpty())
-				presentScenario = scenarioList.get(scenarioList.size() - 1);
+			for (Scenario scene : scenarioList) {
+				if (scene.hasRunsToStart()) {
+					presentScenario = scene;
+					break;
+				}
+			}
 
 			// Start a new scenario if required
-			if (presentScenario == null || !presentScenario.hasRunsToStart()) {
+			if (presentScenario == null) {
 				if (scenarioList.size() >= getNumberOfScenarios())
-					return;
+					return false;
 				int numOuts = simulation.getRunOutputListSize();
 				int scenarioNumber = scenarioList.size() + getStartingScenarioNumber();
 				int numberOfReplications = getNumberOfReplications();
-				presentScenario = new Scenario(numOuts, scenarioNumber, numberOfReplications, this);
+				presentScenario = new Scenario(numOuts, scenarioNumber, numberOfReplications,
+						simulation.getMaximumNumberOfReplications(),
+						simulation.getTargetRelativeHalfWidth(),
+						simulation.getPrecisionOutputIndices(),
+						simulation.isAntitheticReplications(), this);
 				scenarioList.add(presentScenario);
 			}
 
 			// Start the next simulation run for the present scenario
-			if (presentScenario.hasRunsToStart()) {
-				presentScenario.startNextRun(sm, pauseTime);
-				if (sm == simModel && GUIFrame.getInstance() != null) {
-					GUIFrame.getInstance().initSpeedUp(0.0d);
-				}
+			if (!presentScenario.startNextRun(sm, pauseTime))
+				return false;
+			if (sm == simModel && GUIFrame.getInstance() != null) {
+				GUIFrame.getInstance().initSpeedUp(0.0d);
 			}
+			return true;
 		}
 	}
 
@@ -283,6 +446,51 @@ public class RunManager implements RunListener {
 		return outStream;
 	}
 
+	private PrintStream getPercentileStream() {
+		if (percentileStream == null) {
+			String fileName = simModel.getReportFileName("-percentiles.dat");
+			if (fileName == null)
+				throw new ErrorException("Cannot create the pooled percentile file");
+			try {
+				percentileStream = new PrintStream(fileName);
+			}
+			catch (FileNotFoundException e) {
+				throw new InputErrorException(
+						"FileNotFoundException thrown trying to open PrintStream: " + e );
+			}
+			InputAgent.printPooledPercentileHeaders(percentileStream);
+		}
+		return percentileStream;
+	}
+
+	private ColumnFileWriter getPercentileFile() {
+		if (percentileFile == null) {
+			String fileName = simModel.getReportFileName("-percentiles.jsc");
+			if (fileName == null)
+				throw new ErrorException("Cannot create the binary pooled percentile file");
+			File f = new File(fileName);
+			if (f.exists() && !f.delete())
+				throw new ErrorException("Cannot delete the existing pooled percentile file %s", f);
+			percentileFile = new ColumnFileWriter(f);
+			InputAgent.addPooledPercentileColumns(percentileFile);
+		}
+		return percentileFile;
+	}
+
+	public ColumnFileWriter getRunOutputFile() {
+		if (runOutputFile == null) {
+			String fileName = simModel.getReportFileName(".jsc");
+			if (fileName == null)
+				throw new ErrorException("Cannot create the binary run output file");
+			File f = new File(fileName);
+			if (f.exists() && !f.delete())
+				throw new ErrorException("Cannot delete the existing run output file %s", f);
+			runOutputFile = new ColumnFileWriter(f);
+			InputAgent.addRunOutputColumns(simModel, runOutputFile);
+		}
+		return runOutputFile;
+	}
+
 	public FileEntity getReportFile() {
 		if (reportFile == null) {
 			String fileName = simModel.getReportFileName(".rep");
@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2021-2022 JaamSim Software Inc.
+ * Copyright (C) 2021-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,22 @@
 package com.jaamsim.basicsim;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import com.jaamsim.Statistics.QuantileSketch;
 import com.jaamsim.Statistics.SampleStatistics;
 
 /**
  * A set of simulation runs that are replications of a given model.
+ * <p>
+ * If a target is set for the relative half-width of the confidence intervals, further
+ * replications are added after the minimum number until the selected outputs meet the target or
+ * the maximum number of replications is reached.
+ * <p>
+ * If the replications are performed in antithetic pairs, the outputs for each pair are averaged
+ * to give one observation, and the confidence intervals are calculated from these observations.
  * @author Harry King
  *
  */
@@ -29,6 +40,10 @@ public class Scenario implements RunListener {
 
 	private final int scenarioNumber;
 	private final int replications;  // number of replications to be performed
+	private final int maxReplications;  // maximum number when replications are added as needed
+	private final double targetHalfWidth;  // relative half-width for the confidence intervals
+	private final int[] precisionOutputs;  // outputs whose confidence intervals must meet the target
+	private final boolean antithetic;  // replications are performed in antithetic pairs
 	private final RunListener listener;  // notifies the RunManager that the run has ended
 
 	private final ArrayList<SimRun> runsToStart;
@@ -36,10 +51,34 @@ public class Scenario implements RunListener {
 	private final ArrayList<SimRun> runsCompleted;
 
 	private final ArrayList<SampleStatistics> runStatistics;
+	private final LinkedHashMap<String, QuantileSketch> runSketches;  // merged over the replications
+	private final HashMap<Integer, double[]> runValues;  // output values for each replication
+	private final HashMap<Integer, double[]> observations;  // output values for each replication or pair
 
 	public Scenario(int numOuts, int scene, int numReps, RunListener l) {
+		this(numOuts, scene, numReps, numReps, 0.0d, new int[0], false, l);
+	}
+
+	/**
+	 * Constructs a scenario whose replications continue until the confidence intervals for the
+	 * selected outputs are small enough.
+	 * @param numOuts - number of run outputs
+	 * @param scene - scenario number
+	 * @param minReps - minimum number of replications
+	 * @param maxReps - maximum number of replications
+	 * @param target - largest half-width of the 95% confidence interval as a fraction of the mean
+	 * @param outs - indices of the run outputs that must meet the target
+	 * @param anti - true if the replications are performed in antithetic pairs
+	 * @param l - listens for the end of each run
+	 */
+	public Scenario(int numOuts, int scene, int minReps, int maxReps, double target, int[] outs,
+			boolean anti, RunListener l) {
 		scenarioNumber = scene;
-		replications = numReps;
+		replications = minReps;
+		maxReplications = Math.max(minReps, maxReps);
+		targetHalfWidth = target;
+		precisionOutputs = outs;
+		antithetic = anti;
 		listener = l;
 
 		runsToStart = new ArrayList<>(replications);
@@ -53,6 +92,9 @@ public class Scenario implements RunListener {
 		for (int i = 0; i < numOuts; i++) {
 			runStatistics.add(new SampleStatistics());
 		}
+		runSketches = new LinkedHashMap<>();
+		runValues = new HashMap<>();
+		observations = new HashMap<>();
 	}
 
 	public int getScenarioNumber() {
@@ -73,14 +115,115 @@ public class Scenario implements RunListener {
 		if (run.getRunOutputValues().size() != runStatistics.size())
 			throw new ErrorException("List sizes do not match");
 
-		for (int i = 0; i < run.getRunOutputValues().size(); i++) {
-			double val = run.getRunOutputValues().get(i);
-			if (Double.isNaN(val))
+		double[] vals = new double[runStatistics.size()];
+		for (int i = 0; i < vals.length; i++) {
+			vals[i] = run.getRunOutputValues().get(i);
+		}
+
+		synchronized (this) {
+			recordValues(run.getReplicationNumber(), vals);
+		}
+
+		synchronized (runSketches) {
+			for (Map.Entry<String, QuantileSketch> entry : run.getRunSketches().entrySet()) {
+				QuantileSketch sketch = runSketches.get(entry.getKey());
+				if (sketch == null) {
+					sketch = new QuantileSketch(entry.getValue().getAccuracy(), QuantileSketch.DEFAULT_MAX_BINS);
+					runSketches.put(entry.getKey(), sketch);
+				}
+				sketch.merge(entry.getValue());
+			}
+		}
+		run.clearRunSketches();
+	}
+
+	private void recordValues(int rep, double[] vals) {
+		runValues.put(rep, vals);
+
+		// Average the outputs for an antithetic pair once both runs have been recorded
+		int obs = rep;
+		if (antithetic) {
+			double[] otherVals = runValues.get(rep % 2 == 1 ? rep + 1 : rep - 1);
+			if (otherVals == null)
+				return;
+			obs = (rep + 1)/2;
+			double[] avg = new double[vals.length];
+			for (int i = 0; i < vals.length; i++) {
+				avg[i] = 0.5d*(vals[i] + otherVals[i]);
+			}
+			vals = avg;
+		}
+
+		observations.put(obs, vals);
+		for (int i = 0; i < vals.length; i++) {
+			if (Double.isNaN(vals[i]))
 				continue;
-			runStatistics.get(i).addValue(val);
+			runStatistics.get(i).addValue(vals[i]);
 		}
 	}
 
+	/**
+	 * Returns the statistics for the differences between the outputs for this scenario and
+	 * the specified scenario, paired by the replications that used the same random numbers.
+	 * For antithetic replications, the differences are between the averages for each pair.
+	 * @param base - scenario to be compared with this one
+	 * @return statistics for the difference in each output
+	 */
+	public SampleStatistics[] getPairedDifferences(Scenario base) {
+		HashMap<Integer, double[]> baseObs;
+		synchronized (base) {
+			baseObs = new HashMap<>(base.observations);
+		}
+
+		SampleStatistics[] ret = new SampleStatistics[runStatistics.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = new SampleStatistics();
+		}
+		synchronized (this) {
+			for (Map.Entry<Integer, double[]> entry : observations.entrySet()) {
+				double[] baseVals = baseObs.get(entry.getKey());
+				if (baseVals == null || baseVals.length != ret.length)
+					continue;
+				double[] vals = entry.getValue();
+				for (int i = 0; i < ret.length; i++) {
+					double diff = vals[i] - baseVals[i];
+					if (Double.isNaN(diff))
+						continue;
+					ret[i].addValue(diff);
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the names of the entities whose quantile sketches have been merged over the
+	 * completed replications.
+	 */
+	public ArrayList<String> getQuantileSketchNames() {
+		synchronized (runSketches) {
+			return new ArrayList<>(runSketches.keySet());
+		}
+	}
+
+	/**
+	 * Returns the values for the specified entity corresponding to the specified percentiles,
+	 * estimated over all the values recorded by the completed replications.
+	 * @param name - name of the entity that recorded the values
+	 * @param percentiles - percentiles between 0 and 100
+	 * @return estimated values, or NaN if no values were recorded
+	 */
+	public double[] getPercentileValues(String name, double[] percentiles) {
+		double[] ret = new double[percentiles.length];
+		synchronized (runSketches) {
+			QuantileSketch sketch = runSketches.get(name);
+			for (int i = 0; i < percentiles.length; i++) {
+				ret[i] = (sketch == null) ? Double.NaN : sketch.getQuantile(percentiles[i]/100.0d);
+			}
+		}
+		return ret;
+	}
+
 	public String[] getParameters() {
 		if (runsCompleted.isEmpty())
 			return new String[0];
@@ -100,6 +243,39 @@ public class Scenario implements RunListener {
 		return ret;
 	}
 
+	/**
+	 * Returns true if the confidence interval for each of the selected outputs is within the
+	 * target fraction of its mean value.
+	 */
+	private boolean isPrecise() {
+		for (int i : precisionOutputs) {
+			if (!isPrecise(runStatistics.get(i)))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isPrecise(SampleStatistics stats) {
+		double halfWidth = stats.getConfidenceInterval95();
+		return halfWidth <= targetHalfWidth*Math.abs(stats.getMean());
+	}
+
+	/**
+	 * Returns true if another replication must be added to the ones that have been started.
+	 */
+	private boolean isMoreRunsReqd() {
+		if (targetHalfWidth <= 0.0d)
+			return false;
+		int num = runsInProgress.size() + runsCompleted.size();
+		if (num >= maxReplications)
+			return false;
+
+		// Complete each antithetic pair
+		if (antithetic && num % 2 == 1)
+			return true;
+		return !isPrecise();
+	}
+
 	public double[] getMeanValues() {
 		double[] ret = new double[runStatistics.size()];
 		for (int i = 0; i < runStatistics.size(); i++) {
@@ -118,24 +294,97 @@ public class Scenario implements RunListener {
 
 	public boolean hasRunsToStart() {
 		synchronized (this) {
-			return !runsToStart.isEmpty();
+			return !runsToStart.isEmpty() || isMoreRunsReqd();
 		}
 	}
 
-	public void startNextRun(JaamSimModel simModel, double pauseTime) {
+	/**
+	 * Starts the next replication for the scenario on the specified model.
+	 * @return false if there was no replication to start
+	 */
+	public boolean startNextRun(JaamSimModel simModel, double pauseTime) {
 		synchronized (this) {
-			if (runsToStart.isEmpty())
-				return;
+			if (runsToStart.isEmpty()) {
+				if (!isMoreRunsReqd())
+					return false;
+				int rep = runsInProgress.size() + runsCompleted.size() + 1;
+				runsToStart.add(new SimRun(scenarioNumber, rep, this));
+			}
 			SimRun run = runsToStart.remove(0);
 			runsInProgress.add(run);
 			run.setJaamSimModel(simModel);
 			run.start(pauseTime);
+			return true;
+		}
+	}
+
+	/**
+	 * Returns true if the specified run will finish the scenario once its output values have
+	 * been recorded. This is the case if no other runs remain to be started or are in progress,
+	 * and no further replications will be required to meet the precision target.
+	 * @param run - run in progress that is ending
+	 * @param simTime - simulation time at which the run is ending
+	 */
+	public boolean isLastRun(SimRun run, double simTime) {
+		synchronized (this) {
+			if (!runsToStart.isEmpty() || runsInProgress.size() != 1 || runsInProgress.get(0) != run)
+				return false;
+			if (targetHalfWidth <= 0.0d)
+				return true;
+			int num = runsCompleted.size() + 1;
+			if (num >= maxReplications)
+				return true;
+			if (antithetic && num % 2 == 1)
+				return false;
+
+			// Find the observation that the run will add
+			double[] obs = getRunOutputValues(run, simTime);
+			if (obs != null && antithetic) {
+				int rep = run.getReplicationNumber();
+				double[] otherVals = runValues.get(rep % 2 == 1 ? rep + 1 : rep - 1);
+				if (otherVals == null) {
+					obs = null;
+				}
+				else {
+					for (int i = 0; i < obs.length; i++) {
+						obs[i] = 0.5d*(obs[i] + otherVals[i]);
+					}
+				}
+			}
+
+			// Check the precision that will be achieved with this observation
+			for (int i : precisionOutputs) {
+				SampleStatistics stats = new SampleStatistics(runStatistics.get(i));
+				if (obs != null && !Double.isNaN(obs[i]))
+					stats.addValue(obs[i]);
+				if (!isPrecise(stats))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	// Returns the run output values for a run that has not been recorded yet
+	private double[] getRunOutputValues(SimRun run, double simTime) {
+		ArrayList<Double> vals;
+		try {
+			vals = run.getJaamSimModel().getSimulation().getRunOutputValues(simTime);
 		}
+		catch (Exception e) {
+			return null;
+		}
+		if (vals.size() != runStatistics.size())
+			return null;
+		double[] ret = new double[vals.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = vals.get(i);
+		}
+		return ret;
 	}
 
 	public boolean isFinished() {
 		synchronized (this) {
-			return runsToStart.isEmpty() && runsInProgress.isEmpty();
+			return runsToStart.isEmpty() && runsInProgress.isEmpty() && !isMoreRunsReqd();
 		}
 	}
 
@@ -159,7 +408,8 @@ public class Scenario implements RunListener {
 			for (SimRun run : runsInProgress) {
 				ret += run.getProgress();
 			}
-			return ret / replications;
+			int num = Math.max(replications, runsInProgress.size() + runsCompleted.size());
+			return ret / num;
 		}
 	}
 
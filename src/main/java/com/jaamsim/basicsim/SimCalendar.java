@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2019-2020 JaamSim Software Inc.
+ * Copyright (C) 2019-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,17 @@ package com.jaamsim.basicsim;
 
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
 
 /**
  * Provides the option of a fixed 365 days per year calendar, without leap years.
+ * <p>
+ * The methods getTimeInMillis(year, ...), getDate, getCalendarDate, and getDayOfWeek do not
+ * change the Calendar fields and can be called from several threads at once. They use day
+ * number arithmetic and hold the date for the most recent day, so that no objects are created
+ * until the day changes.
  * @author Harry King
  *
  */
@@ -41,6 +47,13 @@ public final class SimCalendar extends GregorianCalendar {
 	private static final int[] daysInMonth;
 	private static final int[] firstDayOfMonth;
 
+	// Times before the change from the Julian calendar are converted by GregorianCalendar
+	private static final long gregorianChange = -12219292800000L;  // 1582-10-15 00:00 GMT
+	private static final int firstGregorianYear = 1583;
+	private static final int dayOfWeekAtEpoch = 5;  // 1970-01-01 was a Thursday
+
+	private volatile Day lastDay;  // date for the most recent day that was converted
+
 	static {
 		daysInMonth = new int[12];
 		daysInMonth[0] = 31;
@@ -142,9 +155,21 @@ public final class SimCalendar extends GregorianCalendar {
 
 		// Gregorian calendar
 		if (gregorian) {
-			super.set(year, month, dayOfMonth, hourOfDay, minute, second);
-			super.set(Calendar.MILLISECOND, millis);
-			return super.getTimeInMillis();
+			long ret;
+			if (year >= firstGregorianYear && month >= 0 && month < 12) {
+				ret = getEpochDay(year, month + 1, dayOfMonth) * millisPerDay;
+			}
+			else {
+				GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone( "GMT" ));
+				cal.clear();
+				cal.set(year, month, dayOfMonth);
+				ret = cal.getTimeInMillis();
+			}
+			ret += hourOfDay * millisPerHr;
+			ret += minute * millisPerMin;
+			ret += second * millisPerSec;
+			ret += millis;
+			return ret;
 		}
 
 		// Simple calendar with 365 days per year
@@ -167,4 +192,135 @@ public final class SimCalendar extends GregorianCalendar {
 		return new SimDate(this);
 	}
 
+	/**
+	 * Returns the date and time for the specified time in milliseconds from the epoch.
+	 * @param millis - time in milliseconds from the epoch
+	 * @param ret - array to receive the year, month (1 - 12), day of month, hour, minute, second,
+	 * and millisecond
+	 */
+	public void getDate(long millis, int[] ret) {
+		Day day = getDay(millis);
+		int ms = (int) (millis - day.startMillis);
+		ret[0] = day.year;
+		ret[1] = day.month;
+		ret[2] = day.dayOfMonth;
+		ret[3] = (int) (ms / millisPerHr);
+		ret[4] = (int) (ms / millisPerMin % 60L);
+		ret[5] = (int) (ms / millisPerSec % 60L);
+		ret[6] = (int) (ms % millisPerSec);
+	}
+
+	/**
+	 * Returns the Gregorian calendar day of week for the date at the specified time. For the
+	 * simple calendar, the date is the one given by the 365 days per year calendar.
+	 * @param millis - time in milliseconds from the epoch
+	 * @return day of week (Sunday = 1, Monday = 2, ..., Saturday = 7)
+	 */
+	public int getDayOfWeek(long millis) {
+		return getDay(millis).dayOfWeek;
+	}
+
+	/**
+	 * Returns the Date object for the calendar date at the specified time.
+	 * @param millis - time in milliseconds from the epoch
+	 * @return Date for the specified time
+	 */
+	public Date getCalendarDate(long millis) {
+		if (gregorian)
+			return new Date(millis);
+		Day day = getDay(millis);
+		return new Date(day.gregorianMillis + millis - day.startMillis);
+	}
+
+	private Day getDay(long millis) {
+		Day ret = lastDay;
+		if (ret != null && ret.gregorian == gregorian
+				&& millis >= ret.startMillis && millis - ret.startMillis < millisPerDay)
+			return ret;
+		ret = new Day(millis, gregorian);
+		lastDay = ret;
+		return ret;
+	}
+
+	/**
+	 * Returns the number of days from 1970-01-01 to the specified date in the Gregorian calendar.
+	 * @param year - year
+	 * @param month - month (1 - 12)
+	 * @param dayOfMonth - day of the month (1 - 31)
+	 * @return day number
+	 */
+	static long getEpochDay(long year, int month, int dayOfMonth) {
+		long y = (month <= 2) ? year - 1 : year;
+		long era = Math.floorDiv(y, 400L);
+		long yearOfEra = y - era*400L;
+		long dayOfYear = (153L*(month > 2 ? month - 3 : month + 9) + 2L)/5L + dayOfMonth - 1L;
+		long dayOfEra = yearOfEra*365L + yearOfEra/4L - yearOfEra/100L + dayOfYear;
+		return era*146097L + dayOfEra - 719468L;
+	}
+
+	/**
+	 * The calendar date for one day. Instances are immutable so that they can be shared between
+	 * threads without locking.
+	 */
+	private static final class Day {
+		final boolean gregorian;
+		final long startMillis;      // start of the day in milliseconds from the epoch
+		final long gregorianMillis;  // start of the day in the Gregorian calendar
+		final int year;
+		final int month;             // 1 - 12
+		final int dayOfMonth;
+		final int dayOfWeek;         // Sunday = 1, ..., Saturday = 7
+
+		Day(long millis, boolean greg) {
+			gregorian = greg;
+			long epochDay = Math.floorDiv(millis, millisPerDay);
+			startMillis = epochDay * millisPerDay;
+
+			// Simple calendar with 365 days per year
+			if (!greg) {
+				year = (int) Math.floorDiv(epochDay, 365L) + epoch;
+				int dayOfYear = (int) Math.floorMod(epochDay, 365L) + 1;
+				int mon = getMonthForDay(dayOfYear);
+				month = mon + 1;
+				dayOfMonth = dayOfYear - firstDayOfMonth[mon] + 1;
+				if (year >= firstGregorianYear) {
+					long gregDay = getEpochDay(year, month, dayOfMonth);
+					gregorianMillis = gregDay * millisPerDay;
+					dayOfWeek = (int) Math.floorMod(gregDay + dayOfWeekAtEpoch - 1, 7L) + 1;
+					return;
+				}
+				GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone( "GMT" ));
+				cal.clear();
+				cal.set(year, mon, dayOfMonth);
+				gregorianMillis = cal.getTimeInMillis();
+				dayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
+				return;
+			}
+
+			// Gregorian calendar
+			gregorianMillis = startMillis;
+			dayOfWeek = (int) Math.floorMod(epochDay + dayOfWeekAtEpoch - 1, 7L) + 1;
+			if (millis < gregorianChange) {
+				GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone( "GMT" ));
+				cal.setTimeInMillis(startMillis);
+				year = cal.get(Calendar.YEAR);
+				month = cal.get(Calendar.MONTH) + 1;
+				dayOfMonth = cal.get(Calendar.DAY_OF_MONTH);
+				return;
+			}
+
+			// Convert the day number to a date (see H. Hinnant, "chrono-Compatible Low-Level
+			// Date Algorithms")
+			long z = epochDay + 719468L;
+			long era = Math.floorDiv(z, 146097L);
+			long dayOfEra = z - era*146097L;
+			long yearOfEra = (dayOfEra - dayOfEra/1460L + dayOfEra/36524L - dayOfEra/146096L)/365L;
+			long dayOfYear = dayOfEra - (365L*yearOfEra + yearOfEra/4L - yearOfEra/100L);
+			long mp = (5L*dayOfYear + 2L)/153L;
+			dayOfMonth = (int) (dayOfYear - (153L*mp + 2L)/5L + 1L);
+			month = (int) (mp < 10L ? mp + 3L : mp - 9L);
+			year = (int) (yearOfEra + era*400L + (month <= 2 ? 1L : 0L));
+		}
+	}
+
 }
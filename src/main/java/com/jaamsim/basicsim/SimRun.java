@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2021-2022 JaamSim Software Inc.
+ * Copyright (C) 2021-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,10 @@
 package com.jaamsim.basicsim;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import com.jaamsim.Statistics.QuantileSketch;
+import com.jaamsim.Statistics.QuantileSketchProvider;
 
 /**
  * An individual run for a simulation model.
@@ -32,6 +36,7 @@ public class SimRun implements RunListener {
 	private ArrayList<Double> runOutputValues;
 	private ArrayList<String> runOutputStrings;
 	private ArrayList<String> runParameterStrings;
+	private LinkedHashMap<String, QuantileSketch> runSketches;
 	private boolean errorFlag;
 
 	/**
@@ -47,6 +52,7 @@ public class SimRun implements RunListener {
 		runOutputValues = new ArrayList<>();
 		runOutputStrings = new ArrayList<>();
 		runParameterStrings = new ArrayList<>();
+		runSketches = new LinkedHashMap<>();
 	}
 
 	/**
@@ -74,6 +80,16 @@ public class SimRun implements RunListener {
 		return errorFlag;
 	}
 
+	/**
+	 * Returns true if this run will be the last one for its scenario. It is called at the end of
+	 * the run, before the run's outputs have been recorded.
+	 */
+	public boolean isLastRun() {
+		if (listener instanceof Scenario)
+			return ((Scenario) listener).isLastRun(this, simModel.getSimTime());
+		return replicationNumber == simModel.getSimulation().getNumberOfReplications();
+	}
+
 	/**
 	 * Starts the simulation run on a new thread.
 	 */
@@ -101,6 +117,16 @@ public class SimRun implements RunListener {
 		runOutputStrings = simModel.getSimulation().getRunOutputStrings(simTime);
 		runParameterStrings = simModel.getSimulation().getRunParameterStrings(simTime);
 
+		// Save the quantile sketches for the run, keyed by entity name
+		runSketches = new LinkedHashMap<>();
+		if (simModel.getSimulation().getPrintPooledPercentiles()) {
+			for (Entity ent : simModel.getClonesOfIterator(Entity.class, QuantileSketchProvider.class)) {
+				QuantileSketch sketch = ((QuantileSketchProvider) ent).getQuantileSketch(simTime);
+				if (sketch.getCount() > 0.0d)
+					runSketches.put(ent.getName(), sketch);
+			}
+		}
+
 		// Notify the listener
 		listener.runEnded(this);
 	}
@@ -127,6 +153,18 @@ public class SimRun implements RunListener {
 		return runParameterStrings;
 	}
 
+	/**
+	 * Returns the quantile sketches recorded by the run's entities, keyed by entity name.
+	 * The sketches are released once they have been merged into the scenario's.
+	 */
+	public LinkedHashMap<String, QuantileSketch> getRunSketches() {
+		return runSketches;
+	}
+
+	void clearRunSketches() {
+		runSketches = new LinkedHashMap<>();
+	}
+
 	public double getProgress() {
 		Simulation simulation = simModel.getSimulation();
 		if (simulation == null)
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2002-2011 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,17 +17,21 @@
  */
 package com.jaamsim.basicsim;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
 
 import com.jaamsim.Commands.KeywordCommand;
 import com.jaamsim.Samples.SampleInput;
 import com.jaamsim.StringProviders.StringProvListInput;
 import com.jaamsim.datatypes.IntegerVector;
+import com.jaamsim.events.EventProfiler;
 import com.jaamsim.input.BooleanInput;
 import com.jaamsim.input.DateInput;
 import com.jaamsim.input.DirInput;
+import com.jaamsim.input.EnumInput;
 import com.jaamsim.input.EntityListInput;
 import com.jaamsim.input.Input;
 import com.jaamsim.input.InputAgent;
@@ -181,6 +185,30 @@ public class Simulation extends Entity {
 	                     + "in the same folder as the configuration file.")
 	private final BooleanInput verifyEventsInput;
 
+	@Keyword(description = "If TRUE, the TraceEvents and VerifyEvents keywords use a compact "
+	                     + "binary event file that is written by a background thread. "
+	                     + "Events are verified by comparing a hash of the events executed at "
+	                     + "each simulation time, which is much faster than the text file. "
+	                     + "The binary event file is named <configuration file name>.evb and is "
+	                     + "placed in the same folder as the configuration file.")
+	private final BooleanInput binaryEventTraceInput;
+
+	@Keyword(description = "If TRUE, the number of events executed and the wall-clock time and "
+	                     + "memory they consume are recorded for each type of event and for each "
+	                     + "entity. The results are available as outputs for the Simulation "
+	                     + "object and are written at the end of each run to a file named "
+	                     + "<run name>.prf in the report directory. If there are multiple runs, "
+	                     + "the scenario and replication numbers are added to the name of each "
+	                     + "run's file, e.g. <run name>-s2r3.prf.")
+	private final BooleanInput profileEvents;
+
+	@Keyword(description = "If TRUE, the values of the outputs that depend only on the simulation "
+	                     + "time and the state of their entity are calculated only once for each "
+	                     + "simulation time and state, even when they are used by many expressions. "
+	                     + "The number of values that were re-used and calculated are available as "
+	                     + "the outputs MemoizedOutputHits and MemoizedOutputMisses.")
+	private final BooleanInput memoizeOutputs;
+
 	@Keyword(description = "The length of time represented by one simulation tick.",
 	         exampleList = {"1e-6 s"})
 	private final ValueInput tickLengthInput;
@@ -209,10 +237,60 @@ public class Simulation extends Entity {
 	         exampleList = {"78", "2-3-8"})
 	private final RunNumberInput endingScenarioNumber;
 
-	@Keyword(description = "The number of replications to perform for each scenario.",
+	@Keyword(description = "The number of replications to perform for each scenario.\n\n"
+	                     + "If the 'TargetRelativeHalfWidth' input is specified, this is the "
+	                     + "minimum number of replications for each scenario.",
 	         exampleList = {"10"})
 	private final SampleInput numberOfReplications;
 
+	@Keyword(description = "If specified, replications are added to each scenario until the 95% "
+	                     + "confidence interval for each of the outputs selected by the "
+	                     + "'PrecisionOutputList' input is within the given fraction of its "
+	                     + "mean value, or until the 'MaximumNumberOfReplications' input is "
+	                     + "reached. "
+	                     + "Threads that are no longer needed by one scenario are used for the "
+	                     + "next scenario that requires more replications.\n\n"
+	                     + "If left blank, the number of replications is given by the "
+	                     + "'NumberOfReplications' input.",
+	         exampleList = {"0.05"})
+	private final ValueInput targetRelativeHalfWidth;
+
+	@Keyword(description = "The largest number of replications to perform for each scenario when "
+	                     + "the 'TargetRelativeHalfWidth' input is specified.",
+	         exampleList = {"100"})
+	private final IntegerInput maximumNumberOfReplications;
+
+	@Keyword(description = "The outputs in the 'RunOutputList' input whose confidence intervals "
+	                     + "must satisfy the 'TargetRelativeHalfWidth' input, given by their "
+	                     + "positions in the list.\n\n"
+	                     + "If left blank, every output in the list is used.",
+	         exampleList = {"1 3"})
+	private final IntegerListInput precisionOutputList;
+
+	@Keyword(description = "The variance reduction technique used to compare the scenarios:\n"
+	                     + "NONE - each scenario is reported separately\n"
+	                     + "COMMON_RANDOM_NUMBERS - each probability distribution uses the "
+	                     + "same random sequence for a given replication in every scenario, and "
+	                     + "the difference between each scenario and the starting scenario is "
+	                     + "reported with the confidence interval for the paired differences\n"
+	                     + "ANTITHETIC - as for COMMON_RANDOM_NUMBERS, but the replications are "
+	                     + "performed in pairs that use the same random sequences, with the "
+	                     + "second replication of each pair using 1 - u for each random "
+	                     + "number u. The outputs for each pair are averaged before the "
+	                     + "confidence intervals are calculated.\n\n"
+	                     + "The ANTITHETIC option requires an even number of replications and "
+	                     + "the default value for the 'GlobalSubstreamSeed' input. "
+	                     + "The number of replications is rounded up to an even number if "
+	                     + "necessary.",
+	         exampleList = {"COMMON_RANDOM_NUMBERS"})
+	private final EnumInput<ValidVarianceReductions> varianceReduction;
+
+	public enum ValidVarianceReductions {
+		NONE,
+		COMMON_RANDOM_NUMBERS,
+		ANTITHETIC
+	}
+
 	@Keyword(description = "The number of simulation runs to perform simultaneously while "
 	                     + "executing the specified number of scenarios and replications.",
 	         exampleList = {"10"})
@@ -237,6 +315,29 @@ public class Simulation extends Entity {
 	                     + "will show the replication number.")
 	private final BooleanInput printRunLabels;
 
+	@Keyword(description = "If TRUE, the values for the outputs defined by the RunOutputList "
+	                     + "input are also written in a binary column format to the file "
+	                     + "<configuration file name>.jsc. "
+	                     + "One row is written for each replication, containing the scenario and "
+	                     + "replication numbers, the run parameters, and the output values in SI "
+	                     + "units. "
+	                     + "The file can be converted to text using the ColumnFileReader "
+	                     + "utility. "
+	                     + "This input is ignored in script mode.")
+	private final BooleanInput binaryRunOutputs;
+
+	@Keyword(description = "If TRUE, the 50th, 95th, and 99th percentiles of the values recorded "
+	                     + "by each Statistics and ExpressionStatistics object, pooled over all "
+	                     + "the replications for each scenario, are written to a file named "
+	                     + "<run name>-percentiles.dat in the report directory. The file has a "
+	                     + "header row and one row for each object and scenario. If "
+	                     + "BinaryRunOutputs is TRUE, the same rows are also written to "
+	                     + "<run name>-percentiles.jsc. In script mode, the percentiles are "
+	                     + "printed after the run outputs. "
+	                     + "The values are estimated from a quantile sketch for each object and "
+	                     + "are given in SI units.")
+	private final BooleanInput printPooledPercentiles;
+
 	// GUI tab
 	@Keyword(description = "An optional list of units to be used for displaying model outputs.",
 	         exampleList = {"h kt"})
@@ -268,6 +369,8 @@ public class Simulation extends Entity {
 	public static final double MIN_REAL_TIME_FACTOR = 1e-6;
 	public static final double MAX_REAL_TIME_FACTOR = 1e6;
 
+	private static final int MAX_PROFILE_ROWS = 100;  // rows in each table of the profile report
+
 	@Keyword(description = "The time at which the simulation will be paused.",
 	         exampleList = {"200 h"})
 	private final ValueInput pauseTime;
@@ -454,6 +557,15 @@ public class Simulation extends Entity {
 		verifyEventsInput = new BooleanInput("VerifyEvents", OPTIONS, false);
 		this.addInput(verifyEventsInput);
 
+		binaryEventTraceInput = new BooleanInput("BinaryEventTrace", OPTIONS, false);
+		this.addInput(binaryEventTraceInput);
+
+		profileEvents = new BooleanInput("ProfileEvents", OPTIONS, false);
+		this.addInput(profileEvents);
+
+		memoizeOutputs = new BooleanInput("MemoizeOutputs", OPTIONS, false);
+		this.addInput(memoizeOutputs);
+
 		tickLengthInput = new ValueInput("TickLength", OPTIONS, 1e-6d);
 		tickLengthInput.setUnitType(TimeUnit.class);
 		tickLengthInput.setValidRange(1e-12d, Double.POSITIVE_INFINITY);
@@ -487,6 +599,23 @@ public class Simulation extends Entity {
 		numberOfReplications.setValidRange(1, Integer.MAX_VALUE);
 		this.addInput(numberOfReplications);
 
+		targetRelativeHalfWidth = new ValueInput("TargetRelativeHalfWidth", MULTIPLE_RUNS, 0.0d);
+		targetRelativeHalfWidth.setUnitType(DimensionlessUnit.class);
+		targetRelativeHalfWidth.setValidRange(0.0d, Double.POSITIVE_INFINITY);
+		this.addInput(targetRelativeHalfWidth);
+
+		maximumNumberOfReplications = new IntegerInput("MaximumNumberOfReplications", MULTIPLE_RUNS, 100);
+		maximumNumberOfReplications.setValidRange(1, Integer.MAX_VALUE);
+		this.addInput(maximumNumberOfReplications);
+
+		precisionOutputList = new IntegerListInput("PrecisionOutputList", MULTIPLE_RUNS, new IntegerVector());
+		precisionOutputList.setValidRange(1, Integer.MAX_VALUE);
+		this.addInput(precisionOutputList);
+
+		varianceReduction = new EnumInput<>(ValidVarianceReductions.class, "VarianceReduction",
+				MULTIPLE_RUNS, ValidVarianceReductions.NONE);
+		this.addInput(varianceReduction);
+
 		numberOfThreads = new IntegerInput("NumberOfThreads", MULTIPLE_RUNS, 1);
 		numberOfThreads.setValidRange(1, Integer.MAX_VALUE);
 		this.addInput(numberOfThreads);
@@ -500,6 +629,12 @@ public class Simulation extends Entity {
 		printRunLabels = new BooleanInput("PrintRunLabels", MULTIPLE_RUNS, true);
 		this.addInput(printRunLabels);
 
+		binaryRunOutputs = new BooleanInput("BinaryRunOutputs", MULTIPLE_RUNS, false);
+		this.addInput(binaryRunOutputs);
+
+		printPooledPercentiles = new BooleanInput("PrintPooledPercentiles", MULTIPLE_RUNS, false);
+		this.addInput(printPooledPercentiles);
+
 		// GUI tab
 		displayedUnits = new EntityListInput<>(Unit.class, "DisplayedUnits", GUI, new ArrayList<Unit>());
 		displayedUnits.setDefaultText("SI Units");
@@ -809,6 +944,18 @@ public class Simulation extends Entity {
 					+ "Present value: %g seconds.",
 					maxRunDuration, runDuration.getValue(), tickLengthInput.getValue());
 		}
+
+		IntegerVector outs = precisionOutputList.getValue();
+		for (int i = 0; i < outs.size(); i++) {
+			if (outs.get(i) > runOutputList.getListSize())
+				throw new InputErrorException("PrecisionOutputList refers to output %s, but the "
+						+ "RunOutputList has only %s entries.",
+						outs.get(i), runOutputList.getListSize());
+		}
+
+		if (isAntitheticReplications() && !globalSeedInput.isDefault())
+			throw new InputErrorException("The ANTITHETIC option for the VarianceReduction input "
+					+ "cannot be used with an input to GlobalSubstreamSeed.");
 	}
 
 	@Override
@@ -817,6 +964,28 @@ public class Simulation extends Entity {
 		unitTypeList.reset();  // Delete an unnecessary input
 	}
 
+	@Override
+	public void doEnd() {
+		super.doEnd();
+
+		// Write the event profile
+		JaamSimModel simModel = getJaamSimModel();
+		EventProfiler prof = simModel.getEventManager().getProfiler();
+		if (prof == null)
+			return;
+
+		// Each run of a multiple-run model writes its own file
+		String ext = ".prf";
+		if (simModel.isMultipleRuns())
+			ext = String.format("-s%dr%d.prf", simModel.getScenarioNumber(), simModel.getReplicationNumber());
+		String fileName = simModel.getReportFileName(ext);
+		if (fileName == null)
+			return;
+		FileEntity file = new FileEntity(new File(fileName));
+		file.write(prof.getReport(MAX_PROFILE_ROWS));
+		file.close();
+	}
+
 	/**
 	 * Clears the Simulation prior to loading a new model
 	 */
@@ -844,11 +1013,40 @@ public class Simulation extends Entity {
 	}
 
 	public int getSubstreamNumber() {
-		if (globalSeedInput.isDefault())
-			return getJaamSimModel().getReplicationNumber();
+		if (globalSeedInput.isDefault()) {
+			int rep = getJaamSimModel().getReplicationNumber();
+
+			// Both replications in an antithetic pair use the same substream
+			if (isAntitheticReplications())
+				return (rep + 1)/2;
+			return rep;
+		}
 		return (int)globalSeedInput.getNextSample(this, 0.0);
 	}
 
+	/**
+	 * Returns true if the replications are performed in antithetic pairs.
+	 */
+	public boolean isAntitheticReplications() {
+		return varianceReduction.getValue() == ValidVarianceReductions.ANTITHETIC;
+	}
+
+	/**
+	 * Returns true if the present replication is the second one of an antithetic pair, for
+	 * which the random generators return 1 - u in place of each random number u.
+	 */
+	public boolean isAntitheticReplication() {
+		return isAntitheticReplications() && getJaamSimModel().getReplicationNumber() % 2 == 0;
+	}
+
+	/**
+	 * Returns true if the outputs for each scenario are to be compared with the starting
+	 * scenario using the paired differences between replications with the same random numbers.
+	 */
+	public boolean isPairedDifferences() {
+		return varianceReduction.getValue() != ValidVarianceReductions.NONE;
+	}
+
 	public boolean getPrintReport() {
 		return printReport.getValue();
 	}
@@ -861,6 +1059,18 @@ public class Simulation extends Entity {
 		return verifyEventsInput.getValue();
 	}
 
+	public boolean isBinaryEventTrace() {
+		return binaryEventTraceInput.getValue();
+	}
+
+	public boolean isProfileEvents() {
+		return profileEvents.getValue();
+	}
+
+	public boolean isMemoizeOutputs() {
+		return memoizeOutputs.getValue();
+	}
+
 	public double getTickLength() {
 		return tickLengthInput.getValue();
 	}
@@ -1259,7 +1469,54 @@ public class Simulation extends Entity {
 	}
 
 	public int getNumberOfReplications() {
-		return (int) numberOfReplications.getNextSample(this, 0.0d);
+		int ret = (int) numberOfReplications.getNextSample(this, 0.0d);
+		if (isAntitheticReplications())
+			ret += ret % 2;
+		return ret;
+	}
+
+	/**
+	 * Returns true if replications are added to each scenario until its outputs meet the
+	 * 'TargetRelativeHalfWidth' input.
+	 */
+	public boolean isSequentialReplications() {
+		return targetRelativeHalfWidth.getValue() > 0.0d;
+	}
+
+	public double getTargetRelativeHalfWidth() {
+		return targetRelativeHalfWidth.getValue();
+	}
+
+	/**
+	 * Returns the largest number of replications that can be performed for each scenario.
+	 */
+	public int getMaximumNumberOfReplications() {
+		if (!isSequentialReplications())
+			return getNumberOfReplications();
+		int ret = Math.max(maximumNumberOfReplications.getValue(), getNumberOfReplications());
+		if (isAntitheticReplications())
+			ret += ret % 2;
+		return ret;
+	}
+
+	/**
+	 * Returns the zero-based indices of the outputs in the RunOutputList whose confidence
+	 * intervals determine the number of replications.
+	 */
+	public int[] getPrecisionOutputIndices() {
+		IntegerVector outs = precisionOutputList.getValue();
+		if (outs.size() == 0) {
+			int[] ret = new int[runOutputList.getListSize()];
+			for (int i = 0; i < ret.length; i++) {
+				ret[i] = i;
+			}
+			return ret;
+		}
+		int[] ret = new int[outs.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = outs.get(i) - 1;
+		}
+		return ret;
 	}
 
 	public int getNumberOfThreads() {
@@ -1280,6 +1537,14 @@ public class Simulation extends Entity {
 		return printRunLabels.getValue();
 	}
 
+	public boolean isBinaryRunOutputs() {
+		return binaryRunOutputs.getValue();
+	}
+
+	public boolean getPrintPooledPercentiles() {
+		return printPooledPercentiles.getValue();
+	}
+
 	public int getStartingScenarioNumber() {
 		return (int) startingScenarioNumber.getNextSample(this, 0.0d);
 	}
@@ -1294,7 +1559,7 @@ public class Simulation extends Entity {
 	}
 
 	public int getNumberOfRuns() {
-		return getNumberOfScenarios() * getNumberOfReplications();
+		return getNumberOfScenarios() * getMaximumNumberOfReplications();
 	}
 
 	public IntegerVector getScenarioIndexDefinitionList() {
@@ -1421,7 +1686,9 @@ public class Simulation extends Entity {
 	    sequence = 12)
 	public int[] getSimDate(double simTime) {
 		long millis = getJaamSimModel().simTimeToCalendarMillis(simTime);
-		return getJaamSimModel().getSimDate(millis).toArray();
+		int[] ret = new int[7];
+		getJaamSimModel().getSimDate(millis, ret);
+		return ret;
 	}
 
 	@Output(name = "SimDayOfWeek",
@@ -1461,4 +1728,91 @@ public class Simulation extends Entity {
 		return Calendar.getInstance().getTimeInMillis()/1000.0d;
 	}
 
+	private static LinkedHashMap<String, Double> getProfileMap(ArrayList<EventProfiler.Stats> list, boolean count) {
+		LinkedHashMap<String, Double> ret = new LinkedHashMap<>(list.size());
+		for (EventProfiler.Stats stats : list) {
+			double val = count ? stats.getCount() : stats.getTotalNanos() / 1.0e9d;
+			ret.put(stats.getName(), val);
+		}
+		return ret;
+	}
+
+	@Output(name = "ProfiledEvents",
+	 description = "The number of events that have been executed when the ProfileEvents keyword "
+	             + "is TRUE.",
+	    unitType = DimensionlessUnit.class,
+	    sequence = 17)
+	public double getProfiledEvents(double simTime) {
+		EventProfiler prof = getJaamSimModel().getEventManager().getProfiler();
+		if (prof == null)
+			return 0.0d;
+		return prof.getNumEvents();
+	}
+
+	@Output(name = "EventCounts",
+	 description = "The number of events that have been executed for each type of event when the "
+	             + "ProfileEvents keyword is TRUE.",
+	    unitType = DimensionlessUnit.class,
+	    sequence = 18)
+	public LinkedHashMap<String, Double> getEventCounts(double simTime) {
+		EventProfiler prof = getJaamSimModel().getEventManager().getProfiler();
+		if (prof == null)
+			return new LinkedHashMap<>();
+		return getProfileMap(prof.getTargetStats(), true);
+	}
+
+	@Output(name = "EventTimes",
+	 description = "The wall-clock time that has been spent executing each type of event when "
+	             + "the ProfileEvents keyword is TRUE.",
+	    unitType = TimeUnit.class,
+	    sequence = 19)
+	public LinkedHashMap<String, Double> getEventTimes(double simTime) {
+		EventProfiler prof = getJaamSimModel().getEventManager().getProfiler();
+		if (prof == null)
+			return new LinkedHashMap<>();
+		return getProfileMap(prof.getTargetStats(), false);
+	}
+
+	@Output(name = "EntityEventTimes",
+	 description = "The wall-clock time that has been spent executing the events for each "
+	             + "entity when the ProfileEvents keyword is TRUE.",
+	    unitType = TimeUnit.class,
+	    sequence = 20)
+	public LinkedHashMap<String, Double> getEntityEventTimes(double simTime) {
+		EventProfiler prof = getJaamSimModel().getEventManager().getProfiler();
+		if (prof == null)
+			return new LinkedHashMap<>();
+		return getProfileMap(prof.getOwnerStats(), false);
+	}
+
+	@Output(name = "ConditionalEvaluations",
+	 description = "The number of times the condition has been evaluated for each type of "
+	             + "conditional event when the ProfileEvents keyword is TRUE.",
+	    unitType = DimensionlessUnit.class,
+	    sequence = 21)
+	public LinkedHashMap<String, Double> getConditionalEvaluations(double simTime) {
+		EventProfiler prof = getJaamSimModel().getEventManager().getProfiler();
+		if (prof == null)
+			return new LinkedHashMap<>();
+		return getProfileMap(prof.getConditionStats(), true);
+	}
+
+	@Output(name = "MemoizedOutputHits",
+	 description = "The number of times that the memoized value of an output was re-used when the "
+	             + "MemoizeOutputs keyword is TRUE.",
+	    unitType = DimensionlessUnit.class,
+	    sequence = 22)
+	public long getMemoizedOutputHits(double simTime) {
+		return getJaamSimModel().getMemoizedOutputHits();
+	}
+
+	@Output(name = "MemoizedOutputMisses",
+	 description = "The number of times that the value of a memoized output had to be calculated "
+	             + "when the MemoizeOutputs keyword is TRUE.",
+	    unitType = DimensionlessUnit.class,
+	    sequence = 23)
+	public long getMemoizedOutputMisses(double simTime) {
+		return getJaamSimModel().getMemoizedOutputMisses();
+	}
+
 }
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
- * Copyright (C) 2015-2023 JaamSim Software Inc.
+ * Copyright (C) 2015-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.jaamsim.MeshFiles.MeshData;
 import com.jaamsim.MeshFiles.MeshData.Trans;
@@ -40,6 +41,7 @@ import com.jaamsim.math.Vec2d;
 import com.jaamsim.math.Vec3d;
 import com.jaamsim.math.Vec4d;
 import com.jaamsim.render.AnimCurve;
+import com.jaamsim.render.LoaderPool;
 import com.jaamsim.render.RenderException;
 import com.jaamsim.ui.LogBox;
 import com.jaamsim.xml.XmlNode;
@@ -198,7 +200,8 @@ public class ColParser {
 
 	private final MeshData _finalData = new MeshData(keepRuntimeData);
 
-	private final HashMap<String, Vec4d[]> _vec4dSources = new HashMap<>();
+	// The vector sources are shared by the geometries, which may be processed on several threads
+	private final ConcurrentHashMap<String, Vec4d[]> _vec4dSources = new ConcurrentHashMap<>();
 	private final HashMap<String, double[][]> _dataSources = new HashMap<>();
 	private final HashMap<String, String[]> _stringSources = new HashMap<>();
 
@@ -334,6 +337,7 @@ public class ColParser {
 		for (SceneNode sn : vs.nodes) {
 			treeRoot.children.add(buildMeshTree(sn));
 		}
+		bakeFaceGeos();
 		_finalData.setTree(treeRoot);
 
 		_finalData.finalizeData();
@@ -421,25 +425,21 @@ public class ColParser {
 			Effect effect = geoBindingToEffect(geoInfo.materialMap, subGeo.material);
 
 			// Check that this instance of the subgeometry uses the same texture coordinate set as any previous
-			if (geoInfo.usedTexSet != null) {
-				if (subGeo.usedTexSet != null) {
-					parseAssert(geoInfo.usedTexSet.intValue() == subGeo.usedTexSet.intValue());
-				}
-				subGeo.usedTexSet = geoInfo.usedTexSet;
-			} else {
-				subGeo.usedTexSet = 0;
+			// The set is recorded at first use, since the geometry is not baked until the scene is complete
+			int texSet = (geoInfo.usedTexSet != null) ? geoInfo.usedTexSet.intValue() : 0;
+			if (subGeo.usedTexSet == null) {
+				subGeo.usedTexSet = texSet;
+			} else if (geoInfo.usedTexSet != null) {
+				parseAssert(texSet == subGeo.usedTexSet.intValue());
 			}
 
 			int geoID;
 			if (_loadedFaceGeos.contains(subGeo)) {
 				geoID = _loadedFaceGeos.indexOf(subGeo);
 			} else {
+				// The face geometry is baked into a runtime format once the whole scene is known
 				geoID = _loadedFaceGeos.size();
 				_loadedFaceGeos.add(subGeo);
-
-				// Finally bake the face geometry information into a runtime format
-				FaceSubGeo fsg = getFaceSubGeo(subGeo);
-				_finalData.addSubMesh(fsg.vMap.getVertList(), fsg.indices);
 			}
 
 			int matID;
@@ -1013,20 +1013,30 @@ public class ColParser {
 		if (libGeo == null)
 			return; // No geometries
 
+		ArrayList<GeoTask> tasks = new ArrayList<>();
 		for (XmlNode child : libGeo.children()) {
-			if (child.getTag().equals("geometry")) {
-				processGeo(child);
+			// A geometry without an ID can not be referenced, don't bother
+			if (child.getTag().equals("geometry") && child.getFragID() != null) {
+				tasks.add(new GeoTask(child));
 			}
 		}
-	}
 
-	private void processGeo(XmlNode geoNode) {
-		String geoID = geoNode.getFragID();
-		if (geoID == null) {
-			// This geometry can not be referenced, don't bother
-			return;
+		// The geometries are independent of each other, so they can be processed in parallel
+		if (tasks.size() < 2 || LoaderPool.getNumThreads() < 2) {
+			for (GeoTask task : tasks) {
+				task.run();
+			}
+		}
+		else {
+			LoaderPool.invokeAll(tasks);
 		}
 
+		for (GeoTask task : tasks) {
+			_geos.put(task.geoNode.getFragID(), task.geoData);
+		}
+	}
+
+	private Geometry processGeo(XmlNode geoNode) {
 		Geometry geoData = new Geometry();
 
 		for (XmlNode meshNode : geoNode.children()) {
@@ -1035,7 +1045,59 @@ public class ColParser {
 			}
 		}
 
-		_geos.put(geoID, geoData);
+		return geoData;
+	}
+
+	private class GeoTask implements Runnable {
+		final XmlNode geoNode;
+		Geometry geoData;
+
+		GeoTask(XmlNode node) {
+			geoNode = node;
+		}
+
+		@Override
+		public void run() {
+			geoData = processGeo(geoNode);
+		}
+	}
+
+	/**
+	 * Converts the face geometries that are used by the scene into vertex and index arrays and
+	 * adds them to the mesh data in the order in which they were first used.
+	 */
+	private void bakeFaceGeos() {
+		ArrayList<BakeTask> tasks = new ArrayList<>(_loadedFaceGeos.size());
+		for (SubMeshDesc smd : _loadedFaceGeos) {
+			tasks.add(new BakeTask(smd));
+		}
+
+		if (tasks.size() < 2 || LoaderPool.getNumThreads() < 2) {
+			for (BakeTask task : tasks) {
+				task.run();
+			}
+		}
+		else {
+			LoaderPool.invokeAll(tasks);
+		}
+
+		for (BakeTask task : tasks) {
+			_finalData.addSubMesh(task.fsg.vMap.getVertList(), task.fsg.indices);
+		}
+	}
+
+	private class BakeTask implements Runnable {
+		final SubMeshDesc smd;
+		FaceSubGeo fsg;
+
+		BakeTask(SubMeshDesc desc) {
+			smd = desc;
+		}
+
+		@Override
+		public void run() {
+			fsg = getFaceSubGeo(smd);
+		}
 	}
 
 	private void processNodes() {
@@ -1725,32 +1787,37 @@ public class ColParser {
 		if (cached != null)
 			return cached;
 
-		double[][] data = getDataArrayFromSource(id);
+		SourceInfo info = getInfoFromSource(id, "float_array");
+		if (!(info.dataArray instanceof double[])) {
+			parseAssert(false);
+		}
+		double[] ds = (double[])info.dataArray;
 
-		// convert to vec4ds
-		Vec4d[] ret = new Vec4d[data.length];
+		// convert to vec4ds directly from the flat array of values
+		Vec4d[] ret = new Vec4d[info.count];
 
-		for (int i = 0; i < data.length; ++i) {
-			double[] ds = data[i];
-			switch (ds.length) {
+		int j = info.offset;
+		for (int i = 0; i < info.count; ++i) {
+			switch (info.stride) {
 			case 1:
-				ret[i] = new Vec4d(ds[0], 0, 0, 1);
+				ret[i] = new Vec4d(ds[j], 0, 0, 1);
 				break;
 			case 2:
-				ret[i] = new Vec4d(ds[0], ds[1], 0, 1);
+				ret[i] = new Vec4d(ds[j], ds[j+1], 0, 1);
 				break;
 			case 3:
-				ret[i] = new Vec4d(ds[0], ds[1], ds[2], 1);
+				ret[i] = new Vec4d(ds[j], ds[j+1], ds[j+2], 1);
 				break;
 			case 4:
-				ret[i] = new Vec4d(ds[0], ds[1], ds[2], ds[3]);
+				ret[i] = new Vec4d(ds[j], ds[j+1], ds[j+2], ds[j+3]);
 				break;
 			default:
-				throw new RenderException(String.format("Invalid number of elements in data Vector: %d", ds.length));
+				throw new RenderException(String.format("Invalid number of elements in data Vector: %d", info.stride));
 			}
+			j += info.stride;
 		}
-		_vec4dSources.put(id, ret);
-		return ret;
+		Vec4d[] prev = _vec4dSources.putIfAbsent(id, ret);
+		return prev != null ? prev : ret;
 	}
 
 	private double[][] getDataArrayFromSource(String id) {
@@ -0,0 +1,88 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.collada;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.ArrayList;
+
+/**
+ * Measures the time and the memory allocated to parse the COLLADA shapes bundled with JaamSim,
+ * together with any other files given as arguments. The memory is the total allocated by all
+ * threads, since the geometries can be processed on the asset loader threads.
+ * <p>
+ * Arguments: [parses] [file] [file] ...
+ */
+public class ColladaLoadBenchmark {
+
+	private static final String[] SHAPES = {"Sphere.dae", "axis_text.dae", "grid100x100.dae",
+			"grid10x10.dae", "cube.dae", "CrossHairs.dae"};
+
+	public static void main(String[] args) throws Exception {
+		int numParses = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+		ArrayList<URI> uris = new ArrayList<>();
+		for (String shape : SHAPES) {
+			uris.add(ColladaLoadBenchmark.class.getResource("/resources/shapes/" + shape).toURI());
+		}
+		for (int i = 1; i < args.length; i++) {
+			uris.add(new File(args[i]).toURI());
+		}
+
+		com.sun.management.ThreadMXBean bean = null;
+		ThreadMXBean tmx = ManagementFactory.getThreadMXBean();
+		if (tmx instanceof com.sun.management.ThreadMXBean) {
+			bean = (com.sun.management.ThreadMXBean) tmx;
+			if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled())
+				bean = null;
+		}
+
+		for (int j = 0; j < 3; j++) {
+			for (URI uri : uris) {
+				long startBytes = getAllocatedBytes(bean);
+				long startTime = System.nanoTime();
+				for (int k = 0; k < numParses; k++) {
+					ColParser.parse(uri);
+				}
+				double millis = (System.nanoTime() - startTime) / 1.0e6d / numParses;
+				double kBytes = (getAllocatedBytes(bean) - startBytes) / 1.0e3d / numParses;
+
+				String path = uri.getPath();
+				if (path == null)
+					path = uri.toString();
+				String name = path.substring(path.lastIndexOf('/') + 1);
+				System.out.println(String.format("%s: %.2f ms, %.0f KB per parse", name, millis, kBytes));
+			}
+			System.out.println();
+		}
+		System.exit(0);
+	}
+
+	private static long getAllocatedBytes(com.sun.management.ThreadMXBean bean) {
+		if (bean == null)
+			return 0L;
+		long ret = 0L;
+		for (long bytes : bean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+			if (bytes > 0L)
+				ret += bytes;
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.controllers;
+
+import java.util.ArrayList;
+
+import com.jaamsim.Graphics.DisplayEntity;
+import com.jaamsim.basicsim.JaamSimModel;
+import com.jaamsim.math.AABB;
+import com.jaamsim.render.Camera;
+import com.jaamsim.render.DisplayModelBinding;
+import com.jaamsim.render.RenderProxy;
+
+/**
+ * Collects the render proxies for the entities in a model. It does not require an OpenGL context.
+ * <p>
+ * Entities whose display models can report their bounds are skipped if they are outside every
+ * camera's view. The proxies are collected on the calling thread, since the display model
+ * bindings evaluate inputs and outputs that are not safe to evaluate on several threads at once.
+ */
+public class ProxyGatherer {
+
+	private final ArrayList<DisplayEntity> entList = new ArrayList<>();
+	private final ArrayList<Throwable> errors = new ArrayList<>();
+	private int numCulled;
+
+	/**
+	 * Collects the render proxies for the entities that are shown at the specified time.
+	 * @param simModel - simulation model to be rendered
+	 * @param simTime - present simulation time
+	 * @param maxEnts - maximum number of entities to be shown
+	 * @param cams - cameras for the views to be rendered, no entities are culled if null or empty
+	 * @param scene - list to which the proxies are appended
+	 * @return number of display model bindings used
+	 */
+	public int collectProxies(JaamSimModel simModel, double simTime, int maxEnts,
+			ArrayList<Camera> cams, ArrayList<RenderProxy> scene) {
+		entList.clear();
+		errors.clear();
+		numCulled = 0;
+
+		// Select the entities to be shown
+		boolean cull = cams != null && !cams.isEmpty();
+		int numBindings = 0;
+		for (DisplayEntity de : simModel.getClonesOfIterator(DisplayEntity.class)) {
+			if (!de.getShow(simTime))
+				continue;
+
+			if (cull && isCulled(de, simTime, cams)) {
+				numCulled++;
+				continue;
+			}
+
+			// There is an upper limit on number of entities
+			if (entList.size() >= maxEnts)
+				break;
+
+			entList.add(de);
+			numBindings += de.getDisplayBindings().size();
+		}
+
+		gather(entList, simTime, scene, errors);
+		return numBindings;
+	}
+
+	/**
+	 * Returns the exceptions that were thrown by the display model bindings during the last call
+	 * to collectProxies.
+	 */
+	public ArrayList<Throwable> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Returns the number of entities that were skipped during the last call to collectProxies
+	 * because they were outside every view.
+	 */
+	public int getNumCulled() {
+		return numCulled;
+	}
+
+	private boolean isCulled(DisplayEntity de, double simTime, ArrayList<Camera> cams) {
+		try {
+			for (DisplayModelBinding binding : de.getDisplayBindings()) {
+				AABB bounds = binding.getBounds(simTime);
+				if (bounds == null)
+					return false;
+				for (Camera cam : cams) {
+					if (cam.collides(bounds))
+						return false;
+				}
+			}
+		}
+		catch (Throwable t) {
+			// Let the exception be logged when the proxies are collected
+			return false;
+		}
+		return true;
+	}
+
+	private static void gather(ArrayList<DisplayEntity> ents, double simTime,
+			ArrayList<RenderProxy> out, ArrayList<Throwable> errs) {
+		for (DisplayEntity de : ents) {
+			for (DisplayModelBinding binding : de.getDisplayBindings()) {
+				try {
+					binding.collectProxies(simTime, out);
+				}
+				catch (Throwable t) {
+					errs.add(t);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.controllers;
+
+import java.util.ArrayList;
+
+import com.jaamsim.basicsim.JaamSimModel;
+import com.jaamsim.math.Transform;
+import com.jaamsim.math.Vec3d;
+import com.jaamsim.render.Camera;
+import com.jaamsim.render.CameraInfo;
+import com.jaamsim.render.RenderProxy;
+
+/**
+ * Measures the time to collect the render proxies for a model of Shapes, a given fraction of
+ * which are in view of the camera. Each frame is collected both with culling, and without
+ * culling as was done before the shapes could report their bounds. No OpenGL context is needed.
+ * <p>
+ * Arguments: [shapes] [fraction in view] [frames]
+ */
+public class ProxyGathererBenchmark {
+
+	public static void main(String[] args) {
+		int numShapes = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		double fraction = args.length > 1 ? Double.parseDouble(args[1]) : 0.1d;
+		int numFrames = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+
+		// Shapes in view are placed on a grid near the origin, the others far to the side
+		int numNear = (int) Math.round(numShapes * fraction);
+		for (int i = 0; i < numShapes; i++) {
+			String name = "Shape" + i;
+			simModel.defineEntity("Shape", name);
+			double x = (i < numNear) ? (i % 100) * 0.05d - 2.5d : 1000.0d + i;
+			double y = (i < numNear) ? (i / 100) * 0.05d - 2.5d : 0.0d;
+			simModel.setInput(name, "Position", String.format("%s %s 0 m", x, y));
+		}
+
+		CameraInfo info = new CameraInfo(Math.PI/3.0d, new Transform(new Vec3d(0.0d, 0.0d, 10.0d)), null);
+		ArrayList<Camera> cams = new ArrayList<>();
+		cams.add(new Camera(info, 1.0d));
+
+		ProxyGatherer gatherer = new ProxyGatherer();
+		ArrayList<RenderProxy> scene = new ArrayList<>();
+		for (int j = 0; j < 3; j++) {
+			long startTime = System.nanoTime();
+			for (int k = 0; k < numFrames; k++) {
+				scene.clear();
+				gatherer.collectProxies(simModel, 0.0d, Integer.MAX_VALUE, null, scene);
+			}
+			double fullMillis = (System.nanoTime() - startTime) / 1.0e6d / numFrames;
+			int fullSize = scene.size();
+
+			startTime = System.nanoTime();
+			for (int k = 0; k < numFrames; k++) {
+				scene.clear();
+				gatherer.collectProxies(simModel, 0.0d, Integer.MAX_VALUE, cams, scene);
+			}
+			double culledMillis = (System.nanoTime() - startTime) / 1.0e6d / numFrames;
+
+			System.out.println(String.format("%d shapes, %d in view: no culling %.1f ms/frame "
+					+ "(%d proxies), culling %.1f ms/frame (%d proxies, %d culled)",
+					numShapes, numNear, fullMillis, fullSize, culledMillis, scene.size(),
+					gatherer.getNumCulled()));
+		}
+		simModel.closeLogFile();
+		System.exit(0);
+	}
+
+}
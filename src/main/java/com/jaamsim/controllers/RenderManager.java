@@ -58,6 +58,7 @@ import com.jaamsim.Graphics.EntityLabel;
 import com.jaamsim.Graphics.OverlayEntity;
 import com.jaamsim.Graphics.Region;
 import com.jaamsim.Graphics.View;
+import com.jaamsim.MeshFiles.MeshData;
 import com.jaamsim.SubModels.SubModel;
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.basicsim.JaamSimModel;
@@ -80,6 +81,7 @@ import com.jaamsim.math.Vec2d;
 import com.jaamsim.math.Vec3d;
 import com.jaamsim.math.Vec4d;
 import com.jaamsim.render.Action;
+import com.jaamsim.render.Camera;
 import com.jaamsim.render.CameraInfo;
 import com.jaamsim.render.DisplayModelBinding;
 import com.jaamsim.render.Future;
@@ -158,6 +160,7 @@ public class RenderManager implements DragSourceListener {
 	private final double linkArrowSize = 0.2;
 
 	private final ExceptionLogger exceptionLogger;
+	private final ProxyGatherer gatherer = new ProxyGatherer();
 
 	private final HashMap<Integer, CameraControl> windowControls = new HashMap<>();
 	private final HashMap<Integer, View> windowToViewMap= new HashMap<>();
@@ -408,6 +411,7 @@ public class RenderManager implements DragSourceListener {
 				long endNanos = 0;
 
 				int maxRenderableEntities = simModel.getSimulation().getMaxEntitiesToDisplay();
+				ArrayList<Camera> cameras = renderer.getWindowCameras();
 
 				synchronized (sceneDragLock) {
 
@@ -422,7 +426,8 @@ public class RenderManager implements DragSourceListener {
 
 					// Show each entity in the model
 					updateNanos = System.nanoTime();
-					totalBindings = collectProxies(simModel, renderTime, maxRenderableEntities, cachedScene);
+					totalBindings = collectProxies(gatherer, simModel, renderTime, maxRenderableEntities,
+							cameras, cachedScene);
 
 					// Show the green box around the selected entities
 					// (collected second so they always appear on top)
@@ -456,7 +461,7 @@ public class RenderManager implements DragSourceListener {
 				} // sceneDragLock
 
 				String cacheString = " Hits: " + DisplayModelBinding.getCacheHits() + " Misses: " + DisplayModelBinding.getCacheMisses() +
-				                     " Total: " + totalBindings;
+				                     " Total: " + totalBindings + " Culled: " + gatherer.getNumCulled();
 
 				double gatherMS = (endNanos - updateNanos) / 1000000.0;
 				double updateMS = (updateNanos - startNanos) / 1000000.0;
@@ -528,32 +533,14 @@ public class RenderManager implements DragSourceListener {
 		}
 	}
 
-	private int collectProxies(JaamSimModel simModel, double simTime, int maxEnts, ArrayList<RenderProxy> scene) {
+	private int collectProxies(ProxyGatherer gath, JaamSimModel simModel, double simTime, int maxEnts,
+			ArrayList<Camera> cams, ArrayList<RenderProxy> scene) {
+		int numBindings = gath.collectProxies(simModel, simTime, maxEnts, cams, scene);
 
-		int numEnts = 0;
-		int numBindings = 0;
-
-		// Collect the render proxies for each entity
-		for (DisplayEntity de : simModel.getClonesOfIterator(DisplayEntity.class)) {
-			if (!de.getShow(simTime))
-				continue;
-
-			numEnts++;
-			// There is an upper limit on number of entities
-			if (numEnts > maxEnts) {
-				break;
-			}
-			for (DisplayModelBinding binding : de.getDisplayBindings()) {
-				try {
-					numBindings++;
-					binding.collectProxies(simTime, scene);
-				} catch (Throwable t) {
-					// Log the exception in the exception list
-					logException(t);
-				}
-			}
+		// Log the exceptions in the exception list
+		for (Throwable t : gath.getErrors()) {
+			logException(t);
 		}
-
 		return numBindings;
 	}
 
@@ -1935,9 +1922,12 @@ public class RenderManager implements DragSourceListener {
 	public void dropActionChanged(DragSourceDragEvent arg0) {}
 
 	public AABB getMeshBounds(MeshProtoKey key, boolean block) {
-		if (block || MeshDataCache.isMeshLoaded(key)) {
+		if (block)
 			return MeshDataCache.getMeshData(key).getDefaultBounds();
-		}
+
+		MeshData data = MeshDataCache.getLoadedMeshData(key);
+		if (data != null)
+			return data.getDefaultBounds();
 
 		// The mesh is not loaded and we are non-blocking, so trigger a mesh load and return
 		MeshDataCache.loadMesh(key);
@@ -1945,9 +1935,12 @@ public class RenderManager implements DragSourceListener {
 	}
 
 	public ArrayList<Action.Description> getMeshActions(MeshProtoKey key, boolean block) {
-		if (block || MeshDataCache.isMeshLoaded(key)) {
+		if (block)
 			return MeshDataCache.getMeshData(key).getActionDescriptions();
-		}
+
+		MeshData data = MeshDataCache.getLoadedMeshData(key);
+		if (data != null)
+			return data.getActionDescriptions();
 
 		// The mesh is not loaded and we are non-blocking, so trigger a mesh load and return
 		MeshDataCache.loadMesh(key);
@@ -2091,7 +2084,9 @@ public class RenderManager implements DragSourceListener {
 		// Collect the display information for each entity
 		ArrayList<RenderProxy> scene = new ArrayList<>();
 		int maxEnts = simModel.getSimulation().getMaxEntitiesToDisplay();
-		collectProxies(simModel, simTime, maxEnts, scene);
+		ArrayList<Camera> cams = new ArrayList<>(1);
+		cams.add(new Camera(new CameraInfo(camInfo), (double)width/(double)height));
+		collectProxies(new ProxyGatherer(), simModel, simTime, maxEnts, cams, scene);
 
 		// Show the entity flow links
 		boolean showLinks = simModel.getSimulation().isShowEntityFlow();
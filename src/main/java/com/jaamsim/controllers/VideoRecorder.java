@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
- * Copyright (C) 2020 JaamSim Software Inc.
+ * Copyright (C) 2020-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.imageio.ImageIO;
 
@@ -41,7 +46,10 @@ import com.jaamsim.video.vp8.Encoder;
 /**
  * The VideoRecorder class is used to generate a series of saved images (PNG only for the first implementation) from the renderer.
  * This allows the user to composite several views together. Once the recorder is created, calling sample() will
- * cause the renderer to draw the image and save it to disk. sample() blocks until the image has been written to disk.
+ * cause the renderer to draw the image and save it to disk. sample() returns once the views have been composited into
+ * one of a small pool of reusable images. The encoding and writing is done in the order of the samples by a separate
+ * thread, so the next frame can be rendered in the meantime. sample() only waits for the writer when all of the
+ * images are in use.
  * @author matt.chudleigh
  *
  */
@@ -66,6 +74,12 @@ public class VideoRecorder {
 	private Encoder _encoder;
 	private boolean _isLoaded;
 
+	// Composite images that are not waiting to be written
+	private final ArrayBlockingQueue<BufferedImage> _freeImages;
+	private final ThreadPoolExecutor _writer;
+
+	private static final int NUM_IMAGES = 3;
+
 	private boolean _saveImages;
 	private boolean _saveVideo;
 
@@ -105,9 +119,25 @@ public class VideoRecorder {
 		if (_saveVideo) {
 			String videoName = String.format("%s.avi", _filenamePrefix);
 			_aviWriter = new AviWriter(videoName, width, height, numFrames);
-			_encoder = new Encoder();
+			_encoder = new Encoder(Runtime.getRuntime().availableProcessors());
+		}
+
+		_freeImages = new ArrayBlockingQueue<>(NUM_IMAGES);
+		for (int i = 0; i < NUM_IMAGES; ++i) {
+			_freeImages.add(new BufferedImage(_width, _height, BufferedImage.TYPE_INT_RGB));
 		}
 
+		ThreadFactory factory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread ret = new Thread(r, "VideoWriter");
+				ret.setDaemon(true);
+				return ret;
+			}
+		};
+		_writer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+		_writer.allowCoreThreadTimeOut(true);
+
 		_isLoaded = true;
 
 	}
@@ -133,8 +163,17 @@ public class VideoRecorder {
 
 //		long renders = System.nanoTime();
 
+		// Wait for an image that has already been written
+		BufferedImage img;
+		try {
+			img = _freeImages.take();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
 		// Now composite the images based on the views
-		BufferedImage img = new BufferedImage(_width, _height, BufferedImage.TYPE_INT_RGB);
 		Graphics2D g2 = img.createGraphics();
 
 		g2.setColor(new Color((float)_bgColor.r, (float)_bgColor.g, (float)_bgColor.b));
@@ -146,18 +185,47 @@ public class VideoRecorder {
 			boolean drawResult = g2.drawImage(images.get(i).get(), vi.x, vi.y, vi.width, vi.height, null);
 			assert(drawResult == true);
 		}
+		g2.dispose();
 
 //		long composite = System.nanoTime();
+//
+//		double renderTimeMS = (renders - start) * 0.000001;
+//		double compositeTimeMS = (composite - renders) * 0.000001;
+//
+//		LogBox.formatRenderLog("Render: %f Composite: %f\n", renderTimeMS, compositeTimeMS);
+
+		final BufferedImage frameImg = img;
+		final int sampleNumber = _sampleNumber;
+		_writer.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					writeFrame(frameImg, sampleNumber);
+				}
+				catch (Throwable t) {
+					LogBox.renderLogException(t);
+				}
+				finally {
+					_freeImages.add(frameImg);
+				}
+			}
+		});
+		_sampleNumber++;
+	}
 
+	/**
+	 * Encodes and writes out the specified composite image. Called on the writer thread.
+	 */
+	private void writeFrame(BufferedImage img, int sampleNumber) {
 		if (_saveVideo) {
-			boolean keyFrame = (_sampleNumber % 100) == 0;
+			boolean keyFrame = (sampleNumber % 100) == 0;
 			ByteBuffer frame = _encoder.encodeFrame(img, keyFrame);
 			_aviWriter.addFrame(frame, keyFrame);
 		}
 
 		if (_saveImages) {
 			try {
-				FileOutputStream out = new FileOutputStream(String.format("%s%04d.png", _filenamePrefix, _sampleNumber));
+				FileOutputStream out = new FileOutputStream(String.format("%s%04d.png", _filenamePrefix, sampleNumber));
 
 				// Finally write the image to disk
 				ImageIO.write(img, "PNG", out);
@@ -170,19 +238,19 @@ public class VideoRecorder {
 				LogBox.renderLogException(ex);
 			}
 		}
-		_sampleNumber++;
-
-//		long writeout = System.nanoTime();
-//
-//		double renderTimeMS = (renders - start) * 0.000001;
-//		double compositeTimeMS = (composite - renders) * 0.000001;
-//		double writeoutTimeMS = (writeout - composite) * 0.000001;
-//
-//		LogBox.formatRenderLog("Render: %f Composite: %f Writeout %f\n", renderTimeMS, compositeTimeMS, writeoutTimeMS);
 	}
 
 	public void freeResources() {
 
+		// Let the frames that have been sampled finish writing
+		_writer.shutdown();
+		try {
+			while (!_writer.awaitTermination(1, TimeUnit.SECONDS)) {}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
 		if (_saveVideo) {
 			_aviWriter.close();
 		}
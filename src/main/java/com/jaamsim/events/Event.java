@@ -23,6 +23,8 @@ package com.jaamsim.events;
 final class Event extends BaseEvent {
 	EventNode node;
 	Event next;
+	long seq;     // order in which the event was scheduled
+	boolean fifo; // TRUE if the event was added to the end of its node
 
 	Event() {}
 }
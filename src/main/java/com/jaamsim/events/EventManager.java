@@ -57,6 +57,7 @@ public final class EventManager {
 
 	private long nextTick; // The next tick to execute events at
 	private long targetTick; // the largest time we will execute events for (run to time)
+	private long schedCount; // number of events scheduled, used to order events in a node
 	private boolean oneEvent; // execute a single event
 	private boolean oneSimTime; // execute all the events at the next simulation time
 
@@ -73,6 +74,7 @@ public final class EventManager {
 
 	private EventTimeListener timelistener;
 	private EventTraceListener trcListener;
+	private EventProfiler profiler;
 
 	/**
 	 * Allocates a new EventManager with the given parent and name
@@ -127,10 +129,29 @@ public final class EventManager {
 		}
 	}
 
+	/**
+	 * Sets the profiler that records the execution time for each event.
+	 * @param p - profiler, or null if profiling is not required
+	 */
+	public final void setProfiler(EventProfiler p) {
+		evtLock.lock();
+		try {
+			profiler = p;
+		}
+		finally {
+			evtLock.unlock();
+		}
+	}
+
+	public final EventProfiler getProfiler() {
+		return profiler;
+	}
+
 	public void clear() {
 		evtLock.lock();
 		try {
 			currentTick.set(0);
+			schedCount = 0;
 			nextTick = 0;
 			targetTick = Long.MAX_VALUE;
 			rebaseRealTime = true;
@@ -239,6 +260,10 @@ public final class EventManager {
 
 			// Loop continuously
 			while (true) {
+				// Control has returned to the event loop
+				if (profiler != null)
+					profiler.endEvent();
+
 				EventNode nextNode = eventTree.getNextNode();
 				if (nextNode == null ||
 				    currentTick.get() >= targetTick) {
@@ -269,6 +294,9 @@ public final class EventManager {
 						executeEvents = false;
 					}
 
+					if (profiler != null)
+						profiler.startEvent(nextTarget);
+
 					executeTarget(cur, nextTarget);
 
 					// If the current Process is the runningProc, continue executing events
@@ -351,11 +379,14 @@ public final class EventManager {
 	private void evaluateConditions() {
 		// Protecting the conditional evaluate() callbacks and the traceWaitUntilEnded callback
 		disableSchedule();
+		long startNanos = (profiler != null) ? System.nanoTime() : 0L;
 		try {
 			for (int i = 0; i < condEvents.size();) {
 				ConditionalEvent c = condEvents.get(i);
 				if (trcListener != null)
 					trcListener.traceConditionalEval(c.target);
+				if (profiler != null)
+					profiler.conditionEvaluated(c.target);
 				boolean bool = c.c.evaluate();
 				if (trcListener != null)
 					trcListener.traceConditionalEvalEnded(bool, c.target);
@@ -371,7 +402,7 @@ public final class EventManager {
 						// and we immediately switch it to this event
 						evt.handle.event = evt;
 					}
-					node.addEvent(evt, true);
+					addEvent(node, evt, true);
 					continue;
 				}
 				i++;
@@ -383,6 +414,8 @@ public final class EventManager {
 			timelistener.handleError(e);
 		}
 
+		if (profiler != null)
+			profiler.addConditionNanos(System.nanoTime() - startNanos);
 		enableSchedule();
 	}
 
@@ -501,7 +534,9 @@ public final class EventManager {
 			trcListener.traceWait(nextEventTime, priority, t);
 			enableSchedule();
 		}
-		node.addEvent(evt, fifo);
+		if (profiler != null)
+			profiler.waitStarted(t);
+		addEvent(node, evt, fifo);
 		captureProcess(cur);
 	}
 
@@ -513,6 +548,57 @@ public final class EventManager {
 		return eventTree.createOrFindNode(tick, prio);
 	}
 
+	private void addEvent(EventNode node, Event evt, boolean fifo) {
+		evt.seq = schedCount++;
+		evt.fifo = fifo;
+		node.addEvent(evt, fifo);
+	}
+
+	/**
+	 * Returns the sequence number that the next scheduled event will receive. A FifoLane records
+	 * this value for each entry so that its event can later be placed in the same position it
+	 * would have had if it had been scheduled immediately.
+	 */
+	final long nextSequence() {
+		return schedCount++;
+	}
+
+	/**
+	 * Reports the scheduling of a sequenced event to the trace listener at the time its sequence
+	 * number is assigned, so that the trace is the same as for a separately scheduled event.
+	 */
+	final void traceSequenced(long schedTick, int eventPriority, ProcessTarget t) {
+		if (trcListener != null) {
+			disableSchedule();
+			trcListener.traceSchedProcess(schedTick, eventPriority, t);
+			enableSchedule();
+		}
+	}
+
+	/**
+	 * Schedules an event at an absolute tick, placing it amongst the FIFO events with the same
+	 * time and priority according to the given sequence number. The event is not traced, see
+	 * traceSequenced().
+	 */
+	final void scheduleSequenced(long schedTick, int eventPriority, long seq, ProcessTarget t, EventHandle handle) {
+		assertCanSchedule();
+		if (schedTick < currentTick.get())
+			throw new ProcessError("Tried to schedule an event in the past");
+		EventNode node = getEventNode(schedTick, eventPriority);
+		Event evt = getEvent();
+		evt.node = node;
+		evt.target = t;
+		evt.handle = handle;
+		if (handle != null) {
+			if (handle.isScheduled())
+				throw new ProcessError("Tried to schedule using an EventHandle already in use");
+			handle.event = evt;
+		}
+		evt.seq = seq;
+		evt.fifo = true;
+		node.insertEvent(evt);
+	}
+
 	private Event freeEvents = null;
 	private Event getEvent() {
 		if (freeEvents != null) {
@@ -553,6 +639,8 @@ public final class EventManager {
 			trcListener.traceWaitUntil();
 			enableSchedule();
 		}
+		if (profiler != null)
+			profiler.waitStarted(t);
 		captureProcess(cur);
 	}
 
@@ -784,7 +872,7 @@ public final class EventManager {
 			// FIXME: this is the only callback that does not occur in Process context, disable for now
 			//if (trcListener != null)
 			//	trcListener.traceSchedProcess(this, currentTick.get(), schedTick, eventPriority, t);
-			node.addEvent(evt, fifo);
+			addEvent(node, evt, fifo);
 
 			// During real-time waits an event can be inserted becoming the next event to execute
 			// If nextTick is not updated, we can fall through the entire time update code and not
@@ -847,7 +935,7 @@ public final class EventManager {
 			trcListener.traceSchedProcess(schedTick, eventPriority, t);
 			enableSchedule();
 		}
-		node.addEvent(evt, fifo);
+		addEvent(node, evt, fifo);
 	}
 
 	/**
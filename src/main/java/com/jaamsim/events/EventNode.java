@@ -58,6 +58,28 @@ class EventNode {
 		}
 	}
 
+	/**
+	 * Inserts a FIFO event at the position it would occupy had it been added when its sequence
+	 * number was issued: after any LIFO events and any events issued earlier, and before the FIFO
+	 * events issued later.
+	 */
+	final void insertEvent(Event e) {
+		Event prev = null;
+		Event each = head;
+		while (each != null && !(each.fifo && each.seq > e.seq)) {
+			prev = each;
+			each = each.next;
+		}
+
+		e.next = each;
+		if (prev == null)
+			head = e;
+		else
+			prev.next = e;
+		if (each == null)
+			tail = e;
+	}
+
 	final void removeEvent(Event evt) {
 		// quick case where we are the head event
 		if (this.head == evt) {
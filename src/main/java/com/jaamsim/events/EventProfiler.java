@@ -0,0 +1,579 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.events;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Collects the number of events executed by an EventManager together with the wall-clock time
+ * and memory allocation they consume, aggregated by ProcessTarget class and by the entity that
+ * owns the target. The number of evaluations of each conditional event is also recorded.
+ * <p>
+ * Every event is counted, but only a random sample of the events is timed so that the profiler
+ * can be left on without slowing the model significantly. On average, one event is timed for
+ * every 'sampleInterval' events executed. The total time for each class of event is estimated
+ * from its samples.
+ * <p>
+ * The time for an event is measured from the point at which it is removed from the event list
+ * until control returns to the event loop, so it includes the time spent in any processes that
+ * are started by the event. An event that resumes a waiting process is attributed to the target
+ * class and owner of the event that originally started the process.
+ * <p>
+ * Allocation is measured on the thread that executes the event. It does not include any memory
+ * allocated by a resumed process that runs on a different thread.
+ * <p>
+ * All the methods that record data are called by the EventManager while holding its lock.
+ */
+public final class EventProfiler {
+
+	public static final int DEFAULT_SAMPLE_INTERVAL = 32;
+	private static final int SUB_BUCKETS = 4;  // histogram buckets per power of two
+	private static final int MAX_OWNERS = 10000;
+	private static final int MAX_OWNER_CACHE = 1 << 16;
+	private static final int MAX_TARGET_CACHE = 1 << 12;
+	private static final int MAX_WAITS = 1 << 18;
+	private static final String OTHER_OWNERS = "<other>";
+
+	private final HashMap<Class<?>, Stats> classMap = new HashMap<>();
+	private final HashMap<String, Stats> ownerMap = new HashMap<>();
+	private final HashMap<String, Stats> condMap = new HashMap<>();
+	private final ArrayList<Stats> classList = new ArrayList<>();
+	private final ArrayList<Stats> ownerList = new ArrayList<>();
+	private final ArrayList<Stats> condList = new ArrayList<>();
+
+	// Owner statistics for each object returned by ProcessTarget.getOwner()
+	private final IdentityHashMap<Object, Stats> ownerCache = new IdentityHashMap<>();
+
+	// Owner statistics for targets that do not provide an owner
+	private final IdentityHashMap<ProcessTarget, Stats> targetCache = new IdentityHashMap<>();
+
+	// Class and owner of the event that started each process that is waiting to be resumed
+	private final IdentityHashMap<ProcessTarget, Entry> waitMap = new IdentityHashMap<>();
+
+	private Class<?> lastClass;
+	private Stats lastClassStats;
+
+	private final com.sun.management.ThreadMXBean allocBean;
+	private final int sampleInterval;
+	private long seed;
+	private int untilSample;  // number of events until the next one to be timed
+
+	// The event that is being executed
+	private Stats curClass;
+	private Stats curOwner;
+	private boolean timing;  // true if the present event is being timed
+	private long curStartNanos;
+	private Thread curThread;
+	private long curStartBytes;
+
+	private long numEvents;
+	private long numSamples;
+	private long sampledNanos;
+	private long numCondEvals;
+	private long condNanos;
+
+	public EventProfiler() {
+		this(DEFAULT_SAMPLE_INTERVAL, true);
+	}
+
+	/**
+	 * Creates a new profiler.
+	 * @param interval - average number of events executed for each event that is timed
+	 * @param trackAllocation - if TRUE, the memory allocated by each timed event is recorded
+	 */
+	public EventProfiler(int interval, boolean trackAllocation) {
+		sampleInterval = Math.max(1, interval);
+		seed = 0x9E3779B97F4A7C15L;
+		untilSample = 1;
+
+		com.sun.management.ThreadMXBean bean = null;
+		if (trackAllocation) {
+			ThreadMXBean tmx = ManagementFactory.getThreadMXBean();
+			if (tmx instanceof com.sun.management.ThreadMXBean) {
+				bean = (com.sun.management.ThreadMXBean) tmx;
+				if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled())
+					bean = null;
+			}
+		}
+		allocBean = bean;
+	}
+
+	private static class Entry {
+		final Stats classStats;
+		final Stats ownerStats;
+
+		Entry(Stats cls, Stats owner) {
+			classStats = cls;
+			ownerStats = owner;
+		}
+	}
+
+	/**
+	 * Statistics for the events that belong to a target class or to an owner.
+	 */
+	public static final class Stats {
+		private final String name;
+		private long count;
+		private long samples;
+		private long sampleNanos;
+		private long maxNanos;
+		private long sampleBytes;
+		private final long[] histogram;
+
+		Stats(String name, boolean hist) {
+			this.name = name;
+			histogram = hist ? new long[64 * SUB_BUCKETS] : null;
+		}
+
+		void addSample(long nanos, long bytes) {
+			samples++;
+			sampleNanos += nanos;
+			sampleBytes += bytes;
+			if (nanos > maxNanos)
+				maxNanos = nanos;
+			if (histogram != null)
+				histogram[getBucket(nanos)]++;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the number of events executed.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the number of events that were timed.
+		 */
+		public long getNumSamples() {
+			return samples;
+		}
+
+		/**
+		 * Returns an estimate of the total execution time for the events in nanoseconds.
+		 */
+		public double getTotalNanos() {
+			if (samples == 0)
+				return 0.0d;
+			return (double) sampleNanos * count / samples;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		/**
+		 * Returns the average number of bytes allocated by an event.
+		 */
+		public double getMeanBytes() {
+			if (samples == 0)
+				return 0.0d;
+			return (double) sampleBytes / samples;
+		}
+
+		public double getMeanNanos() {
+			if (samples == 0)
+				return 0.0d;
+			return (double) sampleNanos / samples;
+		}
+
+		/**
+		 * Returns an estimate of the specified percentile for the execution time of an event.
+		 * The estimate is accurate to within about 10 percent.
+		 * @param p - percentile expressed as a fraction between 0 and 1
+		 * @return execution time in nanoseconds
+		 */
+		public double getPercentileNanos(double p) {
+			if (histogram == null || samples == 0)
+				return Double.NaN;
+			long target = Math.max(1L, (long) Math.ceil(p * samples));
+			long sum = 0L;
+			for (int i = 0; i < histogram.length; i++) {
+				sum += histogram[i];
+				if (sum >= target)
+					return Math.min(getBucketMidpoint(i), maxNanos);
+			}
+			return maxNanos;
+		}
+	}
+
+	/**
+	 * Returns the histogram bucket for the specified time. Each power of two is divided into
+	 * SUB_BUCKETS equal parts.
+	 */
+	static int getBucket(long nanos) {
+		if (nanos < SUB_BUCKETS)
+			return (int) Math.max(0L, nanos);
+		int exp = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exp - 2)) & (SUB_BUCKETS - 1);
+		return exp * SUB_BUCKETS + sub;
+	}
+
+	static double getBucketMidpoint(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int exp = bucket / SUB_BUCKETS;
+		int sub = bucket % SUB_BUCKETS;
+		double width = Math.scalb(1.0d, exp - 2);
+		return Math.scalb(1.0d, exp) + (sub + 0.5d) * width;
+	}
+
+	private static String getClassName(Class<?> klass) {
+		String name = klass.getName();
+		return name.substring(name.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Returns the owner's name from a target description of the form 'Entity.method'.
+	 */
+	private static String getOwnerName(ProcessTarget t) {
+		String desc = t.getDescription();
+		if (desc == null)
+			return "";
+		int ind = desc.lastIndexOf('.');
+		if (ind < 0)
+			return desc;
+		return desc.substring(0, ind);
+	}
+
+	private Stats getClassStats(Class<?> klass) {
+		if (klass == lastClass)
+			return lastClassStats;
+
+		Stats ret = classMap.get(klass);
+		if (ret == null) {
+			ret = new Stats(getClassName(klass), true);
+			classMap.put(klass, ret);
+			classList.add(ret);
+		}
+		lastClass = klass;
+		lastClassStats = ret;
+		return ret;
+	}
+
+	private Stats getOwnerStats(String name) {
+		Stats ret = ownerMap.get(name);
+		if (ret != null)
+			return ret;
+
+		// Limit the number of owners for a model that generates a large number of entities
+		if (ownerMap.size() >= MAX_OWNERS)
+			name = OTHER_OWNERS;
+
+		ret = ownerMap.get(name);
+		if (ret == null) {
+			ret = new Stats(name, false);
+			ownerMap.put(name, ret);
+			ownerList.add(ret);
+		}
+		return ret;
+	}
+
+	private Stats getOwnerStats(ProcessTarget t) {
+		Object owner = t.getOwner();
+		if (owner != null) {
+			Stats ret = ownerCache.get(owner);
+			if (ret == null) {
+				ret = getOwnerStats(owner.toString());
+				if (ownerCache.size() >= MAX_OWNER_CACHE)
+					ownerCache.clear();
+				ownerCache.put(owner, ret);
+			}
+			return ret;
+		}
+
+		Stats ret = targetCache.get(t);
+		if (ret == null) {
+			ret = getOwnerStats(getOwnerName(t));
+			if (targetCache.size() >= MAX_TARGET_CACHE)
+				targetCache.clear();
+			targetCache.put(t, ret);
+		}
+		return ret;
+	}
+
+	private long getAllocatedBytes(Thread thread) {
+		if (allocBean == null)
+			return 0L;
+		return allocBean.getThreadAllocatedBytes(thread.getId());
+	}
+
+	/**
+	 * Returns the number of events until the next one to be timed. The gaps are uniformly
+	 * distributed with a mean of sampleInterval to avoid synchronising with a periodic pattern
+	 * of events.
+	 */
+	private int nextGap() {
+		if (sampleInterval == 1)
+			return 1;
+		seed ^= seed << 13;
+		seed ^= seed >>> 7;
+		seed ^= seed << 17;
+		return 1 + (int) ((seed >>> 1) % (2 * sampleInterval - 1));
+	}
+
+	/**
+	 * Records an event that has been removed from the event list.
+	 */
+	void startEvent(ProcessTarget t) {
+		endEvent();
+
+		// A process that is resumed continues the work of the event that started it
+		Entry ent = null;
+		if (t.getProcess() != null)
+			ent = waitMap.remove(t);
+
+		if (ent != null) {
+			curClass = ent.classStats;
+			curOwner = ent.ownerStats;
+		}
+		else {
+			curClass = getClassStats(t.getClass());
+			curOwner = getOwnerStats(t);
+		}
+		curClass.count++;
+		curOwner.count++;
+		numEvents++;
+
+		if (--untilSample > 0)
+			return;
+		untilSample = nextGap();
+
+		timing = true;
+		curThread = Thread.currentThread();
+		curStartBytes = getAllocatedBytes(curThread);
+		curStartNanos = System.nanoTime();
+	}
+
+	/**
+	 * Completes the present event, if any. Called when control returns to the event loop.
+	 */
+	void endEvent() {
+		if (curClass == null)
+			return;
+
+		if (timing) {
+			long nanos = System.nanoTime() - curStartNanos;
+			long bytes = 0L;
+			Thread thread = Thread.currentThread();
+			if (thread == curThread)
+				bytes = getAllocatedBytes(thread) - curStartBytes;
+
+			curClass.addSample(nanos, bytes);
+			curOwner.addSample(nanos, bytes);
+			numSamples++;
+			sampledNanos += nanos;
+			timing = false;
+			curThread = null;
+		}
+		curClass = null;
+		curOwner = null;
+	}
+
+	/**
+	 * Records the process that is waiting to be resumed by the specified target so that the
+	 * resumed process can be attributed to the present event.
+	 */
+	void waitStarted(WaitTarget t) {
+		if (curClass == null)
+			return;
+		if (waitMap.size() >= MAX_WAITS)
+			waitMap.clear();
+		waitMap.put(t, new Entry(curClass, curOwner));
+	}
+
+	/**
+	 * Records a single evaluation of the condition for a conditional event.
+	 */
+	void conditionEvaluated(ProcessTarget t) {
+		numCondEvals++;
+		String name = null;
+		if (t.getProcess() != null) {
+			Entry ent = waitMap.get(t);
+			if (ent != null)
+				name = ent.classStats.name;
+		}
+		if (name == null)
+			name = getClassName(t.getClass());
+
+		Stats cond = condMap.get(name);
+		if (cond == null) {
+			cond = new Stats(name, false);
+			condMap.put(name, cond);
+			condList.add(cond);
+		}
+		cond.count++;
+	}
+
+	void addConditionNanos(long nanos) {
+		condNanos += nanos;
+	}
+
+	/**
+	 * Returns the number of events that have been profiled.
+	 */
+	public long getNumEvents() {
+		return numEvents;
+	}
+
+	/**
+	 * Returns the number of events that have been timed.
+	 */
+	public long getNumSamples() {
+		return numSamples;
+	}
+
+	/**
+	 * Returns an estimate of the total wall-clock time in nanoseconds spent executing the
+	 * profiled events.
+	 */
+	public double getTotalNanos() {
+		if (numSamples == 0)
+			return 0.0d;
+		return (double) sampledNanos * numEvents / numSamples;
+	}
+
+	/**
+	 * Returns the number of times a condition for a conditional event has been evaluated.
+	 */
+	public long getNumConditionEvaluations() {
+		return numCondEvals;
+	}
+
+	/**
+	 * Returns the total wall-clock time in nanoseconds spent evaluating conditional events.
+	 */
+	public long getConditionNanos() {
+		return condNanos;
+	}
+
+	private static final Comparator<Stats> timeSort = new Comparator<Stats>() {
+		@Override
+		public int compare(Stats s1, Stats s2) {
+			return Double.compare(s2.getTotalNanos(), s1.getTotalNanos());
+		}
+	};
+
+	private static final Comparator<Stats> countSort = new Comparator<Stats>() {
+		@Override
+		public int compare(Stats s1, Stats s2) {
+			return Long.compare(s2.count, s1.count);
+		}
+	};
+
+	private static ArrayList<Stats> copy(ArrayList<Stats> list, Comparator<Stats> cmp) {
+		ArrayList<Stats> ret = new ArrayList<>(list.size());
+		for (Object obj : list.toArray()) {
+			if (obj != null)
+				ret.add((Stats) obj);
+		}
+		Collections.sort(ret, cmp);
+		return ret;
+	}
+
+	/**
+	 * Returns the statistics for each ProcessTarget class in order of decreasing total time.
+	 */
+	public ArrayList<Stats> getTargetStats() {
+		return copy(classList, timeSort);
+	}
+
+	/**
+	 * Returns the statistics for each owner in order of decreasing total time.
+	 */
+	public ArrayList<Stats> getOwnerStats() {
+		return copy(ownerList, timeSort);
+	}
+
+	/**
+	 * Returns the number of evaluations for each conditional event target class in order of
+	 * decreasing count. A waiting process is identified by the target class of the event that
+	 * started it.
+	 */
+	public ArrayList<Stats> getConditionStats() {
+		return copy(condList, countSort);
+	}
+
+	/**
+	 * Returns a text report of the profile data.
+	 * @param maxRows - maximum number of rows for each table
+	 */
+	public String getReport(int maxRows) {
+		StringBuilder sb = new StringBuilder();
+		double totalNanos = getTotalNanos();
+		sb.append(String.format("Events executed:\t%d%n", numEvents));
+		sb.append(String.format("Events timed:\t%d%n", numSamples));
+		sb.append(String.format("Event time (ms):\t%.3f%n", totalNanos / 1.0e6d));
+		sb.append(String.format("Conditional evaluations:\t%d%n", numCondEvals));
+		sb.append(String.format("Conditional time (ms):\t%.3f%n", condNanos / 1.0e6d));
+		sb.append(String.format("%n"));
+
+		sb.append(String.format("Target class\tCount\tTotal (ms)\tPercent\tMean (us)\tP50 (us)\tP90 (us)\tP99 (us)\tMax (us)\tAllocated (bytes/event)%n"));
+		int n = 0;
+		for (Stats s : getTargetStats()) {
+			if (n++ == maxRows)
+				break;
+			sb.append(String.format("%s\t%d\t%.3f\t%.1f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.0f%n",
+					s.name, s.count, s.getTotalNanos() / 1.0e6d, getPercent(s.getTotalNanos()),
+					s.getMeanNanos() / 1.0e3d, s.getPercentileNanos(0.5d) / 1.0e3d,
+					s.getPercentileNanos(0.9d) / 1.0e3d, s.getPercentileNanos(0.99d) / 1.0e3d,
+					s.maxNanos / 1.0e3d, s.getMeanBytes()));
+		}
+		sb.append(String.format("%n"));
+
+		sb.append(String.format("Owner\tCount\tTotal (ms)\tPercent\tMean (us)\tMax (us)\tAllocated (bytes/event)%n"));
+		n = 0;
+		for (Stats s : getOwnerStats()) {
+			if (n++ == maxRows)
+				break;
+			sb.append(String.format("%s\t%d\t%.3f\t%.1f\t%.3f\t%.3f\t%.0f%n",
+					s.name, s.count, s.getTotalNanos() / 1.0e6d, getPercent(s.getTotalNanos()),
+					s.getMeanNanos() / 1.0e3d, s.maxNanos / 1.0e3d, s.getMeanBytes()));
+		}
+
+		ArrayList<Stats> condStats = getConditionStats();
+		if (!condStats.isEmpty()) {
+			sb.append(String.format("%n"));
+			sb.append(String.format("Conditional target class\tEvaluations%n"));
+			n = 0;
+			for (Stats s : condStats) {
+				if (n++ == maxRows)
+					break;
+				sb.append(String.format("%s\t%d%n", s.name, s.count));
+			}
+		}
+		return sb.toString();
+	}
+
+	private double getPercent(double nanos) {
+		double totalNanos = getTotalNanos();
+		if (totalNanos == 0.0d)
+			return 0.0d;
+		return 100.0d * nanos / totalNanos;
+	}
+
+}
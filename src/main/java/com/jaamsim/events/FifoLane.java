@@ -0,0 +1,156 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.events;
+
+/**
+ * A FifoLane holds objects that are each released after a delay, where no object can be released
+ * before one that was added earlier. The objects are kept in a ring buffer and only the object at
+ * the head of the lane has an event in the event tree, so the number of scheduled events does not
+ * grow with the number of objects in transit.
+ * <p>
+ * Each release occurs in exactly the same order relative to the other events in the model as it
+ * would if a separate FIFO event had been scheduled for the object when it was added.
+ * @param <T> type of object held by the lane
+ */
+public abstract class FifoLane<T> extends ProcessTarget {
+	private final int priority;
+	private final EventHandle handle = new EventHandle();
+
+	private Object[] items = new Object[16];
+	private long[] ticks = new long[16];  // tick at which each object is released
+	private long[] seqs = new long[16];   // sequence number for the release event
+	private int first;  // index of the head of the lane
+	private int size;   // number of objects in the lane
+
+	/**
+	 * Creates a lane whose release events have the specified priority.
+	 * @param prio - event priority for the releases
+	 */
+	public FifoLane(int prio) {
+		priority = prio;
+	}
+
+	/**
+	 * Releases an object that has reached the head of the lane.
+	 * @param obj - object to be released
+	 */
+	protected abstract void release(T obj);
+
+	/**
+	 * Adds an object that is to be released after the specified number of ticks. The object is
+	 * not added if it would be released before the last object in the lane, in which case it must
+	 * be scheduled separately.
+	 * @param waitTicks - number of ticks until the object is released
+	 * @param obj - object to be added
+	 * @return true if the object was added to the lane
+	 */
+	public final boolean add(long waitTicks, T obj) {
+		if (waitTicks < 0L)
+			throw new ProcessError("Negative duration wait is invalid, waitLength = " + waitTicks);
+
+		EventManager evt = EventManager.current();
+		long tick = evt.getTicks() + waitTicks;
+		if (tick < 0L)
+			tick = Long.MAX_VALUE;
+		if (size > 0 && tick < ticks[(first + size - 1) % items.length])
+			return false;
+
+		if (size == items.length)
+			grow();
+		int i = (first + size) % items.length;
+		items[i] = obj;
+		ticks[i] = tick;
+		seqs[i] = evt.nextSequence();
+		size++;
+		evt.traceSequenced(tick, priority, this);
+
+		if (size == 1)
+			evt.scheduleSequenced(tick, priority, seqs[i], this, handle);
+		return true;
+	}
+
+	private void grow() {
+		int n = items.length * 2;
+		Object[] newItems = new Object[n];
+		long[] newTicks = new long[n];
+		long[] newSeqs = new long[n];
+		for (int j = 0; j < size; j++) {
+			int i = (first + j) % items.length;
+			newItems[j] = items[i];
+			newTicks[j] = ticks[i];
+			newSeqs[j] = seqs[i];
+		}
+		items = newItems;
+		ticks = newTicks;
+		seqs = newSeqs;
+		first = 0;
+	}
+
+	@Override
+	public final void process() {
+		@SuppressWarnings("unchecked")
+		T obj = (T) items[first];
+		items[first] = null;
+		first = (first + 1) % items.length;
+		size--;
+
+		if (size > 0)
+			EventManager.current().scheduleSequenced(ticks[first], priority, seqs[first], this, handle);
+
+		release(obj);
+	}
+
+	/**
+	 * Removes all the objects from the lane without releasing them.
+	 */
+	public final void clear() {
+		if (handle.isScheduled())
+			EventManager.killEvent(handle);
+		for (int j = 0; j < size; j++) {
+			items[(first + j) % items.length] = null;
+		}
+		first = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of objects in the lane.
+	 */
+	public final int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the specified object, where index zero is the next to be released.
+	 */
+	@SuppressWarnings("unchecked")
+	public final T get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return (T) items[(first + index) % items.length];
+	}
+
+	/**
+	 * Returns the tick at which the specified object will be released.
+	 */
+	public final long getReleaseTicks(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return ticks[(first + index) % items.length];
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.events;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the time to delay a large number of objects, first by scheduling a separate event for
+ * each object and then by adding the objects to a FifoLane. One object arrives on each tick and
+ * is delayed for the same number of ticks as there are objects, so that every object is in transit
+ * when the last one arrives. The live heap is measured at that point.
+ * <p>
+ * Arguments: [objects]
+ */
+public class FifoLaneBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		int num = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+		for (int j = 0; j < 3; j++) {
+			for (boolean lane : new boolean[]{false, true}) {
+				Trial trial = new Trial(num, lane);
+				trial.run();
+				System.out.println(String.format("%d objects in transit, %s: %.0f ms, "
+						+ "live heap %.0f MB at the peak (released=%d)",
+						num, lane ? "lane" : "separate events", trial.millis,
+						trial.peakBytes/1.0e6d, trial.numReleased));
+			}
+		}
+		System.exit(0);
+	}
+
+	private static class Trial {
+		final int num;
+		final boolean useLane;
+		final CountDownLatch latch = new CountDownLatch(1);
+		final EventManager evt = new EventManager("FifoLaneBenchmark");
+
+		int numAdded;
+		int numReleased;
+		long peakBytes;
+		long gcNanos;
+		double millis;
+
+		final FifoLane<Object> lane = new FifoLane<Object>(0) {
+			@Override
+			protected void release(Object obj) {
+				released();
+			}
+
+			@Override
+			public String getDescription() {
+				return "Release";
+			}
+		};
+
+		final ProcessTarget arrival = new ProcessTarget() {
+			@Override
+			public String getDescription() {
+				return "Arrival";
+			}
+
+			@Override
+			public void process() {
+				arrive();
+			}
+		};
+
+		Trial(int n, boolean bool) {
+			num = n;
+			useLane = bool;
+			evt.clear();
+		}
+
+		void run() throws InterruptedException {
+			long startTime = System.nanoTime();
+			evt.scheduleProcessExternal(0, 0, false, arrival, null);
+			evt.resume(Long.MAX_VALUE);
+			latch.await();
+			millis = (System.nanoTime() - startTime - gcNanos) / 1.0e6d;
+			evt.pause();
+		}
+
+		void arrive() {
+			Object obj = new Object();
+			if (useLane)
+				lane.add(num, obj);
+			else
+				EventManager.scheduleTicks(num, 0, true, new ReleaseTarget(this, obj), null);
+			numAdded++;
+
+			if (numAdded < num) {
+				EventManager.scheduleTicks(1, 0, false, arrival, null);
+				return;
+			}
+
+			// Measure the live heap with every object in transit, excluding the collection time
+			long startTime = System.nanoTime();
+			System.gc();
+			Runtime rt = Runtime.getRuntime();
+			peakBytes = rt.totalMemory() - rt.freeMemory();
+			gcNanos = System.nanoTime() - startTime;
+		}
+
+		void released() {
+			numReleased++;
+			if (numReleased == num)
+				latch.countDown();
+		}
+	}
+
+	// Releases one object, in the same way as the target used by EntityDelay for each entity
+	private static class ReleaseTarget extends ProcessTarget {
+		final Trial trial;
+		final Object obj;
+
+		ReleaseTarget(Trial t, Object o) {
+			trial = t;
+			obj = o;
+		}
+
+		@Override
+		public String getDescription() {
+			return "Release";
+		}
+
+		@Override
+		public void process() {
+			trial.released();
+		}
+	}
+
+}
@@ -24,6 +24,14 @@ public abstract class ProcessTarget {
 	public abstract String getDescription();
 	public abstract void process();
 
+	/**
+	 * Returns the object that the target acts on, or null if it is not known.
+	 * Used to group the profiling data for the events.
+	 */
+	public Object getOwner() {
+		return null;
+	}
+
 	@Override
 	public String toString() {
 		return getDescription();
@@ -0,0 +1,82 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+
+import com.jaamsim.basicsim.JaamSimModel;
+
+/**
+ * Measures the time to load a generated configuration file containing the specified number of
+ * EntityGenerators, each with its own expressions. The file is loaded into a new model for each
+ * iteration, so that the expressions are not found in the model's parse cache.
+ * <p>
+ * Arguments: [generators] [iterations]
+ */
+public class ConfigLoadBenchmark {
+
+	public static void main(String[] args) throws IOException, URISyntaxException {
+		int num = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int numIters = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		File file = File.createTempFile("ConfigLoadBenchmark", ".cfg");
+		file.deleteOnExit();
+		writeConfig(file, num);
+
+		for (int i = 0; i < numIters; i++) {
+			System.out.println(String.format("generators=%d: load %.1f ms", num, time(file)));
+		}
+	}
+
+	private static double time(File file) throws URISyntaxException {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+
+		long startTime = System.nanoTime();
+		simModel.loadFile(file);
+		double millis = (System.nanoTime() - startTime) / 1.0e6d;
+
+		if (simModel.getNumErrors() > 0)
+			throw new InputErrorException("%d input errors found", simModel.getNumErrors());
+		return millis;
+	}
+
+	private static void writeConfig(File file, int num) throws IOException {
+		try (PrintWriter out = new PrintWriter(file)) {
+			out.println("Define SimEntity { Proto }");
+			out.println("Define EntitySink { Sink }");
+			out.print("Define EntityGenerator {");
+			for (int i = 0; i < num; i++) {
+				out.print(" G" + i);
+			}
+			out.println(" }");
+
+			for (int i = 0; i < num; i++) {
+				out.println(String.format("G%d PrototypeEntity { Proto } NextComponent { Sink }", i));
+				out.println(String.format("G%d FirstArrivalTime { '%d[s] + max(0[s], [Sink].NumberAdded * 1[min])' }",
+						i, i));
+				out.println(String.format("G%d InterArrivalTime { '[G%d].NumberGenerated > %d ? 1[h] : (%d + [Sink].NumberAdded) * 1[s]' }",
+						i, (i + 1) % num, i % 10, i));
+				out.println(String.format("G%d EntitiesPerArrival { 'this.NumberGenerated %% 2 + %d' }", i, i % 3 + 1));
+			}
+		}
+	}
+
+}
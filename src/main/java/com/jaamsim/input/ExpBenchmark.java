@@ -0,0 +1,119 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.input;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.jaamsim.input.ExpParser.Assigner;
+import com.jaamsim.input.ExpParser.OutputResolver;
+import com.jaamsim.input.ExpParser.UnitData;
+import com.jaamsim.units.DimensionlessUnit;
+import com.jaamsim.units.Unit;
+
+/**
+ * Measures the evaluation time for chains of higher-order functions. Each chain is timed both
+ * when passed directly to the next function, so that it is calculated in a single pass, and when
+ * the intermediate results are saved in local variables.
+ * <p>
+ * Arguments: [size] [iterations]
+ */
+public class ExpBenchmark {
+
+	private static final String[][] CASES = {
+		{ "map-filter-reduce",
+			"reduce(|x, acc|(x + acc), 0, filter(|x|(x%%3 == 0), map(|x|(x*x), range(%d))))",
+			"a = map(|x|(x*x), range(%d)); b = filter(|x|(x%%3 == 0), a); reduce(|x, acc|(x + acc), 0, b)" },
+		{ "filter-map-sort",
+			"sort(|x, y|(x > y), map(|x|(x/2), filter(|x|(x%%2 == 0), range(%d))))",
+			"a = filter(|x|(x%%2 == 0), range(%d)); b = map(|x|(x/2), a); sort(|x, y|(x > y), b)" },
+		{ "map-any",
+			"any(|x|(x > 10), map(|x|(x*2), range(%d)))",
+			"a = map(|x|(x*2), range(%d)); any(|x|(x > 10), a)" },
+		{ "map-first",
+			"first(|x|(x > 10), map(|x|(x*2), range(%d)))",
+			"a = map(|x|(x*2), range(%d)); first(|x|(x > 10), a)" },
+	};
+
+	private static final int NUM_WARMUP = 200;
+
+	public static void main(String[] args) throws ExpError {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int numIters = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+		BenchParseContext pc = new BenchParseContext();
+		ExpParser.EvalContext ec = new ExpParser.EvalContext(new ArrayList<ExpResult>());
+
+		for (String[] bench : CASES) {
+			ExpParser.Expression fused = ExpParser.parseExpression(pc, String.format(bench[1], size));
+			ExpParser.Expression separate = ExpParser.parseExpression(pc, String.format(bench[2], size));
+			System.out.println(String.format("%-18s size=%d: chained %.2f us, separate %.2f us",
+					bench[0], size, time(fused, ec, numIters), time(separate, ec, numIters)));
+		}
+	}
+
+	private static double time(ExpParser.Expression exp, ExpParser.EvalContext ec, int numIters) throws ExpError {
+		for (int i = 0; i < NUM_WARMUP; ++i) {
+			exp.evaluate(ec);
+		}
+		long startTime = System.nanoTime();
+		for (int i = 0; i < numIters; ++i) {
+			exp.evaluate(ec);
+		}
+		return (System.nanoTime() - startTime) / 1.0e3d / numIters;
+	}
+
+	private static class BenchParseContext extends ExpParser.ParseContext {
+		public BenchParseContext() {
+			super(new HashMap<String, ExpResult>(), new ArrayList<String>());
+		}
+
+		@Override
+		public UnitData getUnitByName(String name) {
+			return null;
+		}
+		@Override
+		public Class<? extends Unit> multUnitTypes(Class<? extends Unit> a, Class<? extends Unit> b) {
+			return DimensionlessUnit.class;
+		}
+		@Override
+		public Class<? extends Unit> divUnitTypes(Class<? extends Unit> num, Class<? extends Unit> denom) {
+			return DimensionlessUnit.class;
+		}
+		@Override
+		public ExpResult getValFromLitName(String name, String source, int pos) throws ExpError {
+			throw new ExpError(source, pos, "Unknown name: %s", name);
+		}
+		@Override
+		public OutputResolver getOutputResolver(String name) throws ExpError {
+			throw new ExpError(null, 0, "Outputs not supported");
+		}
+		@Override
+		public OutputResolver getConstOutputResolver(ExpResult constEnt, String name) throws ExpError {
+			throw new ExpError(null, 0, "Outputs not supported");
+		}
+		@Override
+		public Assigner getAssigner(String attribName) throws ExpError {
+			throw new ExpError(null, 0, "Assign not supported");
+		}
+		@Override
+		public Assigner getConstAssigner(ExpResult constEnt, String attribName) throws ExpError {
+			throw new ExpError(null, 0, "Assign not supported");
+		}
+	}
+
+}
@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.jaamsim.basicsim.ErrorException;
 import com.jaamsim.basicsim.JaamSimModel;
 import com.jaamsim.datatypes.DoubleVector;
 import com.jaamsim.datatypes.IntegerVector;
@@ -33,6 +34,28 @@ import com.jaamsim.units.Unit;
 
 public class ExpCollections {
 
+	// Dimensionless integer keys shared by the collection iterators
+	private static final int NUM_INDEX_KEYS = 1024;
+	private static final ExpResult[] indexKeys = new ExpResult[NUM_INDEX_KEYS];
+
+	static {
+		for (int i = 0; i < NUM_INDEX_KEYS; i++) {
+			indexKeys[i] = ExpResult.makeNumResult(i, DimensionlessUnit.class);
+		}
+	}
+
+	/**
+	 * Returns a dimensionless number result for the specified index. Results for the smaller
+	 * indices are shared, since they are immutable.
+	 * @param ind - index value
+	 * @return number result
+	 */
+	public static ExpResult getIndexKey(int ind) {
+		if (ind >= 0 && ind < NUM_INDEX_KEYS)
+			return indexKeys[ind];
+		return ExpResult.makeNumResult(ind, DimensionlessUnit.class);
+	}
+
 	public static boolean isCollectionClass(Class<?> klass) {
 		if (Map.class.isAssignableFrom(klass)) {
 			return true;
@@ -105,13 +128,27 @@ public class ExpCollections {
 	/**
 	 * Create an expression collection that may be assigned into (aka: written).
 	 * This obeys a single level of copy-on-write semantics if the original object is marked as constant
+	 * If every value is a number with the same unit type, the values are held in a primitive
+	 * array that is shared between copies until one of them is assigned.
 	 * @param vals - The original values for the collection (may be an ArrayList or Map)
 	 * @param constExp - Is the original a constant?
 	 */
 	public static ExpResult makeAssignableArrrayCollection(ArrayList<ExpResult> vals, boolean constExp) {
+		if (NumericArrayCollection.isNumeric(vals))
+			return ExpResult.makeCollectionResult(new NumericArrayCollection(vals, constExp));
 		return ExpResult.makeCollectionResult(new AssignableArrayCollection(vals, constExp));
 	}
 
+	/**
+	 * Create an expression collection for an array of numbers with the same unit type. The array
+	 * is shared with any copies until one of them is assigned.
+	 * @param vals - values for the collection
+	 * @param ut - unit type for the values
+	 */
+	public static ExpResult makeNumericArrayCollection(double[] vals, Class<? extends Unit> ut) {
+		return ExpResult.makeCollectionResult(new NumericArrayCollection(vals, vals.length, ut, true));
+	}
+
 	public static ExpResult makeAssignableMapCollection(Map<String, ExpResult> vals, boolean constExp) {
 		return ExpResult.makeCollectionResult(new AssignableMapCollection(vals, constExp));
 	}
@@ -128,7 +165,7 @@ public class ExpCollections {
 			ExpResult val = c1.index(it.nextKey());
 			res.add(val);
 		}
-		return ExpResult.makeCollectionResult(new AssignableArrayCollection(res, false));
+		return makeAssignableArrrayCollection(res, false);
 	}
 
 	public static ExpResult appendToCollection(ExpResult.Collection col, ExpResult val) throws ExpError {
@@ -140,7 +177,225 @@ public class ExpCollections {
 		}
 		res.add(val);
 
-		return ExpResult.makeCollectionResult(new AssignableArrayCollection(res, false));
+		return makeAssignableArrrayCollection(res, false);
+	}
+
+	/**
+	 * Returns the values in a collection in order, together with their keys.
+	 */
+	interface ValueIterator {
+		public boolean hasNext() throws ExpError;
+		public ExpResult next() throws ExpError;
+
+		// Returns the key for the last value returned by next()
+		public ExpResult getKey();
+	}
+
+	/**
+	 * Returns an iterator over the values in the specified collection. The values in a view are
+	 * calculated as they are iterated over.
+	 * @param col - collection or view
+	 * @return iterator over its values
+	 */
+	static ValueIterator getValueIterator(ExpResult.Collection col) {
+		if (col instanceof ViewCollection)
+			return ((ViewCollection) col).getValueIter();
+		return new CollectionValueIter(col);
+	}
+
+	/**
+	 * Returns an array collection containing the values from the specified iterator.
+	 */
+	static ExpResult collectValues(ValueIterator it) throws ExpError {
+		ArrayList<ExpResult> res = new ArrayList<>();
+		while (it.hasNext()) {
+			res.add(it.next());
+		}
+		return makeAssignableArrrayCollection(res, false);
+	}
+
+	/**
+	 * Returns a view whose values are the results of the specified function for the values
+	 * in the collection.
+	 * @param col - collection or view providing the values
+	 * @param func - function taking a value and, optionally, its key
+	 * @param ec - context for evaluating the function
+	 * @return view of the results
+	 */
+	static ExpResult makeMapView(ExpResult.Collection col, ExpParser.LambdaClosure func,
+			ExpParser.EvalContext ec) {
+		return ExpResult.makeCollectionResult(new ViewCollection(col, func, false, ec));
+	}
+
+	/**
+	 * Returns a view of the values in the collection for which the specified function returns
+	 * a non-zero number.
+	 * @param col - collection or view providing the values
+	 * @param func - function taking a value and, optionally, its key
+	 * @param ec - context for evaluating the function
+	 * @return view of the selected values
+	 */
+	static ExpResult makeFilterView(ExpResult.Collection col, ExpParser.LambdaClosure func,
+			ExpParser.EvalContext ec) {
+		return ExpResult.makeCollectionResult(new ViewCollection(col, func, true, ec));
+	}
+
+	private static class CollectionValueIter implements ValueIterator {
+		private final ExpResult.Collection col;
+		private final ExpResult.Iterator it;
+		private ExpResult key;
+
+		public CollectionValueIter(ExpResult.Collection c) {
+			col = c;
+			it = c.getIter();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override
+		public ExpResult next() throws ExpError {
+			key = it.nextKey();
+			return col.index(key);
+		}
+
+		@Override
+		public ExpResult getKey() {
+			return key;
+		}
+	}
+
+	/**
+	 * The result of a 'map' or 'filter' function that is passed directly to another function
+	 * that iterates over its values. The values are calculated one at a time as they are needed,
+	 * so a chain of functions is evaluated in a single pass. The keys are the positions of the
+	 * values, as for the array that would otherwise have been returned.
+	 * <p>
+	 * If the view is used as an ordinary collection, its values are calculated once and saved.
+	 */
+	private static class ViewCollection implements ExpResult.Collection {
+		private final ExpResult.Collection source;
+		private final ExpParser.LambdaClosure func;
+		private final boolean isFilter;
+		private final ExpParser.EvalContext context;
+		private ExpResult.Collection values;
+
+		public ViewCollection(ExpResult.Collection col, ExpParser.LambdaClosure f, boolean filter,
+				ExpParser.EvalContext ec) {
+			source = col;
+			func = f;
+			isFilter = filter;
+			context = ec;
+		}
+
+		ValueIterator getValueIter() {
+			if (values != null)
+				return new CollectionValueIter(values);
+			return new ViewIter();
+		}
+
+		private ExpResult.Collection getValues() throws ExpError {
+			if (values == null)
+				values = collectValues(new ViewIter()).colVal;
+			return values;
+		}
+
+		private class ViewIter implements ValueIterator {
+			private final ValueIterator it = getValueIterator(source);
+			private final ArrayList<ExpResult> params = new ArrayList<>(2);
+			private ExpResult nextVal;
+			private int pos;
+
+			public ViewIter() {
+				params.add(null);
+				if (func.getNumParams() == 2)
+					params.add(null);
+			}
+
+			@Override
+			public boolean hasNext() throws ExpError {
+				while (nextVal == null && it.hasNext()) {
+					ExpResult val = it.next();
+					params.set(0, val);
+					if (params.size() == 2)
+						params.set(1, it.getKey());
+
+					ExpResult result = func.evaluate(context, params);
+					if (!isFilter)
+						nextVal = result;
+					else if (result.type == ExpResType.NUMBER && result.value != 0)
+						nextVal = val;
+				}
+				return nextVal != null;
+			}
+
+			@Override
+			public ExpResult next() throws ExpError {
+				if (!hasNext())
+					throw new ExpError(null, 0, "No more values in the collection");
+				ExpResult ret = nextVal;
+				nextVal = null;
+				pos++;
+				return ret;
+			}
+
+			@Override
+			public ExpResult getKey() {
+				return getIndexKey(pos);
+			}
+		}
+
+		@Override
+		public ExpResult index(ExpResult index) throws ExpError {
+			return getValues().index(index);
+		}
+
+		@Override
+		public ExpResult.Collection assign(ExpResult key, ExpResult value) throws ExpError {
+			return getValues().assign(key, value);
+		}
+
+		@Override
+		public Iterator getIter() {
+			try {
+				return getValues().getIter();
+			}
+			catch (ExpError err) {
+				throw new ErrorException(err);
+			}
+		}
+
+		@Override
+		public int getSize() {
+			try {
+				return getValues().getSize();
+			}
+			catch (ExpError err) {
+				throw new ErrorException(err);
+			}
+		}
+
+		@Override
+		public String getOutputString(JaamSimModel simModel) {
+			try {
+				return getValues().getOutputString(simModel);
+			}
+			catch (ExpError err) {
+				return String.format("An error occurred: %s", err.getMessage());
+			}
+		}
+
+		@Override
+		public ExpResult.Collection getCopy() {
+			try {
+				return getValues().getCopy();
+			}
+			catch (ExpError err) {
+				throw new ErrorException(err);
+			}
+		}
 	}
 
 	private static class ListCollection implements ExpResult.Collection {
@@ -160,7 +415,7 @@ public class ExpCollections {
 
 			@Override
 			public ExpResult nextKey() throws ExpError {
-				ExpResult ret = ExpResult.makeNumResult(next + 1, DimensionlessUnit.class);
+				ExpResult ret = getIndexKey(next + 1);
 				next++;
 				return ret;
 			}
@@ -211,7 +466,7 @@ public class ExpCollections {
 				StringBuilder sb = new StringBuilder();
 				sb.append("{");
 				for (int i = 0; i < list.size(); ++i) {
-					ExpResult val = index(ExpResult.makeNumResult(i+1, DimensionlessUnit.class));
+					ExpResult val = index(getIndexKey(i+1));
 					sb.append(val.getOutputString(simModel));
 					if (i < list.size() -1) {
 						sb.append(", ");
@@ -256,7 +511,7 @@ public class ExpCollections {
 
 			@Override
 			public ExpResult nextKey() throws ExpError {
-				ExpResult ret = ExpResult.makeNumResult(next + 1, DimensionlessUnit.class);
+				ExpResult ret = getIndexKey(next + 1);
 				next++;
 				return ret;
 			}
@@ -321,7 +576,7 @@ public class ExpCollections {
 				StringBuilder sb = new StringBuilder();
 				sb.append("{");
 				for (int i = 0; i < Array.getLength(array); ++i) {
-					ExpResult val = index(ExpResult.makeNumResult(i+1, DimensionlessUnit.class));
+					ExpResult val = index(getIndexKey(i+1));
 					sb.append(val.getOutputString(simModel));
 					if (i < Array.getLength(array) -1) {
 						sb.append(", ");
@@ -341,7 +596,7 @@ public class ExpCollections {
 
 	}
 
-	private static class DoubleVectorCollection implements ExpResult.Collection {
+	private static class DoubleVectorCollection implements ExpResult.NumericCollection {
 
 		private final DoubleVector vector;
 		private final Class<? extends Unit> unitType;
@@ -366,7 +621,7 @@ public class ExpCollections {
 
 			@Override
 			public ExpResult nextKey() throws ExpError {
-				ExpResult ret = ExpResult.makeNumResult(next + 1, DimensionlessUnit.class);
+				ExpResult ret = getIndexKey(next + 1);
 				next++;
 				return ret;
 			}
@@ -389,9 +644,19 @@ public class ExpCollections {
 				return ExpResult.makeNumResult(0, unitType); // TODO: Is this how we want to handle this case?
 			}
 
-			Double value = vector.get(indexVal);
-			return ExpResult.makeNumResult(value, unitType);
+			return ExpResult.makeNumResult(vector.get(indexVal), unitType);
 		}
+
+		@Override
+		public double getNumber(int i) {
+			return vector.get(i);
+		}
+
+		@Override
+		public Class<? extends Unit> getUnitType() {
+			return unitType;
+		}
+
 		@Override
 		public int getSize() {
 			return vector.size();
@@ -454,7 +719,7 @@ public class ExpCollections {
 
 			@Override
 			public ExpResult nextKey() throws ExpError {
-				ExpResult ret = ExpResult.makeNumResult(next + 1, DimensionlessUnit.class);
+				ExpResult ret = getIndexKey(next + 1);
 				next++;
 				return ret;
 			}
@@ -688,7 +953,7 @@ public class ExpCollections {
 
 			@Override
 			public ExpResult nextKey() throws ExpError {
-				ExpResult ret = ExpResult.makeNumResult(next + 1, DimensionlessUnit.class);
+				ExpResult ret = getIndexKey(next + 1);
 				next++;
 				return ret;
 			}
@@ -709,7 +974,7 @@ public class ExpCollections {
 				StringBuilder sb = new StringBuilder();
 				sb.append("{");
 				for (int i = 0; i < list.size(); ++i) {
-					ExpResult val = index(ExpResult.makeNumResult(i+1, DimensionlessUnit.class));
+					ExpResult val = index(getIndexKey(i+1));
 					sb.append(val.getOutputString(simModel));
 					if (i < list.size() -1) {
 						sb.append(", ");
@@ -729,6 +994,169 @@ public class ExpCollections {
 		}
 
 	}
+	/**
+	 * An assignable array of numbers with the same unit type, held in a primitive array.
+	 * The array is shared by the copies of the collection until one of them is assigned.
+	 * Assigning to a constant or shared collection leaves it unchanged and returns a new
+	 * collection holding its own copy of the array. Assigning a value that is not a number with
+	 * the same unit type returns a general array collection in its place.
+	 */
+	private static class NumericArrayCollection implements ExpResult.NumericCollection {
+
+		private double[] values;
+		private int size;
+		private final Class<? extends Unit> unitType;
+		private boolean shared;  // the values array must be copied before it is assigned
+
+		public static boolean isNumeric(ArrayList<ExpResult> vals) {
+			if (vals.isEmpty())
+				return false;
+			Class<? extends Unit> ut = vals.get(0).unitType;
+			for (ExpResult val : vals) {
+				if (val.type != ExpResType.NUMBER || val.unitType != ut)
+					return false;
+			}
+			return true;
+		}
+
+		public NumericArrayCollection(ArrayList<ExpResult> vals, boolean constExp) {
+			size = vals.size();
+			values = new double[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = vals.get(i).value;
+			}
+			unitType = vals.get(0).unitType;
+			shared = constExp;
+		}
+
+		private NumericArrayCollection(double[] vals, int num, Class<? extends Unit> ut, boolean share) {
+			values = vals;
+			size = num;
+			unitType = ut;
+			shared = share;
+		}
+
+		@Override
+		public ExpResult index(ExpResult index) throws ExpError {
+			if (index.type != ExpResType.NUMBER) {
+				throw new ExpError(null, 0, "ArrayList is not being indexed by a number");
+			}
+
+			int indexVal = (int)index.value - 1; // Expressions use 1-base arrays
+
+			if (indexVal >= size || indexVal < 0) {
+				return ExpResult.makeNumResult(0, DimensionlessUnit.class);
+			}
+			return ExpResult.makeNumResult(values[indexVal], unitType);
+		}
+
+		@Override
+		public double getNumber(int i) {
+			return values[i];
+		}
+
+		@Override
+		public Class<? extends Unit> getUnitType() {
+			return unitType;
+		}
+
+		@Override
+		public ExpResult.Collection assign(ExpResult index, ExpResult value) throws ExpError {
+			if (index.type != ExpResType.NUMBER) {
+				throw new ExpError(null, 0, "Assignment is not being indexed by a number");
+			}
+			int indexVal = (int)index.value - 1; // Expressions use 1-base arrays
+			if (indexVal < 0) {
+				throw new ExpError(null, 0, "Attempting to assign to a negative number: %d", indexVal);
+			}
+
+			// A different type of value, or dimensionless filler values, require a general array
+			if (value.type != ExpResType.NUMBER || value.unitType != unitType
+					|| (indexVal >= size && unitType != DimensionlessUnit.class)) {
+				ExpResult.Collection col = new AssignableArrayCollection(getList(), false);
+				return col.assign(index, value);
+			}
+
+			// A shared array must not be changed, so the value is assigned to a new collection
+			NumericArrayCollection ret = this;
+			if (shared)
+				ret = new NumericArrayCollection(Arrays.copyOf(values, size), size, unitType, false);
+
+			// Make room for the new value, if necessary
+			if (indexVal >= ret.values.length)
+				ret.values = Arrays.copyOf(ret.values, Math.max(indexVal + 1, 2*ret.values.length));
+
+			// Expand the array with zeros
+			if (indexVal >= ret.size) {
+				Arrays.fill(ret.values, ret.size, indexVal, 0.0d);
+				ret.size = indexVal + 1;
+			}
+			ret.values[indexVal] = value.value;
+			return ret;
+		}
+
+		private ArrayList<ExpResult> getList() {
+			ArrayList<ExpResult> ret = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				ret.add(ExpResult.makeNumResult(values[i], unitType));
+			}
+			return ret;
+		}
+
+		private static class Iter implements ExpResult.Iterator {
+
+			private int next = 0;
+			private final int size;
+			public Iter(int num) {
+				size = num;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public ExpResult nextKey() throws ExpError {
+				ExpResult ret = getIndexKey(next + 1);
+				next++;
+				return ret;
+			}
+		}
+
+		@Override
+		public Iterator getIter() {
+			return new Iter(size);
+		}
+
+		@Override
+		public int getSize() {
+			return size;
+		}
+
+		@Override
+		public String getOutputString(JaamSimModel simModel) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("{");
+			for (int i = 0; i < size; ++i) {
+				ExpResult val = ExpResult.makeNumResult(values[i], unitType);
+				sb.append(val.getOutputString(simModel));
+				if (i < size - 1) {
+					sb.append(", ");
+				}
+			}
+			sb.append("}");
+			return sb.toString();
+		}
+
+		@Override
+		public ExpResult.Collection getCopy() {
+			shared = true;
+			return new NumericArrayCollection(values, size, unitType, true);
+		}
+
+	}
+
 	private static class AssignableMapCollection implements ExpResult.Collection {
 
 		private final Map<String, ExpResult> map;
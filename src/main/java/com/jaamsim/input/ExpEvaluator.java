@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import com.jaamsim.Graphics.AbstractDirectedEntity;
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.basicsim.JaamSimModel;
 import com.jaamsim.input.ExpParser.Assigner;
+import com.jaamsim.input.ExpParser.Binding;
 import com.jaamsim.input.ExpParser.EvalContext;
 import com.jaamsim.input.ExpParser.OutputResolver;
 import com.jaamsim.units.DimensionlessUnit;
@@ -154,6 +155,19 @@ public class ExpEvaluator {
 			this.source = source;
 		}
 
+		@Override
+		public ExpParser.ParseCache getParseCache() {
+			return model.getParseCache();
+		}
+
+		@Override
+		protected void applyBinding(Binding binding) {
+			super.applyBinding(binding);
+			if (binding instanceof NameBinding) {
+				addEntityReference(((NameBinding) binding).ent);
+			}
+		}
+
 		@Override
 		public ExpParser.UnitData getUnitByName(String name) {
 			Unit unit = Input.tryParseUnit(model, name, Unit.class);
@@ -166,6 +180,7 @@ public class ExpEvaluator {
 			ret.unitType = unit.getClass();
 
 			addEntityReference(unit);
+			addBinding(new UnitBinding(model, name, unit));
 			return ret;
 		}
 
@@ -189,6 +204,7 @@ public class ExpEvaluator {
 			}
 
 			addEntityReference(ent);
+			addBinding(new NameBinding(model, name, ent));
 			return ExpResult.makeEntityResult(ent);
 		}
 
@@ -213,6 +229,7 @@ public class ExpEvaluator {
 				throw new ExpError(null, 0, "Could not find output '%s' on entity '%s'", name, constEnt.entVal.getName());
 			}
 
+			addBinding(new OutputBinding(constEnt.entVal, name, oh));
 			if (oh.canCache()) {
 				return new CachedResolver(oh);
 			} else {
@@ -234,6 +251,69 @@ public class ExpEvaluator {
 
 	}
 
+	/**
+	 * An entity that was found by its name.
+	 */
+	private static class NameBinding implements Binding {
+		protected final JaamSimModel model;
+		protected final String name;
+		protected final Entity ent;
+
+		public NameBinding(JaamSimModel model, String name, Entity ent) {
+			this.model = model;
+			this.name = name;
+			this.ent = ent;
+		}
+
+		@Override
+		public boolean isCurrent() {
+			return model.getNamedEntity(name) == ent;
+		}
+	}
+
+	/**
+	 * A unit that was found by its name. Its conversion factor is included in the parsed
+	 * expression, so the factor must not have changed.
+	 */
+	private static class UnitBinding extends NameBinding {
+		private final double factor;
+
+		public UnitBinding(JaamSimModel model, String name, Unit unit) {
+			super(model, name, unit);
+			factor = unit.getConversionFactorToSI();
+		}
+
+		@Override
+		public boolean isCurrent() {
+			return Input.tryParseUnit(model, name, Unit.class) == ent
+					&& ((Unit) ent).getConversionFactorToSI() == factor;
+		}
+	}
+
+	/**
+	 * An output that was found on an entity given by a constant. The output's unit type is used
+	 * to validate the parsed expression, so the unit type must not have changed.
+	 */
+	private static class OutputBinding implements Binding {
+		private final Entity ent;
+		private final String name;
+		private final boolean canCache;
+		private final Class<? extends Unit> unitType;
+
+		public OutputBinding(Entity ent, String name, ValueHandle oh) {
+			this.ent = ent;
+			this.name = name;
+			canCache = oh.canCache();
+			unitType = oh.getUnitType();
+		}
+
+		@Override
+		public boolean isCurrent() {
+			ValueHandle oh = ent.getOutputHandle(name);
+			return oh != null && oh.canCache() == canCache && oh.getUnitType() == unitType;
+		}
+	}
+
 	private static class CachedResolver implements ExpParser.OutputResolver {
 
 		private final ValueHandle handle;
@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2017-2022 JaamSim Software Inc.
+ * Copyright (C) 2017-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -45,6 +45,7 @@ import com.jaamsim.input.ExpParser.EvalContext;
 import com.jaamsim.input.ExpParser.LambdaClosure;
 import com.jaamsim.input.ExpParser.LazyBinOpFunc;
 import com.jaamsim.input.ExpParser.ParseContext;
+import com.jaamsim.input.ExpParser.PipelineFunc;
 import com.jaamsim.input.ExpParser.UnOpFunc;
 import com.jaamsim.rng.MRG1999a;
 import com.jaamsim.units.AngleUnit;
@@ -250,6 +251,95 @@ public class ExpOperators {
 		return ExpValResult.makeValidRes(ExpResType.NUMBER, newType);
 	}
 
+	/**
+	 * Base class for the functions that search a collection for a value that satisfies a given
+	 * function. The search stops at the first such value, so if the collection is a view the
+	 * remaining values are never calculated.
+	 */
+	private static abstract class SearchFunc implements PipelineFunc {
+		private final String name;
+
+		public SearchFunc(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void checkUnits(ParseContext context, ExpResult[] args,
+				String source, int pos) throws ExpError {
+		}
+
+		/**
+		 * Returns true if the result of the search function indicates that the value has been found.
+		 */
+		protected boolean isFound(ExpResult result) {
+			return result.type == ExpResType.NUMBER && result.value != 0;
+		}
+
+		/**
+		 * Returns the first value in the collection for which isFound is true, or null if there
+		 * is no such value.
+		 */
+		protected ExpResult search(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+			if (args[1].type != ExpResType.COLLECTION) {
+				throw new ExpError(source, pos, "Expected Collection type argument as second argument.");
+			}
+			if (args[0].type != ExpResType.LAMBDA) {
+				throw new ExpError(source, pos, "Expected function argument as first argument.");
+			}
+
+			LambdaClosure func = args[0].lcVal;
+			int numParams = func.getNumParams();
+			if (numParams != 1 && numParams != 2) {
+				throw new ExpError(source, pos, "Function passed to '%s' must take one or two parameters.", name);
+			}
+
+			ExpCollections.ValueIterator it = ExpCollections.getValueIterator(args[1].colVal);
+
+			ArrayList<ExpResult> params = new ArrayList<>(numParams);
+			params.add(null);
+			if (numParams == 2)
+				params.add(null);
+
+			while (it.hasNext()) {
+				ExpResult val = it.next();
+				params.set(0, val);
+				if (numParams == 2)
+					params.set(1, it.getKey());
+
+				if (isFound(func.evaluate(context, params)))
+					return val;
+			}
+			return null;
+		}
+
+		@Override
+		public int getCollectionArg() {
+			return 1;
+		}
+
+		@Override
+		public boolean hasView() {
+			return false;
+		}
+
+		@Override
+		public ExpResult callView(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+			return call(context, args, source, pos);
+		}
+
+		@Override
+		public ExpValResult validate(ParseContext context, ExpValResult[] args, String source, int pos) {
+			if (args[0].state == ExpValResult.State.ERROR || args[0].state == ExpValResult.State.UNDECIDABLE) {
+				return args[0];
+			}
+			if (args[0].type != ExpResType.LAMBDA) {
+				return ExpValResult.makeErrorRes(new ExpError(source, pos, "First argument to '%s' must be a function.", name));
+			}
+
+			return validateCollection(context, args[1], source, pos);
+		}
+	}
+
 	// Make sure the single argument is a collection
 	private static ExpValResult validateCollection(ParseContext context, ExpValResult arg, String source, int pos) {
 		if (  arg.state == ExpValResult.State.ERROR ||
@@ -265,6 +355,20 @@ public class ExpOperators {
 		return ExpValResult.makeUndecidableRes();
 	}
 
+	// Returns the position of the first largest or smallest value in a non-empty collection
+	private static int getExtremePosition(ExpResult.NumericCollection col, boolean max) {
+		int ret = 0;
+		double extreme = col.getNumber(0);
+		for (int i = 1; i < col.getSize(); i++) {
+			double val = col.getNumber(i);
+			if (max ? val > extreme : val < extreme) {
+				extreme = val;
+				ret = i;
+			}
+		}
+		return ret;
+	}
+
 
 	// Check that a single argument is not an error and is a dimensionless unit
 	private static ExpValResult validateSingleArgDimensionless(ParseContext context, ExpValResult arg, String source, int pos) {
@@ -922,6 +1026,11 @@ public class ExpOperators {
 				if (!it.hasNext()) {
 					throw new ExpError(source, pos, "Can not get max of empty collection");
 				}
+				if (col instanceof ExpResult.NumericCollection) {
+					ExpResult.NumericCollection numCol = (ExpResult.NumericCollection) col;
+					int ind = getExtremePosition(numCol, true);
+					return ExpResult.makeNumResult(numCol.getNumber(ind), numCol.getUnitType());
+				}
 				ExpResult ret = col.index(it.nextKey());
 				Class<? extends Unit> ut = ret.unitType;
 				if (ret.type != ExpResType.NUMBER) {
@@ -967,6 +1076,11 @@ public class ExpOperators {
 				if (!it.hasNext()) {
 					throw new ExpError(source, pos, "Can not get min of empty collection");
 				}
+				if (col instanceof ExpResult.NumericCollection) {
+					ExpResult.NumericCollection numCol = (ExpResult.NumericCollection) col;
+					int ind = getExtremePosition(numCol, false);
+					return ExpResult.makeNumResult(numCol.getNumber(ind), numCol.getUnitType());
+				}
 				ExpResult ret = col.index(it.nextKey());
 				Class<? extends Unit> ut = ret.unitType;
 				if (ret.type != ExpResType.NUMBER) {
@@ -1012,6 +1126,14 @@ public class ExpOperators {
 				if (!it.hasNext()) {
 					return ExpResult.makeNumResult(0.0d, DimensionlessUnit.class);
 				}
+				if (col instanceof ExpResult.NumericCollection) {
+					ExpResult.NumericCollection numCol = (ExpResult.NumericCollection) col;
+					double ret = numCol.getNumber(0);
+					for (int i = 1; i < numCol.getSize(); i++) {
+						ret += numCol.getNumber(i);
+					}
+					return ExpResult.makeNumResult(ret, numCol.getUnitType());
+				}
 				ExpResult comp = col.index(it.nextKey());
 				Class<? extends Unit> ut = comp.unitType;
 				if (comp.type != ExpResType.NUMBER) {
@@ -1235,6 +1357,10 @@ public class ExpOperators {
 				if (!it.hasNext()) {
 					throw new ExpError(source, pos, "Can not get max of empty collection");
 				}
+				if (col instanceof ExpResult.NumericCollection) {
+					int ind = getExtremePosition((ExpResult.NumericCollection) col, true);
+					return ExpCollections.getIndexKey(ind + 1);
+				}
 				ExpResult retKey = it.nextKey();
 				ExpResult ret = col.index(retKey);
 				Class<? extends Unit> ut = ret.unitType;
@@ -1282,6 +1408,10 @@ public class ExpOperators {
 				if (!it.hasNext()) {
 					throw new ExpError(source, pos, "Can not get min of empty collection");
 				}
+				if (col instanceof ExpResult.NumericCollection) {
+					int ind = getExtremePosition((ExpResult.NumericCollection) col, false);
+					return ExpCollections.getIndexKey(ind + 1);
+				}
 				ExpResult retKey = it.nextKey();
 				ExpResult ret = col.index(retKey);
 				Class<? extends Unit> ut = ret.unitType;
@@ -1336,6 +1466,23 @@ public class ExpOperators {
 				}
 
 				double nearestDist = Double.MAX_VALUE;
+				if (col instanceof ExpResult.NumericCollection) {
+					ExpResult.NumericCollection numCol = (ExpResult.NumericCollection) col;
+					if (numCol.getUnitType() != nearPoint.unitType) {
+						throw new ExpError(source, pos, "Unmatched Unit types when finding nearest: %s, %s",
+						                   nearPoint.unitType.getSimpleName(), numCol.getUnitType().getSimpleName());
+					}
+					int ind = -1;
+					for (int i = 0; i < numCol.getSize(); i++) {
+						double dist = Math.abs(numCol.getNumber(i) - nearPoint.value);
+						if (dist < nearestDist) {
+							nearestDist = dist;
+							ind = i;
+						}
+					}
+					return (ind < 0) ? null : ExpCollections.getIndexKey(ind + 1);
+				}
+
 				ExpResult retKey = null;
 
 				while (it.hasNext()) {
@@ -1390,6 +1537,17 @@ public class ExpOperators {
 					return ExpResult.makeNumResult(0.0d, DimensionlessUnit.class);
 				}
 
+				if (col instanceof ExpResult.NumericCollection) {
+					ExpResult.NumericCollection numCol = (ExpResult.NumericCollection) col;
+					if (val.type == ExpResType.NUMBER && val.unitType == numCol.getUnitType()) {
+						for (int i = 0; i < numCol.getSize(); i++) {
+							if (numCol.getNumber(i) == val.value)
+								return ExpCollections.getIndexKey(i + 1);
+						}
+					}
+					return ExpResult.makeNumResult(0.0d, DimensionlessUnit.class);
+				}
+
 				while (it.hasNext()) {
 					ExpResult key = it.nextKey();
 					ExpResult colVal = col.index(key);
@@ -1411,7 +1569,7 @@ public class ExpOperators {
 
 		///////////////////////////////////////////////////
 		// Higher Order Functions
-		addFunction("map", 2, 2, new CallableFunc() {
+		addFunction("map", 2, 2, new PipelineFunc() {
 			@Override
 			public void checkUnits(ParseContext context, ExpResult[] args,
 					String source, int pos) throws ExpError {
@@ -1419,6 +1577,22 @@ public class ExpOperators {
 
 			@Override
 			public ExpResult call(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+				ExpResult view = callView(context, args, source, pos);
+				return ExpCollections.collectValues(ExpCollections.getValueIterator(view.colVal));
+			}
+
+			@Override
+			public int getCollectionArg() {
+				return 1;
+			}
+
+			@Override
+			public boolean hasView() {
+				return true;
+			}
+
+			@Override
+			public ExpResult callView(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
 				if (args[1].type != ExpResType.COLLECTION) {
 					throw new ExpError(source, pos, "Expected Collection type argument as second argument.");
 				}
@@ -1431,41 +1605,7 @@ public class ExpOperators {
 				if (numParams != 1 && numParams != 2) {
 					throw new ExpError(source, pos, "Function passed to 'map' must take one or two parameters.");
 				}
-
-				ExpResult.Collection col = args[1].colVal;
-				ExpResult.Iterator it = col.getIter();
-
-				Class<? extends Unit> unitType = null;
-				boolean firstVal = true;
-				ArrayList<ExpResult> params = new ArrayList<>(numParams);
-
-				ArrayList<ExpResult> results = new ArrayList<>();
-				params.add(null);
-
-				if (numParams == 2)
-					params.add(null);
-
-				while (it.hasNext()) {
-					ExpResult key = it.nextKey();
-					ExpResult val = col.index(key);
-					params.set(0, val);
-
-					if (numParams == 2)
-						params.set(1, key);
-
-					ExpResult result = mapFunc.evaluate(context, params);
-
-					Class<? extends Unit> resUnitType = result.type == ExpResType.NUMBER ? result.unitType : null;
-					if (firstVal) {
-						unitType = resUnitType;
-					} else {
-						if (unitType != resUnitType) {
-							throw new ExpError(source, pos, "All unit types of map results must match");
-						}
-					}
-					results.add(result);
-				}
-				return ExpCollections.makeAssignableArrrayCollection(results, false);
+				return ExpCollections.makeMapView(args[1].colVal, mapFunc, context);
 			}
 
 			@Override
@@ -1481,7 +1621,7 @@ public class ExpOperators {
 			}
 		});
 
-		addFunction("filter", 2, 2, new CallableFunc() {
+		addFunction("filter", 2, 2, new PipelineFunc() {
 			@Override
 			public void checkUnits(ParseContext context, ExpResult[] args,
 					String source, int pos) throws ExpError {
@@ -1489,6 +1629,22 @@ public class ExpOperators {
 
 			@Override
 			public ExpResult call(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+				ExpResult view = callView(context, args, source, pos);
+				return ExpCollections.collectValues(ExpCollections.getValueIterator(view.colVal));
+			}
+
+			@Override
+			public int getCollectionArg() {
+				return 1;
+			}
+
+			@Override
+			public boolean hasView() {
+				return true;
+			}
+
+			@Override
+			public ExpResult callView(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
 				if (args[1].type != ExpResType.COLLECTION) {
 					throw new ExpError(source, pos, "Expected Collection type argument as second argument.");
 				}
@@ -1501,30 +1657,7 @@ public class ExpOperators {
 				if (numParams != 1 && numParams != 2) {
 					throw new ExpError(source, pos, "Function passed to 'filter' must take one or two parameters.");
 				}
-
-				ExpResult.Collection col = args[1].colVal;
-				ExpResult.Iterator it = col.getIter();
-
-				ArrayList<ExpResult> params = new ArrayList<>(1);
-				ArrayList<ExpResult> results = new ArrayList<>();
-				params.add(null);
-				if (numParams == 2)
-					params.add(null);
-
-				while (it.hasNext()) {
-					ExpResult key = it.nextKey();
-					ExpResult val = col.index(key);
-					params.set(0, val);
-					if (numParams == 2)
-						params.set(1, key);
-
-					ExpResult result = filterFunc.evaluate(context, params);
-					if (result.type == ExpResType.NUMBER && result.value != 0) {
-						results.add(val);
-					}
-
-				}
-				return ExpCollections.makeAssignableArrrayCollection(results, false);
+				return ExpCollections.makeFilterView(args[1].colVal, filterFunc, context);
 			}
 
 			@Override
@@ -1540,7 +1673,7 @@ public class ExpOperators {
 			}
 		});
 
-		addFunction("reduce", 3, 3, new CallableFunc() {
+		addFunction("reduce", 3, 3, new PipelineFunc() {
 			@Override
 			public void checkUnits(ParseContext context, ExpResult[] args,
 					String source, int pos) throws ExpError {
@@ -1562,16 +1695,14 @@ public class ExpOperators {
 
 				ExpResult accum = args[1];
 
-				ExpResult.Collection col = args[2].colVal;
-				ExpResult.Iterator it = col.getIter();
+				ExpCollections.ValueIterator it = ExpCollections.getValueIterator(args[2].colVal);
 
 				ArrayList<ExpResult> params = new ArrayList<>(2);
 				params.add(null);
 				params.add(null);
 
 				while (it.hasNext()) {
-					ExpResult key = it.nextKey();
-					ExpResult val = col.index(key);
+					ExpResult val = it.next();
 					params.set(0, val);
 					params.set(1, accum);
 
@@ -1580,6 +1711,21 @@ public class ExpOperators {
 				return accum;
 			}
 
+			@Override
+			public int getCollectionArg() {
+				return 2;
+			}
+
+			@Override
+			public boolean hasView() {
+				return false;
+			}
+
+			@Override
+			public ExpResult callView(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+				return call(context, args, source, pos);
+			}
+
 			@Override
 			public ExpValResult validate(ParseContext context, ExpValResult[] args, String source, int pos) {
 				if (args[0].state == ExpValResult.State.ERROR || args[0].state == ExpValResult.State.UNDECIDABLE) {
@@ -1593,7 +1739,7 @@ public class ExpOperators {
 			}
 		});
 
-		addFunction("sort", 2, 2, new CallableFunc() {
+		addFunction("sort", 2, 2, new PipelineFunc() {
 			@Override
 			public void checkUnits(ParseContext context, ExpResult[] args,
 					String source, int pos) throws ExpError {
@@ -1613,14 +1759,11 @@ public class ExpOperators {
 					throw new ExpError(source, pos, "Function passed to 'sort' must take two parameters.");
 				}
 
-				ExpResult.Collection col = args[1].colVal;
-				ExpResult.Iterator it = col.getIter();
+				ExpCollections.ValueIterator it = ExpCollections.getValueIterator(args[1].colVal);
 
 				ArrayList<ExpResult> results = new ArrayList<>();
 				while (it.hasNext()) {
-					ExpResult key = it.nextKey();
-					ExpResult val = col.index(key);
-					results.add(val);
+					results.add(it.next());
 				}
 
 				final ArrayList<ExpResult> params = new ArrayList<>(2);
@@ -1660,6 +1803,21 @@ public class ExpOperators {
 				return ExpCollections.makeAssignableArrrayCollection(results, false);
 			}
 
+			@Override
+			public int getCollectionArg() {
+				return 1;
+			}
+
+			@Override
+			public boolean hasView() {
+				return false;
+			}
+
+			@Override
+			public ExpResult callView(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+				return call(context, args, source, pos);
+			}
+
 			@Override
 			public ExpValResult validate(ParseContext context, ExpValResult[] args, String source, int pos) {
 				if (args[0].state == ExpValResult.State.ERROR || args[0].state == ExpValResult.State.UNDECIDABLE) {
@@ -1673,6 +1831,39 @@ public class ExpOperators {
 			}
 		});
 
+		addFunction("any", 2, 2, new SearchFunc("any") {
+			@Override
+			public ExpResult call(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+				ExpResult val = search(context, args, source, pos);
+				return ExpResult.makeNumResult(val != null ? 1 : 0, DimensionlessUnit.class);
+			}
+		});
+
+		addFunction("all", 2, 2, new SearchFunc("all") {
+			@Override
+			public ExpResult call(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+				ExpResult val = search(context, args, source, pos);
+				return ExpResult.makeNumResult(val == null ? 1 : 0, DimensionlessUnit.class);
+			}
+
+			@Override
+			protected boolean isFound(ExpResult result) {
+				return !super.isFound(result);
+			}
+		});
+
+		addFunction("first", 2, 3, new SearchFunc("first") {
+			@Override
+			public ExpResult call(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError {
+				ExpResult val = search(context, args, source, pos);
+				if (val != null)
+					return val;
+				if (args.length < 3)
+					throw new ExpError(source, pos, "No value in the collection satisfies the function passed to 'first'.");
+				return args[2];
+			}
+		});
+
 		addFunction("size", 1, 1, new CallableFunc() {
 			@Override
 			public void checkUnits(ParseContext context, ExpResult[] args,
@@ -2902,12 +3093,13 @@ public class ExpOperators {
 				Entity thisEnt = ((EntityEvalContext) context).thisEnt;
 				JaamSimModel simModel = thisEnt.getJaamSimModel();
 				long millis = simModel.simTimeToCalendarMillis(args[0].value);
-				int[] date = simModel.getSimDate(millis).toArray();
-				ArrayList<ExpResult> list = new ArrayList<>(date.length);
-				for (int val : date) {
-					list.add( ExpResult.makeNumResult(val, DimensionlessUnit.class) );
+				int[] date = new int[7];
+				simModel.getSimDate(millis, date);
+				double[] vals = new double[date.length];
+				for (int i = 0; i < date.length; i++) {
+					vals[i] = date[i];
 				}
-				return ExpCollections.makeAssignableArrrayCollection(list, false);
+				return ExpCollections.makeNumericArrayCollection(vals, DimensionlessUnit.class);
 			}
 			@Override
 			public ExpValResult validate(ParseContext context, ExpValResult[] args, String source, int pos) {
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2023 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.units.DimensionlessUnit;
@@ -53,6 +55,30 @@ public class ExpParser {
 		public ExpValResult validate(ParseContext context, ExpValResult[] args, String source, int pos);
 	}
 
+	/**
+	 * A function that processes the values in one of its arguments, a collection, in order.
+	 * If that argument is a call to a function that returns a view, the view is passed in place of
+	 * the collection, so that the two functions are evaluated in a single pass without an
+	 * intermediate collection.
+	 */
+	public interface PipelineFunc extends CallableFunc {
+		/**
+		 * Returns the position of the collection argument.
+		 */
+		public int getCollectionArg();
+
+		/**
+		 * Returns true if the function can return a view in place of a collection.
+		 */
+		public boolean hasView();
+
+		/**
+		 * Returns a collection whose values are calculated only when they are iterated over
+		 * by the function to which it is passed.
+		 */
+		public ExpResult callView(EvalContext context, ExpResult[] args, String source, int pos) throws ExpError;
+	}
+
 	public static class UnitData {
 		double scaleFactor;
 		Class<? extends Unit> unitType;
@@ -66,6 +92,14 @@ public class ExpParser {
 		public void assign(ExpResult ent, ExpResult[] indices, ExpResult val) throws ExpError;
 	}
 
+	/**
+	 * A name that was resolved by a ParseContext while parsing an expression. An expression
+	 * taken from the parse cache can only be used if each of its bindings is still current.
+	 */
+	public interface Binding {
+		public boolean isCurrent();
+	}
+
 	private static class ParseClosure {
 		public HashMap<String, ExpResult> parseConstants = new HashMap<>();
 		public ArrayList<String> freeVars = new ArrayList<>();
@@ -93,6 +127,31 @@ public class ExpParser {
 
 		public ArrayList<ParseClosure> closureStack = new ArrayList<>();
 
+		private final ArrayList<Binding> bindings = new ArrayList<>();
+
+		/**
+		 * Returns the cache used to share the expressions parsed in this context, or null if
+		 * the expressions are not to be shared.
+		 */
+		public ParseCache getParseCache() {
+			return null;
+		}
+
+		/**
+		 * Records a name that was resolved while parsing an expression.
+		 */
+		protected void addBinding(Binding binding) {
+			bindings.add(binding);
+		}
+
+		/**
+		 * Records a binding for an expression that was taken from the parse cache in place of
+		 * being parsed in this context.
+		 */
+		protected void applyBinding(Binding binding) {
+			bindings.add(binding);
+		}
+
 		public void pushClosure(ParseClosure close) {
 			closureStack.add(close);
 		}
@@ -371,12 +430,16 @@ public class ExpParser {
 		public ExpResult evaluate(EvalContext ec, ArrayList<ExpResult> params) throws ExpError {
 			// Fill in the context
 
-			ArrayList<ExpResult> close = new ArrayList<>(vars.size());
-			for (int i = 0; i < vars.size(); ++i) {
-				if (i < params.size())
-					close.add(params.get(i));
-				else {
-					close.add(vars.get(i));
+			// A lambda without any captured variables can use the parameter list directly
+			ArrayList<ExpResult> close = params;
+			if (params.size() != vars.size()) {
+				close = new ArrayList<>(vars.size());
+				for (int i = 0; i < vars.size(); ++i) {
+					if (i < params.size())
+						close.add(params.get(i));
+					else {
+						close.add(vars.get(i));
+					}
 				}
 			}
 			ec.pushClosure(close);
@@ -554,6 +617,21 @@ public class ExpParser {
 		public ExpResult evaluate(EvalContext ec) throws ExpError {
 			try {
 				ExpResult colRes = collection.evaluate(ec);
+
+				// Index a collection without building a list of index values
+				if (colRes.type == ExpResType.COLLECTION && indices.size() == 1) {
+					ExpResult index = indices.get(0).evaluate(ec);
+
+					// Read a number directly from a numeric collection
+					if (colRes.colVal instanceof ExpResult.NumericCollection && index.type == ExpResType.NUMBER) {
+						ExpResult.NumericCollection numCol = (ExpResult.NumericCollection) colRes.colVal;
+						int i = (int) index.value - 1;  // Expressions use 1-base arrays
+						if (i >= 0 && i < numCol.getSize())
+							return ExpResult.makeNumResult(numCol.getNumber(i), numCol.getUnitType());
+					}
+					return colRes.colVal.index(index);
+				}
+
 				ArrayList<ExpResult> indResults = new ArrayList<>();
 				for (ExpNode ind : indices) {
 					indResults.add(ind.evaluate(ec));
@@ -1014,6 +1092,27 @@ public class ExpParser {
 
 	}
 
+	private static class FuncCallView extends FuncCall {
+		FuncCallView(FuncCall fc) {
+			super(fc.name, fc.context, fc.function, fc.args, fc.exp, fc.tokenPos);
+		}
+
+		@Override
+		public ExpResult evaluate(EvalContext ec) throws ExpError {
+			ExpResult[] argVals = new ExpResult[args.size()];
+			for (int i = 0; i < args.size(); ++i) {
+				argVals[i] = args.get(i).evaluate(ec);
+			}
+			function.checkUnits(context, argVals, exp.source, tokenPos);
+			return ((PipelineFunc) function).callView(ec, argVals, exp.source, tokenPos);
+		}
+
+		@Override
+		public ExpNode getNoCheckVer() {
+			return null;
+		}
+	}
+
 	// Some errors can be throw without a known source or position, update such errors with the given info
 	private static ExpError fixError(Exception ex, String source, int pos) {
 		if (!(ex instanceof ExpError) || ((ExpError) ex).source == null)
@@ -1197,7 +1296,7 @@ public class ExpParser {
 				if (uo.subExp instanceof Constant) {
 					// This is an unary operation on a constant, we can replace it with a constant
 					ExpResult val = uo.evaluate(null);
-					return new Constant(uo.context, val, origNode.exp, uo.tokenPos);
+					return new Constant(uo.context, internConstant(val), origNode.exp, uo.tokenPos);
 				}
 			}
 			if (origNode instanceof BinaryOp) {
@@ -1205,7 +1304,7 @@ public class ExpParser {
 				if ((bo.lSubExp instanceof Constant) && (bo.rSubExp instanceof Constant)) {
 					// both sub expressions are constants, so replace the binop with a constant
 					ExpResult val = bo.evaluate(null);
-					return new Constant(bo.context, val, origNode.exp, bo.tokenPos);
+					return new Constant(bo.context, internConstant(val), origNode.exp, bo.tokenPos);
 				}
 			}
 			if (origNode instanceof FuncCall) {
@@ -1219,7 +1318,7 @@ public class ExpParser {
 				if (constArgs) {
 					ExpResult val = fc.evaluate(null);
 					if (val != null)
-						return new Constant(fc.context, val, origNode.exp, fc.tokenPos);
+						return new Constant(fc.context, internConstant(val), origNode.exp, fc.tokenPos);
 				}
 			}
 			if (origNode instanceof BuildArray) {
@@ -1231,7 +1330,7 @@ public class ExpParser {
 				}
 				if (constArgs) {
 					ExpResult val = ba.evaluate(null);
-					return new Constant(ba.context, val, origNode.exp, ba.tokenPos);
+					return new Constant(ba.context, internConstant(val), origNode.exp, ba.tokenPos);
 				}
 			}
 			return origNode;
@@ -1240,6 +1339,62 @@ public class ExpParser {
 
 	private static ConstOptimizer CONST_OP = new ConstOptimizer();
 
+	private static final int MAX_INTERNED = 10000;
+	private static final ConcurrentHashMap<Object, ExpResult> internedConstants = new ConcurrentHashMap<>();
+
+	// Identifies a number constant by its exact bit pattern and unit type, so that zero and
+	// negative zero are held separately
+	private static final class NumberKey {
+		private final long bits;
+		private final Class<? extends Unit> unitType;
+
+		NumberKey(ExpResult val) {
+			bits = Double.doubleToLongBits(val.value);
+			unitType = val.unitType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof NumberKey))
+				return false;
+			NumberKey key = (NumberKey) obj;
+			return bits == key.bits && unitType == key.unitType;
+		}
+
+		@Override
+		public int hashCode() {
+			int ret = Long.hashCode(bits);
+			if (unitType != null)
+				ret = 31 * ret + unitType.hashCode();
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns a shared instance of the given number or string constant, so that the same value
+	 * appearing in many expressions is held only once. Other types of constant are returned
+	 * unchanged since they refer to objects that belong to a specific model.
+	 */
+	static ExpResult internConstant(ExpResult val) {
+		Object key;
+		if (val.type == ExpResType.STRING)
+			key = val.stringVal;
+		else if (val.type == ExpResType.NUMBER)
+			key = new NumberKey(val);
+		else
+			return val;
+
+		ExpResult ret = internedConstants.get(key);
+		if (ret != null)
+			return ret;
+		if (internedConstants.size() < MAX_INTERNED) {
+			ret = internedConstants.putIfAbsent(key, val);
+			if (ret != null)
+				return ret;
+		}
+		return val;
+	}
+
 	private static class RuntimeCheckOptimizer implements ExpressionWalker {
 
 		@Override
@@ -1258,6 +1413,34 @@ public class ExpParser {
 	}
 	private static RuntimeCheckOptimizer RTC_OP = new RuntimeCheckOptimizer();
 
+	// Replaces a function that is the collection argument for a pipeline function with its view,
+	// so that chained functions such as 'map', 'filter' and 'reduce' are evaluated in one pass
+	private static class PipelineOptimizer implements ExpressionWalker {
+
+		@Override
+		public void visit(ExpNode exp) throws ExpError {
+			if (!(exp instanceof FuncCall) || !(((FuncCall) exp).function instanceof PipelineFunc))
+				return;
+			FuncCall fc = (FuncCall) exp;
+			int ind = ((PipelineFunc) fc.function).getCollectionArg();
+			if (ind >= fc.args.size())
+				return;
+			ExpNode arg = fc.args.get(ind);
+			if (arg instanceof FuncCallView || !(arg instanceof FuncCall))
+				return;
+			FuncCall argCall = (FuncCall) arg;
+			if (!(argCall.function instanceof PipelineFunc) || !((PipelineFunc) argCall.function).hasView())
+				return;
+			fc.args.set(ind, new FuncCallView(argCall));
+		}
+
+		@Override
+		public ExpNode updateRef(ExpNode exp) throws ExpError {
+			return exp;
+		}
+	}
+	private static PipelineOptimizer PIPE_OP = new PipelineOptimizer();
+
 	private static ExpNode optimizeAndValidateExpression(String input, ExpNode expNode, Expression exp) throws ExpError {
 		expNode.walk(CONST_OP);
 		expNode = CONST_OP.updateRef(expNode); // Finally, give the entire expression a chance to optimize itself into a constant
@@ -1277,6 +1460,9 @@ public class ExpParser {
 		expNode.walk(RTC_OP);
 		expNode = RTC_OP.updateRef(expNode); // Give the top level node a chance to optimize
 
+		// Evaluate chained higher order functions in a single pass
+		expNode.walk(PIPE_OP);
+
 		exp.validationResult = valRes;
 
 		return expNode;
@@ -1306,6 +1492,30 @@ public class ExpParser {
 		}
 	}
 
+	// Detects a constant collection in an expression. Such a collection can be modified in place
+	// by an assignment, so it must not be shared with other expressions.
+	private static class CollectionFinder implements ExpressionWalker {
+
+		private boolean found;
+
+		@Override
+		public void visit(ExpNode exp) throws ExpError {
+			if (exp instanceof Constant && ((Constant) exp).val.type == ExpResType.COLLECTION)
+				found = true;
+		}
+
+		@Override
+		public ExpNode updateRef(ExpNode exp) throws ExpError {
+			return exp;
+		}
+	}
+
+	private static boolean hasCollectionConstant(ExpNode node) throws ExpError {
+		CollectionFinder finder = new CollectionFinder();
+		node.walk(finder);
+		return finder.found;
+	}
+
 	public static void appendEntityReferences(Assignment assign, ArrayList<Entity> list) throws ExpError {
 
 		// Entity whose attribute is to be assigned (left hand side)
@@ -1371,11 +1581,106 @@ public class ExpParser {
 	}
 
 
+	/**
+	 * Shares the parsed trees for expressions with the same text, so that components with
+	 * identical inputs are parsed only once. Each caller receives its own Expression object that
+	 * points to the shared tree. A tree is reused only if it was parsed with the same constants
+	 * and variables, and if each name it resolved still refers to the same object. Expressions
+	 * containing a constant collection are not shared since the collection could be modified by
+	 * an assignment.
+	 */
+	public static class ParseCache {
+		private final ConcurrentHashMap<String, CachedTree> treeMap = new ConcurrentHashMap<>();
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+
+		private static class CachedTree {
+			final HashMap<String, ExpResult> parseConstants;
+			final ArrayList<String> boundVars;
+			final ExpNode rootNode;
+			final ExpValResult validationResult;
+			final Binding[] bindings;
+
+			CachedTree(ParseClosure closure, Expression exp, Binding[] bindings) {
+				parseConstants = closure.parseConstants;
+				boundVars = closure.boundVars;
+				rootNode = exp.rootNode;
+				validationResult = exp.validationResult;
+				this.bindings = bindings;
+			}
+
+			boolean isValidFor(ParseContext context) {
+				if (context.closureStack.size() != 1)
+					return false;
+				ParseClosure closure = context.closureStack.get(0);
+				if (closure.parseConstants != parseConstants || !closure.boundVars.equals(boundVars))
+					return false;
+				for (Binding binding : bindings) {
+					if (!binding.isCurrent())
+						return false;
+				}
+				return true;
+			}
+		}
+
+		Expression get(ParseContext context, String input) {
+			CachedTree tree = treeMap.get(input);
+			if (tree == null || !tree.isValidFor(context)) {
+				misses.incrementAndGet();
+				return null;
+			}
+
+			Expression ret = new Expression(input);
+			ret.validationResult = tree.validationResult;
+			ret.setRootNode(tree.rootNode);
+			for (Binding binding : tree.bindings) {
+				context.applyBinding(binding);
+			}
+			hits.incrementAndGet();
+			return ret;
+		}
+
+		void put(ParseContext context, String input, Expression exp, int firstBinding) throws ExpError {
+			if (hasCollectionConstant(exp.rootNode))
+				return;
+			ArrayList<Binding> list = context.bindings;
+			Binding[] bindings = list.subList(firstBinding, list.size()).toArray(new Binding[0]);
+			treeMap.put(input, new CachedTree(context.closureStack.get(0), exp, bindings));
+		}
+
+		/**
+		 * Discards the cached trees. Must be called whenever an entity is renamed or deleted.
+		 */
+		public void clear() {
+			treeMap.clear();
+		}
+
+		public int size() {
+			return treeMap.size();
+		}
+
+		public long getHits() {
+			return hits.get();
+		}
+
+		public long getMisses() {
+			return misses.get();
+		}
+	}
+
 	/**
 	 * The main entry point to the expression parsing system, will either return a valid
 	 * expression that can be evaluated, or throw an error.
 	 */
 	public static Expression parseExpression(ParseContext context, String input) throws ExpError {
+		ParseCache cache = context.getParseCache();
+		if (cache != null) {
+			Expression ret = cache.get(context, input);
+			if (ret != null)
+				return ret;
+		}
+		int firstBinding = context.bindings.size();
+
 		ArrayList<ExpTokenizer.Token> ts;
 		ts = ExpTokenizer.tokenize(input);
 
@@ -1394,6 +1699,9 @@ public class ExpParser {
 
 		ret.setRootNode(expNode);
 
+		if (cache != null)
+			cache.put(context, input, ret, firstBinding);
+
 		return ret;
 	}
 
@@ -1570,7 +1878,7 @@ public class ExpParser {
 		if (nextTok.type == ExpTokenizer.STRING_TYPE) {
 
 			// Return a literal string constant
-			return new Constant(context, ExpResult.makeStringResult(nextTok.value), exp, nextTok.pos);
+			return new Constant(context, internConstant(ExpResult.makeStringResult(nextTok.value)), exp, nextTok.pos);
 		}
 
 		if (nextTok.type == ExpTokenizer.SQ_TYPE) {
@@ -1650,7 +1958,8 @@ public class ExpParser {
 			ut = unit.unitType;
 		}
 
-		return new Constant(context, ExpResult.makeNumResult(Double.parseDouble(constant)*mult, ut), exp, pos);
+		ExpResult val = ExpResult.makeNumResult(Double.parseDouble(constant)*mult, ut);
+		return new Constant(context, internConstant(val), exp, pos);
 	}
 
 	private static ArrayList<ExpNode> parseIndices(ParseContext context, TokenList tokens, Expression exp) throws ExpError {
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2016-2022 JaamSim Software Inc.
+ * Copyright (C) 2016-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -44,6 +44,14 @@ public class ExpResult {
 		public Collection getCopy();
 	}
 
+	// A collection of numbers with the same unit type, whose values can be read without creating
+	// a result for each one. The positions are zero-based and run from zero to getSize() - 1.
+	public interface NumericCollection extends Collection {
+		public double getNumber(int i);
+
+		public Class<? extends Unit> getUnitType();
+	}
+
 	public final ExpResType type;
 
 	public final double value;
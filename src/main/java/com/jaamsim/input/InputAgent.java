@@ -45,6 +45,8 @@ import java.util.Map.Entry;
 import com.jaamsim.Commands.Command;
 import com.jaamsim.Graphics.AbstractDirectedEntity;
 import com.jaamsim.Graphics.EntityLabel;
+import com.jaamsim.Statistics.SampleStatistics;
+import com.jaamsim.basicsim.ColumnFileWriter;
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.basicsim.ErrorException;
 import com.jaamsim.basicsim.FileEntity;
@@ -87,6 +89,8 @@ public class InputAgent {
 
 	private static final int MAX_BRACE_DEPTH = 3;
 
+	private static final double[] POOLED_PERCENTILES = {50.0d, 95.0d, 99.0d};
+
 	public static void storeAndExecute(Command cmd) {
 		GUIListener gui = cmd.getJaamSimModel().getGUIListener();
 		if (gui == null) {
@@ -1381,6 +1385,177 @@ public class InputAgent {
 		outStream.println(sb.toString());
 	}
 
+	/**
+	 * Prints the difference between the mean outputs for the specified scenario and the base
+	 * scenario, with the confidence intervals calculated from the paired differences between
+	 * replications that used the same random numbers.
+	 * @param scene - scenario to the reported
+	 * @param base - scenario with which it is compared
+	 * @param labels - true if scenario and replication labels are to be printed for each run
+	 * @param reps - true if the results for each replication are to be printed
+	 * @param bool - true if confidence intervals are to be printed
+	 * @param outStream - PrintStream to which the results will be printed
+	 */
+	public static void printPairedDifferences(Scenario scene, Scenario base, boolean labels,
+			boolean reps, boolean bool, PrintStream outStream) {
+
+		// Scenario and replication columns
+		StringBuilder sb = new StringBuilder();
+		if (labels) {
+			sb.append(scene.getScenarioNumber()).append(" - ").append(base.getScenarioNumber());
+			sb.append("\t");
+			if (reps)
+				sb.append("\t");
+		}
+
+		// Run parameters
+		for (int i = 0; i < scene.getParameters().length; i++) {
+			sb.append("\t");
+		}
+
+		// Mean difference and confidence interval for each output
+		SampleStatistics[] diffs = scene.getPairedDifferences(base);
+		for (int i = 0; i < diffs.length; i++) {
+			if (i > 0)
+				sb.append("\t");
+
+			// Mean difference
+			double val = diffs[i].getMean();
+			if (!Double.isNaN(val))
+				sb.append(val);
+
+			// Confidence interval
+			if (bool) {
+				sb.append("\t");
+				double interval = diffs[i].getConfidenceInterval95();
+				if (!Double.isNaN(interval))
+					sb.append(interval);
+			}
+		}
+
+		outStream.println(sb.toString());
+	}
+
+	/**
+	 * Prints the header line for the pooled percentile report.
+	 * @param outStream - PrintStream to which the header will be printed
+	 */
+	public static void printPooledPercentileHeaders(PrintStream outStream) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Scenario").append("\t").append("Entity");
+		for (double p : POOLED_PERCENTILES) {
+			sb.append("\t").append("p").append((int) p);
+		}
+		outStream.println(sb.toString());
+	}
+
+	/**
+	 * Prints the 50th, 95th, and 99th percentiles for each entity that recorded a quantile
+	 * sketch in the specified scenario, pooled over its completed replications. The columns are
+	 * given by printPooledPercentileHeaders.
+	 * @param scene - scenario to be reported
+	 * @param outStream - PrintStream to which the results will be printed
+	 */
+	public static void printPooledPercentiles(Scenario scene, PrintStream outStream) {
+		for (String name : scene.getQuantileSketchNames()) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(scene.getScenarioNumber()).append("\t").append(name);
+			for (double val : scene.getPercentileValues(name, POOLED_PERCENTILES)) {
+				sb.append("\t");
+				if (!Double.isNaN(val))
+					sb.append(val);
+			}
+			outStream.println(sb.toString());
+		}
+	}
+
+	/**
+	 * Defines the columns for the binary pooled percentile report.
+	 * @param colFile - binary file to which the percentiles will be written
+	 */
+	public static void addPooledPercentileColumns(ColumnFileWriter colFile) {
+		colFile.addDoubleColumn("Scenario");
+		colFile.addStringColumn("Entity");
+		for (double p : POOLED_PERCENTILES) {
+			colFile.addDoubleColumn("p" + (int) p);
+		}
+	}
+
+	/**
+	 * Writes one row to the binary pooled percentile report for each entity that recorded a
+	 * quantile sketch in the specified scenario. The columns must have been defined by
+	 * addPooledPercentileColumns.
+	 * @param scene - scenario to be reported
+	 * @param colFile - binary file to which the percentiles will be written
+	 */
+	public static void writePooledPercentiles(Scenario scene, ColumnFileWriter colFile) {
+		for (String name : scene.getQuantileSketchNames()) {
+			int col = 0;
+			colFile.setDouble(col++, scene.getScenarioNumber());
+			colFile.setString(col++, name);
+			for (double val : scene.getPercentileValues(name, POOLED_PERCENTILES)) {
+				colFile.setDouble(col++, val);
+			}
+			colFile.endRow();
+		}
+	}
+
+	/**
+	 * Defines the columns for the binary custom output report.
+	 * @param simModel - model whose outputs are to be written
+	 * @param colFile - binary file to which the outputs will be written
+	 */
+	public static void addRunOutputColumns(JaamSimModel simModel, ColumnFileWriter colFile) {
+		Simulation simulation = simModel.getSimulation();
+		colFile.addDoubleColumn("Scenario");
+		colFile.addDoubleColumn("Replication");
+		for (String str : simulation.getRunParameterHeaders()) {
+			colFile.addStringColumn(str);
+		}
+		for (String str : simulation.getRunOutputHeaders()) {
+			colFile.addDoubleColumn(str);
+		}
+		colFile.addStringColumn("Error");
+	}
+
+	/**
+	 * Writes one row to the binary custom output report for each replication of the specified
+	 * scenario. The columns must have been defined by addRunOutputColumns.
+	 * @param scene - scenario to the reported
+	 * @param colFile - binary file to which the outputs will be written
+	 */
+	public static void writeScenarioOutputs(Scenario scene, ColumnFileWriter colFile) {
+
+		// Sort the completed runs by replication number
+		ArrayList<SimRun> runList = new ArrayList<>(scene.getRunsCompleted());
+		Collections.sort(runList, new Comparator<SimRun>() {
+			@Override
+			public int compare(SimRun run1, SimRun run2) {
+				return Integer.compare(run1.getReplicationNumber(), run2.getReplicationNumber());
+			}
+		});
+
+		int numCols = colFile.getNumColumns();
+		for (SimRun run : runList) {
+			int col = 0;
+			colFile.setDouble(col++, scene.getScenarioNumber());
+			colFile.setDouble(col++, run.getReplicationNumber());
+			for (String str : run.getRunParameterStrings()) {
+				colFile.setString(col++, str);
+			}
+			ArrayList<Double> values = run.getRunOutputValues();
+			for (int i = col; i < numCols - 1; i++) {
+				int ind = i - col;
+				double val = (ind < values.size()) ? values.get(ind) : Double.NaN;
+				colFile.setDouble(i, val);
+			}
+			String msg = null;
+			if (run.isError() && !run.getRunOutputStrings().isEmpty())
+				msg = run.getRunOutputStrings().get(0);
+			colFile.setString(numCols - 1, msg);
+			colFile.endRow();
+		}
+	}
 
 	private static final String OUTPUT_FORMAT = "%s\t%s\t%s\t%s%n";
 	private static final String LIST_OUTPUT_FORMAT = "%s\t%s[%s]\t%s\t%s%n";
@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,4 +34,8 @@ public @interface Output {
 	public Class<? extends Unit> unitType() default DimensionlessUnit.class;
 	public boolean reportable() default false;
 	public int sequence() default 100;  // determines the sequence in which outputs are listed
+
+	// true if the value changes only when the simulation time advances or the entity calls
+	// Entity.invalidateOutputs(), so that it can be memoized when MemoizeOutputs is TRUE
+	public boolean pure() default false;
 }
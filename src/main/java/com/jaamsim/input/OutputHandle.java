@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +24,8 @@ import java.util.HashMap;
 
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.basicsim.ErrorException;
+import com.jaamsim.basicsim.JaamSimModel;
+import com.jaamsim.events.EventManager;
 import com.jaamsim.units.Unit;
 import com.jaamsim.units.UserSpecifiedUnit;
 
@@ -61,6 +64,7 @@ public class OutputHandle extends ValueHandle {
 		public final boolean reportable;
 		public final Class<? extends Unit> unitType;
 		public final int sequence;
+		public final boolean pure;
 
 		public OutputStaticInfo(Method m, Output a) {
 			method = m;
@@ -69,6 +73,7 @@ public class OutputHandle extends ValueHandle {
 			name = a.name();
 			unitType = a.unitType();
 			sequence = a.sequence();
+			pure = a.pure();
 		}
 	}
 
@@ -150,6 +155,13 @@ public class OutputHandle extends ValueHandle {
 			if (!klass.isAssignableFrom(outputInfo.method.getReturnType()))
 				return null;
 
+			// Pure outputs are memoized only when evaluated by the simulation thread
+			if (outputInfo.pure && EventManager.hasCurrent()) {
+				JaamSimModel simModel = ent.getJaamSimModel();
+				if (simModel.isMemoizeOutputs())
+					return (T)getMemoizedValue(simModel, simTime);
+			}
+
 			ret = (T)outputInfo.method.invoke(ent, simTime);
 		}
 		catch (InvocationTargetException ex) {
@@ -161,6 +173,22 @@ public class OutputHandle extends ValueHandle {
 		return ret;
 	}
 
+	private Object getMemoizedValue(JaamSimModel simModel, double simTime)
+			throws InvocationTargetException, IllegalAccessException {
+		OutputMemo memo = ent.getOutputMemo();
+		OutputMemo.Entry entry = memo.getEntry(outputInfo.name);
+		int epoch = simModel.getMemoEpoch();
+		if (memo.isCurrent(entry, simTime, epoch)) {
+			simModel.countMemoizedOutput(true);
+			return memo.getValue(entry);
+		}
+
+		Object ret = outputInfo.method.invoke(ent, simTime);
+		memo.setValue(entry, simTime, epoch, ret);
+		simModel.countMemoizedOutput(false);
+		return ret;
+	}
+
 	@Override
 	public boolean canCache() {
 		return true;
@@ -0,0 +1,68 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.input;
+
+import java.util.HashMap;
+
+/**
+ * Holds the values of an entity's pure outputs so that an output that is used by several
+ * expressions at the same simulation time is calculated only once. A value is discarded when
+ * the simulation time changes, when the entity's state changes, or when the model is resumed.
+ */
+public class OutputMemo {
+	private final HashMap<String, Entry> entryMap = new HashMap<>();
+	private int version;  // incremented each time the entity's state changes
+
+	static final class Entry {
+		private double simTime = Double.NaN;
+		private int version;
+		private int epoch;
+		private Object value;
+	}
+
+	/**
+	 * Discards the values for all the entity's outputs.
+	 */
+	public void invalidate() {
+		version++;
+	}
+
+	Entry getEntry(String name) {
+		Entry ret = entryMap.get(name);
+		if (ret == null) {
+			ret = new Entry();
+			entryMap.put(name, ret);
+		}
+		return ret;
+	}
+
+	boolean isCurrent(Entry entry, double simTime, int epoch) {
+		return entry.simTime == simTime && entry.version == version && entry.epoch == epoch;
+	}
+
+	Object getValue(Entry entry) {
+		return entry.value;
+	}
+
+	void setValue(Entry entry, double simTime, int epoch, Object val) {
+		entry.simTime = simTime;
+		entry.version = version;
+		entry.epoch = epoch;
+		entry.value = val;
+	}
+
+}
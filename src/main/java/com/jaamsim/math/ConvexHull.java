@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +18,7 @@
 package com.jaamsim.math;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
 import com.jaamsim.MeshFiles.DataBlock;
@@ -38,78 +37,71 @@ public class ConvexHull {
 
 	private ArrayList<HullFace> _faces = new ArrayList<>();
 
-	public static ConvexHull TryBuildHull(ArrayList<Vec3d> verts, int numAttempts, int maxNumPoints, Vec3dInterner interner) {
-
-		ArrayList<Vec3d> baseVerts = removeDoubles(verts);
-
-		assert(numAttempts > 0);
-
-		// bad input indicates a hull that will naturally be degenerate, just return the first attempt
-		boolean badInput = baseVerts.size() < 3;
-
-		ConvexHull ret = null;
-		for (int i = 0; i < numAttempts; ++i) {
-			double seed = ((double)i/(double)numAttempts);
-
-			ret = new ConvexHull(baseVerts, seed, maxNumPoints, interner);
-			if (!ret._isDegenerate || badInput) {
-				return ret;
-			}
-			// The mesh was degenerate, loop and try again
-		}
-
-		// We fell through, so return the last degenerate attempt
-		return ret;
+	/**
+	 * Builds the convex hull for the specified points.
+	 * @param verts - points to be enclosed by the hull
+	 * @param maxNumPoints - maximum number of points to add to the hull, or zero for no limit
+	 * @param interner - if not null, the hull's vertices are interned
+	 * @return the hull, which is degenerate if the points are co-planar
+	 */
+	public static ConvexHull TryBuildHull(List<Vec3d> verts, int maxNumPoints, Vec3dInterner interner) {
+		return new ConvexHull(verts, maxNumPoints, interner);
 	}
 
 	/**
-	 * Initialize this hull from the vertices provided. This is an implementation of the QuickHull algorithm (or close enough to it)
+	 * Initialize this hull from the vertices provided. This is an implementation of the QuickHull algorithm.
+	 * Each face keeps a conflict list of the points that it can see, and each point is only tested against
+	 * the new faces that replace its own face.
 	 */
-	public ConvexHull(ArrayList<Vec3d> baseVerts, double seed, int maxNumPoints, Vec3dInterner interner) {
+	private ConvexHull(List<Vec3d> vertList, int maxNumPoints, Vec3dInterner interner) {
 
-		assert(seed >= 0);
-		assert(seed < 1);
-
-		if (baseVerts.size() < 3) {
-			// This mesh is too small, so just create an empty Hull... or should we throw?
-			makeDegenerate(baseVerts);
+		int numVerts = vertList.size();
+		if (numVerts < 4) {
+			makeDegenerate(removeDoubles(vertList));
 			return;
 		}
+		Vec3d[] verts = vertList.toArray(new Vec3d[numVerts]);
+
+		// Find the extreme points along each axis: min x, max x, min y, max y, min z, max z
+		int[] extremes = new int[6];
+		for (int i = 1; i < numVerts; ++i) {
+			Vec3d v = verts[i];
+			if (v.x < verts[extremes[0]].x) extremes[0] = i;
+			if (v.x > verts[extremes[1]].x) extremes[1] = i;
+			if (v.y < verts[extremes[2]].y) extremes[2] = i;
+			if (v.y > verts[extremes[3]].y) extremes[3] = i;
+			if (v.z < verts[extremes[4]].z) extremes[4] = i;
+			if (v.z > verts[extremes[5]].z) extremes[5] = i;
+		}
 
-		// Start by finding 3 points to build the original faces, this may have a problem if there is only
-		// 3 points and all are in a line
-		ArrayList<TempHullFace> tempFaces = new ArrayList<>();
-		List<Integer> unclaimedPoints = new ArrayList<>();
-
-		// Create two starting faces (both use the same verts but are wound backwards to face in both directions)
-
-		int ind0 = (int)(baseVerts.size() * seed);
-		Vec3d v0 = baseVerts.get(ind0);
-		double bestDist = 0;
-		int ind1 = 0;
+		// The first edge joins the extreme points along the longest axis of the bounding box
 		Vec3d temp = new Vec3d();
-		for (int i = 0; i < baseVerts.size(); ++i) {
-			if (i == ind0) continue;
-
-			// Ind1 is the farthest vertex from ind0
-			temp.sub3(v0, baseVerts.get(i));
+		int ind0 = 0;
+		int ind1 = 0;
+		double bestDist = 0;
+		for (int axis = 0; axis < 3; ++axis) {
+			temp.sub3(verts[extremes[2*axis + 1]], verts[extremes[2*axis]]);
 			double dist = temp.mag3();
 			if (dist > bestDist) {
 				bestDist = dist;
-				ind1 = i;
+				ind0 = extremes[2*axis];
+				ind1 = extremes[2*axis + 1];
 			}
 		}
-		// Now ind2 is the vertex farthest from the line of the above two
-		bestDist = 0;
+		if (bestDist < 0.00001) {
+			makeDegenerate(removeDoubles(vertList));
+			return;
+		}
+
+		// Ind2 is the vertex farthest from the line of the above two
+		Vec3d v0 = verts[ind0];
 		Vec3d dir = new Vec3d();
-		dir.sub3(v0, baseVerts.get(ind1));
+		dir.sub3(verts[ind1], v0);
 		dir.normalize3();
 		int ind2 = 0;
-		for (int i = 1; i < baseVerts.size(); ++i) {
-			if (i == ind0) continue;
-			if (i == ind1) continue;
-
-			temp.sub3(v0, baseVerts.get(i));
+		bestDist = 0;
+		for (int i = 0; i < numVerts; ++i) {
+			temp.sub3(verts[i], v0);
 			temp.cross3(dir, temp);
 			double dist = temp.mag3();
 			if (dist > bestDist) {
@@ -117,52 +109,75 @@ public class ConvexHull {
 				ind2 = i;
 			}
 		}
-
-		if (ind1 == ind0 ||
-		    ind2 == ind0 ||
-		    ind1 == ind2 ||
-			bestDist < 0.00001) {
-			makeDegenerate(baseVerts);
+		if (bestDist < 0.00001) {
+			makeDegenerate(removeDoubles(vertList));
 			return;
 		}
 
-		TempHullFace f0 = new TempHullFace(ind0, ind1, ind2, baseVerts);
-		TempHullFace f1 = new TempHullFace(ind0, ind2, ind1, baseVerts);
-		tempFaces.add(f0);
-		tempFaces.add(f1);
-
-		boolean planar = true;
-
-		// Assign all the remaining points to either of the faces if that face can 'see' the vertex
-		for (int i = 0; i < baseVerts.size(); ++i) {
-			double dist = f0.plane.getNormalDist(baseVerts.get(i));
-
-			if (dist > 0.000001) {
-				f0.addPoint(i, baseVerts);
-				planar = false;
-			} else if (dist < -0.000001){
-				f1.addPoint(i, baseVerts);
-				planar = false;
-			} else {
-				unclaimedPoints.add(i);
+		// Ind3 is the vertex farthest from the plane of the above three
+		TempHullFace base = new TempHullFace(ind0, ind1, ind2, verts);
+		int ind3 = 0;
+		bestDist = 0;
+		for (int i = 0; i < numVerts; ++i) {
+			double dist = Math.abs(base.plane.getNormalDist(verts[i]));
+			if (dist > bestDist) {
+				bestDist = dist;
+				ind3 = i;
 			}
 		}
-
-		if (planar) {
-			// Damn... for now fall back to a degenerate hull
-			makeDegenerate(baseVerts);
+		if (bestDist <= 0.000001) {
+			// The points are co-planar, for now fall back to a degenerate hull
+			makeDegenerate(removeDoubles(vertList));
 			return;
 		}
 
-		int numPoints = 3; // We start with 3 points
+		// Build the starting tetrahedron with every face pointing outwards
+		if (base.plane.getNormalDist(verts[ind3]) > 0) {
+			base = new TempHullFace(ind0, ind2, ind1, verts);
+		}
+		ArrayList<TempHullFace> tempFaces = new ArrayList<>();
+		tempFaces.add(base);
+		TempHullFace[] sides = new TempHullFace[3];
+		for (int i = 0; i < 3; ++i) {
+			sides[i] = new TempHullFace(base.indices[(i + 1) % 3], base.indices[i], ind3, verts);
+			tempFaces.add(sides[i]);
+			link(base, i, sides[i], 0);
+		}
+		for (int i = 0; i < 3; ++i) {
+			link(sides[i], 1, sides[(i + 2) % 3], 2);
+		}
+
+		// Assign each point to the face that it is farthest outside of. The points inside the tetrahedron
+		// can never be part of the hull and are discarded.
+		for (int i = 0; i < numVerts; ++i) {
+			TempHullFace bestFace = null;
+			bestDist = 0.000001;
+			for (int j = 0; j < 4; ++j) {
+				TempHullFace tf = tempFaces.get(j);
+				double dist = tf.plane.getNormalDist(verts[i]);
+				if (dist > bestDist) {
+					bestFace = tf;
+					bestDist = dist;
+				}
+			}
+			if (bestFace == null)
+				continue;
+
+			bestFace.addPoint(i, bestDist);
+		}
+
+		int numPoints = 4; // We start with 4 points
+		ArrayList<TempHullFace> stack = new ArrayList<>();
+		ArrayList<TempHullFace> deadFaces = new ArrayList<>();
+		ArrayList<TempHullFace> newFaces = new ArrayList<>();
 
 		// Initialization is complete, start the core loop
-		while (true) {
-			// Find any faces with points assigned to it
+		while (maxNumPoints <= 0 || numPoints <= maxNumPoints) {
+			// Find the face with the farthest point outside it
 			TempHullFace f = null;
 			bestDist = 0.001; // A non zero value to quick out if the closest points aren't that far
 			for (TempHullFace ft : tempFaces) {
-				if (ft.points.size() != 0 && ft.furthestDist > bestDist) {
+				if (ft.numPoints != 0 && ft.furthestDist > bestDist) {
 					f = ft;
 					bestDist = ft.furthestDist;
 				}
@@ -172,119 +187,99 @@ public class ConvexHull {
 				break;
 			}
 
-			// Find the point assigned to this face that is the furthest away
 			int farInd = f.furthestInd;
+			Vec3d farVert = verts[farInd];
+
+			// Remove the connected faces that can see this point. Each edge between a removed face and a
+			// remaining one is on the horizon and gets a new face joining it to the point.
+			deadFaces.clear();
+			newFaces.clear();
+			f.dead = true;
+			stack.add(f);
+			while (!stack.isEmpty()) {
+				TempHullFace df = stack.remove(stack.size() - 1);
+				deadFaces.add(df);
+
+				for (int i = 0; i < 3; ++i) {
+					TempHullFace nf = df.neighbours[i];
+					if (nf == null || nf.dead)
+						continue;
+
+					if (nf.getPointAngle(farVert, verts) > -0.00001) { // Non zero to allow a bit of floating point round off and avoid degenerate faces
+						nf.dead = true;
+						stack.add(nf);
+						continue;
+					}
 
-			// Remove any faces that can see this point and orphan any points owned by these faces
-			Vec3d farVert = baseVerts.get(farInd);
-
-			ArrayList<TempHullFace> deadFaces = new ArrayList<>();
-
-			for (Iterator<TempHullFace> it = tempFaces.iterator(); it.hasNext(); ) {
-				TempHullFace tempFace = it.next();
-
-				if (tempFace.getPointAngle(farVert, baseVerts) > -0.00001) { // Non zero to allow a bit of floating point round off and avoid degenerate faces
-					// This face can see this point, and is therefore not part of the hull
-					deadFaces.add(tempFace);
-					it.remove();
+					TempHullFace newFace = new TempHullFace(df.indices[i], df.indices[(i + 1) % 3], farInd, verts);
+					link(newFace, 0, nf, nf.getEdge(df));
+					newFaces.add(newFace);
 				}
-
 			}
 
-			// The points that are no longer associated with a face
-			ArrayList<Integer> orphanedPoints = new ArrayList<>();
-			orphanedPoints.addAll(unclaimedPoints);
-			unclaimedPoints.clear();
-
-			// Find all the open edges left by removing these faces
-			ArrayList<HullEdge> edges = new ArrayList<>();
-			for (TempHullFace df : deadFaces) {
-				orphanedPoints.addAll(df.points);
-
-				edges.add(new HullEdge(df.indices[0], df.indices[1]));
-				edges.add(new HullEdge(df.indices[1], df.indices[2]));
-				edges.add(new HullEdge(df.indices[2], df.indices[0]));
+			// Join the new faces to each other around the point
+			for (TempHullFace nf0 : newFaces) {
+				for (TempHullFace nf1 : newFaces) {
+					if (nf0.indices[1] == nf1.indices[0]) {
+						link(nf0, 1, nf1, 2);
+						break;
+					}
+				}
 			}
 
-			// Remove double edges (to make sure we have a single loop)
-			pruneEdges(edges);
-
-			// Scan the loop to make sure it's a single loop
-//			if (!scanEdges(edges)) {
-//				// This hull diverged
-//				makeDegenerate(baseVerts);
-//				return;
-//			}
-
-			ArrayList<TempHullFace> newFaces = new ArrayList<>();
-
-			// Build new faces from the remaining edges and assign all remaining points
-			for (HullEdge e : edges) {
-				TempHullFace newFace = new TempHullFace(e.ind0, e.ind1, farInd, baseVerts);
-				tempFaces.add(newFace);
-
-				newFaces.add(newFace);
-
-			} // end of building new faces
-
-			// Add each orphaned point to the new face it is the furthest away from (by normal distance)
-			int deadPoints = 0;
-			for (int ind : orphanedPoints) {
-
-				TempHullFace bestFace = null;
-				bestDist = -1;
-
-				for (TempHullFace tf : newFaces) {
-					double dist = tf.plane.getNormalDist(baseVerts.get(ind));
-					if (dist > 0.000001 && dist > bestDist) {
-						bestFace = tf;
-						bestDist = dist;
+			// Add each orphaned point to the new face it is the furthest away from (by normal distance).
+			// The points that none of them can see are now inside the hull.
+			for (TempHullFace df : deadFaces) {
+				for (int j = 0; j < df.numPoints; ++j) {
+					int ind = df.points[j];
+					if (ind == farInd)
+						continue;
+
+					TempHullFace bestFace = null;
+					bestDist = 0.000001;
+					for (TempHullFace tf : newFaces) {
+						double dist = tf.plane.getNormalDist(verts[ind]);
+						if (dist > bestDist) {
+							bestFace = tf;
+							bestDist = dist;
+						}
+					}
+					if (bestFace != null) {
+						bestFace.addPoint(ind, bestDist);
 					}
-				}
-				if (bestFace != null) {
-					bestFace.addPoint(ind, baseVerts);
-				} else {
-					++deadPoints;
 				}
 			}
 
-			// This is the end of the main loop, check that at least one point has been claimed
-
-			if (deadPoints == 0) {
-				// We have run out of points, so let's just call this good enough
-				break;
-			}
-			if (++numPoints > maxNumPoints && maxNumPoints > 0) {
-				// We've looped and built up a hull of the maximum number of points
-				break;
+			// Replace the dead faces with the new ones
+			int numLive = 0;
+			for (int i = 0; i < tempFaces.size(); ++i) {
+				TempHullFace tf = tempFaces.get(i);
+				if (!tf.dead)
+					tempFaces.set(numLive++, tf);
 			}
+			tempFaces.subList(numLive, tempFaces.size()).clear();
+			tempFaces.addAll(newFaces);
 
+			++numPoints;
 		} // End of main loop
 
 		// Now that we have all the faces we can create a real subset of points we care about
+		int[] newIndices = new int[numVerts];
+		Arrays.fill(newIndices, -1);
 		ArrayList<Vec3d> realVerts = new ArrayList<>();
 		for (TempHullFace tf : tempFaces) {
 			HullFace realFace = new HullFace();
 			for (int i = 0; i < 3; ++i) {
-
-				Vec3d oldVert = baseVerts.get(tf.indices[i]);
-
-				int newInd = realVerts.size();
-
-				for (int j = 0; j < realVerts.size(); ++j) {
-					if (oldVert.equals3(realVerts.get(j))) {
-						// This vertex has already be included in the final list
-						newInd = j;
-					}
-				}
-				if (newInd == realVerts.size()) {
-					// This vertex isn't in the new list, so add it and update the radius
+				int oldInd = tf.indices[i];
+				if (newIndices[oldInd] == -1) {
+					// This vertex isn't in the new list, so add it
+					newIndices[oldInd] = realVerts.size();
 					if (interner != null)
-						realVerts.add(interner.intern(oldVert));
+						realVerts.add(interner.intern(verts[oldInd]));
 					else
-						realVerts.add(oldVert);
+						realVerts.add(verts[oldInd]);
 				}
-				realFace.indices[i] = newInd;
+				realFace.indices[i] = newIndices[oldInd];
 			}
 
 			_faces.add(realFace);
@@ -298,98 +293,26 @@ public class ConvexHull {
 
 	}
 
-	private static final Comparator<Vec3d> COMP = new Comparator<Vec3d>() {
-		@Override
-		public int compare(Vec3d v0, Vec3d v1) {
-			int comp;
-			comp = Double.compare(v0.x, v1.x);
-			if (comp != 0)
-				return comp;
-
-			comp = Double.compare(v0.y, v1.y);
-			if (comp != 0)
-				return comp;
-
-			return Double.compare(v0.z, v1.z);
-
-		}
-	};
-
 	/**
-	 * Remove any doubles from the list and return a new, possibly shorter list
-	 * @param orig
-	 * @return
+	 * Returns the distinct points in the list, in order of their first appearance
 	 */
 	private static ArrayList<Vec3d> removeDoubles(List<Vec3d> orig) {
-		ArrayList<Vec3d> ret = new ArrayList<>();
-		if (orig.size() == 0) {
-			return ret;
+		Vec3dInterner interner = new Vec3dInterner();
+		for (Vec3d v : orig) {
+			interner.intern(v);
 		}
 
-		final ArrayList<Vec3d> copy = new ArrayList<>(orig);
-
-		Collections.sort(copy, COMP);
-
-		ret.add(copy.get(0));
-		int outIndex = 0; // An updated index of the last element of the returned set, this may be
-		for (int index = 1;index < copy.size(); ++index) {
-			if (!copy.get(index).near3(ret.get(outIndex))) {
-				// We have not seen this vector before
-				ret.add(copy.get(index));
-				++outIndex;
-			}
+		ArrayList<Vec3d> ret = new ArrayList<>(interner.getMaxIndex());
+		for (int i = 0; i < interner.getMaxIndex(); ++i) {
+			ret.add(interner.getValueForIndex(i));
 		}
-
 		return ret;
 	}
 
-	// Remove any edge that is back tracked over, alter 'edges' in place
-	private void pruneEdges(ArrayList<HullEdge> edges) {
-		for (int i = 0; i < edges.size(); ) {
-
-			HullEdge e0 = edges.get(i);
-			boolean keepEdge = true;
-
-			for (int j = i;  j < edges.size(); ++j) {
-
-				HullEdge e1 = edges.get(j);
-
-				if (e0.ind0 == e1.ind1 && e0.ind1 == e1.ind0) {
-					keepEdge = false;
-					edges.remove(j); // Remove j, which is always higher than i so this should be safe
-					break;
-				}
-			}
-
-			if (keepEdge) {
-				++i;
-			} else {
-				edges.remove(i);
-			}
-		}
-	}
-
-	// This is used for sanity checking the generation code, but it too slow to leave in
-	@SuppressWarnings("unused")
-	private boolean scanEdges(ArrayList<HullEdge> edges) {
-		int[] seenIndices = new int[edges.size()*2];
-		int numSeen = 0;
-
-		//ArrayList<Integer> seenIndices = new ArrayList<Integer>();
-
-		for (HullEdge e : edges) {
-			boolean seen = false;
-			for (int i = 0; i < numSeen; ++i) { if (seenIndices[i] == e.ind0) seen = true; }
-			if (!seen)
-				seenIndices[numSeen++] = e.ind0;
-
-			for (int i = 0; i < numSeen; ++i) { if (seenIndices[i] == e.ind1) seen = true; }
-			if (!seen)
-				seenIndices[numSeen++] = e.ind1;
-		}
-
-		return numSeen == edges.size();
-
+	// Make the two faces neighbours across the specified edges
+	private static void link(TempHullFace f0, int edge0, TempHullFace f1, int edge1) {
+		f0.neighbours[edge0] = f1;
+		f1.neighbours[edge1] = f0;
 	}
 
 	/**
@@ -508,33 +431,50 @@ public class ConvexHull {
 		public final Plane plane;
 		public double furthestDist = 0;
 		public int furthestInd = 0;
-		public final ArrayList<Integer> points = new ArrayList<>();
+		public int[] points;
+		public int numPoints = 0;
+
+		// The face across each edge, edge 'i' runs from indices[i] to indices[i+1]
+		public final TempHullFace[] neighbours = new TempHullFace[3];
+		public boolean dead = false;
 
-		public TempHullFace(int i0, int i1, int i2, ArrayList<Vec3d> verts) {
+		public TempHullFace(int i0, int i1, int i2, Vec3d[] verts) {
 			indices[0] = i0;
 			indices[1] = i1;
 			indices[2] = i2;
-			plane = new Plane(verts.get(indices[0]),
-			                  verts.get(indices[1]),
-			                  verts.get(indices[2]));
+			plane = new Plane(verts[indices[0]],
+			                  verts[indices[1]],
+			                  verts[indices[2]]);
 
 		}
-		public void addPoint(int ind, ArrayList<Vec3d> verts) {
-			Vec3d v = verts.get(ind);
-			double dist = plane.getNormalDist(v);
+		public void addPoint(int ind, double dist) {
 			if (dist >= furthestDist) {
 				furthestDist = dist;
 				furthestInd = ind;
 			}
-			assert(dist > -0.000001);
-			points.add(ind);
+			if (points == null) {
+				points = new int[8];
+			}
+			else if (numPoints == points.length) {
+				points = Arrays.copyOf(points, numPoints*2);
+			}
+			points[numPoints++] = ind;
+		}
+
+		// Return the edge that is shared with the specified face
+		public int getEdge(TempHullFace f) {
+			for (int i = 0; i < 3; ++i) {
+				if (neighbours[i] == f)
+					return i;
+			}
+			throw new RenderException("ConvexHull faces are not connected");
 		}
 
 		// Return the sine of the angle from the plane to the nearest point
-		public double getPointAngle(Vec3d pt, ArrayList<Vec3d> verts) {
+		public double getPointAngle(Vec3d pt, Vec3d[] verts) {
 			double nearDistSq = Double.MAX_VALUE;
 			for (int i = 0; i < 3; ++i) {
-				Vec3d vert = verts.get(indices[i]);
+				Vec3d vert = verts[indices[i]];
 				double distSq = MathUtils.vecDistSq3(pt, vert);
 				nearDistSq = Math.min(distSq, nearDistSq);
 			}
@@ -554,15 +494,6 @@ public class ConvexHull {
 		public final int[] indices = new int[3];
 	}
 
-	// A really dumb class to store edges
-	private static class HullEdge {
-		final int ind0;
-		final int ind1;
-		HullEdge(int i0, int i1) {
-			ind0 = i0; ind1 = i1;
-		}
-	}
-
 	private void faceToPlane(HullFace f, Plane p) {
 		p.set(_verts.get(f.indices[0]),
 		      _verts.get(f.indices[1]),
@@ -0,0 +1,93 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures the time to build convex hulls for several large synthetic point sets. The median
+ * time over the repeats is reported for each set, together with the number of faces in the
+ * resulting hull.
+ * <p>
+ * Arguments: [points] [repeats]
+ */
+public class ConvexHullBenchmark {
+
+	public static void main(String[] args) {
+		int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int numRepeats = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+
+		Random rng = new Random(42);
+		int side = (int) Math.sqrt(numPoints / 2);
+
+		run("sphere, 30 pts", getSpherePoints(numPoints, rng), 30, numRepeats);
+		run("sphere, 100 pts", getSpherePoints(numPoints, rng), 100, numRepeats);
+		run("cube, 30 pts", getCubePoints(numPoints, rng), 30, numRepeats);
+		run("terrain, 30 pts", getGridPoints(side, 0.1d), 30, numRepeats);
+		run("flat grid", getGridPoints(side, 0.0d), 30, numRepeats);
+		run("sphere, no limit", getSpherePoints(numPoints / 40, rng), 0, numRepeats);
+		System.exit(0);
+	}
+
+	private static void run(String name, ArrayList<Vec3d> points, int maxNumPoints, int numRepeats) {
+		double[] times = new double[numRepeats];
+		int numFaces = 0;
+		for (int i = 0; i < numRepeats; i++) {
+			long startTime = System.nanoTime();
+			ConvexHull hull = ConvexHull.TryBuildHull(points, maxNumPoints, null);
+			times[i] = (System.nanoTime() - startTime) / 1.0e6d;
+			numFaces = hull.getFaces().size();
+		}
+		Arrays.sort(times);
+		System.out.println(String.format("%s (%d points): %.1f ms (%d faces)",
+				name, points.size(), times[numRepeats/2], numFaces));
+	}
+
+	private static ArrayList<Vec3d> getSpherePoints(int num, Random rng) {
+		ArrayList<Vec3d> ret = new ArrayList<>(num);
+		for (int i = 0; i < num; i++) {
+			Vec3d v = new Vec3d(rng.nextGaussian(), rng.nextGaussian(), rng.nextGaussian());
+			v.normalize3();
+			ret.add(v);
+		}
+		return ret;
+	}
+
+	private static ArrayList<Vec3d> getCubePoints(int num, Random rng) {
+		ArrayList<Vec3d> ret = new ArrayList<>(num);
+		for (int i = 0; i < num; i++) {
+			ret.add(new Vec3d(rng.nextDouble(), rng.nextDouble(), rng.nextDouble()));
+		}
+		return ret;
+	}
+
+	// A square grid of points whose height varies smoothly, or is zero for a flat grid
+	private static ArrayList<Vec3d> getGridPoints(int side, double height) {
+		ArrayList<Vec3d> ret = new ArrayList<>(side*side);
+		for (int i = 0; i < side; i++) {
+			for (int j = 0; j < side; j++) {
+				double x = (double)i / side;
+				double y = (double)j / side;
+				ret.add(new Vec3d(x, y, height*Math.sin(7.0d*x)*Math.cos(5.0d*y)));
+			}
+		}
+		return ret;
+	}
+
+}
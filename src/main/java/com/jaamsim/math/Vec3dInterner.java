@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -44,11 +45,13 @@ public class Vec3dInterner {
 
 		@Override
 		public int hashCode() {
-			int hash = 0;
-			hash ^= Double.valueOf(val.x).hashCode();
-			hash ^= Double.valueOf(val.y).hashCode() * 3;
-			hash ^= Double.valueOf(val.z).hashCode() * 7;
-			return hash;
+			// Mix all the bits so that points on a regular grid, whose low order bits are zero,
+			// do not collide
+			long hash = Double.doubleToLongBits(val.x);
+			hash = hash * 31 + Double.doubleToLongBits(val.y);
+			hash = hash * 31 + Double.doubleToLongBits(val.z);
+			hash *= 0x9E3779B97F4A7C15L;
+			return (int)(hash >>> 32);
 		}
 	}
 
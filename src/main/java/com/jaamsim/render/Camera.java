@@ -240,6 +240,25 @@ public boolean collides(AABB aabb) {
 	return true;
 }
 
+/**
+ * Returns true if the AABB is entirely inside the frustum
+ * @param aabb
+ */
+public boolean contains(AABB aabb) {
+	if (aabb.isEmpty()) {
+		return false;
+	}
+
+	updateFrustum();
+
+	for (Plane p : _frustum) {
+		if (aabb.testToPlane(p) != AABB.PlaneTestResult.POSITIVE) {
+			return false;
+		}
+	}
+	return true;
+}
+
 // Transform the camera by 'camToBounds' then check collision
 public boolean collides(AABB aabb, Mat4d camToBounds, Mat4d camNormal) {
 	if (aabb.isEmpty()) {
@@ -28,6 +28,7 @@ import com.jaamsim.Graphics.Tag;
 import com.jaamsim.basicsim.Entity;
 import com.jaamsim.controllers.RenderManager;
 import com.jaamsim.input.ColourInput;
+import com.jaamsim.math.AABB;
 import com.jaamsim.math.Color4d;
 import com.jaamsim.math.Mat4d;
 import com.jaamsim.math.Transform;
@@ -91,6 +92,40 @@ public abstract class DisplayModelBinding {
 
 	public abstract void collectProxies(double simTime, ArrayList<RenderProxy> out);
 
+	/**
+	 * Returns the region in global coordinates that contains everything drawn by this binding, or
+	 * null if the region is not known until the proxies have been collected. Entities whose
+	 * bounds are outside every view can be skipped when the scene is gathered.
+	 * @param simTime - present simulation time
+	 * @return bounds for the proxies, or null if unknown
+	 */
+	public AABB getBounds(double simTime) {
+		return null;
+	}
+
+	/**
+	 * Returns bounds that contain the entity's box, i.e. a unit cube scaled by the entity's size
+	 * and the display model's scale factor. The bounds enclose the box for any orientation, which
+	 * avoids the cost of building the entity's global transform.
+	 */
+	protected AABB getEntityBoxBounds() {
+		DisplayEntity de = (DisplayEntity)observee;
+		Vec3d size = de.getSize();
+		Vec3d scale = new Vec3d(size);
+		scale.mul3(dm.getModelScale());
+		size.mul3(de.getAlignment());
+
+		// Distance from the alignment point to the furthest corner of the box
+		double rad = size.mag3() + 0.5d*scale.mag3();
+		if (de.getCurrentRegion() != null)
+			rad *= de.getCurrentRegion().getGlobalScale();
+
+		Vec3d pos = de.getGlobalPosition();
+		Vec3d posPoint = new Vec3d(pos.x + rad, pos.y + rad, pos.z + rad);
+		Vec3d negPoint = new Vec3d(pos.x - rad, pos.y - rad, pos.z - rad);
+		return new AABB(posPoint, negPoint);
+	}
+
 	public boolean isBoundTo(Entity ent) {
 		return ent == observee;
 	}
@@ -0,0 +1,152 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.render;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe cache whose entries are discarded, least recently used first, when their total
+ * size exceeds a budget. The most recently added entry is always kept, even if it is larger than
+ * the budget on its own.
+ * @param <K> type of key
+ * @param <V> type of cached value
+ */
+public abstract class LRUCache<K, V> {
+
+	private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+	private long maxSize;
+	private long size;
+
+	private long numHits;
+	private long numMisses;
+	private long numEvictions;
+
+	/**
+	 * Creates a cache with the specified budget.
+	 * @param max - maximum total size of the entries
+	 */
+	public LRUCache(long max) {
+		maxSize = max;
+	}
+
+	/**
+	 * Returns the size of the specified value, in the same units as the budget.
+	 */
+	protected abstract long sizeOf(V val);
+
+	/**
+	 * Returns the cached value for the specified key, or null if there is none. The entry becomes
+	 * the most recently used.
+	 */
+	public synchronized V get(K key) {
+		V ret = map.get(key);
+		if (ret == null)
+			numMisses++;
+		else
+			numHits++;
+		return ret;
+	}
+
+	/**
+	 * Returns true if there is a cached value for the specified key. Neither the order of the
+	 * entries nor the statistics are affected.
+	 */
+	public synchronized boolean containsKey(K key) {
+		return map.containsKey(key);
+	}
+
+	/**
+	 * Adds or replaces the value for the specified key and discards the least recently used
+	 * entries that are over the budget.
+	 */
+	public synchronized void put(K key, V val) {
+		V old = map.put(key, val);
+		if (old != null)
+			size -= sizeOf(old);
+		size += sizeOf(val);
+		trim();
+	}
+
+	/**
+	 * Removes the value for the specified key.
+	 */
+	public synchronized V remove(K key) {
+		V ret = map.remove(key);
+		if (ret != null)
+			size -= sizeOf(ret);
+		return ret;
+	}
+
+	/**
+	 * Removes every entry. The statistics are not reset.
+	 */
+	public synchronized void clear() {
+		map.clear();
+		size = 0L;
+	}
+
+	/**
+	 * Sets the budget for the total size of the entries.
+	 */
+	public synchronized void setMaxSize(long max) {
+		maxSize = max;
+		trim();
+	}
+
+	public synchronized long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the total size of the cached entries.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of cached entries.
+	 */
+	public synchronized int getNumEntries() {
+		return map.size();
+	}
+
+	public synchronized long getNumHits() {
+		return numHits;
+	}
+
+	public synchronized long getNumMisses() {
+		return numMisses;
+	}
+
+	public synchronized long getNumEvictions() {
+		return numEvictions;
+	}
+
+	private void trim() {
+		Iterator<Map.Entry<K, V>> it = map.entrySet().iterator();
+		while (size > maxSize && map.size() > 1) {
+			Map.Entry<K, V> entry = it.next();
+			size -= sizeOf(entry.getValue());
+			it.remove();
+			numEvictions++;
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.render;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jaamsim.ui.LogBox;
+
+/**
+ * A fixed number of threads that are shared by the mesh and texture caches for reading and
+ * decoding asset files. Requests beyond the number of threads wait in a queue, so a model with
+ * many assets does not start a thread for each one.
+ */
+public class LoaderPool {
+
+	private static final int MAX_THREADS = 4;
+
+	private static final ThreadPoolExecutor executor;
+
+	static {
+		int num = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+		final AtomicInteger count = new AtomicInteger();
+		ThreadFactory factory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread ret = new Thread(r, "AssetLoader-" + count.incrementAndGet());
+				ret.setDaemon(true);
+				return ret;
+			}
+		};
+		executor = new ThreadPoolExecutor(num, num, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), factory);
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Runs the specified task on one of the loader threads.
+	 */
+	public static void execute(final Runnable task) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				}
+				catch (Throwable t) {
+					LogBox.renderLogException(t);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Runs the specified tasks on the loader threads and returns once they have all finished.
+	 * The calling thread runs any task that no loader thread has started, so this method can be
+	 * called by a task that is already running on a loader thread. The first exception thrown
+	 * by a task is rethrown.
+	 */
+	public static void invokeAll(List<? extends Runnable> tasks) {
+		ArrayList<FutureTask<Void>> futures = new ArrayList<>(tasks.size());
+		for (Runnable task : tasks) {
+			futures.add(new FutureTask<Void>(task, null));
+		}
+		for (int i = 1; i < futures.size(); i++) {
+			executor.execute(futures.get(i));
+		}
+
+		// A task that has already been started by another thread is not run again
+		for (FutureTask<Void> future : futures) {
+			future.run();
+		}
+
+		boolean interrupted = false;
+		try {
+			for (FutureTask<Void> future : futures) {
+				while (true) {
+					try {
+						future.get();
+						break;
+					}
+					catch (InterruptedException e) {
+						interrupted = true;
+					}
+					catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof RuntimeException)
+							throw (RuntimeException)cause;
+						if (cause instanceof Error)
+							throw (Error)cause;
+						throw new RuntimeException(cause);
+					}
+				}
+			}
+		}
+		finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the number of tasks that are waiting for a loader thread.
+	 */
+	public static int getQueueLength() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Returns the number of loader threads.
+	 */
+	public static int getNumThreads() {
+		return executor.getMaximumPoolSize();
+	}
+
+}
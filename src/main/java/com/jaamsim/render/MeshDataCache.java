@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2013 Ausenco Engineering Canada Inc.
- * Copyright (C) 2019-2022 JaamSim Software Inc.
+ * Copyright (C) 2019-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,8 +32,22 @@ import com.jaamsim.collada.ColParser;
 import com.jaamsim.ui.GUIFrame;
 import com.jaamsim.ui.LogBox;
 
+/**
+ * Holds the data for the 3D files that have been loaded. The data is kept within a memory budget
+ * by discarding the meshes that were used least recently, which are re-loaded if they are needed
+ * again.
+ */
 public class MeshDataCache {
-	private static final HashMap<MeshProtoKey, MeshData> dataMap = new HashMap<>();
+
+	// By default, the loaded meshes can use up to a quarter of the heap
+	private static final long DEFAULT_BUDGET = Runtime.getRuntime().maxMemory()/4;
+
+	private static final LRUCache<MeshProtoKey, MeshData> dataMap = new LRUCache<MeshProtoKey, MeshData>(DEFAULT_BUDGET) {
+		@Override
+		protected long sizeOf(MeshData data) {
+			return data.getEstimatedSize();
+		}
+	};
 
 	private static final HashMap<MeshProtoKey, MeshDataLoader> loadingMap = new HashMap<>();
 
@@ -52,11 +66,9 @@ public class MeshDataCache {
 
 	// Fetch, or lazily initialize the mesh data
 	public static MeshData getMeshData(MeshProtoKey key) {
-		synchronized (dataMap) {
-			MeshData data = dataMap.get(key);
-			if (data != null) {
-				return data;
-			}
+		MeshData data = dataMap.get(key);
+		if (data != null) {
+			return data;
 		}
 		synchronized (badMeshSet) {
 			if (badMeshSet.contains(key)) {
@@ -71,12 +83,17 @@ public class MeshDataCache {
 
 		if (ml != null) {
 			ml.waitForLoading();
-			synchronized (dataMap) {
-				return dataMap.get(key);
+			data = ml.data;
+			if (data != null) {
+				return data;
 			}
 		}
 
-		// Release the lock long enough to load the model
+		return loadMeshData(key);
+	}
+
+	// Reads the mesh data from its file and adds it to the cache
+	private static MeshData loadMeshData(MeshProtoKey key) {
 		String fileString = key.getURI().toString();
 
 		MeshData data = null;
@@ -120,21 +137,42 @@ public class MeshDataCache {
 			}
 		}
 
-		synchronized (dataMap) {
+		if (data != null)
 			dataMap.put(key, data);
-		}
 		return data;
 	}
 
 	public static boolean isMeshLoaded(MeshProtoKey key) {
-		synchronized (dataMap) {
-			return dataMap.containsKey(key);
-		}
+		return dataMap.containsKey(key);
+	}
+
+	/**
+	 * Returns the mesh data if it is in the cache, or null if it must be loaded.
+	 */
+	public static MeshData getLoadedMeshData(MeshProtoKey key) {
+		return dataMap.get(key);
+	}
+
+	/**
+	 * Sets the memory budget in bytes for the loaded mesh data.
+	 */
+	public static void setMaxSize(long bytes) {
+		dataMap.setMaxSize(bytes);
+	}
+
+	/**
+	 * Returns a summary of the cache contents and statistics.
+	 */
+	public static String getStatistics() {
+		return String.format("Meshes: %d (%.0f MB)  hits: %d  misses: %d  evictions: %d",
+				dataMap.getNumEntries(), dataMap.getSize()/(1024.0d*1024.0d),
+				dataMap.getNumHits(), dataMap.getNumMisses(), dataMap.getNumEvictions());
 	}
 
 	private static class MeshDataLoader implements Runnable {
 		final AtomicBoolean loaded = new AtomicBoolean();
 		final MeshProtoKey key;
+		MeshData data;  // keeps the mesh until the waiting threads have it
 
 		MeshDataLoader(MeshProtoKey key) {
 			this.key = key;
@@ -142,14 +180,20 @@ public class MeshDataCache {
 
 		@Override
 		public void run() {
-			getMeshData(key); // Cause the lazy initializer to load the mesh (or return quickly if already loaded)
-
-			loaded.set(true);
-
-			synchronized(this) {
-				this.notifyAll();
+			try {
+				data = dataMap.get(key);
+				if (data == null)
+					data = loadMeshData(key);
+			}
+			finally {
+				synchronized (loadingMap) {
+					loadingMap.remove(key);
+				}
+				synchronized (this) {
+					loaded.set(true);
+					this.notifyAll();
+				}
 			}
-
 		}
 
 		public void waitForLoading() {
@@ -168,16 +212,18 @@ public class MeshDataCache {
 	}
 
 	/**
-	 * Load the mesh in a new thread, then notify on 'notifier'
+	 * Load the mesh on one of the loader threads
 	 * @param key
 	 */
 	public static void loadMesh(final MeshProtoKey key) {
 		MeshDataLoader ml = new MeshDataLoader(key);
 		synchronized (loadingMap) {
+			if (loadingMap.containsKey(key))
+				return;
 			loadingMap.put(key, ml);
 		}
 
-		new Thread(ml).start();
+		LoaderPool.execute(ml);
 	}
 
 	// Lazily load the bad mesh data
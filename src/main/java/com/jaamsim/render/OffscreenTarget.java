@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +17,7 @@
  */
 package com.jaamsim.render;
 
+import java.awt.image.BufferedImage;
 import java.nio.IntBuffer;
 
 /**
@@ -41,6 +43,7 @@ public class OffscreenTarget {
 	private int _blitTex;
 
 	private IntBuffer _pixelBuffer;
+	private BufferedImage _image;
 
 	/**
 	 * Builds an OffScreenTarget of the specified size, the resources are not allocated right away, but will be before
@@ -103,6 +106,7 @@ public class OffscreenTarget {
 	public void free() {
 		_loaded = false;
 		_pixelBuffer = null;
+		_image = null;
 	}
 
 	public int getWidth() {
@@ -116,4 +120,15 @@ public class OffscreenTarget {
 	public IntBuffer getPixelBuffer() {
 		return _pixelBuffer;
 	}
+
+	/**
+	 * Returns the image that receives the pixels read back from this target. The same image is
+	 * returned for every render, so its contents must be used before the target is rendered to
+	 * again.
+	 */
+	public BufferedImage getImage() {
+		if (_image == null)
+			_image = new BufferedImage(_width, _height, BufferedImage.TYPE_INT_ARGB);
+		return _image;
+	}
 }
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
- * Copyright (C) 2018-2023 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import java.awt.Window.Type;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -192,6 +193,9 @@ public class Renderer implements GLAnimatorControl {
 	private ArrayList<Renderable> currentScene = new ArrayList<>();
 	private ArrayList<OverlayRenderable> currentOverlay = new ArrayList<>();
 
+	// Bounding volume hierarchy for the current scene, used for picking and frustum culling
+	private final SceneBVH sceneBVH = new SceneBVH();
+
 	public Renderer(boolean safeGraphics) throws RenderException {
 		this.safeGraphics = safeGraphics;
 
@@ -989,6 +993,7 @@ private void initCoreShaders(GL2GL3 gl, String version) throws RenderException {
 					logException(t);
 				}
 			}
+			sceneBVH.update(currentScene);
 
 			sceneTimeNS = System.nanoTime() - sceneStart;
 		}
@@ -1031,7 +1036,9 @@ private void initCoreShaders(GL2GL3 gl, String version) throws RenderException {
 
 			// Do not update the scene while a pick is underway
 			synchronized (sceneLock) {
-				for (Renderable r : currentScene) {
+				ArrayList<Renderable> candidates = new ArrayList<>();
+				sceneBVH.collectRayCandidates(pickRay, candidates);
+				for (Renderable r : candidates) {
 					double rayDist = r.getCollisionDist(pickRay, precise);
 					if (rayDist >= 0.0) {
 
@@ -1122,6 +1129,22 @@ private void initCoreShaders(GL2GL3 gl, String version) throws RenderException {
 		}
 	}
 
+	/**
+	 * Returns a copy of the camera for each open window.
+	 */
+	public ArrayList<Camera> getWindowCameras() {
+		synchronized(openWindows) {
+			ArrayList<Camera> ret = new ArrayList<>(cameras.size());
+			for (int id : openWindows.keySet()) {
+				Camera cam = cameras.get(id);
+				if (cam == null)
+					continue;
+				ret.add(new Camera(cam.getInfo(), cam.getAspectRatio()));
+			}
+			return ret;
+		}
+	}
+
 	public CameraInfo getCameraInfo(int windowID) {
 		synchronized(openWindows) {
 			Camera cam = cameras.get(windowID);
@@ -1308,7 +1331,7 @@ private void initCoreShaders(GL2GL3 gl, String version) throws RenderException {
 				}
 
 				renderScene(drawable.getContext(), window.getWindowID(),
-				            scene, overlay,
+				            scene, overlay, sceneBVH,
 				            cam, window.getViewableWidth(), window.getViewableHeight(),
 				            pickRay, window.getViewID(), pi);
 
@@ -1341,6 +1364,13 @@ private void initCoreShaders(GL2GL3 gl, String version) throws RenderException {
 					os.render(window.getWindowID(), Renderer.this,
 					          window.getViewableWidth(), window.getViewableHeight(), cam, null);
 
+					// And the asset cache statistics
+					String cacheStats = MeshDataCache.getStatistics() + "   " + texCache.getStatistics();
+					os = new OverlayString(defFont, cacheStats, ColourInput.BLACK,
+					                       10, 10, 45, false, false, DisplayModel.ALWAYS, DEBUG_PICK_ID);
+					os.render(window.getWindowID(), Renderer.this,
+					          window.getViewableWidth(), window.getViewableHeight(), cam, null);
+
 					drawContext = null;
 					gl.glEnable(GL2GL3.GL_DEPTH_TEST);
 
@@ -1690,7 +1720,7 @@ private void initCoreShaders(GL2GL3 gl, String version) throws RenderException {
 
 			PerfInfo perfInfo = new PerfInfo();
 			// Okay, now actually render this thing...
-			renderScene(sharedContext, sharedContextID, renderables, overlay, message.cam,
+			renderScene(sharedContext, sharedContextID, renderables, overlay, null, message.cam,
 			            width, height, null, message.viewID, perfInfo);
 
 			gl.glFinish();
@@ -1709,11 +1739,16 @@ private void initCoreShaders(GL2GL3 gl, String version) throws RenderException {
 
 			gl.glBindTexture(GL2GL3.GL_TEXTURE_2D, 0);
 
-			BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			// Persistent targets reuse their image, the pixels are already in its ARGB layout
+			BufferedImage img;
+			if (isTempTarget)
+				img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			else
+				img = target.getImage();
+			int[] imgData = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
 			for (int h = 0; h < height; ++h) {
-				// Set this one scan line at a time, in the opposite order as java is y down
-				img.setRGB(0, h, width, 1, pixels.array(), (height - 1 - h) * width, width);
-
+				// Copy this one scan line at a time, in the opposite order as java is y down
+				System.arraycopy(pixels.array(), (height - 1 - h) * width, imgData, h * width, width);
 			}
 
 			message.result.setComplete(img);
@@ -1759,7 +1794,7 @@ private static class TransSortable implements Comparable<TransSortable> {
 }
 
 	private void renderScene(GLContext context, int contextID,
-	                        List<Renderable> scene, List<OverlayRenderable> overlay,
+	                        List<Renderable> scene, List<OverlayRenderable> overlay, SceneBVH bvh,
 	                        Camera cam, int width, int height, Ray pickRay,
 	                        int viewID, PerfInfo perfInfo) {
 
@@ -1783,7 +1818,15 @@ private static class TransSortable implements Comparable<TransSortable> {
 		if (scene == null)
 			return;
 
-		for (Renderable r : scene) {
+		// Find the renderables in view from the bounding volume hierarchy, if it holds this scene
+		boolean[] visible = null;
+		if (bvh != null && bvh.isValid() && bvh.size() == scene.size()) {
+			visible = new boolean[scene.size()];
+			bvh.markVisible(cam, visible);
+		}
+
+		for (int i = 0; i < scene.size(); i++) {
+			Renderable r = scene.get(i);
 			AABB bounds = r.getBoundsRef();
 			double dist = cam.distToBounds(bounds);
 
@@ -1791,7 +1834,8 @@ private static class TransSortable implements Comparable<TransSortable> {
 				continue;
 			}
 
-			if (!cam.collides(bounds)) {
+			boolean inView = (visible != null) ? visible[i] : cam.collides(bounds);
+			if (!inView) {
 				++perfInfo.objectsCulled;
 				continue;
 			}
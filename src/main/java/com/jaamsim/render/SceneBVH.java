@@ -0,0 +1,470 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.render;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.jaamsim.math.AABB;
+import com.jaamsim.math.Ray;
+import com.jaamsim.math.Vec3d;
+import com.jaamsim.math.Vec4d;
+
+/**
+ * Bounding volume hierarchy for the renderables in a scene, built from their bounding boxes.
+ * <p>
+ * The renderables for an entity are re-used until the entity changes, so most of the scene is the
+ * same from one frame to the next. When the scene is updated, only the leaves that hold replaced
+ * renderables and their parents are refit. The hierarchy is rebuilt when the refit leaves have
+ * grown enough that the tree no longer separates the renderables well. A change in the number of
+ * renderables leaves the hierarchy invalid until the scene is updated again with the same number,
+ * so that a scene whose size changes every frame does not pay for a rebuild every frame.
+ * <p>
+ * The bounds of a renderable are assumed not to change once it has been created. The queries
+ * return the same renderables as testing every renderable in turn, and in scene order. While the
+ * hierarchy is invalid, they do so by testing every renderable.
+ */
+public class SceneBVH {
+
+	private static final int LEAF_SIZE = 4;
+	private static final double MAX_GROWTH = 2.0d;  // rebuild when the leaves are twice as large
+
+	// Pick rays are tested against boxes that are enlarged by 10% of their radius, the same margin
+	// allowed by DebugLine, so that every renderable that the ray can hit is returned
+	private static final double PICK_MARGIN = 0.1d;
+	private static final double MIN_MARGIN = 1.0e-6d;
+
+	private final ArrayList<Renderable> items = new ArrayList<>();
+	private boolean valid;
+
+	private double[] itemBox = new double[0]; // min x,y,z and max x,y,z for each renderable
+	private boolean[] itemEmpty = new boolean[0];
+	private int[] itemLeaf = new int[0];      // leaf node that holds each renderable
+	private int[] order = new int[0];         // renderable indices grouped by leaf
+
+	private int numNodes;
+	private int[] nodeStart = new int[0];     // first entry in 'order' for a leaf
+	private int[] nodeCount = new int[0];     // number of renderables in a leaf, zero for a branch
+	private int[] nodeLeft = new int[0];      // first child of a branch, the second is next to it
+	private int[] nodeParent = new int[0];
+	private double[] nodeBox = new double[0];
+	private AABB[] nodeBounds = new AABB[0];  // created when first needed for culling
+
+	private double leafArea;   // total surface area of the leaves
+	private double builtArea;  // total surface area of the leaves when the tree was built
+	private int numBuilds;
+	private final double[] tempBox = new double[6];
+
+	/**
+	 * Updates the hierarchy to hold the specified renderables.
+	 * @param scene - renderables in the scene
+	 */
+	public void update(List<? extends Renderable> scene) {
+		int n = scene.size();
+		if (n != items.size()) {
+			items.clear();
+			items.addAll(scene);
+			valid = false;
+			return;
+		}
+
+		if (!valid) {
+			items.clear();
+			items.addAll(scene);
+			build();
+			return;
+		}
+
+		// Refit the leaves for the renderables that have been replaced
+		for (int i = 0; i < n; i++) {
+			Renderable r = scene.get(i);
+			if (items.get(i) == r)
+				continue;
+			items.set(i, r);
+			if (!refitItem(i)) {
+				items.clear();
+				items.addAll(scene);
+				build();
+				return;
+			}
+		}
+
+		if (leafArea > MAX_GROWTH*builtArea)
+			build();
+	}
+
+	/**
+	 * Returns true if the hierarchy holds the renderables from the last update and can be used
+	 * for queries.
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * Returns the number of renderables in the hierarchy.
+	 */
+	public int size() {
+		return items.size();
+	}
+
+	/**
+	 * Returns the number of times the hierarchy has been rebuilt.
+	 */
+	public int getNumBuilds() {
+		return numBuilds;
+	}
+
+	private void build() {
+		int n = items.size();
+		valid = true;
+		numBuilds++;
+
+		itemBox = new double[6*n];
+		itemEmpty = new boolean[n];
+		itemLeaf = new int[n];
+		order = new int[n];
+		int num = 0;
+		for (int i = 0; i < n; i++) {
+			setItemBox(i);
+			itemLeaf[i] = -1;
+			if (!itemEmpty[i])
+				order[num++] = i;
+		}
+
+		int maxNodes = Math.max(1, 2*num);
+		nodeStart = new int[maxNodes];
+		nodeCount = new int[maxNodes];
+		nodeLeft = new int[maxNodes];
+		nodeParent = new int[maxNodes];
+		nodeBox = new double[6*maxNodes];
+		nodeBounds = new AABB[maxNodes];
+		numNodes = 1;
+		nodeParent[0] = -1;
+		buildNode(0, 0, num);
+
+		// Children always follow their parent, so the nodes are fit in reverse order
+		leafArea = 0.0d;
+		for (int node = numNodes - 1; node >= 0; node--) {
+			setNodeBox(node, true);
+		}
+		builtArea = leafArea;
+	}
+
+	private void buildNode(int node, int start, int end) {
+		int num = end - start;
+		if (num <= LEAF_SIZE) {
+			nodeStart[node] = start;
+			nodeCount[node] = num;
+			for (int j = start; j < end; j++) {
+				itemLeaf[order[j]] = node;
+			}
+			return;
+		}
+
+		// Split at the middle of the longest extent of the box centres
+		double[] lo = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+		double[] hi = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for (int j = start; j < end; j++) {
+			for (int axis = 0; axis < 3; axis++) {
+				double c = centre(order[j], axis);
+				lo[axis] = Math.min(lo[axis], c);
+				hi[axis] = Math.max(hi[axis], c);
+			}
+		}
+		int axis = 0;
+		for (int a = 1; a < 3; a++) {
+			if (hi[a] - lo[a] > hi[axis] - lo[axis])
+				axis = a;
+		}
+		double split = 0.5d*(lo[axis] + hi[axis]);
+
+		int mid = start;
+		for (int j = start; j < end; j++) {
+			if (centre(order[j], axis) < split) {
+				int temp = order[j];
+				order[j] = order[mid];
+				order[mid] = temp;
+				mid++;
+			}
+		}
+
+		// Renderables with the same centre are split evenly
+		if (mid == start || mid == end)
+			mid = start + num/2;
+
+		int left = numNodes;
+		numNodes += 2;
+		nodeCount[node] = 0;
+		nodeLeft[node] = left;
+		nodeParent[left] = node;
+		nodeParent[left + 1] = node;
+		buildNode(left, start, mid);
+		buildNode(left + 1, mid, end);
+	}
+
+	private double centre(int i, int axis) {
+		return 0.5d*(itemBox[6*i + axis] + itemBox[6*i + 3 + axis]);
+	}
+
+	private void setItemBox(int i) {
+		AABB bounds = items.get(i).getBoundsRef();
+		itemEmpty[i] = bounds == null || bounds.isEmpty();
+		if (itemEmpty[i])
+			return;
+		double margin = PICK_MARGIN*bounds.radius.mag3() + MIN_MARGIN;
+		int k = 6*i;
+		itemBox[k    ] = bounds.minPt.x - margin;
+		itemBox[k + 1] = bounds.minPt.y - margin;
+		itemBox[k + 2] = bounds.minPt.z - margin;
+		itemBox[k + 3] = bounds.maxPt.x + margin;
+		itemBox[k + 4] = bounds.maxPt.y + margin;
+		itemBox[k + 5] = bounds.maxPt.z + margin;
+	}
+
+	/**
+	 * Refits the leaf that holds the specified renderable, and its parents.
+	 * @return false if the tree must be rebuilt
+	 */
+	private boolean refitItem(int i) {
+		boolean wasEmpty = itemEmpty[i];
+		setItemBox(i);
+
+		// A renderable that gains or loses its bounds has to be added to or removed from a leaf
+		if (wasEmpty || itemEmpty[i])
+			return wasEmpty && itemEmpty[i];
+
+		// Stop at the first node whose bounds are unchanged
+		for (int node = itemLeaf[i]; node >= 0; node = nodeParent[node]) {
+			if (!setNodeBox(node, false))
+				break;
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the bounds of a node from those of its renderables or children.
+	 * @param init - true if the node is new
+	 * @return true if the bounds have changed
+	 */
+	private boolean setNodeBox(int node, boolean init) {
+		double[] box = tempBox;
+		Arrays.fill(box, 0, 3, Double.POSITIVE_INFINITY);
+		Arrays.fill(box, 3, 6, Double.NEGATIVE_INFINITY);
+		boolean leaf = nodeCount[node] > 0;
+		if (leaf) {
+			for (int j = nodeStart[node]; j < nodeStart[node] + nodeCount[node]; j++) {
+				addBox(box, itemBox, 6*order[j]);
+			}
+		}
+		else if (nodeLeft[node] > 0) {
+			addBox(box, nodeBox, 6*nodeLeft[node]);
+			addBox(box, nodeBox, 6*(nodeLeft[node] + 1));
+		}
+
+		int k = 6*node;
+		boolean same = !init;
+		for (int m = 0; m < 6; m++) {
+			same = same && nodeBox[k + m] == box[m];
+		}
+		if (same)
+			return false;
+
+		if (leaf) {
+			if (!init)
+				leafArea -= area(nodeBox, k);
+			leafArea += area(box, 0);
+		}
+		System.arraycopy(box, 0, nodeBox, k, 6);
+		nodeBounds[node] = null;
+		return true;
+	}
+
+	private AABB getNodeBounds(int node) {
+		AABB ret = nodeBounds[node];
+		if (ret != null)
+			return ret;
+
+		int k = 6*node;
+		if (nodeBox[k] > nodeBox[k + 3])
+			ret = new AABB();
+		else
+			ret = new AABB(new Vec3d(nodeBox[k + 3], nodeBox[k + 4], nodeBox[k + 5]),
+					new Vec3d(nodeBox[k], nodeBox[k + 1], nodeBox[k + 2]));
+		nodeBounds[node] = ret;
+		return ret;
+	}
+
+	private static double area(double[] box, int k) {
+		double dx = box[k + 3] - box[k];
+		double dy = box[k + 4] - box[k + 1];
+		double dz = box[k + 5] - box[k + 2];
+		return 2.0d*(dx*dy + dy*dz + dz*dx);
+	}
+
+	private static void addBox(double[] box, double[] src, int k) {
+		for (int m = 0; m < 3; m++) {
+			box[m] = Math.min(box[m], src[k + m]);
+			box[m + 3] = Math.max(box[m + 3], src[k + m + 3]);
+		}
+	}
+
+	/**
+	 * Returns the renderables whose bounds could be hit by the specified ray. Each renderable
+	 * must still be tested for a collision.
+	 * @param ray - pick ray in global coordinates
+	 * @param out - list to which the renderables are added in scene order
+	 */
+	public void collectRayCandidates(Ray ray, List<Renderable> out) {
+		if (!valid) {
+			out.addAll(items);
+			return;
+		}
+		if (items.isEmpty())
+			return;
+
+		Vec3d start = ray.getStartRef();
+		Vec4d dir = ray.getDirRef();
+		double[] org = {start.x, start.y, start.z};
+		double[] inv = {1.0d/dir.x, 1.0d/dir.y, 1.0d/dir.z};
+
+		int[] hits = new int[16];
+		int numHits = 0;
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (!rayHitsBox(nodeBox, 6*node, org, inv))
+				continue;
+			if (nodeCount[node] == 0) {
+				if (nodeLeft[node] == 0)
+					continue;
+				if (top + 2 > stack.length)
+					stack = Arrays.copyOf(stack, 2*stack.length);
+				stack[top++] = nodeLeft[node] + 1;
+				stack[top++] = nodeLeft[node];
+				continue;
+			}
+			for (int j = nodeStart[node]; j < nodeStart[node] + nodeCount[node]; j++) {
+				int i = order[j];
+				if (!rayHitsBox(itemBox, 6*i, org, inv))
+					continue;
+				if (numHits == hits.length)
+					hits = Arrays.copyOf(hits, 2*hits.length);
+				hits[numHits++] = i;
+			}
+		}
+
+		Arrays.sort(hits, 0, numHits);
+		for (int j = 0; j < numHits; j++) {
+			out.add(items.get(hits[j]));
+		}
+	}
+
+	// Slab test for a ray that starts at 'org' and extends in the positive direction
+	private static boolean rayHitsBox(double[] box, int k, double[] org, double[] inv) {
+		double tmin = 0.0d;
+		double tmax = Double.POSITIVE_INFINITY;
+		for (int axis = 0; axis < 3; axis++) {
+			double lo = box[k + axis];
+			double hi = box[k + 3 + axis];
+			if (Double.isInfinite(inv[axis])) {
+				// Parallel to this axis
+				if (org[axis] < lo || org[axis] > hi)
+					return false;
+				continue;
+			}
+			double t1 = (lo - org[axis])*inv[axis];
+			double t2 = (hi - org[axis])*inv[axis];
+			tmin = Math.max(tmin, Math.min(t1, t2));
+			tmax = Math.min(tmax, Math.max(t1, t2));
+			if (tmin > tmax)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Determines which renderables collide with the specified camera's view frustum. The result
+	 * for each renderable is the same as for {@link Camera#collides(AABB)}. The bounds for the nodes
+	 * are created as they are needed, so this method must be called from the thread that updates
+	 * the hierarchy.
+	 * @param cam - camera for the view
+	 * @param visible - array that is set to true for the renderables that are in view
+	 * @return number of renderables in view
+	 */
+	public int markVisible(Camera cam, boolean[] visible) {
+		if (!valid) {
+			int ret = 0;
+			for (int i = 0; i < items.size(); i++) {
+				visible[i] = cam.collides(items.get(i).getBoundsRef());
+				if (visible[i])
+					ret++;
+			}
+			return ret;
+		}
+
+		Arrays.fill(visible, 0, items.size(), false);
+		if (items.isEmpty())
+			return 0;
+
+		int ret = 0;
+		int[] stack = new int[64];
+		boolean[] inside = new boolean[64];
+		int top = 0;
+		stack[top] = 0;
+		inside[top] = false;
+		top++;
+		while (top > 0) {
+			top--;
+			int node = stack[top];
+			boolean in = inside[top];
+			if (!in) {
+				AABB bounds = getNodeBounds(node);
+				if (!cam.collides(bounds))
+					continue;
+				in = cam.contains(bounds);
+			}
+			if (nodeCount[node] == 0) {
+				if (nodeLeft[node] == 0)
+					continue;
+				if (top + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, 2*stack.length);
+					inside = Arrays.copyOf(inside, 2*inside.length);
+				}
+				stack[top] = nodeLeft[node] + 1;
+				inside[top] = in;
+				top++;
+				stack[top] = nodeLeft[node];
+				inside[top] = in;
+				top++;
+				continue;
+			}
+			for (int j = nodeStart[node]; j < nodeStart[node] + nodeCount[node]; j++) {
+				int i = order[j];
+				if (in || cam.collides(items.get(i).getBoundsRef())) {
+					visible[i] = true;
+					ret++;
+				}
+			}
+		}
+		return ret;
+	}
+
+}
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
- * Copyright (C) 2019-2022 JaamSim Software Inc.
+ * Copyright (C) 2019-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.imageio.ImageIO;
@@ -51,6 +52,10 @@ import com.jogamp.opengl.GLExtensions;
 /**
  * A cache that ensures each texture object is only loaded once, looks up textures by URL to there
  * is a chance of a repeated texture if synonymous URLs are used
+ * <p>
+ * Images are decoded on the shared loader threads. The memory used by the images that are being
+ * decoded at the same time is limited to a budget, so that several large images do not exhaust
+ * the heap.
  * @author Matt.Chudleigh
  *
  */
@@ -58,6 +63,9 @@ public class TexCache {
 
 	private static final int MAX_UNCOMPRESSED_SIZE = 64*1024*1024; // No texture can be more than 64 megs uncompressed
 
+	// Images being decoded at the same time can use up to an eighth of the heap
+	private static final long DECODE_BUDGET = Runtime.getRuntime().maxMemory()/8;
+
 	private static class TexEntry {
 		public int texID;
 		public boolean hasAlpha;
@@ -79,6 +87,7 @@ public class TexCache {
 		public boolean forcedCompressed; // The user did not request a compressed texture, but we compressed it anyway
 		public ByteBuffer data;
 		public int width, height;
+		public long decodeSize; // heap memory needed to decode the image
 		public AtomicBoolean done = new AtomicBoolean(false);
 		public AtomicBoolean failed = new AtomicBoolean(false);
 		public final Object lock = new Object();
@@ -95,9 +104,13 @@ public class TexCache {
 	private final Map<String, TexEntry> _texMap = new HashMap<>();
 	private final Map<String, LoadingEntry> _loadingMap = new HashMap<>();
 
-	private final Map<String, ByteBuffer> explicitDataMap = new HashMap<>();
+	private final Map<String, ByteBuffer> explicitDataMap = new ConcurrentHashMap<>(); // read by the loader threads
+
+	private final Object decodeLock = new Object();
+	private long decodeBytes; // memory used by the images being decoded
 
-	private final EntryLoaderRunner entryLoader = new EntryLoaderRunner();
+	private int numHits;
+	private int numMisses;
 
 	private final Renderer _renderer;
 
@@ -168,6 +181,7 @@ public class TexCache {
 			}
 
 			if (found) {
+				numHits++;
 				return entry.texID;
 			}
 
@@ -182,6 +196,7 @@ public class TexCache {
 		boolean isLoading = _loadingMap.containsKey(imageURIKey);
 		LoadingEntry le = null;
 		if (!isLoading) {
+			numMisses++;
 			le = launchLoadImage(gl, imageURI, withAlpha, compressed);
 
 			if (le == null) {
@@ -279,10 +294,16 @@ public class TexCache {
 
 		final LoadingEntry le = new LoadingEntry(imageURI, mappedBuffer, transparent, compressed, forcedCompressed);
 		le.bufferID = ids[0];
+		le.decodeSize = 12L*dim.width*dim.height;  // source image, ARGB image, and pixel array
 
 		_loadingMap.put(imageURI.toString(), le);
 
-		entryLoader.loadEntry(le);
+		LoaderPool.execute(new Runnable() {
+			@Override
+			public void run() {
+				loadImage(le);
+			}
+		});
 		return le;
 	}
 
@@ -360,8 +381,9 @@ public class TexCache {
 	}
 
 	private InputStream getDataStream(URI imageURI) throws MalformedURLException, IOException {
-		if (explicitDataMap.containsKey(imageURI.toString())) {
-			return new ByteArrayInputStream(explicitDataMap.get(imageURI.toString()).array());
+		ByteBuffer data = explicitDataMap.get(imageURI.toString());
+		if (data != null) {
+			return new ByteArrayInputStream(data.array());
 		} else {
 			return imageURI.toURL().openStream();
 		}
@@ -397,51 +419,61 @@ public class TexCache {
 
 
 
-	private class EntryLoaderRunner implements Runnable {
-		final ArrayList<LoadingEntry> list = new ArrayList<>();
-		private Thread loadThread = null;
-
-		@Override
-		public void run() {
-			while (true) {
-				LoadingEntry le = null;
-				synchronized (this) {
-					if (list.isEmpty()) {
-						loadThread = null;
-						return;
-					}
-					le = list.remove(0);
-				}
+	/**
+	 * Returns a summary of the cache contents and statistics.
+	 */
+	public String getStatistics() {
+		return String.format("Textures: %d  hits: %d  misses: %d  loading: %d  loader queue: %d",
+				_texMap.size(), numHits, numMisses, _loadingMap.size(), LoaderPool.getQueueLength());
+	}
 
-				loadImage(le);
+	private void loadImage(LoadingEntry le) {
+		acquireDecodeMemory(le.decodeSize);
+		boolean failed = true;
+		try {
+			failed = !decodeImage(le);
+		}
+		finally {
+			releaseDecodeMemory(le.decodeSize);
+			le.failed.set(failed);
+			le.done.set(true);
+			synchronized(le.lock) {
+				le.lock.notifyAll();
 			}
 		}
 
-		void loadEntry(LoadingEntry le) {
-			synchronized (this) {
-				list.add(le);
-				if (loadThread == null) {
-					loadThread = new Thread(this, "TextureLoadThread");
-					loadThread.start();
-				}
+		_renderer.queueRedraw();
+	}
+
+	// Waits until the image fits within the budget, unless no other image is being decoded
+	private void acquireDecodeMemory(long bytes) {
+		synchronized (decodeLock) {
+			while (decodeBytes > 0 && decodeBytes + bytes > DECODE_BUDGET) {
+				try {
+					decodeLock.wait();
+				} catch (InterruptedException ex) {}
 			}
+			decodeBytes += bytes;
 		}
 	}
 
-	private void loadImage(LoadingEntry le) {
+	private void releaseDecodeMemory(long bytes) {
+		synchronized (decodeLock) {
+			decodeBytes -= bytes;
+			decodeLock.notifyAll();
+		}
+	}
+
+	private boolean decodeImage(LoadingEntry le) {
 		BufferedImage img = null;
 		try {
 			img = ImageIO.read(getDataStream(le.imageURI));
 		}
 		catch(Exception e) {
-			le.failed.set(true);
-			le.done.set(true);
-			return;
+			return false;
 		}
 		if (img == null) {
-			le.failed.set(true);
-			le.done.set(true);
-			return;
+			return false;
 		}
 
 		int width = img.getWidth();
@@ -477,13 +509,7 @@ public class TexCache {
 		} else {
 			le.data.asIntBuffer().put(ints.getData());
 		}
-
-		le.done.set(true);
-		synchronized(le.lock) {
-			le.lock.notify();
-		}
-
-		_renderer.queueRedraw();
+		return true;
 	}
 
 	private void waitForTex(LoadingEntry le) {
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2018-2022 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,6 +34,9 @@ public class MRG1999a {
 	int substream;
 	long[] initSeeds;
 
+	// Returns 1 - u in place of each value u, for the second run of an antithetic pair
+	private boolean antithetic;
+
 	private static final long streamAdvance[][] = {
 		{ 2427906178L, 3580155704L,  949770784L },
 		{  226153695L, 1230515664L, 3580155704L },
@@ -153,6 +156,32 @@ public class MRG1999a {
 		initSeeds = seeds;
 	}
 
+	/**
+	 * Seed the MRG with values from the given stream number, and select whether it returns the
+	 * antithetic values for the sequence.
+	 * @param stream
+	 * @param substream
+	 * @param anti - true if each value u is to be returned as 1 - u
+	 */
+	public void setSeedStream(int stream, int substream, boolean anti) {
+		setSeedStream(stream, substream);
+		antithetic = anti;
+	}
+
+	/**
+	 * Selects whether the generator returns 1 - u in place of each value u. The antithetic
+	 * values are negatively correlated with the original sequence, so that the average of a
+	 * pair of runs has a smaller variance than the average of two independent runs.
+	 * @param bool - true if the antithetic values are to be returned
+	 */
+	public void setAntithetic(boolean bool) {
+		antithetic = bool;
+	}
+
+	public boolean isAntithetic() {
+		return antithetic;
+	}
+
 	public void setSeed(long s0, long s1, long s2, long s3, long s4, long s5) {
 		if (s0 == 0 && s1 == 0 && s2 == 0)
 			throw new IllegalArgumentException("The first three seeds cannot all be 0");
@@ -186,6 +215,8 @@ public class MRG1999a {
 
 		long p = p1 - p2;
 		if (p <= 0) p += m1;
+		if (antithetic)
+			return 1.0d - p * norm;
 		return p * norm;
 	}
 
@@ -0,0 +1,83 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.states;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.jaamsim.basicsim.JaamSimModel;
+import com.jaamsim.events.EventManager;
+import com.jaamsim.events.ProcessTarget;
+
+/**
+ * Measures the number of state transitions per second for a Server, using both the state names
+ * and the integer state ids. The transitions are performed by an event so that the simulation
+ * clock is available.
+ * <p>
+ * Arguments: [transitions]
+ */
+public class StateBenchmark {
+
+	private static final String[] STATES = {"Idle", "Working", "Setup", "Working", "Maintenance"};
+
+	public static void main(String[] args) throws InterruptedException {
+		final int numTrans = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+		simModel.defineEntity("Server", "Server1");
+		final StateEntity ent = (StateEntity) simModel.getNamedEntity("Server1");
+
+		final int[] ids = new int[STATES.length];
+		for (int i = 0; i < STATES.length; i++) {
+			ids[i] = StateEntity.getStateId(STATES[i]);
+		}
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		EventManager evt = simModel.getEventManager();
+		evt.scheduleProcessExternal(0, 0, false, new ProcessTarget() {
+			@Override
+			public String getDescription() {
+				return "StateBenchmark";
+			}
+
+			@Override
+			public void process() {
+				for (int j = 0; j < 3; j++) {
+					long startTime = System.nanoTime();
+					for (int i = 0; i < numTrans; i++) {
+						ent.setPresentState(STATES[i % STATES.length]);
+					}
+					double nameSecs = (System.nanoTime() - startTime) / 1.0e9d;
+
+					startTime = System.nanoTime();
+					for (int i = 0; i < numTrans; i++) {
+						ent.setPresentState(ids[i % ids.length]);
+					}
+					double idSecs = (System.nanoTime() - startTime) / 1.0e9d;
+
+					System.out.println(String.format("names: %.1f M transitions/s, ids: %.1f M transitions/s",
+							numTrans/nameSecs/1.0e6d, numTrans/idSecs/1.0e6d));
+				}
+				latch.countDown();
+			}
+		}, null);
+		evt.resume(0L);
+		latch.await();
+		System.exit(0);
+	}
+
+}
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2018-2023 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package com.jaamsim.states;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -57,6 +58,7 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 
 	private StateRecord presentState; // The present state of the entity
 	private final HashMap<String, StateRecord> states;
+	private StateRecord[] stateArray;  // the entries in 'states' that have a state id, indexed by id
 	private final ArrayList<StateEntityListener> stateListeners;
 
 	private long lastStateCollectionTick;
@@ -69,6 +71,15 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 	protected static final String STATE_WORKING = "Working";
 	protected static final String STATE_INACTIVE = "Inactive";
 
+	// The state names used in the code are assigned integer ids that are shared by all entities
+	// and models. Names that are only set by the user are found in the 'states' map instead.
+	private static final HashMap<String, Integer> stateIdMap = new HashMap<>();
+	private static final ArrayList<String> stateNameList = new ArrayList<>();
+
+	protected static final int ID_IDLE = getStateId(STATE_IDLE);
+	protected static final int ID_WORKING = getStateId(STATE_WORKING);
+	protected static final int ID_INACTIVE = getStateId(STATE_INACTIVE);
+
 	protected static final Color4d COL_IDLE = ColourInput.LIGHT_GREY;
 	protected static final Color4d COL_WORKING = ColourInput.GREEN;
 	protected static final Color4d COL_INACTIVE = ColourInput.WHITE;
@@ -88,6 +99,7 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 
 	public StateEntity() {
 		states = new HashMap<>();
+		stateArray = new StateRecord[getNumberOfStateIds()];
 		stateListeners = new ArrayList<>();
 	}
 
@@ -163,12 +175,14 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 			lastStateCollectionTick = getSimTicks();
 		workingTicks = 0;
 		states.clear();
+		Arrays.fill(stateArray, null);
 		useCurrentCycle = false;
 
 		StateRecord init = this.createRecord(getInitialState());
 		init.setStartTick(lastStateCollectionTick);
 		presentState = init;
-		states.put(init.getName(), init);
+		putRecord(init);
+		invalidateOutputs();
 	}
 
 	public void addStateListener(StateEntityListener listener) {
@@ -208,6 +222,57 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 		return STATE_WORKING.equals(state);
 	}
 
+	/**
+	 * Returns the integer id for the specified state name, assigning a new id if required.
+	 * The same id is returned for the name by every entity, so it is intended to be resolved
+	 * once for each state name used in the code and saved in a static field. State names
+	 * entered by the user are not assigned ids.
+	 * @param state - name of the state
+	 * @return id for the state
+	 */
+	protected static int getStateId(String state) {
+		synchronized (stateNameList) {
+			Integer ret = stateIdMap.get(state);
+			if (ret != null)
+				return ret;
+			ret = stateNameList.size();
+			stateNameList.add(state);
+			stateIdMap.put(state, ret);
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the integer id for the specified state name, or -1 if it has not been assigned one.
+	 * @param state - name of the state
+	 * @return id for the state
+	 */
+	private static int findStateId(String state) {
+		synchronized (stateNameList) {
+			Integer ret = stateIdMap.get(state);
+			if (ret == null)
+				return -1;
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the state name for the specified integer id.
+	 * @param id - id returned by getStateId
+	 * @return name of the state
+	 */
+	public static String getStateName(int id) {
+		synchronized (stateNameList) {
+			return stateNameList.get(id);
+		}
+	}
+
+	private static int getNumberOfStateIds() {
+		synchronized (stateNameList) {
+			return stateNameList.size();
+		}
+	}
+
 	@Override
 	public final void setPresentState( String state ) {
 		if (presentState == null)
@@ -222,14 +287,42 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 				error("Specified state: %s is not valid", state);
 
 			nextState = this.createRecord(state);
-			states.put(nextState.getName(), nextState);
+			putRecord(nextState);
 		}
+		setPresentState(nextState);
+	}
 
+	/**
+	 * Sets the present state using the id returned by getStateId. This method avoids the string
+	 * comparisons and hash map look-ups performed for a state name.
+	 * @param id - id for the new state
+	 */
+	public final void setPresentState(int id) {
+		if (presentState == null)
+			this.initStateData();
+
+		if (presentState.getId() == id)
+			return;
+
+		StateRecord nextState = getRecord(id);
+		if (nextState == null) {
+			String state = getStateName(id);
+			if (!isValidState(state))
+				error("Specified state: %s is not valid", state);
+
+			nextState = this.createRecord(state);
+			putRecord(nextState);
+		}
+		setPresentState(nextState);
+	}
+
+	private void setPresentState(StateRecord nextState) {
 		updateStateStats();
 		nextState.setStartTick(lastStateCollectionTick);
 
 		StateRecord prev = presentState;
 		presentState = nextState;
+		invalidateOutputs();
 		stateChanged(prev, presentState);
 	}
 
@@ -242,7 +335,8 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 	 */
 	public void stateChanged(StateRecord prev, StateRecord next) {
 
-		if (isTraceState()) {
+		// The trace file is opened in earlyInit if the TraceState input is TRUE
+		if (stateReportFile != null) {
 			long curTick = EventManager.simTicks();
 			EventManager evt = EventManager.current();
 			double duration = evt.ticksToSeconds(curTick - prev.getStartTick());
@@ -316,7 +410,22 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 	}
 
 	private StateRecord createRecord(String state) {
-		return new StateRecord(state, isValidWorkingState(state));
+		return new StateRecord(state, findStateId(state), isValidWorkingState(state));
+	}
+
+	private StateRecord getRecord(int id) {
+		if (id >= stateArray.length)
+			return null;
+		return stateArray[id];
+	}
+
+	private void putRecord(StateRecord rec) {
+		int id = rec.getId();
+		if (id >= stateArray.length)
+			stateArray = Arrays.copyOf(stateArray, Math.max(id + 1, 2*stateArray.length));
+		if (id >= 0)
+			stateArray[id] = rec;
+		states.put(rec.getName(), rec);
 	}
 
 	public void addState(String str) {
@@ -326,7 +435,7 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 			error("Specified state: %s is not valid", str);
 
 		StateRecord stateRec = this.createRecord(str);
-		states.put(stateRec.getName(), stateRec);
+		putRecord(stateRec);
 	}
 
 	public StateRecord getState(String state) {
@@ -517,7 +626,8 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 	@Output(name = "State",
 	 description = "The present state for the object.",
 	    unitType = DimensionlessUnit.class,
-	    sequence = 0)
+	    sequence = 0,
+	  pure = true)
 	public String getPresentState(double simTime) {
 		if (presentState == null) {
 			return this.getInitialState();
@@ -527,7 +637,8 @@ public abstract class StateEntity extends DisplayEntity implements StateUser {
 
 	@Output(name = "WorkingState",
 	 description = "Returns TRUE if the present state is one of the 'working' states.",
-	    sequence = 1)
+	    sequence = 1,
+	  pure = true)
 	public boolean isWorkingState(double simTime) {
 		if (presentState == null) {
 			return this.isValidWorkingState(this.getInitialState());
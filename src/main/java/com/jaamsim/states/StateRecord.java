@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2018 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package com.jaamsim.states;
 
 public class StateRecord {
 	private final String name;
+	private final int id;
 	private final boolean working;
 	private long initTicks;
 	private long totalTicks;
@@ -26,8 +27,9 @@ public class StateRecord {
 	private long currentCycleTicks;
 	private long startTick;  // clock ticks at which the entity was last set to this state
 
-	StateRecord(String state, boolean work) {
+	StateRecord(String state, int stateId, boolean work) {
 		name = state;
+		id = stateId;
 		working = work;
 	}
 
@@ -60,6 +62,14 @@ public class StateRecord {
 		return name;
 	}
 
+	/**
+	 * Returns the integer identifier for the state's name, or -1 if the name is not one of the
+	 * states used in the code.
+	 */
+	public int getId() {
+		return id;
+	}
+
 	public boolean isWorking() {
 		return working;
 	}
@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +18,14 @@
 package com.jaamsim.video.vp8;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public final class BoolEncoder {
 
-	//private final ArrayList<Byte> data;
-	private final byte[] data;
+	private static final int INITIAL_SIZE = 1 << 16;
+
+	// Grows as needed and is kept when the encoder is reset, so a re-used encoder stops allocating
+	private byte[] data;
 	int pos = 0;
 
 	private int range;
@@ -33,8 +37,19 @@ public final class BoolEncoder {
 	BoolEncoder() {
 		range = 255;
 		bottom = 0;
-		data = new byte[1 << 25]; // 32 MiB buffer for now
+		data = new byte[INITIAL_SIZE];
+		count = 0;
+	}
+
+	/**
+	 * Discards the encoded data so that the encoder can be used for a new stream
+	 */
+	public void reset() {
+		range = 255;
+		bottom = 0;
 		count = 0;
+		pos = 0;
+		canEncode = true;
 	}
 
 	public final void encodeBoolean(boolean b, int prob) {
@@ -61,6 +76,9 @@ public final class BoolEncoder {
 
 			if (++count == 8) {
 				// Write out a byte
+				if (pos == data.length) {
+					data = Arrays.copyOf(data, data.length * 2);
+				}
 				data[pos++] = (byte)((bottom & 0xFF00) >> 8);
 				count = 0;
 				bottom = bottom & 0xFF;
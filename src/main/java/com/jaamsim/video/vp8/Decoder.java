@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -276,12 +277,33 @@ public class Decoder {
 	}
 
 	private void decodePartionInfo(ByteBuffer frameData) throws VP8Exception {
-		numTokenPartitions = p0Dec.getLitUInt(2);
-		if (numTokenPartitions != 0) throw new VP8Exception(String.format("Invalid number of partitions: %d", numTokenPartitions));
+		numTokenPartitions = 1 << p0Dec.getLitUInt(2);
 
-		tokenDecoders = new BoolDecoder[1];
+		tokenDecoders = new BoolDecoder[numTokenPartitions];
 
-		tokenDecoders[0] = new BoolDecoder(frameData);
+		// The sizes of all but the last partition come first, 3 bytes each
+		int sizesPos = frameData.position();
+		int partPos = sizesPos + 3*(numTokenPartitions - 1);
+		if (partPos > frameData.limit()) {
+			throw new VP8Exception("Incomplete frame: missing partition sizes");
+		}
+
+		for (int i = 0; i < numTokenPartitions; ++i) {
+			int partSize = frameData.limit() - partPos;
+			if (i < numTokenPartitions - 1) {
+				int ind = sizesPos + 3*i;
+				partSize = Util.getUByte(frameData, ind) + (Util.getUByte(frameData, ind + 1) << 8) + (Util.getUByte(frameData, ind + 2) << 16);
+			}
+			if (partSize > frameData.limit() - partPos) {
+				throw new VP8Exception(String.format("Incomplete frame: token partition %d expected %d bytes", i, partSize));
+			}
+
+			ByteBuffer partBuffer = frameData.duplicate();
+			partBuffer.position(partPos);
+			partBuffer.limit(partPos + partSize);
+			tokenDecoders[i] = new BoolDecoder(partBuffer.slice());
+			partPos += partSize;
+		}
 	}
 
 	private void decodeDequantHeader() {
@@ -474,7 +496,7 @@ public class Decoder {
 				MBInfo mbi = mbInfos[y*mbCols + x];
 				MBTokens mbt = mbTokens[y*mbCols + x];
 
-				decodeMBTokens(tokenDecoders[0], mbi, mbt, aboveEnts[x], leftEnt);
+				decodeMBTokens(tokenDecoders[y % numTokenPartitions], mbi, mbt, aboveEnts[x], leftEnt);
 
 //				Verifier.demand("COEFFS:");
 //				for (int i = 0; i < 25; ++i) {
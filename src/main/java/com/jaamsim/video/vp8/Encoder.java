@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,17 +20,32 @@ package com.jaamsim.video.vp8;
 import java.awt.image.BufferedImage;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A simple VP8 Encoder, use is to pass a buffered image to encodeFrame() and use the returned
  * ByteBuffer as needed. This class is mostly likely to be used in conjunction with a video container encoder
+ * <p>
+ * The residue data can be split into several token partitions, each of which is encoded on its own thread.
+ * Macroblock row 'j' goes to partition 'j % numPartitions', and each row stays two macroblocks behind the
+ * row above it, as that row supplies the entropy contexts and the prediction edge.
  * @author matt.chudleigh
  *
  */
 public class Encoder {
 
+	private static final int MAX_PARTITIONS = 8;
+
 	private BoolEncoder headerEnc;
-	private BoolEncoder resEnc;
 
 	private YUVImage predImage;
 	private YUVImage encodingImage;
@@ -55,19 +71,21 @@ public class Encoder {
 
 	private boolean keyFrame;
 
-	private short[] temp = new short[16];
-	private short[] coeffs = new short[16];
-	private short[] predictRes = new short[16];
-	private short[] encodedRes = new short[16];
-	private short[] residue = new short[16];
-	private short[] y2Coeffs = new short[16];
-
 	private static class EntTracker {
 		int[] v = new int[9];
 	}
 
 	EntTracker[] aboveEnts;
-	EntTracker leftEnt;
+
+	// Token partitions, and the threads for all but the first one
+	private final int maxPartitions;
+	private int numPartitions;
+	private final PartitionEncoder[] partitions;
+	private ThreadPoolExecutor executor;
+
+	// The number of macroblocks that have been encoded in each row of the current frame
+	private AtomicIntegerArray rowProgress;
+	private volatile boolean aborted;
 
 	PrintWriter encLogger;
 
@@ -80,6 +98,30 @@ public class Encoder {
 //	private long addbackNanos;
 
 	public Encoder() {
+		this(1);
+	}
+
+	/**
+	 * Creates an encoder that uses up to the specified number of threads. The number of token partitions
+	 * is the largest power of two that does not exceed the number of threads or eight.
+	 * @param numThreads - maximum number of threads to encode each frame with
+	 */
+	public Encoder(int numThreads) {
+		int num = 1;
+		while (num*2 <= Math.min(numThreads, MAX_PARTITIONS)) {
+			num *= 2;
+		}
+		maxPartitions = num;
+
+		partitions = new PartitionEncoder[maxPartitions];
+		for (int i = 0; i < maxPartitions; ++i) {
+			partitions[i] = new PartitionEncoder(i);
+		}
+		headerEnc = new BoolEncoder();
+	}
+
+	public int getMaxPartitions() {
+		return maxPartitions;
 	}
 
 	public ByteBuffer encodeFrame(BufferedImage img, boolean forceKeyFrame) {
@@ -105,9 +147,20 @@ public class Encoder {
 //		long convDur = (convImage - start) / 1000000;
 
 		// Initialize the entropy tracker (these are used in residue encoding)
-		aboveEnts = new EntTracker[mbCols];
-		for (int i = 0; i < mbCols; ++i) {
-			aboveEnts[i] = new EntTracker();
+		if (aboveEnts == null || aboveEnts.length != mbCols) {
+			aboveEnts = new EntTracker[mbCols];
+			for (int i = 0; i < mbCols; ++i) {
+				aboveEnts[i] = new EntTracker();
+			}
+		}
+		for (EntTracker ent : aboveEnts) {
+			Arrays.fill(ent.v, 0);
+		}
+
+		// Use as many partitions as there are macroblock rows, up to the maximum
+		numPartitions = maxPartitions;
+		while (numPartitions > mbRows && numPartitions > 1) {
+			numPartitions /= 2;
 		}
 
 		if (keyFrame) {
@@ -115,8 +168,10 @@ public class Encoder {
 		}
 
 		// Encoder for header and residue
-		headerEnc = new BoolEncoder();
-		resEnc = new BoolEncoder();
+		headerEnc.reset();
+		for (int i = 0; i < numPartitions; ++i) {
+			partitions[i].resEnc.reset();
+		}
 
 		if (keyFrame) {
 			// Color space and clamping
@@ -135,7 +190,7 @@ public class Encoder {
 		// LF adjust
 		headerEnc.encodeFlag(false);
 
-		headerEnc.encodeLitUInt(0, 2); // 1 partition
+		headerEnc.encodeLitUInt(Integer.numberOfTrailingZeros(numPartitions), 2); // number of token partitions
 
 		// Quantifier indices
 		headerEnc.encodeLitUInt(0, 7); // Highest fidelity
@@ -223,18 +278,7 @@ public class Encoder {
 //		predNanos = resNanos = transNanos = encNanos = detransNanos = addbackNanos = 0;
 
 
-		for (int j = 0; j < mbRows; ++j) {
-
-			leftEnt = new EntTracker();
-
-			for (int  i= 0; i < mbCols; ++i) {
-				if (keyFrame) {
-					predAndEncodeKeyMB(i, j);
-				} else {
-					predAndEncodeInterMB(i, j);
-				}
-			}
-		}
+		encodePartitions();
 
 //		System.out.println(String.format("p: %d, r: %d, t: %d, e: %d, d: %d, a: %d",
 //				predNanos / 1000000,
@@ -249,9 +293,14 @@ public class Encoder {
 
 
 		ByteBuffer headerStream = headerEnc.getData();
-		ByteBuffer residueStream = resEnc.getData();
+		ByteBuffer[] residueStreams = new ByteBuffer[numPartitions];
+		int residueSize = 3*(numPartitions - 1);
+		for (int i = 0; i < numPartitions; ++i) {
+			residueStreams[i] = partitions[i].resEnc.getData();
+			residueSize += residueStreams[i].capacity();
+		}
 
-		ByteBuffer ret = ByteBuffer.allocate(10 + headerStream.capacity() + residueStream.capacity());
+		ByteBuffer ret = ByteBuffer.allocate(10 + headerStream.capacity() + residueSize);
 
 		assert(headerStream.capacity() < (1 << 19));
 
@@ -281,7 +330,17 @@ public class Encoder {
 		}
 
 		ret.put(headerStream);
-		ret.put(residueStream);
+
+		// The sizes of all but the last partition
+		for (int i = 0; i < numPartitions - 1; ++i) {
+			int size = residueStreams[i].capacity();
+			ret.put((byte)(size & 0xff));
+			ret.put((byte)((size >> 8) & 0xff));
+			ret.put((byte)((size >> 16) & 0xff));
+		}
+		for (ByteBuffer residueStream : residueStreams) {
+			ret.put(residueStream);
+		}
 
 //		long writeout = System.nanoTime();
 //		long writeoutDur = (writeout - generateRes) / 1000000;
@@ -337,295 +396,405 @@ public class Encoder {
 		headerEnc.encodeBoolean(false, prob);
 	}
 
-	private void predAndEncodeKeyMB(int col, int row) {
-		// Use the intra prediction code to fill in the prediction buffer
-
-		int x = col * 16;
-		int y = row * 16;
-		for (int j = 0; j < 4; ++j) {
-			for (int  i= 0; i < 4; ++i) {
-				int subX = x+i*4;
-				int subY = y+j*4;
+	/**
+	 * Encodes the residue for every macroblock, running each token partition after the first on a
+	 * separate thread.
+	 */
+	private void encodePartitions() {
+		if (rowProgress == null || rowProgress.length() != mbRows) {
+			rowProgress = new AtomicIntegerArray(mbRows);
+		}
+		for (int j = 0; j < mbRows; ++j) {
+			rowProgress.set(j, 0);
+		}
+		aborted = false;
 
-				Pred.predictBSubBlock(x, y, subX, subY, Defs.B_DC_PRED, predImage.width, predImage.yPlane);
+		if (numPartitions == 1) {
+			partitions[0].run();
+			return;
+		}
 
-				// Now work out the residue
-				setResidue(subX, subY, encodingImage.yPlane, predImage.yPlane, predImage.width);
+		if (executor == null) {
+			executor = new ThreadPoolExecutor(maxPartitions - 1, maxPartitions - 1, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread ret = new Thread(r, "VP8Encoder");
+					ret.setDaemon(true);
+					return ret;
+				}
+			});
+			executor.allowCoreThreadTimeOut(true);
+		}
 
-				Transform.DCT(residue, coeffs, temp);
+		ArrayList<Future<?>> futures = new ArrayList<>(numPartitions - 1);
+		for (int i = 1; i < numPartitions; ++i) {
+			futures.add(executor.submit(partitions[i]));
+		}
+		partitions[0].run();
 
-				encodeResidue(3, j*4+i, 0, leftEnt, aboveEnts[col], y1DC, y1AC, coeffs);
+		try {
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		}
+		catch (InterruptedException | ExecutionException ex) {
+			aborted = true;
+			throw new RuntimeException(ex);
+		}
+	}
 
-				// Now add the equivalent residue back to the prediction buffer
-				Transform.deDCT(encodedRes, predictRes, temp);
+	/**
+	 * Encodes the macroblock rows that belong to one token partition, along with the per thread scratch data.
+	 */
+	private class PartitionEncoder implements Runnable {
+		private final int index;
+		private final BoolEncoder resEnc = new BoolEncoder();
+		private final EntTracker leftEnt = new EntTracker();
+
+		private final short[] temp = new short[16];
+		private final short[] coeffs = new short[16];
+		private final short[] predictRes = new short[16];
+		private final short[] encodedRes = new short[16];
+		private final short[] residue = new short[16];
+		private final short[] y2Coeffs = new short[16];
+
+		PartitionEncoder(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int j = index; j < mbRows; j += numPartitions) {
+
+					Arrays.fill(leftEnt.v, 0);
+
+					for (int  i= 0; i < mbCols; ++i) {
+						if (j > 0) {
+							waitForRow(j - 1, Math.min(i + 2, mbCols));
+						}
+
+						if (keyFrame) {
+							predAndEncodeKeyMB(i, j);
+						} else {
+							predAndEncodeInterMB(i, j);
+						}
+						rowProgress.set(j, i + 1);
+					}
+				}
+			}
+			catch (RuntimeException ex) {
+				aborted = true;
+				throw ex;
+			}
+		}
 
-				Util.addResidueToPlane(subX, subY, predictRes, predImage.width, predImage.yPlane);
+		// Wait until the specified number of macroblocks have been encoded in a row
+		private void waitForRow(int row, int numMBs) {
+			int spins = 0;
+			while (rowProgress.get(row) < numMBs) {
+				if (aborted) {
+					throw new IllegalStateException("VP8 encoding aborted");
+				}
+				if (++spins < 100) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(10000);
+				}
 			}
 		}
 
-		// On to chroma
-		int chX = x >> 1;
-		int chY = y >> 1;
-		int chromaStride = (predImage.width+1) >> 1;
-		Pred.predictDC(chX, chY, false, chromaStride, predImage.uPlane);
-		Pred.predictDC(chX, chY, false, chromaStride, predImage.vPlane);
+		private void predAndEncodeKeyMB(int col, int row) {
+			// Use the intra prediction code to fill in the prediction buffer
 
-		encodeChroma(col, row, 16, predImage.uPlane, encodingImage.uPlane, predImage.uPlane, chromaStride);
-		encodeChroma(col, row, 20, predImage.vPlane, encodingImage.vPlane, predImage.vPlane, chromaStride);
+			int x = col * 16;
+			int y = row * 16;
+			for (int j = 0; j < 4; ++j) {
+				for (int  i= 0; i < 4; ++i) {
+					int subX = x+i*4;
+					int subY = y+j*4;
 
-	}
+					Pred.predictBSubBlock(x, y, subX, subY, Defs.B_DC_PRED, predImage.width, predImage.yPlane);
 
-	private void encodeChroma(int col, int row, int blockOffset, byte[] predPlane, byte[] encodingPlane, byte[] writeBackPlane, int stride) {
+					// Now work out the residue
+					setResidue(subX, subY, encodingImage.yPlane, predImage.yPlane, predImage.width);
 
-		int chX = col << 3;
-		int chY = row << 3;
-		for (int j = 0; j < 2; ++j) {
-			for (int  i= 0; i < 2; ++i) {
-				int subX = chX+i*4;
-				int subY = chY+j*4;
+					Transform.DCT(residue, coeffs, temp);
 
-				setResidue(subX, subY, encodingPlane, predPlane, stride);
-				Transform.DCT(residue, coeffs, temp);
+					encodeResidue(3, j*4+i, 0, leftEnt, aboveEnts[col], y1DC, y1AC, coeffs);
 
-				encodeResidue(2, j*2+i+blockOffset, 0, leftEnt, aboveEnts[col], uvDC, uvAC, coeffs);
-				//savedCoeffs[nextCoeff++] = encodedRes;
+					// Now add the equivalent residue back to the prediction buffer
+					Transform.deDCT(encodedRes, predictRes, temp);
 
-				// Now add the equivalent residue back to the prediction buffer
-				Transform.deDCT(encodedRes, predictRes, temp);
-				Util.addResidueToPlane(subX, subY, predictRes, stride, writeBackPlane);
+					Util.addResidueToPlane(subX, subY, predictRes, predImage.width, predImage.yPlane);
+				}
 			}
+
+			// On to chroma
+			int chX = x >> 1;
+			int chY = y >> 1;
+			int chromaStride = (predImage.width+1) >> 1;
+			Pred.predictDC(chX, chY, false, chromaStride, predImage.uPlane);
+			Pred.predictDC(chX, chY, false, chromaStride, predImage.vPlane);
+
+			encodeChroma(col, row, 16, predImage.uPlane, encodingImage.uPlane, predImage.uPlane, chromaStride);
+			encodeChroma(col, row, 20, predImage.vPlane, encodingImage.vPlane, predImage.vPlane, chromaStride);
+
 		}
-	}
 
-	private void predAndEncodeInterMB(int col, int row) {
-		// This is zero MV predicted macro block
-		int x = col << 4;
-		int y = row << 4;
-		int chX = col << 3;
-		int chY = row << 3;
-		int yStride = lastImage.width;
-		int chStride = (yStride + 1) >> 1;
-
-		// Copy the last frame into the prediction image
-		for (int j = 0; j < 16; ++j) {
-			int ry = y + j;
-			for (int i = 0; i < 16; ++i) {
-				int rx = x + i;
-				predImage.yPlane[ry*yStride + rx] = lastImage.yPlane[ry*yStride + rx];
+		private void encodeChroma(int col, int row, int blockOffset, byte[] predPlane, byte[] encodingPlane, byte[] writeBackPlane, int stride) {
+
+			int chX = col << 3;
+			int chY = row << 3;
+			for (int j = 0; j < 2; ++j) {
+				for (int  i= 0; i < 2; ++i) {
+					int subX = chX+i*4;
+					int subY = chY+j*4;
+
+					setResidue(subX, subY, encodingPlane, predPlane, stride);
+					Transform.DCT(residue, coeffs, temp);
+
+					encodeResidue(2, j*2+i+blockOffset, 0, leftEnt, aboveEnts[col], uvDC, uvAC, coeffs);
+					//savedCoeffs[nextCoeff++] = encodedRes;
+
+					// Now add the equivalent residue back to the prediction buffer
+					Transform.deDCT(encodedRes, predictRes, temp);
+					Util.addResidueToPlane(subX, subY, predictRes, stride, writeBackPlane);
+				}
 			}
 		}
-		for (int j = 0; j < 8; ++j) {
-			int ry = chY + j;
-			for (int i = 0; i < 8; ++i) {
-				int rx = chX + i;
-				predImage.uPlane[ry*chStride + rx] = lastImage.uPlane[ry*chStride + rx];
-				predImage.vPlane[ry*chStride + rx] = lastImage.vPlane[ry*chStride + rx];
+
+		private void predAndEncodeInterMB(int col, int row) {
+			// This is zero MV predicted macro block
+			int x = col << 4;
+			int y = row << 4;
+			int chX = col << 3;
+			int chY = row << 3;
+			int yStride = lastImage.width;
+			int chStride = (yStride + 1) >> 1;
+
+			// Copy the last frame into the prediction image
+			for (int j = 0; j < 16; ++j) {
+				int ry = y + j;
+				for (int i = 0; i < 16; ++i) {
+					int rx = x + i;
+					predImage.yPlane[ry*yStride + rx] = lastImage.yPlane[ry*yStride + rx];
+				}
+			}
+			for (int j = 0; j < 8; ++j) {
+				int ry = chY + j;
+				for (int i = 0; i < 8; ++i) {
+					int rx = chX + i;
+					predImage.uPlane[ry*chStride + rx] = lastImage.uPlane[ry*chStride + rx];
+					predImage.vPlane[ry*chStride + rx] = lastImage.vPlane[ry*chStride + rx];
+				}
 			}
-		}
 
-		// Now encode the Y2 sub block
-		setY2Coeffs(x, y, encodingImage.yPlane, predImage.yPlane, yStride);
-		Transform.WHT(y2Coeffs, coeffs, temp);
+			// Now encode the Y2 sub block
+			setY2Coeffs(x, y, encodingImage.yPlane, predImage.yPlane, yStride);
+			Transform.WHT(y2Coeffs, coeffs, temp);
 
-		encodeResidue(1, 24, 0, leftEnt, aboveEnts[col], y2DC, y2AC, coeffs);
+			encodeResidue(1, 24, 0, leftEnt, aboveEnts[col], y2DC, y2AC, coeffs);
 
-		// Transform the WHT terms back to pick up any possible rounding problems
-		Transform.deWHT(encodedRes, y2Coeffs, temp);
+			// Transform the WHT terms back to pick up any possible rounding problems
+			Transform.deWHT(encodedRes, y2Coeffs, temp);
 
-		// Now encode the normal Y blocks
-		for (int j = 0; j < 4; ++j) {
-			for (int  i= 0; i < 4; ++i) {
-				int subX = x+i*4;
-				int subY = y+j*4;
+			// Now encode the normal Y blocks
+			for (int j = 0; j < 4; ++j) {
+				for (int  i= 0; i < 4; ++i) {
+					int subX = x+i*4;
+					int subY = y+j*4;
 
-				// Now work out the residue
-				setResidue(subX, subY, encodingImage.yPlane, predImage.yPlane, predImage.width);
+					// Now work out the residue
+					setResidue(subX, subY, encodingImage.yPlane, predImage.yPlane, predImage.width);
 
-				Transform.DCT(residue, coeffs, temp);
+					Transform.DCT(residue, coeffs, temp);
 
-				encodeResidue(0, j*4+i, 1, leftEnt, aboveEnts[col], y1DC, y1AC, coeffs);
+					encodeResidue(0, j*4+i, 1, leftEnt, aboveEnts[col], y1DC, y1AC, coeffs);
 
-				encodedRes[0] = y2Coeffs[j*4+i];
+					encodedRes[0] = y2Coeffs[j*4+i];
 
-				// Now add the equivalent residue back to the prediction buffer
-				Transform.deDCT(encodedRes, predictRes, temp);
+					// Now add the equivalent residue back to the prediction buffer
+					Transform.deDCT(encodedRes, predictRes, temp);
 
-				Util.addResidueToPlane(subX, subY, predictRes, predImage.width, predImage.yPlane);
+					Util.addResidueToPlane(subX, subY, predictRes, predImage.width, predImage.yPlane);
+				}
 			}
-		}
-		// And now chroma
-		encodeChroma(col, row, 16, predImage.uPlane, encodingImage.uPlane, predImage.uPlane, chStride);
-		encodeChroma(col, row, 20, predImage.vPlane, encodingImage.vPlane, predImage.vPlane, chStride);
+			// And now chroma
+			encodeChroma(col, row, 16, predImage.uPlane, encodingImage.uPlane, predImage.uPlane, chStride);
+			encodeChroma(col, row, 20, predImage.vPlane, encodingImage.vPlane, predImage.vPlane, chStride);
 
-	}
+		}
 
-	// Sets the residue private value to the DC values of the 16 Y sub blocks (the input of the Y2 WHT)
-	private void setY2Coeffs(int subX, int subY, byte[] encPlane, byte[] predPlane, int stride) {
-		for (int j = 0; j < 4; ++j) {
-			for (int i = 0; i < 4; ++i) {
-				setResidue(subX+4*i, subY+4*j, encPlane, predPlane, stride);
-				y2Coeffs[4*j+i] = Transform.DCTVal0(residue);
+		// Sets the residue private value to the DC values of the 16 Y sub blocks (the input of the Y2 WHT)
+		private void setY2Coeffs(int subX, int subY, byte[] encPlane, byte[] predPlane, int stride) {
+			for (int j = 0; j < 4; ++j) {
+				for (int i = 0; i < 4; ++i) {
+					setResidue(subX+4*i, subY+4*j, encPlane, predPlane, stride);
+					y2Coeffs[4*j+i] = Transform.DCTVal0(residue);
+				}
 			}
 		}
-	}
 
-	private void setResidue(int subX, int subY, byte[] encPlane, byte[] predPlane, int stride) {
-		for (int j = 0; j < 4; ++j) {
-			for (int  i= 0; i < 4; ++i) {
-				int rx = subX + i;
-				int ry = subY + j;
-				int encVal = Util.getUByte(encPlane, ry*stride + rx);
-				int predVal = Util.getUByte(predPlane, ry*stride + rx);
-				residue[j*4+i] = (short)(encVal - predVal);
+		private void setResidue(int subX, int subY, byte[] encPlane, byte[] predPlane, int stride) {
+			for (int j = 0; j < 4; ++j) {
+				for (int  i= 0; i < 4; ++i) {
+					int rx = subX + i;
+					int ry = subY + j;
+					int encVal = Util.getUByte(encPlane, ry*stride + rx);
+					int predVal = Util.getUByte(predPlane, ry*stride + rx);
+					residue[j*4+i] = (short)(encVal - predVal);
+				}
 			}
 		}
-	}
 
-	private void encodeResidue(int type, int blockInd, int firstCoeff, EntTracker left, EntTracker above, int dcQF, int acQF, short[] residue) {
-		int c = above.v[Defs.BLOCK_TO_ABOVE_ENT[blockInd]] + left.v[Defs.BLOCK_TO_LEFT_ENT[blockInd]];
+		private void encodeResidue(int type, int blockInd, int firstCoeff, EntTracker left, EntTracker above, int dcQF, int acQF, short[] residue) {
+			int c = above.v[Defs.BLOCK_TO_ABOVE_ENT[blockInd]] + left.v[Defs.BLOCK_TO_LEFT_ENT[blockInd]];
 
-		boolean lastTokenZero = false;
-		boolean hasVal = false;
+			boolean lastTokenZero = false;
+			boolean hasVal = false;
 
-		// Reset the encoded residue (we may not visit all values)
-		for (int i = 0; i < 16; ++i) {
-			encodedRes[i] = 0;
-		}
+			// Reset the encoded residue (we may not visit all values)
+			for (int i = 0; i < 16; ++i) {
+				encodedRes[i] = 0;
+			}
 
-		int lastCoeff = -1;
-		for (int i = firstCoeff; i < 16; ++i) {
-			int val = residue[Defs.ZIGZAG[i]] / (i == 0 ? dcQF : acQF);
-			if (val != 0) {
-				lastCoeff = i;
+			int lastCoeff = -1;
+			for (int i = firstCoeff; i < 16; ++i) {
+				int val = residue[Defs.ZIGZAG[i]] / (i == 0 ? dcQF : acQF);
+				if (val != 0) {
+					lastCoeff = i;
+				}
 			}
-		}
 
-		for (int i = firstCoeff; i < 16; ++i) {
-			int b = Defs.BANDS[i];
-			int[] probs = tokenProbs.getProbs(type, b, c);
+			for (int i = firstCoeff; i < 16; ++i) {
+				int b = Defs.BANDS[i];
+				int[] probs = tokenProbs.getProbs(type, b, c);
 
-			if (i > lastCoeff) {
-				// Encode an eob token
-				resEnc.encodeBoolean(false,probs[0]);
-				break;
-			}
-			// val is the value to be encoded
-			int val = residue[Defs.ZIGZAG[i]] / (i == 0 ? dcQF : acQF);
-			encodedRes[Defs.ZIGZAG[i]] = (short)(val * (i == 0 ? dcQF : acQF));
+				if (i > lastCoeff) {
+					// Encode an eob token
+					resEnc.encodeBoolean(false,probs[0]);
+					break;
+				}
+				// val is the value to be encoded
+				int val = residue[Defs.ZIGZAG[i]] / (i == 0 ? dcQF : acQF);
+				encodedRes[Defs.ZIGZAG[i]] = (short)(val * (i == 0 ? dcQF : acQF));
 
-			encodeCoeff(val, probs, lastTokenZero);
+				encodeCoeff(val, probs, lastTokenZero);
 
-			lastTokenZero = (val == 0);
-			if (val == 0) { c = 0; }
-			else if (val == 1 || val == -1) { c = 1; }
-			else { c = 2; }
+				lastTokenZero = (val == 0);
+				if (val == 0) { c = 0; }
+				else if (val == 1 || val == -1) { c = 1; }
+				else { c = 2; }
 
-			if (val != 0) { hasVal = true; }
-		}
+				if (val != 0) { hasVal = true; }
+			}
 
-		int entVal = hasVal ? 1 : 0;
-		above.v[Defs.BLOCK_TO_ABOVE_ENT[blockInd]] = entVal;
-		left.v[Defs.BLOCK_TO_LEFT_ENT[blockInd]] = entVal;
-	}
+			int entVal = hasVal ? 1 : 0;
+			above.v[Defs.BLOCK_TO_ABOVE_ENT[blockInd]] = entVal;
+			left.v[Defs.BLOCK_TO_LEFT_ENT[blockInd]] = entVal;
+		}
 
-	// Hand encode the token tree for now...
-	private void encodeCoeff(int val, int[] probs, boolean lastTokenZero) {
-		boolean isNeg = val < 0;
-		if (isNeg) { val = -val; }
+		// Hand encode the token tree for now...
+		private void encodeCoeff(int val, int[] probs, boolean lastTokenZero) {
+			boolean isNeg = val < 0;
+			if (isNeg) { val = -val; }
 
-		if (val > 2048) val = 2048;
+			if (val > 2048) val = 2048;
 
-		if (!lastTokenZero) {
-			// Bypass the EOB branch
-			resEnc.encodeBoolean(true, probs[0]);
-		}
+			if (!lastTokenZero) {
+				// Bypass the EOB branch
+				resEnc.encodeBoolean(true, probs[0]);
+			}
 
-		if (val == 0) {
-			resEnc.encodeTree(Defs.DCT_0_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			return;
-		}
-		if (val == 1) {
-			resEnc.encodeTree(Defs.DCT_1_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_1");
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
+			if (val == 0) {
+				resEnc.encodeTree(Defs.DCT_0_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				return;
+			}
+			if (val == 1) {
+				resEnc.encodeTree(Defs.DCT_1_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_1");
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
 
-		if (val == 2) {
-			resEnc.encodeTree(Defs.DCT_2_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_2");
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
+			if (val == 2) {
+				resEnc.encodeTree(Defs.DCT_2_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_2");
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
 
-		if (val == 3) {
-			resEnc.encodeTree(Defs.DCT_3_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_3");
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
+			if (val == 3) {
+				resEnc.encodeTree(Defs.DCT_3_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_3");
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
 
-		if (val == 4) {
-			resEnc.encodeTree(Defs.DCT_4_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_4");
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
+			if (val == 4) {
+				resEnc.encodeTree(Defs.DCT_4_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_4");
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
 
-		// Into the variable types
-		if (val <= 6) { // cat1
-			resEnc.encodeTree(Defs.DCT_CAT1_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_CAT1");
-			resEnc.encodeLitWithProbs(val - 5, 1, Defs.CAT1_PROBS);
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
-		if (val <= 10) { // cat2
-			resEnc.encodeTree(Defs.DCT_CAT2_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_CAT2");
-			resEnc.encodeLitWithProbs(val - 7, 2, Defs.CAT2_PROBS);
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
-		if (val <= 18) { // cat3
-			resEnc.encodeTree(Defs.DCT_CAT3_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_CAT3");
-			resEnc.encodeLitWithProbs(val - 11, 3, Defs.CAT3_PROBS);
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
-		if (val <= 34) { // cat4
-			resEnc.encodeTree(Defs.DCT_CAT4_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_CAT4");
-			resEnc.encodeLitWithProbs(val - 19, 4, Defs.CAT4_PROBS);
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
-		if (val <= 66) { // cat5
-			resEnc.encodeTree(Defs.DCT_CAT5_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_CAT5");
-			resEnc.encodeLitWithProbs(val - 35, 5, Defs.CAT5_PROBS);
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
-		}
-		if (val <= 2048) { // cat6
-			resEnc.encodeTree(Defs.DCT_CAT6_VAL, probs, Defs.TOKEN_TREE, 1, 2);
-			//EncLogger.log("DCT_CAT6");
-			resEnc.encodeLitWithProbs(val - 67, 11, Defs.CAT6_PROBS);
-			//EncLogger.log(String.format("VAL: %d", val));
-			resEnc.encodeFlag(isNeg);
-			return;
+			// Into the variable types
+			if (val <= 6) { // cat1
+				resEnc.encodeTree(Defs.DCT_CAT1_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_CAT1");
+				resEnc.encodeLitWithProbs(val - 5, 1, Defs.CAT1_PROBS);
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
+			if (val <= 10) { // cat2
+				resEnc.encodeTree(Defs.DCT_CAT2_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_CAT2");
+				resEnc.encodeLitWithProbs(val - 7, 2, Defs.CAT2_PROBS);
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
+			if (val <= 18) { // cat3
+				resEnc.encodeTree(Defs.DCT_CAT3_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_CAT3");
+				resEnc.encodeLitWithProbs(val - 11, 3, Defs.CAT3_PROBS);
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
+			if (val <= 34) { // cat4
+				resEnc.encodeTree(Defs.DCT_CAT4_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_CAT4");
+				resEnc.encodeLitWithProbs(val - 19, 4, Defs.CAT4_PROBS);
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
+			if (val <= 66) { // cat5
+				resEnc.encodeTree(Defs.DCT_CAT5_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_CAT5");
+				resEnc.encodeLitWithProbs(val - 35, 5, Defs.CAT5_PROBS);
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
+			if (val <= 2048) { // cat6
+				resEnc.encodeTree(Defs.DCT_CAT6_VAL, probs, Defs.TOKEN_TREE, 1, 2);
+				//EncLogger.log("DCT_CAT6");
+				resEnc.encodeLitWithProbs(val - 67, 11, Defs.CAT6_PROBS);
+				//EncLogger.log(String.format("VAL: %d", val));
+				resEnc.encodeFlag(isNeg);
+				return;
+			}
+			assert(false);
 		}
-		assert(false);
 	}
 
 	// debug
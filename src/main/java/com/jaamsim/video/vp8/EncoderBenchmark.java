@@ -0,0 +1,89 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.video.vp8;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+/**
+ * Measures the encoding throughput on synthetic frames. No display is needed.
+ * <p>
+ * Arguments: width height [frames] [threads]
+ */
+public class EncoderBenchmark {
+
+	private static final int NUM_IMAGES = 8;
+	private static final int NUM_WARMUP = 10;
+	private static final int KEY_FRAME_INTERVAL = 100;
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Usage: EncoderBenchmark width height [frames] [threads]");
+			return;
+		}
+		int width = Integer.parseInt(args[0]);
+		int height = Integer.parseInt(args[1]);
+		int numFrames = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		int numThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		BufferedImage[] imgs = new BufferedImage[NUM_IMAGES];
+		for (int i = 0; i < NUM_IMAGES; ++i) {
+			imgs[i] = createFrame(width, height, i*4);
+		}
+
+		Encoder enc = new Encoder(numThreads);
+		for (int i = 0; i < NUM_WARMUP; ++i) {
+			enc.encodeFrame(imgs[i % NUM_IMAGES], i == 0);
+		}
+
+		long numBytes = 0;
+		long startTime = System.nanoTime();
+		for (int i = 0; i < numFrames; ++i) {
+			ByteBuffer frame = enc.encodeFrame(imgs[i % NUM_IMAGES], i % KEY_FRAME_INTERVAL == 0);
+			numBytes += frame.remaining();
+		}
+		double secs = (System.nanoTime() - startTime) / 1.0e9;
+
+		System.out.println(String.format("%dx%d, %d partitions: %.1f frames/s, %.1f ms/frame, %.1f KB/frame",
+				width, height, enc.getMaxPartitions(), numFrames/secs, secs*1000.0d/numFrames,
+				numBytes/1024.0d/numFrames));
+	}
+
+	/**
+	 * Returns a frame with a gradient background and coloured boxes whose positions depend on the
+	 * frame number.
+	 */
+	static BufferedImage createFrame(int width, int height, int frameNum) {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2 = img.createGraphics();
+		g2.setPaint(new GradientPaint(0, 0, new Color(30, 60, 120), width, height, new Color(200, 220, 180)));
+		g2.fillRect(0, 0, width, height);
+		for (int i = 0; i < 40; ++i) {
+			g2.setColor(new Color((i*53) % 256, (i*97) % 256, (i*31) % 256));
+			int x = (i*137 + frameNum*(3 + i%5)) % width;
+			int y = (i*71 + frameNum*(1 + i%3)) % height;
+			g2.fillRect(x, y, 40 + i, 30 + i/2);
+		}
+		g2.setColor(Color.BLACK);
+		g2.drawString("Frame " + frameNum, 20, 20);
+		g2.dispose();
+		return img;
+	}
+}
@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -156,7 +157,7 @@ public class YUVImage {
 
 		// Going to do two passes on this image, one for Y, one for UV as they use different
 		// resolutions
-		DataBufferInt ints = (DataBufferInt)img.getData().getDataBuffer();
+		DataBufferInt ints = (DataBufferInt)img.getRaster().getDataBuffer();
 		int[] rgbs = ints.getData();
 
 
@@ -1,6 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2012 Ausenco Engineering Canada Inc.
+ * Copyright (C) 2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +20,9 @@ package com.jaamsim.xml;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 import javax.xml.parsers.SAXParser;
@@ -35,11 +38,28 @@ import com.jaamsim.ui.LogBox;
 /**
  * A simple DOM like parser that handles arrays of white space separated numbers. This is used by both the COLLADA parser and the
  * JaamSim mesh format parser
+ * <p>
+ * The contents of the double and int array tags are decoded as they are streamed from the file, directly into primitive
+ * arrays, so that the text of a large array is never held in memory as a string. Array tags are not expected to have
+ * child tags.
  * @author matt.chudleigh
  *
  */
 public class XmlParser  extends DefaultHandler{
 
+	private static final int TEXT_CONTENT = 0;
+	private static final int DOUBLE_CONTENT = 1;
+	private static final int INT_CONTENT = 2;
+
+	// Largest array that is allocated in advance from a tag's 'count' attribute
+	private static final int MAX_PRESIZE = 1 << 24;
+
+	// Powers of ten that can be represented exactly as doubles
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
 	private XmlNode rootNode;
 	private XmlNode currentNode;
 
@@ -48,10 +68,18 @@ public class XmlParser  extends DefaultHandler{
 	// The _nodeIDMap is a mapping of fragment IDs to nodes to make data analysis easier
 	private HashMap<String, XmlNode> nodeIDMap = new HashMap<>();
 
-	private List<String> doubleArrayTags;
-	private List<String> intArrayTags;
-	private List<String> stringArrayTags;
-	private List<String> booleanArrayTags;
+	private HashSet<String> doubleArrayTags = new HashSet<>();
+	private HashSet<String> intArrayTags = new HashSet<>();
+	private HashSet<String> stringArrayTags = new HashSet<>();
+	private HashSet<String> booleanArrayTags = new HashSet<>();
+
+	// State for the array that is being streamed from the current tag
+	private int contentType = TEXT_CONTENT;
+	private double[] doubleValues = new double[64];
+	private int[] intValues = new int[64];
+	private int numValues;
+	private char[] token = new char[64];
+	private int tokenLength;
 
 	private URL content;
 
@@ -68,52 +96,55 @@ public class XmlParser  extends DefaultHandler{
 	 * @param arrayNames
 	 */
 	public void setDoubleArrayTags(List<String> arrayNames) {
-		doubleArrayTags = arrayNames;
+		doubleArrayTags = new HashSet<>(arrayNames);
 	}
 	/**
 	 * Sets the list of tags that should have their contents parsed as an array of ints
 	 * @param arrayNames
 	 */
 	public void setIntArrayTags(List<String> arrayNames) {
-		intArrayTags = arrayNames;
+		intArrayTags = new HashSet<>(arrayNames);
 	}
 	/**
 	 * Sets the list of tags that should have their contents parsed as an array of booleans
 	 * @param arrayNames
 	 */
 	public void setBooleanArrayTags(List<String> arrayNames) {
-		booleanArrayTags = arrayNames;
+		booleanArrayTags = new HashSet<>(arrayNames);
 	}
 	/**
 	 * Sets the list of tags that should have their contents parsed as an array of strings
 	 * @param arrayNames
 	 */
 	public void setStringArrayTags(List<String> arrayNames) {
-		stringArrayTags = arrayNames;
+		stringArrayTags = new HashSet<>(arrayNames);
 	}
 
 	public void parse() {
-		InputStream in;
-		try {
-			in = content.openStream();
-		} catch (IOException ex) {
-			throw new RenderException("Can't read " + content);
-		}
-
 		SAXParserFactory factory = SAXParserFactory.newInstance();
 		factory.setValidating(false);
 
-		try {
+		try (InputStream in = openStream()) {
 			SAXParser saxParser = factory.newSAXParser();
 
 			saxParser.parse(in, this);
 
+		} catch (RenderException e) {
+			throw e;
 		} catch (Exception e) {
 			LogBox.renderLogException(e);
 			throw new RenderException(e.getMessage());
 		}
 	}
 
+	private InputStream openStream() {
+		try {
+			return content.openStream();
+		} catch (IOException ex) {
+			throw new RenderException("Can't read " + content);
+		}
+	}
+
 	@Override
 	public void startElement(String uri, String localName, String name, Attributes attributes) throws SAXException {
 
@@ -136,21 +167,56 @@ public class XmlParser  extends DefaultHandler{
 			nodeIDMap.put(fragID, node);
 		}
 		contentBuilder.setLength(0);
+
+		// Prepare to stream the values of a numeric array
+		contentType = TEXT_CONTENT;
+		if (doubleArrayTags.contains(name)) {
+			contentType = DOUBLE_CONTENT;
+		} else if (intArrayTags.contains(name)) {
+			contentType = INT_CONTENT;
+		}
+		numValues = 0;
+		tokenLength = 0;
+		if (contentType != TEXT_CONTENT) {
+			presize(attributes.getValue("count"));
+		}
 	}
 
 	@Override
 	public void characters(char [] ch, int start, int length) throws SAXException {
-		contentBuilder.append(ch, start, length);
+		if (contentType == TEXT_CONTENT) {
+			contentBuilder.append(ch, start, length);
+			return;
+		}
+
+		// A number can be split between two calls, so the last token is completed by the next call
+		int end = start + length;
+		for (int i = start; i < end; ++i) {
+			char c = ch[i];
+			if (isWhitespace(c)) {
+				if (tokenLength > 0)
+					addToken();
+				continue;
+			}
+			if (tokenLength == token.length) {
+				token = Arrays.copyOf(token, token.length * 2);
+			}
+			token[tokenLength++] = c;
+		}
 	}
 
 	@Override
 	public void endElement(String uri, String localName, String name) throws SAXException {
 		// Handle the contents type based on the current nodes tag
 		Object contents;
-		if (doubleArrayTags.contains(name)) {
-			contents = parseDoubleArray();
-		} else if (intArrayTags.contains(name)) {
-			contents = parseIntArray();
+		if (contentType == DOUBLE_CONTENT) {
+			if (tokenLength > 0)
+				addToken();
+			contents = takeDoubleValues();
+		} else if (contentType == INT_CONTENT) {
+			if (tokenLength > 0)
+				addToken();
+			contents = takeIntValues();
 		} else if (booleanArrayTags.contains(name)) {
 			contents = parseBooleanArray();
 		} else if (stringArrayTags.contains(name)) {
@@ -162,6 +228,172 @@ public class XmlParser  extends DefaultHandler{
 		currentNode.setContent(contents);
 		currentNode = currentNode.getParent();
 		contentBuilder.setLength(0);
+		contentType = TEXT_CONTENT;
+	}
+
+	private void presize(String countString) {
+		if (countString == null)
+			return;
+		int count;
+		try {
+			count = Integer.parseInt(countString.trim());
+		}
+		catch (NumberFormatException e) {
+			return;
+		}
+		if (count < 0 || count > MAX_PRESIZE)
+			return;
+
+		if (contentType == DOUBLE_CONTENT && doubleValues.length < count)
+			doubleValues = new double[count];
+		if (contentType == INT_CONTENT && intValues.length < count)
+			intValues = new int[count];
+	}
+
+	private void addToken() {
+		if (contentType == DOUBLE_CONTENT) {
+			if (numValues == doubleValues.length) {
+				doubleValues = Arrays.copyOf(doubleValues, doubleValues.length * 2);
+			}
+			doubleValues[numValues++] = parseDouble(token, tokenLength);
+		}
+		else {
+			if (numValues == intValues.length) {
+				intValues = Arrays.copyOf(intValues, intValues.length * 2);
+			}
+			intValues[numValues++] = parseInt(token, tokenLength);
+		}
+		tokenLength = 0;
+	}
+
+	private double[] takeDoubleValues() {
+		// An array that was filled exactly is handed over rather than copied
+		if (numValues == doubleValues.length && numValues > 0) {
+			double[] ret = doubleValues;
+			doubleValues = new double[64];
+			return ret;
+		}
+		return Arrays.copyOf(doubleValues, numValues);
+	}
+
+	private int[] takeIntValues() {
+		if (numValues == intValues.length && numValues > 0) {
+			int[] ret = intValues;
+			intValues = new int[64];
+			return ret;
+		}
+		return Arrays.copyOf(intValues, numValues);
+	}
+
+	/**
+	 * Returns the double value of the specified characters. Decimal numbers with no more than
+	 * 15 significant digits and a small exponent are converted directly, which gives the same
+	 * result as Double.parseDouble because only a single, correctly rounded operation is needed.
+	 * Any other text is passed to Double.parseDouble.
+	 */
+	static double parseDouble(char[] s, int len) {
+		int i = 0;
+		boolean neg = false;
+		if (i < len && (s[i] == '-' || s[i] == '+')) {
+			neg = s[i] == '-';
+			i++;
+		}
+
+		long mant = 0;
+		int numDigits = 0;  // significant digits in the mantissa
+		int exp = 0;
+		boolean hasDigits = false;
+		for (; i < len; i++) {
+			char c = s[i];
+			if (c < '0' || c > '9')
+				break;
+			hasDigits = true;
+			if (mant == 0 && c == '0')
+				continue;
+			mant = mant*10 + (c - '0');
+			numDigits++;
+			if (numDigits > 15)
+				return slowParseDouble(s, len);
+		}
+		if (i < len && s[i] == '.') {
+			i++;
+			for (; i < len; i++) {
+				char c = s[i];
+				if (c < '0' || c > '9')
+					break;
+				hasDigits = true;
+				exp--;
+				if (mant == 0 && c == '0')
+					continue;
+				mant = mant*10 + (c - '0');
+				numDigits++;
+				if (numDigits > 15)
+					return slowParseDouble(s, len);
+			}
+		}
+		if (!hasDigits)
+			return slowParseDouble(s, len);
+
+		if (i < len && (s[i] == 'e' || s[i] == 'E')) {
+			i++;
+			boolean negExp = false;
+			if (i < len && (s[i] == '-' || s[i] == '+')) {
+				negExp = s[i] == '-';
+				i++;
+			}
+			if (i == len)
+				return slowParseDouble(s, len);
+			int e = 0;
+			for (; i < len; i++) {
+				char c = s[i];
+				if (c < '0' || c > '9' || e > 1000)
+					return slowParseDouble(s, len);
+				e = e*10 + (c - '0');
+			}
+			exp += negExp ? -e : e;
+		}
+		if (i < len)
+			return slowParseDouble(s, len);
+
+		double ret;
+		if (mant == 0) {
+			ret = 0.0d;
+		} else if (exp >= 0 && exp < POW10.length) {
+			ret = mant * POW10[exp];
+		} else if (exp < 0 && -exp < POW10.length) {
+			ret = mant / POW10[-exp];
+		} else {
+			return slowParseDouble(s, len);
+		}
+		return neg ? -ret : ret;
+	}
+
+	private static double slowParseDouble(char[] s, int len) {
+		return Double.parseDouble(new String(s, 0, len));
+	}
+
+	/**
+	 * Returns the int value of the specified characters. Any text that is not a plain decimal
+	 * integer is passed to Integer.parseInt.
+	 */
+	static int parseInt(char[] s, int len) {
+		int i = 0;
+		boolean neg = false;
+		if (i < len && (s[i] == '-' || s[i] == '+')) {
+			neg = s[i] == '-';
+			i++;
+		}
+		if (i == len || len - i > 9)
+			return Integer.parseInt(new String(s, 0, len));
+
+		int ret = 0;
+		for (; i < len; i++) {
+			char c = s[i];
+			if (c < '0' || c > '9')
+				return Integer.parseInt(new String(s, 0, len));
+			ret = ret*10 + (c - '0');
+		}
+		return neg ? -ret : ret;
 	}
 
 	// return the number of 'words' in the contents
@@ -188,7 +420,7 @@ public class XmlParser  extends DefaultHandler{
 	}
 
 	private static final boolean isWhitespace(char c) {
-		return (c == ' ' || c == '\t' || c == '\n');
+		return (c == ' ' || c == '\t' || c == '\n' || c == '\r');
 	}
 
 	private int parsePos = 0;
@@ -214,31 +446,6 @@ public class XmlParser  extends DefaultHandler{
 		return ret.toString();
 	}
 
-	private double[] parseDoubleArray() {
-
-		int numWords = wordCount();
-		parsePos = 0;
-
-		double[] ret = new double[numWords];
-		for (int i = 0; i < numWords; ++i) {
-			String val = getWord();
-			ret[i] = Double.parseDouble(val);
-		}
-		return ret;
-	}
-
-	private int[] parseIntArray() {
-		int numWords = wordCount();
-		parsePos = 0;
-
-		int[] ret = new int[numWords];
-		for (int i = 0; i < numWords; ++i) {
-			String val = getWord();
-			ret[i] = Integer.parseInt(val);
-		}
-		return ret;
-	}
-
 	private boolean[] parseBooleanArray() {
 
 		int numWords = wordCount();
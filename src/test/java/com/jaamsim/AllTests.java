@@ -40,6 +40,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	com.jaamsim.math.TestInterners.class,
 	com.jaamsim.rng.TestMRG1999a.class,
 	com.jaamsim.video.vp8.TestBoolEncoder.class,
+	com.jaamsim.video.vp8.TestEncoder.class,
 	com.jaamsim.video.vp8.TestTransforms.class,
 	com.jaamsim.video.vp8.TestYUV.class,
 	com.jaamsim.input.TestKeyedVec3dCurve.class,
@@ -49,6 +50,13 @@ import org.junit.runners.Suite.SuiteClasses;
 	com.jaamsim.basicsim.TestSimulation.class,
 	com.jaamsim.basicsim.TestSimCalendar.class,
 	com.jaamsim.basicsim.TestEntityDefinitions.class,
+	com.jaamsim.basicsim.TestEntityIterator.class,
+	com.jaamsim.basicsim.TestBinaryEventTrace.class,
+	com.jaamsim.basicsim.TestColumnFile.class,
+	com.jaamsim.controllers.TestProxyGatherer.class,
+	com.jaamsim.render.TestSceneBVH.class,
+	com.jaamsim.render.TestLRUCache.class,
+	com.jaamsim.render.TestMeshDataCache.class,
 	com.jaamsim.probability.TestContinuousDistribution.class,
 	com.jaamsim.probability.TestDiscreteDistribution.class,
 	com.jaamsim.probability.TestErlangDistribution.class,
@@ -66,6 +74,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	com.jaamsim.probability.TestStudentsTDistribution.class,
 	com.jaamsim.MeshFiles.TestVertexMap.class,
 	com.jaamsim.MeshFiles.TestDataBlocks.class,
+	com.jaamsim.GLTF.TestGLTFReader.class,
+	com.jaamsim.xml.TestXmlParser.class,
 	com.jaamsim.Graphics.TestPolylineInfo.class,
 	com.jaamsim.Statistics.TestStatistics.class,
 	com.jaamsim.BasicObjects.TestFileToVector.class,
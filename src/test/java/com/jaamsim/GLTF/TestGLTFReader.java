@@ -0,0 +1,295 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.GLTF;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.jaamsim.MeshFiles.MeshData;
+import com.jaamsim.math.Vec3d;
+import com.jaamsim.render.RenderException;
+
+public class TestGLTFReader {
+
+	private static final int INT8 = 5120;
+	private static final int UINT8 = 5121;
+	private static final int INT16 = 5122;
+	private static final int UINT16 = 5123;
+	private static final int UINT32 = 5125;
+	private static final int FLOAT32 = 5126;
+
+	private static final Vec3d[] TRI_A = {new Vec3d(0, 0, 0), new Vec3d(1, 0, 0), new Vec3d(0, 1, 0)};
+	private static final Vec3d[] TRI_B = {new Vec3d(0, 0, 1), new Vec3d(2, 0, 1), new Vec3d(0, 2, 1)};
+
+	/**
+	 * Builds a glTF fixture with an external binary buffer. Each buffer view, accessor and
+	 * mesh primitive is added in turn, and the indices returned are used to refer to them.
+	 */
+	private static class Fixture {
+		final ByteBuffer bin = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+		final ArrayList<String> views = new ArrayList<>();
+		final ArrayList<String> accessors = new ArrayList<>();
+		final ArrayList<String> primitives = new ArrayList<>();
+		String sceneNodes = "[0]";
+		String nodes = "{\"mesh\": 0}";
+
+		// Starts a buffer view at the next 4 byte boundary
+		int startView() {
+			while (bin.position() % 4 != 0) {
+				bin.put((byte) 0);
+			}
+			return bin.position();
+		}
+
+		int endView(int start, int stride) {
+			String strideText = (stride == 0) ? "" : String.format(", \"byteStride\": %d", stride);
+			views.add(String.format("{\"buffer\": 0, \"byteOffset\": %d, \"byteLength\": %d%s}",
+					start, bin.position() - start, strideText));
+			return views.size() - 1;
+		}
+
+		// Adds a buffer view containing the specified integers, each padded to the stride
+		int addIntView(int compType, int stride, int... vals) {
+			int start = startView();
+			int size = getSize(compType);
+			for (int val : vals) {
+				int pos = bin.position();
+				putInt(bin, compType, val);
+				while (bin.position() < pos + Math.max(stride, size)) {
+					bin.put((byte) 0);
+				}
+			}
+			return endView(start, stride);
+		}
+
+		int addFloatView(int stride, float... vals) {
+			int start = startView();
+			for (float val : vals) {
+				bin.putFloat(val);
+			}
+			return endView(start, stride);
+		}
+
+		int addAccessor(int view, int offset, int compType, String type, int count, String extra) {
+			StringBuilder sb = new StringBuilder("{");
+			sb.append(String.format("\"bufferView\": %d, \"byteOffset\": %d, ", view, offset));
+			sb.append(String.format("\"componentType\": %d, \"type\": \"%s\", \"count\": %d", compType, type, count));
+			if (extra != null)
+				sb.append(", ").append(extra);
+			sb.append("}");
+			accessors.add(sb.toString());
+			return accessors.size() - 1;
+		}
+
+		int addPositions(int view, int offset, int count, Vec3d min, Vec3d max) {
+			String extra = String.format("\"min\": [%s, %s, %s], \"max\": [%s, %s, %s]",
+					min.x, min.y, min.z, max.x, max.y, max.z);
+			return addAccessor(view, offset, FLOAT32, "VEC3", count, extra);
+		}
+
+		void addPrimitive(int pos, Integer norm, Integer indices) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("{\"attributes\": {\"POSITION\": %d", pos));
+			if (norm != null)
+				sb.append(String.format(", \"NORMAL\": %d", norm));
+			sb.append("}");
+			if (indices != null)
+				sb.append(String.format(", \"indices\": %d", indices));
+			sb.append(", \"material\": 0}");
+			primitives.add(sb.toString());
+		}
+
+		MeshData parse(File dir) throws IOException {
+			File binFile = new File(dir, "fixture.bin");
+			try (FileOutputStream out = new FileOutputStream(binFile)) {
+				out.write(bin.array(), 0, bin.position());
+			}
+
+			StringBuilder sb = new StringBuilder();
+			sb.append("{\"asset\": {\"version\": \"2.0\"}, \"scene\": 0, ");
+			sb.append("\"scenes\": [{\"nodes\": ").append(sceneNodes).append("}], ");
+			sb.append("\"nodes\": [").append(nodes).append("], ");
+			sb.append("\"meshes\": [{\"primitives\": [").append(String.join(", ", primitives)).append("]}], ");
+			sb.append("\"materials\": [{\"pbrMetallicRoughness\": {\"baseColorTexture\": {\"index\": 0}}}], ");
+			sb.append("\"textures\": [{\"source\": 0}], \"images\": [{\"uri\": \"fixture.png\"}], ");
+			sb.append(String.format("\"buffers\": [{\"uri\": \"fixture.bin\", \"byteLength\": %d}], ", bin.position()));
+			sb.append("\"bufferViews\": [").append(String.join(", ", views)).append("], ");
+			sb.append("\"accessors\": [").append(String.join(", ", accessors)).append("]}");
+
+			File gltfFile = new File(dir, "fixture.gltf");
+			Files.write(gltfFile.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+			try {
+				return GLTFReader.parseGLTF(gltfFile.toURI());
+			} finally {
+				gltfFile.delete();
+				binFile.delete();
+			}
+		}
+	}
+
+	private static int getSize(int compType) {
+		switch (compType) {
+		case INT8:
+		case UINT8:
+			return 1;
+		case INT16:
+		case UINT16:
+			return 2;
+		default:
+			return 4;
+		}
+	}
+
+	private static void putInt(ByteBuffer buff, int compType, int val) {
+		switch (getSize(compType)) {
+		case 1:
+			buff.put((byte) val);
+			break;
+		case 2:
+			buff.putShort((short) val);
+			break;
+		default:
+			buff.putInt(val);
+		}
+	}
+
+	// Checks that the sub mesh is the specified triangle, given in its original order
+	private static void assertTriangle(MeshData data, int subMesh, Vec3d... tri) {
+		MeshData.SubMeshData sub = data.getSubMeshData().get(subMesh);
+		assertTrue(sub.indices.length == 3);
+		for (int i = 0; i < 3; i++) {
+			assertTrue(sub.verts.get(sub.indices[i]).near3(tri[i]));
+		}
+	}
+
+	@Test
+	public void testAccessors() throws IOException {
+		Fixture fix = new Fixture();
+		Vec3d zero = new Vec3d();
+		Vec3d one = new Vec3d(1, 1, 0);
+
+		// Positions interleaved with normals, and tightly packed positions
+		int interleaved = fix.addFloatView(24,
+				0, 0, 0,  0, 0, 1,
+				1, 0, 0,  0, 0, 1,
+				0, 1, 0,  0, 0, 1);
+		int packed = fix.addFloatView(0,
+				0, 0, 1,
+				2, 0, 1,
+				0, 2, 1);
+		int posA = fix.addPositions(interleaved, 0, 3, zero, one);
+		int normA = fix.addAccessor(interleaved, 12, FLOAT32, "VEC3", 3, null);
+		int posB = fix.addPositions(packed, 0, 3, new Vec3d(0, 0, 1), new Vec3d(2, 2, 1));
+
+		// Indices of each component type, both tightly packed and strided
+		int[] compTypes = {INT8, UINT8, INT16, UINT16, UINT32};
+		int numTypes = compTypes.length;
+		for (int compType : compTypes) {
+			int view = fix.addIntView(compType, 0, 0, 1, 2);
+			fix.addPrimitive(posA, normA, fix.addAccessor(view, 0, compType, "SCALAR", 3, null));
+		}
+		for (int compType : compTypes) {
+			int view = fix.addIntView(compType, 8, 1, 2, 0);
+			fix.addPrimitive(posA, normA, fix.addAccessor(view, 0, compType, "SCALAR", 3, null));
+		}
+
+		// Accessor offset within a buffer view and generated normals
+		int offsetView = fix.addIntView(UINT16, 0, 7, 2, 1, 0);
+		fix.addPrimitive(posA, null, fix.addAccessor(offsetView, 2, UINT16, "SCALAR", 3, null));
+		fix.addPrimitive(posB, null, null);
+
+		File dir = Files.createTempDirectory("jaamsim").toFile();
+		MeshData data = fix.parse(dir);
+		assertTrue(dir.delete());
+		assertTrue(data.getSubMeshData().size() == fix.primitives.size());
+
+		int subMesh = 0;
+		for (int i = 0; i < numTypes; i++) {
+			assertTriangle(data, subMesh++, TRI_A[0], TRI_A[1], TRI_A[2]);
+		}
+		for (int i = 0; i < numTypes; i++) {
+			assertTriangle(data, subMesh++, TRI_A[1], TRI_A[2], TRI_A[0]);
+		}
+		assertTriangle(data, subMesh++, TRI_A[2], TRI_A[1], TRI_A[0]);
+		assertTriangle(data, subMesh++, TRI_B[0], TRI_B[1], TRI_B[2]);
+
+		// The normals are read from the interleaved buffer view
+		MeshData.SubMeshData sub = data.getSubMeshData().get(0);
+		for (Vec3d norm : sub.normals) {
+			assertTrue(norm.near3(new Vec3d(0, 0, 1)));
+		}
+	}
+
+	@Test
+	public void testLargeIndex() throws IOException {
+		Fixture fix = new Fixture();
+		int view = fix.addFloatView(0,
+				0, 0, 0,
+				1, 0, 0,
+				0, 1, 0);
+		int pos = fix.addPositions(view, 0, 3, new Vec3d(), new Vec3d(1, 1, 0));
+
+		// A uint32 index that does not fit in an int is an error in the bulk copy
+		int inds = fix.addIntView(UINT32, 0, 0, 0x80000000, 2);
+		fix.addPrimitive(pos, null, fix.addAccessor(inds, 0, UINT32, "SCALAR", 3, null));
+
+		File dir = Files.createTempDirectory("jaamsim").toFile();
+		String msg = null;
+		try {
+			fix.parse(dir);
+		} catch (RenderException e) {
+			msg = e.getMessage();
+		}
+		assertTrue(dir.delete());
+		assertTrue(msg != null && msg.contains("2147483648"));
+	}
+
+	@Test
+	public void testSharedMesh() throws IOException {
+		Fixture fix = new Fixture();
+		int view = fix.addFloatView(0,
+				0, 0, 0,
+				1, 0, 0,
+				0, 1, 0);
+		fix.addPrimitive(fix.addPositions(view, 0, 3, new Vec3d(), new Vec3d(1, 1, 0)), null, null);
+
+		// Two scene roots, each with a child that uses the same mesh
+		fix.sceneNodes = "[0, 1]";
+		fix.nodes = "{\"children\": [2]}, {\"children\": [3]}, "
+				+ "{\"mesh\": 0}, {\"mesh\": 0, \"translation\": [5, 0, 0]}";
+
+		File dir = Files.createTempDirectory("jaamsim").toFile();
+		MeshData data = fix.parse(dir);
+		assertTrue(dir.delete());
+
+		// The mesh is decoded once and used by both instances
+		assertTrue(data.getSubMeshData().size() == 1);
+		assertTriangle(data, 0, TRI_A[0], TRI_A[1], TRI_A[2]);
+		assertTrue(data.getNumSubInstances() == 2);
+	}
+
+}
@@ -20,9 +20,14 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
 
 import org.junit.Test;
 
+import com.jaamsim.collada.ColParser;
+
 public class TestDataBlocks {
 
 	@Test
@@ -256,4 +261,35 @@ public class TestDataBlocks {
 			assertTrue(grandChild.readDouble() == i * 16000);
 		}
 	}
+
+	@Test
+	public void testFileMesh() throws Throwable {
+		MeshData data;
+		ColParser.setKeepData(true);
+		try {
+			data = ColParser.parse(TestDataBlocks.class.getResource("/resources/shapes/cube.dae").toURI());
+		}
+		finally {
+			ColParser.setKeepData(false);
+		}
+
+		File file = File.createTempFile("TestDataBlocks", ".jsb");
+		file.deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			BlockWriter.writeBlock(out, data.getDataAsBlock());
+		}
+
+		MeshData fileData = BlockReader.parse(file.toURI());
+		assertTrue(fileData.getSubMeshData().size() == data.getSubMeshData().size());
+		for (int i = 0; i < data.getSubMeshData().size(); i++) {
+			MeshData.SubMeshData expected = data.getSubMeshData().get(i);
+			MeshData.SubMeshData actual = fileData.getSubMeshData().get(i);
+			assertTrue(actual.verts.size() == expected.verts.size());
+			for (int j = 0; j < expected.verts.size(); j++) {
+				assertTrue(actual.verts.get(j).equals3(expected.verts.get(j)));
+				assertTrue(actual.normals.get(j).equals3(expected.normals.get(j)));
+			}
+			assertTrue(Arrays.equals(actual.indices, expected.indices));
+		}
+	}
 }
@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2018-2021 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,9 @@ package com.jaamsim.Statistics;
 
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.Test;
 
 import com.jaamsim.math.MathUtils;
@@ -129,4 +132,85 @@ public class TestStatistics {
 		assertTrue(MathUtils.near(freq.getBinFractions(22.0d)[9], 0.15d));
 	}
 
+	@Test
+	public void testQuantileSketch() {
+		Random rand = new Random(12345L);
+		int num = 100000;
+		double[] vals = new double[num];
+		QuantileSketch sketch = new QuantileSketch();
+		QuantileSketch part1 = new QuantileSketch();
+		QuantileSketch part2 = new QuantileSketch();
+		for (int i = 0; i < num; i++) {
+			vals[i] = Math.exp(rand.nextGaussian()*2.0d) - 1.0d;
+			sketch.addValue(vals[i]);
+			if (i % 3 == 0)
+				part1.addValue(vals[i]);
+			else
+				part2.addValue(vals[i]);
+		}
+		Arrays.sort(vals);
+
+		// Each quantile is within the relative accuracy of a value with the same rank
+		part1.merge(part2);
+		double[] qs = {0.01d, 0.1d, 0.25d, 0.5d, 0.9d, 0.95d, 0.99d, 0.999d};
+		for (double q : qs) {
+			double exact = vals[(int) Math.ceil(q*num) - 1];
+			double est = sketch.getQuantile(q);
+			assertTrue(Math.abs(est - exact) <= 0.0101d*Math.abs(exact));
+			assertTrue(part1.getQuantile(q) == est);
+		}
+		assertTrue(sketch.getQuantile(0.0d) == vals[0]);
+		assertTrue(sketch.getQuantile(1.0d) == vals[num - 1]);
+		assertTrue(sketch.getCount() == num);
+		assertTrue(part1.getCount() == num);
+
+		// The number of bins is bounded, the smallest values are combined
+		QuantileSketch small = new QuantileSketch(0.01d, 100);
+		for (int i = 0; i < 1000; i++) {
+			small.addValue(Math.pow(1.1d, i));
+		}
+		assertTrue(small.getNumBins() <= 100);
+		assertTrue(Math.abs(small.getQuantile(0.99d)/Math.pow(1.1d, 989) - 1.0d) <= 0.0101d);
+
+		// Weighted values
+		QuantileSketch weighted = new QuantileSketch();
+		weighted.addValue(2.0d, 3.0d);
+		weighted.addValue(0.0d, 1.0d);
+		weighted.addValue(-5.0d, 1.0d);
+		weighted.addValue(10.0d, 5.0d);
+		assertTrue(weighted.getCount() == 10.0d);
+		assertTrue(weighted.getQuantile(0.1d) == -5.0d);
+		assertTrue(weighted.getQuantile(0.2d) == 0.0d);
+		assertTrue(Math.abs(weighted.getQuantile(0.5d) - 2.0d) <= 0.02d);
+		assertTrue(Math.abs(weighted.getQuantile(0.51d) - 10.0d) <= 0.1d);
+		weighted.clear();
+		assertTrue(Double.isNaN(weighted.getQuantile(0.5d)));
+	}
+
+	@Test
+	public void testQuantileWithFurtherValue() {
+		Random rand = new Random(54321L);
+		double[] qs = {0.0d, 0.01d, 0.1d, 0.25d, 0.5d, 0.75d, 0.9d, 0.99d, 1.0d};
+		double[] extras = {Double.NaN, 0.0d, 1.0e-6d, 0.5d, 3.0d, 1.0e6d, -0.5d, -1.0e6d};
+		for (int max : new int[] {2048, 20}) {
+			QuantileSketch sketch = new QuantileSketch(0.01d, max);
+
+			// The result is the same as for a copy that includes the further value
+			for (int n = 0; n < 200; n++) {
+				for (double val : extras) {
+					double weight = rand.nextDouble()*5.0d;
+					QuantileSketch copy = new QuantileSketch(sketch);
+					copy.addValue(val, weight);
+					for (double q : qs) {
+						double expected = copy.getQuantile(q);
+						double actual = sketch.getQuantile(q, val, weight);
+						assertTrue(Double.compare(expected, actual) == 0);
+					}
+				}
+				double v = Math.exp(rand.nextGaussian()*3.0d) - 1.0d;
+				sketch.addValue(v, rand.nextDouble());
+			}
+		}
+	}
+
 }
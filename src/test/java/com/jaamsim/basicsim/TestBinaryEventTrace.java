@@ -0,0 +1,131 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.jaamsim.events.EventTraceListener;
+import com.jaamsim.events.TestFrameworkHelpers;
+
+public class TestBinaryEventTrace {
+
+	private static JaamSimModel buildModel(String iat) {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+		simModel.defineEntity("SimEntity", "Proto");
+		simModel.defineEntity("EntityGenerator", "Gen");
+		simModel.defineEntity("EntitySink", "Sink");
+		simModel.setInput("Gen", "PrototypeEntity", "Proto");
+		simModel.setInput("Gen", "NextComponent", "Sink");
+		simModel.setInput("Gen", "InterArrivalTime", iat);
+		simModel.setInput("Simulation", "RunDuration", "100 s");
+		return simModel;
+	}
+
+	private static void runModel(JaamSimModel simModel, EventTraceListener trc) {
+		simModel.getEventManager().setTraceListener(trc);
+		simModel.initRun();
+		TestFrameworkHelpers.runEventsToTick(simModel.getEventManager(), Long.MAX_VALUE, 1000);
+		simModel.getEventManager().setTraceListener(null);
+	}
+
+	@Test
+	public void testRecordAndVerify() throws IOException {
+		File evtFile = File.createTempFile("TestBinaryEventTrace", ".evb");
+		evtFile.deleteOnExit();
+
+		BinaryEventRecorder rec = new BinaryEventRecorder(evtFile.getPath());
+		runModel(buildModel("2 s"), rec);
+		rec.close();
+		assertTrue(evtFile.length() > 0);
+
+		// An identical model matches the trace
+		BinaryEventTracer trc = new BinaryEventTracer(evtFile.getPath());
+		runModel(buildModel("2 s"), trc);
+		trc.close();
+		assertTrue(trc.getNumErrors() == 0);
+		assertTrue(trc.getNumTicksVerified() > 50);
+
+		// A different model is detected
+		trc = new BinaryEventTracer(evtFile.getPath());
+		runModel(buildModel("3 s"), trc);
+		trc.close();
+		assertTrue(trc.getNumErrors() == 1);
+	}
+
+	@Test
+	public void testRecordHash() {
+		BinaryTraceRecord rec1 = new BinaryTraceRecord();
+		rec1.add(BinaryTraceRecord.EVENT, 0, 10L, 5, "Gen.startProcess");
+		rec1.add(BinaryTraceRecord.WAIT, 0, 20L, 5, "Gen:doProcess");
+
+		BinaryTraceRecord rec2 = new BinaryTraceRecord();
+		rec2.add(BinaryTraceRecord.EVENT, 0, 10L, 5, "Gen.startProcess");
+		rec2.add(BinaryTraceRecord.WAIT, 0, 20L, 5, "Gen:doProcess");
+		assertTrue(rec1.hash() == rec2.hash());
+
+		rec2.clear();
+		rec2.add(BinaryTraceRecord.EVENT, 0, 10L, 5, "Gen.startProcess");
+		rec2.add(BinaryTraceRecord.WAIT, 0, 21L, 5, "Gen:doProcess");
+		assertTrue(rec1.hash() != rec2.hash());
+
+		assertTrue(BinaryTraceRecord.getLine(BinaryTraceRecord.WAIT, 1, 20L, 5, "Gen:doProcess")
+				.equals("\tWait\t20\t5\tGen:doProcess"));
+	}
+
+	@Test
+	public void testSyncAfterFlush() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream slowOut = new ByteArrayOutputStream() {
+			@Override
+			public void write(byte[] b, int off, int len) {
+				synchronized (bytes) {
+					bytes.write(b, off, len);
+				}
+			}
+			@Override
+			public void flush() {
+				try {
+					Thread.sleep(1L);
+				}
+				catch (InterruptedException e) {}
+			}
+		};
+
+		// Each sync waits for the data written after a flush that may still be in progress
+		AsyncOutputStream out = new AsyncOutputStream(slowOut, "TestSync", 16, 4, 0L);
+		int num = 0;
+		for (int i = 0; i < 200; i++) {
+			out.write(1);
+			out.flush();
+			out.write(2);
+			out.sync();
+			num += 2;
+			synchronized (bytes) {
+				assertTrue(bytes.size() == num);
+			}
+		}
+		out.close();
+	}
+
+}
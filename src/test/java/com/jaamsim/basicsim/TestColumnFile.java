@@ -0,0 +1,148 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TestColumnFile {
+
+	private static void writeAndRead(boolean async) throws IOException {
+		File f = File.createTempFile("TestColumnFile", ".jsc");
+		f.deleteOnExit();
+
+		// Use a small chunk size so that several chunks are written
+		ColumnFileWriter writer = new ColumnFileWriter(f, async, 7);
+		int timeCol = writer.addDoubleColumn("SimTime");
+		int stateCol = writer.addStringColumn("State");
+		int valCol = writer.addDoubleColumn("Value");
+		int n = 100;
+		for (int i = 0; i < n; i++) {
+			writer.setDouble(timeCol, i * 0.5d);
+			writer.setString(stateCol, (i % 3 == 0) ? "Idle" : (i % 3 == 1) ? "Working" : null);
+			writer.setDouble(valCol, (i == 50) ? Double.NaN : i * i);
+			writer.endRow();
+		}
+		assertTrue(writer.getNumRows() == n);
+		writer.close();
+
+		ColumnFileReader reader = new ColumnFileReader(f);
+		assertTrue(reader.getNumColumns() == 3);
+		assertTrue(reader.getNumRows() == n);
+		assertTrue(reader.getColumnName(1).equals("State"));
+		assertTrue(reader.getColumnType(1) == ColumnFileWriter.STRING);
+		assertTrue(reader.getColumnIndex("Value") == 2);
+		for (int i = 0; i < n; i++) {
+			assertTrue(reader.getDouble(0, i) == i * 0.5d);
+			if (i % 3 == 0)
+				assertTrue(reader.getString(1, i).equals("Idle"));
+			else if (i % 3 == 1)
+				assertTrue(reader.getString(1, i).equals("Working"));
+			else
+				assertTrue(reader.getString(1, i) == null);
+			if (i == 50)
+				assertTrue(Double.isNaN(reader.getDouble(2, i)));
+			else
+				assertTrue(reader.getDouble(2, i) == i * i);
+		}
+		assertTrue(reader.getDoubleColumn(0).length == n);
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		writeAndRead(false);
+	}
+
+	@Test
+	public void testAsyncRoundTrip() throws IOException {
+		writeAndRead(true);
+	}
+
+	@Test
+	public void testUnsetAndLongValues() throws IOException {
+		File f = File.createTempFile("TestColumnFile", ".jsc");
+		f.deleteOnExit();
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 70000; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		String longStr = sb.toString();
+
+		// Values that are not set in a row are missing rather than repeated from the last row
+		ColumnFileWriter writer = new ColumnFileWriter(f, false, 2);
+		writer.addDoubleColumn("Value");
+		writer.addStringColumn("Name");
+		for (int i = 0; i < 5; i++) {
+			if (i % 2 == 0) {
+				writer.setDouble(0, i);
+				writer.setString(1, longStr);
+			}
+			writer.endRow();
+		}
+		writer.close();
+
+		ColumnFileReader reader = new ColumnFileReader(f);
+		assertTrue(reader.getNumRows() == 5);
+		for (int i = 0; i < 5; i++) {
+			if (i % 2 == 0) {
+				assertTrue(reader.getDouble(0, i) == i);
+				assertTrue(reader.getString(1, i).equals(longStr));
+			}
+			else {
+				assertTrue(Double.isNaN(reader.getDouble(0, i)));
+				assertTrue(reader.getString(1, i) == null);
+			}
+		}
+	}
+
+	@Test
+	public void testFlushBetweenRows() throws IOException {
+		File f = File.createTempFile("TestColumnFile", ".jsc");
+		f.deleteOnExit();
+
+		// Flushing must not leave the values from an earlier chunk in the unset cells
+		ColumnFileWriter writer = new ColumnFileWriter(f, false, 10);
+		writer.addDoubleColumn("Value");
+		writer.addStringColumn("Name");
+		writer.setDouble(0, 1.0d);
+		writer.setString(1, "First");
+		writer.endRow();
+		writer.flush();
+		writer.setDouble(0, 2.0d);
+		writer.endRow();
+		writer.flush();
+		writer.setString(1, "Third");
+		writer.flush();  // flushed part way through a row
+		writer.endRow();
+		writer.close();
+
+		ColumnFileReader reader = new ColumnFileReader(f);
+		assertTrue(reader.getNumRows() == 3);
+		assertTrue(reader.getDouble(0, 0) == 1.0d);
+		assertTrue(reader.getString(1, 0).equals("First"));
+		assertTrue(reader.getDouble(0, 1) == 2.0d);
+		assertTrue(reader.getString(1, 1) == null);
+		assertTrue(Double.isNaN(reader.getDouble(0, 2)));
+		assertTrue(reader.getString(1, 2).equals("Third"));
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.jaamsim.Graphics.DisplayEntity;
+import com.jaamsim.ProcessFlow.Queue;
+import com.jaamsim.ProcessFlow.QueueUser;
+import com.jaamsim.ProcessFlow.Server;
+
+public class TestEntityIterator {
+
+	/**
+	 * Test that the iterators that use the class lists return the same entities in the same
+	 * order as a search of the full list of entities.
+	 */
+	@Test
+	public void testEntityIterators() {
+		JaamSimModel simModel = new JaamSimModel();
+
+		ArrayList<Entity> ents = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			switch (i % 4) {
+			case 0: ents.add(simModel.createInstance(Entity.class)); break;
+			case 1: ents.add(simModel.createInstance(DisplayEntity.class)); break;
+			case 2: ents.add(simModel.createInstance(Queue.class)); break;
+			case 3: ents.add(simModel.createInstance(Server.class)); break;
+			}
+		}
+		for (int i = 0; i < ents.size(); i += 7) {
+			ents.get(i).kill();
+		}
+
+		ArrayList<Entity> expected = new ArrayList<>();
+		ArrayList<Entity> actual = new ArrayList<>();
+		for (Entity ent : ents) {
+			if (!ent.isDead() && ent instanceof DisplayEntity)
+				expected.add(ent);
+		}
+		for (DisplayEntity ent : simModel.getClonesOfIterator(DisplayEntity.class)) {
+			actual.add(ent);
+		}
+		assertTrue(expected.equals(actual));
+
+		expected.clear();
+		actual.clear();
+		for (Entity ent : ents) {
+			if (!ent.isDead() && ent instanceof QueueUser)
+				expected.add(ent);
+		}
+		for (Entity ent : simModel.getClonesOfIterator(Entity.class, QueueUser.class)) {
+			actual.add(ent);
+		}
+		assertTrue(expected.equals(actual));
+
+		expected.clear();
+		actual.clear();
+		for (Entity ent : ents) {
+			if (!ent.isDead() && ent.getClass() == Queue.class)
+				expected.add(ent);
+		}
+		for (Queue ent : simModel.getInstanceIterator(Queue.class)) {
+			actual.add(ent);
+		}
+		assertTrue(expected.equals(actual));
+	}
+
+	/**
+	 * Test that an entity created during the iteration is returned even when the list for its
+	 * class had already been exhausted.
+	 */
+	@Test
+	public void testEntityAddedDuringIteration() {
+		JaamSimModel simModel = new JaamSimModel();
+		Queue queue1 = simModel.createInstance(Queue.class);
+		DisplayEntity ent2 = simModel.createInstance(DisplayEntity.class);
+		DisplayEntity ent3 = simModel.createInstance(DisplayEntity.class);
+
+		Queue queue4 = null;
+		ArrayList<Entity> actual = new ArrayList<>();
+		for (DisplayEntity ent : simModel.getClonesOfIterator(DisplayEntity.class)) {
+			actual.add(ent);
+			if (ent == ent2)
+				queue4 = simModel.createInstance(Queue.class);
+		}
+		assertTrue(actual.equals(Arrays.asList(queue1, ent2, ent3, queue4)));
+	}
+
+}
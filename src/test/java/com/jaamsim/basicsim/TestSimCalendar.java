@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2019-2022 JaamSim Software Inc.
+ * Copyright (C) 2019-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import static org.junit.Assert.assertTrue;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
 import java.util.TimeZone;
 
 import org.junit.Test;
@@ -87,4 +89,53 @@ public class TestSimCalendar {
 		assertTrue(calendar.get(Calendar.MILLISECOND) == 500);
 	}
 
+	@Test
+	public void testDayArithmetic() {
+		SimCalendar calendar = new SimCalendar();
+		SimCalendar ref = new SimCalendar();
+		GregorianCalendar greg = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+		Random rand = new Random(1);
+		int[] date = new int[7];
+
+		for (boolean bool : new boolean[]{true, false}) {
+			calendar.setGregorian(bool);
+			ref.setGregorian(bool);
+			for (int i = 0; i < 100000; i++) {
+				// Times from about the year 1000 to 2900, several of which fall on the same day
+				long millis = (rand.nextLong() % 30000000000000L) + (i % 3)*1000L;
+				if (i % 10 == 0)
+					millis = (rand.nextLong() % 4000000000L);
+
+				// Date and time
+				calendar.getDate(millis, date);
+				ref.setTimeInMillis(millis);
+
+				// GregorianCalendar moves the simple calendar dates that fall in the days
+				// skipped by the change from the Julian calendar
+				if (!bool && date[0] == 1582 && date[1] == 10 && date[2] >= 5 && date[2] <= 14)
+					continue;
+
+				assertTrue(date[0] == ref.get(Calendar.YEAR));
+				assertTrue(date[1] == ref.get(Calendar.MONTH) + 1);
+				assertTrue(date[2] == ref.get(Calendar.DAY_OF_MONTH));
+				assertTrue(date[3] == ref.get(Calendar.HOUR_OF_DAY));
+				assertTrue(date[4] == ref.get(Calendar.MINUTE));
+				assertTrue(date[5] == ref.get(Calendar.SECOND));
+				assertTrue(date[6] == ref.get(Calendar.MILLISECOND));
+				assertTrue(calendar.getDayOfWeek(millis) == ref.get(Calendar.DAY_OF_WEEK));
+				assertTrue(calendar.getCalendarDate(millis).equals(ref.getTime()));
+
+				// Conversion back to milliseconds
+				long val = calendar.getTimeInMillis(date[0], date[1] - 1, date[2], date[3], date[4], date[5], date[6]);
+				assertTrue(val == millis);
+				if (bool) {
+					greg.clear();
+					greg.set(date[0], date[1] - 1, date[2], date[3], date[4], date[5]);
+					greg.set(Calendar.MILLISECOND, date[6]);
+					assertTrue(val == greg.getTimeInMillis());
+				}
+			}
+		}
+	}
+
 }
@@ -1,6 +1,6 @@
 /*
  * JaamSim Discrete Event Simulation
- * Copyright (C) 2018-2023 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,11 @@
  */
 package com.jaamsim.basicsim;
 
+import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -26,6 +29,7 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.jaamsim.Statistics.SampleStatistics;
 import com.jaamsim.events.TestFrameworkHelpers;
 import com.jaamsim.input.Input;
 import com.jaamsim.input.InputAgent;
@@ -181,6 +185,182 @@ public class TestSimulation {
 		assertTrue(simModel2.getDoubleValue("[Sink].NumberAdded") == 500.0d);
 	}
 
+	@Test
+	public void testPooledPercentiles() throws Exception {
+		File dir = Files.createTempDirectory("jaamsim").toFile();
+		JaamSimModel simModel = createReplicationModel("Pooled", dir);
+
+		simModel.defineEntity("UniformDistribution", "Dist");
+		simModel.defineEntity("Statistics", "Stats");
+
+		simModel.setInput("Dist", "UnitType", "TimeUnit");
+		simModel.setInput("Dist", "RandomSeed", "2");
+		simModel.setInput("Dist", "MinValue", "0 s");
+		simModel.setInput("Dist", "MaxValue", "10 s");
+		simModel.setInput("Gen", "NextComponent", "Stats");
+		simModel.setInput("Stats", "UnitType", "TimeUnit");
+		simModel.setInput("Stats", "SampleValue", "Dist");
+		simModel.setInput("Stats", "NextComponent", "Sink");
+		simModel.setInput("Simulation", "NumberOfReplications", "4");
+		simModel.setInput("Simulation", "PrintPooledPercentiles", "TRUE");
+
+		WaitForEndRunManager runMgr = new WaitForEndRunManager(simModel);
+		runMgr.start();
+		runMgr.waitForEnd(20000L);
+
+		// The sketches from each replication are merged into the scenario
+		Scenario scene = runMgr.getScenario(1);
+		assertTrue(scene.getQuantileSketchNames().contains("Stats"));
+		double[] vals = scene.getPercentileValues("Stats", new double[]{50.0d, 99.0d});
+		assertTrue(Math.abs(vals[0] - 5.0d) < 0.5d);
+		assertTrue(Math.abs(vals[1] - 9.9d) < 0.5d);
+		assertTrue(Double.isNaN(scene.getPercentileValues("Sink", new double[]{50.0d})[0]));
+
+		// The pooled percentiles are printed to their own files, not the run output report
+		runMgr.close();
+		File dat = new File(dir, "Pooled.dat");
+		assertTrue(!new String(Files.readAllBytes(dat.toPath()), "UTF-8").contains("Stats"));
+		File pct = new File(dir, "Pooled-percentiles.dat");
+		List<String> lines = Files.readAllLines(pct.toPath());
+		assertTrue(lines.size() == 2);
+		assertTrue(lines.get(0).equals("Scenario\tEntity\tp50\tp95\tp99"));
+		String[] cols = lines.get(1).split("\t");
+		assertTrue(cols.length == 5);
+		assertTrue(cols[0].equals("1") && cols[1].equals("Stats"));
+		assertTrue(Double.parseDouble(cols[2]) == vals[0]);
+		assertTrue(dat.delete());
+		assertTrue(pct.delete());
+		assertTrue(dir.delete());
+	}
+
+	@Test
+	public void testSequentialReplications() throws Exception {
+		File dir = Files.createTempDirectory("jaamsim").toFile();
+		JaamSimModel simModel = createReplicationModel("Sequential", dir);
+
+		simModel.defineEntity("ExpressionLogger", "Log");
+		simModel.setInput("Log", "Interval", "500 s");
+		simModel.setInput("Log", "DataSource", "{ [Sink].NumberAdded }");
+		simModel.setInput("Simulation", "NumberOfReplications", "3");
+		simModel.setInput("Simulation", "TargetRelativeHalfWidth", "0.02");
+		simModel.setInput("Simulation", "MaximumNumberOfReplications", "40");
+
+		WaitForEndRunManager runMgr = new WaitForEndRunManager(simModel);
+		runMgr.start();
+		runMgr.waitForEnd(20000L);
+
+		// Replications are added until the confidence interval is small enough
+		Scenario scene = runMgr.getScenario(1);
+		int num = scene.getRunsCompleted().size();
+		double mean = scene.getMeanValues()[0];
+		double halfWidth = scene.getConfidenceIntervals()[0];
+		assertTrue(num > 3 && num <= 40);
+		assertTrue(num == 40 || halfWidth <= 0.02d*mean);
+		runMgr.close();
+
+		// The log file is kept open until the last replication has been added
+		File log = new File(dir, "Sequential-Log.log");
+		String text = new String(Files.readAllBytes(log.toPath()), "UTF-8");
+		for (int rep = 1; rep <= num; rep++) {
+			assertTrue(text.contains(String.format("REPLICATION %s #", rep)));
+		}
+		assertTrue(!text.contains(String.format("REPLICATION %s #", num + 1)));
+
+		File dat = new File(dir, "Sequential.dat");
+		assertTrue(dat.delete());
+		assertTrue(log.delete());
+		assertTrue(dir.delete());
+	}
+
+	@Test
+	public void testAntitheticReplications() throws Exception {
+		File dir = Files.createTempDirectory("jaamsim").toFile();
+		JaamSimModel simModel = createReplicationModel("Antithetic", dir);
+
+		simModel.setInput("IAT", "Mean", "'[Simulation].ScenarioNumber == 1 ? 2[s] : 2.2[s]'");
+		simModel.setInput("Simulation", "EndingScenarioNumber", "2");
+		simModel.setInput("Simulation", "NumberOfReplications", "5");
+		simModel.setInput("Simulation", "VarianceReduction", "ANTITHETIC");
+
+		WaitForEndRunManager runMgr = new WaitForEndRunManager(simModel);
+		runMgr.start();
+		runMgr.waitForEnd(20000L);
+
+		// The number of replications is rounded up to complete the last pair
+		Scenario scene1 = runMgr.getScenario(1);
+		Scenario scene2 = runMgr.getScenario(2);
+		assertTrue(scene1.getRunsCompleted().size() == 6);
+		assertTrue(scene2.getRunsCompleted().size() == 6);
+
+		// The paired differences are more precise than comparing the separate intervals
+		SampleStatistics diff = scene2.getPairedDifferences(scene1)[0];
+		assertTrue(diff.getCount() == 3L);
+		double mean = scene2.getMeanValues()[0] - scene1.getMeanValues()[0];
+		assertTrue(Math.abs(diff.getMean() - mean) < 1.0e-9d);
+		assertTrue(diff.getMean() < 0.0d);
+		double ci1 = scene1.getConfidenceIntervals()[0];
+		double ci2 = scene2.getConfidenceIntervals()[0];
+		assertTrue(diff.getConfidenceInterval95() < Math.hypot(ci1, ci2));
+		runMgr.close();
+
+		File dat = new File(dir, "Antithetic.dat");
+		assertTrue(dat.delete());
+		assertTrue(dir.delete());
+	}
+
+	@Test
+	public void testMemoizeOutputs() {
+		JaamSimModel simModel = runMemoizeModel(false);
+		JaamSimModel memoModel = runMemoizeModel(true);
+
+		// Memoization does not change the results
+		String[] exps = {"[Sink].NumberAdded", "[Queue1].QueueLengthAverage",
+				"[Thresh1].OpenCount", "[Thresh2].OpenCount", "[Thresh3].ClosedFraction"};
+		for (String exp : exps) {
+			assertTrue(simModel.getDoubleValue(exp) == memoModel.getDoubleValue(exp));
+		}
+		assertTrue(simModel.getDoubleValue("[Thresh1].OpenCount") > 0.0d);
+
+		// Outputs used by several conditions are re-used
+		assertTrue(simModel.getDoubleValue("[Simulation].MemoizedOutputHits") == 0.0d);
+		assertTrue(simModel.getDoubleValue("[Simulation].MemoizedOutputMisses") == 0.0d);
+		assertTrue(memoModel.getDoubleValue("[Simulation].MemoizedOutputHits") > 0.0d);
+		assertTrue(memoModel.getDoubleValue("[Simulation].MemoizedOutputMisses") > 0.0d);
+	}
+
+	private static JaamSimModel runMemoizeModel(boolean bool) {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+
+		simModel.defineEntity("SimEntity", "Proto");
+		simModel.defineEntity("EntityGenerator", "Gen");
+		simModel.defineEntity("Queue", "Queue1");
+		simModel.defineEntity("Server", "Server1");
+		simModel.defineEntity("EntitySink", "Sink");
+		simModel.defineEntity("ExpressionThreshold", "Thresh1");
+		simModel.defineEntity("ExpressionThreshold", "Thresh2");
+		simModel.defineEntity("ExpressionThreshold", "Thresh3");
+
+		simModel.setInput("Gen", "PrototypeEntity", "Proto");
+		simModel.setInput("Gen", "NextComponent", "Queue1");
+		simModel.setInput("Gen", "InterArrivalTime", "1 s");
+		simModel.setInput("Server1", "WaitQueue", "Queue1");
+		simModel.setInput("Server1", "ServiceTime", "1.5 s");
+		simModel.setInput("Server1", "NextComponent", "Sink");
+		simModel.setInput("Thresh1", "OpenCondition", "'[Queue1].QueueLength >= 3'");
+		simModel.setInput("Thresh2", "OpenCondition", "'[Queue1].QueueLength >= 3 && [Server1].WorkingState'");
+		simModel.setInput("Thresh3", "OpenCondition", "'[Server1].State == \"Working\" || [Queue1].QueueLength > 5'");
+		simModel.setInput("Simulation", "MemoizeOutputs", bool ? "TRUE" : "FALSE");
+		simModel.setInput("Simulation", "RunDuration", "100 s");
+
+		WaitForPauseListener listener = new WaitForPauseListener(simModel);
+		simModel.setRunListener(listener);
+		simModel.start();
+		listener.waitForPause(1000L);
+		assertTrue(simModel.getSimTime() == 100.0d);
+		return simModel;
+	}
+
 	@Test
 	public void testExampleModels() {
 		System.out.println();
@@ -218,6 +398,35 @@ public class TestSimulation {
 		}
 	}
 
+	/**
+	 * Returns a model in which entities arrive from an EntityGenerator at exponentially
+	 * distributed intervals and leave through an EntitySink. Each run lasts 1000 seconds and
+	 * records the number of entities that were added to the sink.
+	 * @param name - name of the model and of its output files
+	 * @param dir - directory for the output files
+	 * @return model that is ready to be started by a RunManager
+	 */
+	private static JaamSimModel createReplicationModel(String name, File dir) {
+		JaamSimModel simModel = new JaamSimModel(name);
+		simModel.autoLoad();
+		simModel.setReportDirectory(dir);
+
+		simModel.defineEntity("SimEntity", "Proto");
+		simModel.defineEntity("ExponentialDistribution", "IAT");
+		simModel.defineEntity("EntityGenerator", "Gen");
+		simModel.defineEntity("EntitySink", "Sink");
+
+		simModel.setInput("IAT", "UnitType", "TimeUnit");
+		simModel.setInput("IAT", "RandomSeed", "1");
+		simModel.setInput("IAT", "Mean", "2 s");
+		simModel.setInput("Gen", "PrototypeEntity", "Proto");
+		simModel.setInput("Gen", "NextComponent", "Sink");
+		simModel.setInput("Gen", "InterArrivalTime", "IAT");
+		simModel.setInput("Simulation", "RunDuration", "1000 s");
+		simModel.setInput("Simulation", "RunOutputList", "{ [Sink].NumberAdded }");
+		return simModel;
+	}
+
 	static class WaitForPauseListener implements RunListener {
 		private final JaamSimModel simModel;
 		private final CountDownLatch countDownLatch;
@@ -256,4 +465,53 @@ public class TestSimulation {
 		@Override
 		public void handleError(Throwable t) {}
 	}
+
+	static class WaitForEndRunManager extends RunManager {
+		private final CountDownLatch countDownLatch;
+		private int numRunsEnded;
+
+		public WaitForEndRunManager(JaamSimModel mod) {
+			super(mod);
+			countDownLatch = new CountDownLatch(1);
+		}
+
+		@Override
+		public void runEnded(SimRun run) {
+			super.runEnded(run);
+
+			// Every run has been reported to the run manager, including the one that printed
+			// the outputs for the last scenario
+			synchronized (countDownLatch) {
+				numRunsEnded++;
+				int numRuns = 0;
+				for (int i = getStartingScenarioNumber(); i <= getEndingScenarioNumber(); i++) {
+					if (!hasScenario(i) || !getScenario(i).isFinished())
+						return;
+					numRuns += getScenario(i).getRunsCompleted().size();
+				}
+				if (numRunsEnded == numRuns)
+					countDownLatch.countDown();
+			}
+		}
+
+		/**
+		 * Delays the current thread until every scenario has finished and its outputs have
+		 * been printed.
+		 * @param timeoutMS - maximum time to wait in milliseconds
+		 */
+		public void waitForEnd(long timeoutMS) {
+			try {
+				boolean bool = countDownLatch.await(timeoutMS, TimeUnit.MILLISECONDS);
+				if (!bool) {
+					pause();
+					String msg = String.format("%s - Timeout at %s milliseconds. "
+							+ "Scenarios not completed.",
+							getJaamSimModel(), timeoutMS);
+					throw new RuntimeException(msg);
+				}
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
 }
@@ -0,0 +1,81 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.controllers;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.jaamsim.basicsim.JaamSimModel;
+import com.jaamsim.math.Transform;
+import com.jaamsim.math.Vec3d;
+import com.jaamsim.render.Camera;
+import com.jaamsim.render.CameraInfo;
+import com.jaamsim.render.RenderProxy;
+
+public class TestProxyGatherer {
+
+	@Test
+	public void testCollectProxies() {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+
+		// Shapes near the origin are in view, the others are not
+		int numNear = 2500;
+		int numFar = 500;
+		for (int i = 0; i < numNear + numFar; i++) {
+			String name = "Shape" + i;
+			simModel.defineEntity("Shape", name);
+			double x = (i < numNear) ? (i % 50) * 0.1d - 2.5d : 1000.0d + i;
+			double y = (i < numNear) ? (i / 50) * 0.1d - 2.5d : 0.0d;
+			simModel.setInput(name, "Position", String.format("%s %s 0 m", x, y));
+		}
+
+		CameraInfo info = new CameraInfo(Math.PI/3.0d, new Transform(new Vec3d(0.0d, 0.0d, 10.0d)), null);
+		ArrayList<Camera> cams = new ArrayList<>();
+		cams.add(new Camera(info, 1.0d));
+
+		ProxyGatherer gatherer = new ProxyGatherer();
+		ArrayList<RenderProxy> scene = new ArrayList<>();
+		int numBindings = gatherer.collectProxies(simModel, 0.0d, Integer.MAX_VALUE, cams, scene);
+		assertTrue(gatherer.getNumCulled() == numFar);
+		assertTrue(numBindings == numNear);
+		assertTrue(!scene.isEmpty());
+		assertTrue(gatherer.getErrors().isEmpty());
+
+		// Not culled
+		ArrayList<RenderProxy> fullScene = new ArrayList<>();
+		numBindings = gatherer.collectProxies(simModel, 0.0d, Integer.MAX_VALUE, null, fullScene);
+		assertTrue(gatherer.getNumCulled() == 0);
+		assertTrue(numBindings == numNear + numFar);
+		assertTrue(fullScene.size() > scene.size());
+
+		// No cameras is the same as not culling
+		ArrayList<RenderProxy> noCamScene = new ArrayList<>();
+		numBindings = gatherer.collectProxies(simModel, 0.0d, Integer.MAX_VALUE, new ArrayList<Camera>(), noCamScene);
+		assertTrue(gatherer.getNumCulled() == 0);
+		assertTrue(numBindings == numNear + numFar);
+		assertTrue(noCamScene.size() == fullScene.size());
+
+		// Entity limit applies to the entities in view
+		numBindings = gatherer.collectProxies(simModel, 0.0d, 100, cams, new ArrayList<RenderProxy>());
+		assertTrue(numBindings == 100);
+	}
+
+}
@@ -355,6 +355,160 @@ public class TestEventManager {
 		}
 	}
 
+	/**
+	 * Profile a mix of events and test that a resumed process is attributed to the event that
+	 * started it.
+	 */
+	@Test
+	public void testProfiler() {
+		EventManager evt = new EventManager("testProfilerEVT");
+		evt.clear();
+		EventProfiler prof = new EventProfiler(1, true);
+		evt.setProfiler(prof);
+
+		ArrayList<String> log = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			evt.scheduleProcessExternal(i, 0, false, new LogTarget(i, log), null);
+		}
+		ProcessTarget waiter = new ProcessTarget() {
+			@Override
+			public String getDescription() { return "Waiter.process"; }
+
+			@Override
+			public void process() {
+				for (int i = 0; i < 3; i++) {
+					EventManager.waitTicks(1, 0, false, null);
+				}
+			}
+		};
+		evt.scheduleProcessExternal(0, 0, false, waiter, null);
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 1000);
+
+		assertTrue(prof.getNumEvents() == 9);
+		assertTrue(prof.getNumSamples() == 9);
+
+		ArrayList<EventProfiler.Stats> targets = prof.getTargetStats();
+		assertTrue(targets.size() == 2);
+		for (EventProfiler.Stats stats : targets) {
+			if (stats.getName().equals("TestEventManager$LogTarget"))
+				assertTrue(stats.getCount() == 5);
+			else
+				assertTrue(stats.getCount() == 4);
+			assertTrue(stats.getPercentileNanos(0.5d) <= stats.getMaxNanos());
+		}
+
+		for (EventProfiler.Stats stats : prof.getOwnerStats()) {
+			if (stats.getName().equals("Waiter"))
+				assertTrue(stats.getCount() == 4);
+			else
+				assertTrue(stats.getCount() == 1);
+		}
+	}
+
+	/**
+	 * Test that the releases from a FifoLane are ordered amongst the other events as if each one
+	 * had been scheduled when its object was added to the lane.
+	 */
+	@Test
+	public void testFifoLane() {
+		EventManager evt = new EventManager("testFifoLaneEVT");
+		evt.clear();
+
+		final ArrayList<String> log = new ArrayList<>();
+		final FifoLane<String> lane = new FifoLane<String>(0) {
+			@Override
+			protected void release(String obj) {
+				log.add(obj);
+			}
+
+			@Override
+			public String getDescription() {
+				return "Lane";
+			}
+		};
+
+		ProcessTarget first = new ProcessTarget() {
+			@Override
+			public String getDescription() { return "First"; }
+
+			@Override
+			public void process() {
+				assertTrue(lane.add(5, "A"));
+				assertTrue(lane.add(10, "B"));
+				assertTrue(!lane.add(2, "C"));
+				assertTrue(lane.size() == 2);
+			}
+		};
+		ProcessTarget second = new ProcessTarget() {
+			@Override
+			public String getDescription() { return "Second"; }
+
+			@Override
+			public void process() {
+				EventManager.scheduleTicks(7, 0, true, new LogTarget(1, log), null);
+				EventManager.scheduleTicks(7, 0, false, new LogTarget(2, log), null);
+			}
+		};
+		final ArrayList<String> trace = new ArrayList<>();
+		evt.setTraceListener(new SchedTraceListener(trace));
+
+		evt.scheduleProcessExternal(0, 0, false, first, null);
+		evt.scheduleProcessExternal(3, 0, false, second, null);
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 1000);
+
+		ArrayList<String> expected = new ArrayList<>();
+		expected.add("A");
+		expected.add("Target:2");
+		expected.add("B");
+		expected.add("Target:1");
+
+		assertTrue(expected.equals(log));
+		assertTrue(lane.size() == 0);
+
+		// Each object is traced when it is added, as for a separately scheduled event
+		ArrayList<String> expectedTrace = new ArrayList<>();
+		expectedTrace.add("5:Lane");
+		expectedTrace.add("10:Lane");
+		expectedTrace.add("10:Target:1");
+		expectedTrace.add("10:Target:2");
+		assertTrue(expectedTrace.equals(trace));
+	}
+
+	private static class SchedTraceListener implements EventTraceListener {
+		final ArrayList<String> trace;
+		SchedTraceListener(ArrayList<String> t) {
+			trace = t;
+		}
+
+		@Override
+		public void traceSchedProcess(long tick, int priority, ProcessTarget t) {
+			trace.add(tick + ":" + t.getDescription());
+		}
+
+		@Override
+		public void traceEvent(long tick, int priority, ProcessTarget t) {}
+		@Override
+		public void traceWait(long tick, int priority, ProcessTarget t) {}
+		@Override
+		public void traceProcessStart(ProcessTarget t) {}
+		@Override
+		public void traceProcessEnd() {}
+		@Override
+		public void traceInterrupt(long tick, int priority, ProcessTarget t) {}
+		@Override
+		public void traceKill(long tick, int priority, ProcessTarget t) {}
+		@Override
+		public void traceWaitUntil() {}
+		@Override
+		public void traceSchedUntil(ProcessTarget t) {}
+		@Override
+		public void traceConditionalEval(ProcessTarget t) {}
+		@Override
+		public void traceConditionalEvalEnded(boolean wakeup, ProcessTarget t) {}
+	}
+
 	private static class LogTarget extends ProcessTarget {
 		final ArrayList<String> log;
 		final int num;
@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2015-2022 JaamSim Software Inc.
+ * Copyright (C) 2015-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -817,6 +817,50 @@ public class TestExpParser {
 		assertColSame(vals, val.colVal);
 	}
 
+	@Test
+	public void testPipelines() throws ExpError {
+		// Chained functions give the same results as separate ones
+		ExpParser.Expression exp = ExpParser.parseExpression(pc, "reduce(|x, acc|(x + acc), 0, filter(|x|(x > 4), map(|x|(x*2), {1, 2, 3, 4})))");
+		ExpResult val = exp.evaluate(ec);
+		assertTrue(val.value == 14);
+
+		exp = ExpParser.parseExpression(pc, "sort(|x, y|(x > y), map(|x, i|(x*i), filter(|x|(x != 2), {1, 2, 3, 4})))");
+		val = exp.evaluate(ec);
+		double[] vals = {12, 6, 1};
+		assertColSame(vals, val.colVal);
+		assertTrue(val.colVal.getSize() == 3);
+
+		// A result that is saved in a variable can be used more than once
+		exp = ExpParser.parseExpression(pc, "m = map(|x|(x*2), {1, 2}); reduce(|x, acc|(x + acc), 0, m) + size(m)");
+		val = exp.evaluate(ec);
+		assertTrue(val.value == 8);
+
+		// Short-circuiting functions
+		exp = ExpParser.parseExpression(pc, "any(|x|(x > 3), {1, 2, 3, 4})");
+		assertTrue(exp.evaluate(ec).value == 1);
+		exp = ExpParser.parseExpression(pc, "any(|x|(x > 4), {1, 2, 3, 4})");
+		assertTrue(exp.evaluate(ec).value == 0);
+		exp = ExpParser.parseExpression(pc, "all(|x, i|(x == i), {1, 2, 3, 4})");
+		assertTrue(exp.evaluate(ec).value == 1);
+		exp = ExpParser.parseExpression(pc, "all(|x|(x < 3), {1, 2, 3, 4})");
+		assertTrue(exp.evaluate(ec).value == 0);
+		exp = ExpParser.parseExpression(pc, "first(|x|(x > 5), {1, 2, 3, 4}, -1)");
+		assertTrue(exp.evaluate(ec).value == -1);
+
+		// The values after the one that is found are not calculated
+		exp = ExpParser.parseExpression(pc, "first(|x|(x == 2), map(|c|(c(1)), {{1}, {2}, 3}))");
+		assertTrue(exp.evaluate(ec).value == 2);
+
+		boolean threw = false;
+		try {
+			exp = ExpParser.parseExpression(pc, "first(|x|(x > 5), {1, 2, 3, 4})");
+			exp.evaluate(ec);
+		} catch (ExpError e) {
+			threw = true;
+		}
+		assertTrue(threw);
+	}
+
 	@Test
 	public void testRecursion() throws ExpError {
 		String expStr = "" ;
@@ -983,4 +1027,183 @@ public class TestExpParser {
 		assertTrue(res.value == 42.0);
 		assertTrue(res.type == ExpResType.NUMBER);
 	}
+
+	@Test
+	public void testNestedNumericArrays() throws ExpError {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+		simModel.defineEntity("DisplayEntity", "foo");
+		simModel.setInput("foo", "AttributeDefinitionList", "{ A '{ { 1, 2 }, { 3, 4 } }' }");
+		Entity foo = simModel.getEntity("foo");
+
+		// Assigning to a nested array does not change the constant it was initialised with
+		evalAttrib(foo, "[foo].A(1)(2) = 9");
+		assertTrue(evalAttrib(foo, "[foo].A(1)(2)").value == 9.0d);
+		foo.earlyInit();
+		assertTrue(evalAttrib(foo, "[foo].A(1)(2)").value == 2.0d);
+
+		evalAttrib(foo, "[foo].A(1)(2) = 9");
+		evalAttrib(foo, "[foo].A = { { 1, 2 }, { 3, 4 } }");
+		assertTrue(evalAttrib(foo, "[foo].A(1)(2)").value == 2.0d);
+
+		simModel.setInput("foo", "AttributeDefinitionList", "{ A '{ { 1, 2 }, { 3, 4 } }' }");
+		foo.earlyInit();
+		double[] vals = {1, 2};
+		assertColSame(vals, evalAttrib(foo, "[foo].A(1)").colVal);
+		assertTrue(evalAttrib(foo, "{ { 1, 2 }, { 3, 4 } }(1)(2)").value == 2.0d);
+	}
+
+	@Test
+	public void testParseCache() throws ExpError {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+		simModel.defineEntity("DisplayEntity", "foo");
+		simModel.defineEntity("DisplayEntity", "bar");
+		simModel.defineEntity("DisplayEntity", "baz");
+		Entity foo = simModel.getEntity("foo");
+		Entity bar = simModel.getEntity("bar");
+		ExpParser.ParseCache cache = simModel.getParseCache();
+
+		// The second entity re-uses the tree parsed for the first one
+		String expStr = "[baz].Name == \"baz\" ? 2[m]/1[cm] : 0";
+		ExpEvaluator.EntityParseContext fooPC = ExpEvaluator.getParseContext(foo, expStr);
+		ExpParser.Expression fooExp = ExpParser.parseExpression(fooPC, expStr);
+		long hits = cache.getHits();
+		ExpEvaluator.EntityParseContext barPC = ExpEvaluator.getParseContext(bar, expStr);
+		ExpParser.Expression barExp = ExpParser.parseExpression(barPC, expStr);
+		assertTrue(cache.getHits() == hits + 1);
+		assertTrue(fooExp != barExp);
+		assertTrue(ExpEvaluator.evaluateExpression(fooExp, foo, 0.0d).value == 200.0d);
+		assertTrue(ExpEvaluator.evaluateExpression(barExp, bar, 0.0d).value == 200.0d);
+		assertTrue(barExp.validationResult == fooExp.validationResult);
+
+		// Renaming an entity updates the sources for both contexts and clears the cache
+		simModel.getEntity("baz").setName("qux");
+		assertTrue(cache.size() == 0);
+		assertTrue(fooPC.getUpdatedSource().equals("[qux].Name == \"baz\" ? 2[m]/1[cm] : 0"));
+		assertTrue(barPC.getUpdatedSource().equals("[qux].Name == \"baz\" ? 2[m]/1[cm] : 0"));
+
+		// A name that no longer resolves is reported as before
+		boolean threw = false;
+		try {
+			ExpParser.parseExpression(ExpEvaluator.getParseContext(foo, expStr), expStr);
+		} catch (ExpError e) {
+			threw = true;
+		}
+		assertTrue(threw);
+
+		// Number and string constants are shared
+		ExpResult num = ExpParser.internConstant(ExpResult.makeNumResult(0.5d, DistanceUnit.class));
+		assertTrue(ExpParser.internConstant(ExpResult.makeNumResult(0.5d, DistanceUnit.class)) == num);
+		assertTrue(ExpParser.internConstant(ExpResult.makeNumResult(0.5d, TimeUnit.class)) != num);
+		ExpResult str = ExpParser.internConstant(ExpResult.makeStringResult("abc"));
+		assertTrue(ExpParser.internConstant(ExpResult.makeStringResult("abc")) == str);
+
+		// Zero and negative zero are kept separate
+		ExpResult zero = ExpParser.internConstant(ExpResult.makeNumResult(0.0d, DimensionlessUnit.class));
+		ExpResult negZero = ExpParser.internConstant(ExpResult.makeNumResult(-0.0d, DimensionlessUnit.class));
+		assertTrue(zero != negZero);
+		assertTrue(evalAttrib(foo, "1/-0").value == Double.NEGATIVE_INFINITY);
+		assertTrue(evalAttrib(foo, "1/0").value == Double.POSITIVE_INFINITY);
+	}
+
+	@Test
+	public void testParseCacheCollections() throws ExpError {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+		simModel.defineEntity("DisplayEntity", "foo");
+		simModel.defineEntity("DisplayEntity", "bar");
+		simModel.setInput("foo", "AttributeDefinitionList", "{ A '{ { 1, 2 }, { 3, 4 } }' }");
+		simModel.setInput("bar", "AttributeDefinitionList", "{ A '{ { 1, 2 }, { 3, 4 } }' }");
+		Entity foo = simModel.getEntity("foo");
+		Entity bar = simModel.getEntity("bar");
+		foo.earlyInit();
+		bar.earlyInit();
+		ExpParser.ParseCache cache = simModel.getParseCache();
+
+		// An expression containing a constant collection is not shared
+		String expStr = "{ { 1, 2 }, { 3, 4 } }";
+		long hits = cache.getHits();
+		ExpParser.Expression fooExp = ExpParser.parseExpression(ExpEvaluator.getParseContext(foo, expStr), expStr);
+		ExpParser.Expression barExp = ExpParser.parseExpression(ExpEvaluator.getParseContext(bar, expStr), expStr);
+		assertTrue(cache.getHits() == hits);
+		assertTrue(ExpEvaluator.evaluateExpression(fooExp, foo, 0.0d).colVal
+				!= ExpEvaluator.evaluateExpression(barExp, bar, 0.0d).colVal);
+
+		// Assigning to one entity's attribute does not change the other's
+		evalAttrib(foo, "[foo].A(1)(2) = 9");
+		assertTrue(evalAttrib(foo, "[foo].A(1)(2)").value == 9.0d);
+		assertTrue(evalAttrib(bar, "[bar].A(1)(2)").value == 2.0d);
+		bar.earlyInit();
+		assertTrue(evalAttrib(bar, "[bar].A(1)(2)").value == 2.0d);
+	}
+
+	private static ExpResult evalAttrib(Entity ent, String str) throws ExpError {
+		ExpEvaluator.EntityParseContext pc = ExpEvaluator.getParseContext(ent, str);
+		if (str.contains("=")) {
+			ExpParser.Assignment assign = ExpParser.parseAssignment(pc, str);
+			return ExpEvaluator.evaluateExpression(assign, ent, 0.0d);
+		}
+		ExpParser.Expression exp = ExpParser.parseExpression(pc, str);
+		return ExpEvaluator.evaluateExpression(exp, ent, 0.0d);
+	}
+
+	@Test
+	public void testNumericArrays() throws ExpError {
+		JaamSimModel simModel = new JaamSimModel();
+		simModel.autoLoad();
+
+		simModel.defineEntity("DisplayEntity", "foo");
+		simModel.setInput("foo", "AttributeDefinitionList",
+				  "{ dist '{ 1[m], 2[m], 3[m] }' }"
+				+ "{ copy '{ 0 }' }"
+				+ "{ nums '{ 1, 2 }' }" );
+		Entity foo = simModel.getEntity("foo");
+
+		// Assign a number with the same unit
+		evalAttrib(foo, "[foo].dist(2) = 5[m]");
+		double[] vals = {1, 5, 3};
+		assertColSame(vals, evalAttrib(foo, "[foo].dist").colVal);
+		assertTrue(evalAttrib(foo, "[foo].dist(2)").unitType == DistanceUnit.class);
+
+		// A copy is not changed by assigning to the original
+		evalAttrib(foo, "[foo].copy = [foo].dist");
+		evalAttrib(foo, "[foo].dist(1) = 7[m]");
+		double[] copyVals = {1, 5, 3};
+		assertColSame(copyVals, evalAttrib(foo, "[foo].copy").colVal);
+		assertTrue(evalAttrib(foo, "[foo].dist(1)").value == 7.0d);
+
+		// A dimensionless array is expanded with zeros
+		evalAttrib(foo, "[foo].nums(5) = 4");
+		double[] numVals = {1, 2, 0, 0, 4};
+		assertColSame(numVals, evalAttrib(foo, "[foo].nums").colVal);
+
+		// Values of other types can still be assigned
+		evalAttrib(foo, "[foo].dist(3) = \"abc\"");
+		assertTrue(evalAttrib(foo, "[foo].dist(3)").type == ExpResType.STRING);
+		assertTrue(evalAttrib(foo, "[foo].dist(2)").value == 5.0d);
+		assertTrue(evalAttrib(foo, "size([foo].dist)").value == 3.0d);
+		assertTrue(evalAttrib(foo, "size([foo].copy)").value == 3.0d);
+
+		// Mixed units use the general array
+		ExpResult res = evalAttrib(foo, "{ 1[m], 2[s] }(2)");
+		assertTrue(res.unitType == TimeUnit.class);
+
+		// Functions that read the numbers directly
+		evalAttrib(foo, "[foo].copy = { 3[m], 9[m], 1[m], 9[m] }");
+		res = evalAttrib(foo, "maxCol([foo].copy)");
+		assertTrue(res.value == 9.0d && res.unitType == DistanceUnit.class);
+		assertTrue(evalAttrib(foo, "minCol([foo].copy)").value == 1.0d);
+		assertTrue(evalAttrib(foo, "indexOfMaxCol([foo].copy)").value == 2.0d);
+		assertTrue(evalAttrib(foo, "indexOfMinCol([foo].copy)").value == 3.0d);
+		res = evalAttrib(foo, "sum([foo].copy)");
+		assertTrue(res.value == 22.0d && res.unitType == DistanceUnit.class);
+		assertTrue(evalAttrib(foo, "indexOfNearest([foo].copy, 1.4[m])").value == 3.0d);
+		assertTrue(evalAttrib(foo, "indexOf([foo].copy, 9[m])").value == 2.0d);
+		assertTrue(evalAttrib(foo, "indexOf([foo].copy, 9)").value == 0.0d);
+		res = evalAttrib(foo, "[foo].copy(4)");
+		assertTrue(res.value == 9.0d && res.unitType == DistanceUnit.class);
+		res = evalAttrib(foo, "[foo].copy(5)");
+		assertTrue(res.value == 0.0d && res.unitType == DimensionlessUnit.class);
+	}
 }
@@ -19,6 +19,8 @@ package com.jaamsim.math;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -33,7 +35,7 @@ public class TestConvex {
 		//totalPoints.addAll(getPointsForCube(2));
 		totalPoints.addAll(getPointsForCube(3));
 
-		ConvexHull hull = ConvexHull.TryBuildHull(totalPoints, 1, 0, null);
+		ConvexHull hull = ConvexHull.TryBuildHull(totalPoints, 0, null);
 
 		assertTrue(hull.getVertices().size() == 8);
 
@@ -60,7 +62,7 @@ public class TestConvex {
 		totalPoints.addAll(getPointsForCube(2));
 		totalPoints.addAll(getPointsForCube(3));
 
-		ConvexHull hull = ConvexHull.TryBuildHull(totalPoints, 1, 0, null);
+		ConvexHull hull = ConvexHull.TryBuildHull(totalPoints, 0, null);
 
 		Ray r = new Ray(new Vec4d(5, 0, 0, 1.0d), new Vec4d(-1, 0, 0, 1.0d));
 		double colDist = hull.collisionDistance(r, Transform.ident);
@@ -74,6 +76,52 @@ public class TestConvex {
 		assertTrue(MathUtils.near(aabbDist, 2.0));
 	}
 
+	@Test
+	public void TestConvexRandom() {
+		Random rng = new Random(1);
+		ArrayList<Vec3d> totalPoints = new ArrayList<>();
+		for (int i = 0; i < 2000; ++i) {
+			Vec3d v = new Vec3d(rng.nextGaussian(), rng.nextGaussian(), rng.nextGaussian());
+			totalPoints.add(v);
+			totalPoints.add(new Vec3d(v)); // repeated points are ignored
+		}
+
+		ConvexHull hull = ConvexHull.TryBuildHull(totalPoints, 0, null);
+		assertTrue(!hull.isDegenerate());
+
+		// Every point is inside the hull and every edge is shared by two faces
+		List<Vec3d> verts = hull.getVertices();
+		for (ConvexHull.HullFace f : hull.getFaces()) {
+			Plane plane = new Plane(verts.get(f.indices[0]), verts.get(f.indices[1]), verts.get(f.indices[2]));
+			for (Vec3d v : totalPoints) {
+				assertTrue(plane.getNormalDist(v) < 0.001);
+			}
+			for (int i = 0; i < 3; ++i) {
+				int numShared = 0;
+				for (ConvexHull.HullFace other : hull.getFaces()) {
+					for (int j = 0; j < 3; ++j) {
+						if (other.indices[j] == f.indices[(i + 1) % 3] && other.indices[(j + 1) % 3] == f.indices[i])
+							numShared++;
+					}
+				}
+				assertTrue(numShared == 1);
+			}
+		}
+
+		// The number of points can be limited
+		hull = ConvexHull.TryBuildHull(totalPoints, 30, null);
+		assertTrue(hull.getVertices().size() == 31);
+
+		// Co-planar points give a degenerate hull
+		ArrayList<Vec3d> planePoints = new ArrayList<>();
+		for (Vec3d v : totalPoints) {
+			planePoints.add(new Vec3d(v.x, v.y, 1.0d));
+		}
+		hull = ConvexHull.TryBuildHull(planePoints, 0, null);
+		assertTrue(hull.isDegenerate());
+		assertTrue(hull.getVertices().size() == 2000);
+	}
+
 	private ArrayList<Vec4d> getPointsForCube(double r) {
 		ArrayList<Vec4d> ret = new ArrayList<>();
 
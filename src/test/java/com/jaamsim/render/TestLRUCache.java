@@ -0,0 +1,97 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.render;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jaamsim.MeshFiles.MeshData;
+
+public class TestLRUCache {
+
+	private static class StringCache extends LRUCache<Integer, String> {
+		StringCache(long max) {
+			super(max);
+		}
+
+		@Override
+		protected long sizeOf(String val) {
+			return val.length();
+		}
+	}
+
+	@Test
+	public void testEviction() {
+		StringCache cache = new StringCache(10);
+		cache.put(1, "aaaa");
+		cache.put(2, "bbbb");
+		assertTrue(cache.getSize() == 8);
+
+		// Using the first entry makes the second the least recently used
+		assertTrue(cache.get(1).equals("aaaa"));
+		cache.put(3, "cccc");
+		assertTrue(cache.getNumEntries() == 2);
+		assertTrue(cache.getSize() == 8);
+		assertTrue(!cache.containsKey(2));
+		assertTrue(cache.get(2) == null);
+		assertTrue(cache.getNumHits() == 1);
+		assertTrue(cache.getNumMisses() == 1);
+		assertTrue(cache.getNumEvictions() == 1);
+
+		// An entry that is larger than the budget replaces all the others
+		cache.put(4, "dddddddddddd");
+		assertTrue(cache.getNumEntries() == 1);
+		assertTrue(cache.getSize() == 12);
+		assertTrue(cache.getNumEvictions() == 3);
+
+		// Replacing an entry changes the total size
+		cache.put(4, "dd");
+		assertTrue(cache.getSize() == 2);
+		cache.setMaxSize(1);
+		assertTrue(cache.getNumEntries() == 1);
+		assertTrue(cache.remove(4).equals("dd"));
+		assertTrue(cache.getSize() == 0);
+	}
+
+	@Test
+	public void testMeshDataCache() throws Exception {
+		MeshProtoKey cube = new MeshProtoKey(TestLRUCache.class.getResource("/resources/shapes/cube.dae").toURI());
+		MeshProtoKey sphere = new MeshProtoKey(TestLRUCache.class.getResource("/resources/shapes/Sphere.dae").toURI());
+
+		// Only one mesh fits in the budget
+		MeshDataCache.setMaxSize(1L);
+		try {
+			MeshData cubeData = MeshDataCache.getMeshData(cube);
+			assertTrue(cubeData.getEstimatedSize() > 0L);
+			assertTrue(MeshDataCache.isMeshLoaded(cube));
+
+			MeshDataCache.getMeshData(sphere);
+			assertTrue(MeshDataCache.isMeshLoaded(sphere));
+			assertTrue(!MeshDataCache.isMeshLoaded(cube));
+
+			// An evicted mesh is loaded again when it is needed
+			MeshData reloaded = MeshDataCache.getMeshData(cube);
+			assertTrue(reloaded != cubeData);
+			assertTrue(reloaded.getSubMeshData().size() == cubeData.getSubMeshData().size());
+		}
+		finally {
+			MeshDataCache.setMaxSize(Runtime.getRuntime().maxMemory()/4);
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.render;
+
+import static org.junit.Assert.assertTrue;
+
+import java.net.URISyntaxException;
+
+import org.junit.Test;
+
+import com.jaamsim.MeshFiles.MeshData;
+
+public class TestMeshDataCache {
+
+	private static final String[] FILES = {"cube.dae", "Sphere.dae", "CrossHairs.dae",
+			"axis_text.dae", "grid10x10.dae", "grid100x100.dae"};
+
+	@Test(timeout = 60000)
+	public void testLoadMesh() throws URISyntaxException {
+		MeshProtoKey[] keys = new MeshProtoKey[FILES.length];
+		for (int i = 0; i < FILES.length; i++) {
+			keys[i] = new MeshProtoKey(TestMeshDataCache.class.getResource("/resources/shapes/" + FILES[i]).toURI());
+		}
+
+		// Start more loads than there are loader threads
+		for (MeshProtoKey key : keys) {
+			MeshDataCache.loadMesh(key);
+		}
+
+		// Each blocking request receives the mesh that was loaded by the loader thread
+		for (MeshProtoKey key : keys) {
+			MeshData data = MeshDataCache.getMeshData(key);
+			assertTrue(data != null);
+			assertTrue(data != MeshDataCache.getBadMesh());
+			assertTrue(MeshDataCache.getLoadedMeshData(key) == data);
+			assertTrue(MeshDataCache.getMeshData(key) == data);
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.render;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jaamsim.math.AABB;
+import com.jaamsim.math.Quaternion;
+import com.jaamsim.math.Ray;
+import com.jaamsim.math.Transform;
+import com.jaamsim.math.Vec3d;
+import com.jaamsim.math.Vec4d;
+
+public class TestSceneBVH {
+
+	private static class BoxRenderable implements Renderable {
+		final AABB bounds;
+
+		BoxRenderable(AABB b) {
+			bounds = b;
+		}
+
+		@Override
+		public void render(int contextID, Renderer renderer, Camera cam, Ray pickRay) {}
+		@Override
+		public void renderTransparent(int contextID, Renderer renderer, Camera cam, Ray pickRay) {}
+		@Override
+		public long getPickingID() { return 0; }
+		@Override
+		public AABB getBoundsRef() { return bounds; }
+		@Override
+		public boolean hasTransparent() { return false; }
+		@Override
+		public boolean renderForView(int viewID, Camera cam) { return true; }
+		@Override
+		public double getCollisionDist(Ray r, boolean precise) { return bounds.collisionDist(r); }
+	}
+
+	private static BoxRenderable randomBox(Random rng) {
+		Vec3d centre = new Vec3d(rng.nextDouble()*200.0d - 100.0d, rng.nextDouble()*200.0d - 100.0d, rng.nextDouble()*10.0d);
+		Vec3d size = new Vec3d(rng.nextDouble()*4.0d, rng.nextDouble()*4.0d, rng.nextDouble());
+		Vec3d max = new Vec3d(centre);
+		max.add3(size);
+		Vec3d min = new Vec3d(centre);
+		min.sub3(size);
+		return new BoxRenderable(new AABB(max, min));
+	}
+
+	private static Ray randomRay(Random rng) {
+		Vec4d start = new Vec4d(rng.nextDouble()*200.0d - 100.0d, rng.nextDouble()*200.0d - 100.0d, 50.0d, 1.0d);
+		Vec4d dir = new Vec4d(rng.nextDouble() - 0.5d, rng.nextDouble() - 0.5d, -1.0d, 0.0d);
+		if (rng.nextInt(10) == 0)
+			dir.set3(0.0d, 0.0d, -1.0d);  // parallel to two of the axes
+		dir.normalize3();
+		return new Ray(start, dir);
+	}
+
+	private static void checkQueries(SceneBVH bvh, ArrayList<Renderable> scene, Random rng) {
+		for (int n = 0; n < 200; n++) {
+			Ray ray = randomRay(rng);
+			ArrayList<Renderable> expected = new ArrayList<>();
+			for (Renderable r : scene) {
+				if (r.getCollisionDist(ray, true) >= 0.0d)
+					expected.add(r);
+			}
+			ArrayList<Renderable> candidates = new ArrayList<>();
+			bvh.collectRayCandidates(ray, candidates);
+			ArrayList<Renderable> hits = new ArrayList<>();
+			for (Renderable r : candidates) {
+				if (r.getCollisionDist(ray, true) >= 0.0d)
+					hits.add(r);
+			}
+			assertTrue(hits.equals(expected));
+		}
+
+		for (int n = 0; n < 50; n++) {
+			Vec3d pos = new Vec3d(rng.nextDouble()*200.0d - 100.0d, rng.nextDouble()*200.0d - 100.0d, 20.0d + rng.nextDouble()*50.0d);
+			Quaternion rot = new Quaternion();
+			rot.setRotZAxis(rng.nextDouble()*Math.PI*2.0d);
+			Quaternion tilt = new Quaternion();
+			tilt.setRotXAxis(rng.nextDouble()*0.5d);
+			rot.mult(tilt, rot);
+			CameraInfo info = new CameraInfo(Math.PI/4.0d, new Transform(pos, rot, 1.0d), null);
+			Camera cam = new Camera(info, 1.5d);
+
+			boolean[] visible = new boolean[scene.size()];
+			int num = bvh.markVisible(cam, visible);
+			int count = 0;
+			for (int i = 0; i < scene.size(); i++) {
+				boolean expected = cam.collides(scene.get(i).getBoundsRef());
+				assertTrue(visible[i] == expected);
+				if (expected)
+					count++;
+			}
+			assertTrue(num == count);
+		}
+	}
+
+	@Test
+	public void testQueries() {
+		Random rng = new Random(42);
+		ArrayList<Renderable> scene = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			scene.add(randomBox(rng));
+		}
+		scene.add(new BoxRenderable(new AABB()));
+
+		// The hierarchy is built once the number of renderables is unchanged
+		SceneBVH bvh = new SceneBVH();
+		bvh.update(scene);
+		assertTrue(!bvh.isValid());
+		checkQueries(bvh, scene, rng);
+		bvh.update(scene);
+		assertTrue(bvh.isValid());
+		assertTrue(bvh.size() == scene.size());
+		assertTrue(bvh.getNumBuilds() == 1);
+		checkQueries(bvh, scene, rng);
+
+		// Moving a few renderables a short distance refits the hierarchy
+		for (int n = 0; n < 500; n++) {
+			int i = rng.nextInt(5000);
+			AABB bounds = scene.get(i).getBoundsRef();
+			Vec3d shift = new Vec3d(rng.nextDouble() - 0.5d, rng.nextDouble() - 0.5d, 0.0d);
+			Vec3d max = new Vec3d(bounds.maxPt);
+			max.add3(shift);
+			Vec3d min = new Vec3d(bounds.minPt);
+			min.add3(shift);
+			scene.set(i, new BoxRenderable(new AABB(max, min)));
+		}
+		bvh.update(scene);
+		assertTrue(bvh.getNumBuilds() == 1);
+		checkQueries(bvh, scene, rng);
+
+		// Moving many of them a long way rebuilds it
+		for (int i = 0; i < 5000; i++) {
+			scene.set(i, randomBox(rng));
+		}
+		bvh.update(scene);
+		assertTrue(bvh.getNumBuilds() == 2);
+		checkQueries(bvh, scene, rng);
+
+		// Changing the number of renderables invalidates it
+		scene.remove(scene.size() - 1);
+		bvh.update(scene);
+		assertTrue(!bvh.isValid());
+		checkQueries(bvh, scene, rng);
+
+		scene.clear();
+		bvh.update(scene);
+		bvh.update(scene);
+		assertTrue(bvh.isValid());
+		checkQueries(bvh, scene, rng);
+	}
+
+}
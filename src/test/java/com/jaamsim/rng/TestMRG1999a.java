@@ -1,7 +1,7 @@
 /*
  * JaamSim Discrete Event Simulation
  * Copyright (C) 2014 Ausenco Engineering Canada Inc.
- * Copyright (C) 2018 JaamSim Software Inc.
+ * Copyright (C) 2018-2024 JaamSim Software Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -225,4 +225,21 @@ public class TestMRG1999a {
 
 		assertTrue(test1.toString().equals(test2.toString()));
 	}
+
+	@Test
+	public void testAntithetic() {
+		MRG1999a test1 = new MRG1999a(5, 3);
+		MRG1999a test2 = new MRG1999a(5, 3);
+		test2.setSeedStream(5, 3, true);
+		assertTrue(test2.isAntithetic());
+
+		// Each value from the antithetic generator is one minus the original value
+		for (int i = 0; i < 1000; i++) {
+			double u1 = test1.nextUniform();
+			double u2 = test2.nextUniform();
+			assertTrue(u2 > 0.0d && u2 < 1.0d);
+			assertTrue(Math.abs(u1 + u2 - 1.0d) < 1.0e-12d);
+		}
+		assertTrue(test1.toString().equals(test2.toString()));
+	}
 }
@@ -0,0 +1,61 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.video.vp8;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TestEncoder {
+
+	@Test
+	public void testPartitions() throws VP8Exception {
+		BufferedImage img = EncoderBenchmark.createFrame(176, 144, 3);
+
+		Encoder single = new Encoder(1);
+		Encoder multi = new Encoder(4);
+		assertTrue(single.getMaxPartitions() == 1);
+		assertTrue(multi.getMaxPartitions() == 4);
+
+		ByteBuffer singleFrame = single.encodeFrame(img, true);
+		ByteBuffer multiFrame = multi.encodeFrame(img, true);
+
+		Decoder singleDec = new Decoder();
+		singleDec.decodeFrame(singleFrame);
+		Decoder multiDec = new Decoder();
+		multiDec.decodeFrame(multiFrame);
+
+		// Splitting the tokens into partitions must not change the picture
+		YUVImage a = singleDec.currentFrame;
+		YUVImage b = multiDec.currentFrame;
+		assertTrue(a.width == 176 && a.height == 144);
+		assertTrue(Arrays.equals(a.yPlane, b.yPlane));
+		assertTrue(Arrays.equals(a.uPlane, b.uPlane));
+		assertTrue(Arrays.equals(a.vPlane, b.vPlane));
+
+		// A second key frame from the same encoder reuses its buffers
+		multiFrame = multi.encodeFrame(img, true);
+		multiDec = new Decoder();
+		multiDec.decodeFrame(multiFrame);
+		assertTrue(Arrays.equals(a.yPlane, multiDec.currentFrame.yPlane));
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2024 JaamSim Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jaamsim.xml;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestXmlParser {
+
+	private static boolean sameDouble(String str) {
+		char[] chars = str.toCharArray();
+		double expected = Double.parseDouble(str);
+		double val = XmlParser.parseDouble(chars, chars.length);
+		return Double.doubleToLongBits(val) == Double.doubleToLongBits(expected);
+	}
+
+	@Test
+	public void testParseNumbers() {
+		String[] strs = { "0", "-0", "0.0", "-0.000000", "1", "+1", "39.370079", "-7.680722",
+				"0.1", "1000000.000000", "1e5", "1.5E-3", "-2.5e+10", "123456789012345",
+				"1234567890123456789", "0.30000000000000004", "1e-30", "4.9e-324", "1.7976931348623157e308",
+				".5", "5.", "NaN", "-Infinity", "1.0d" };
+		for (String str : strs) {
+			assertTrue(str, sameDouble(str));
+		}
+
+		Random rng = new Random(17);
+		for (int i = 0; i < 10000; i++) {
+			double val = (rng.nextDouble() - 0.5d) * Math.pow(10.0d, rng.nextInt(12) - 6);
+			assertTrue(sameDouble(Double.toString(val)));
+			assertTrue(sameDouble(String.format(Locale.ROOT, "%.6f", val)));
+		}
+
+		String[] ints = { "0", "-1", "+7", "123456789", "2147483647", "-2147483648" };
+		for (String str : ints) {
+			char[] chars = str.toCharArray();
+			assertTrue(XmlParser.parseInt(chars, chars.length) == Integer.parseInt(str));
+		}
+	}
+
+	@Test
+	public void testStreamedArrays() throws Exception {
+		// The arrays are long enough to be passed to the parser in several pieces
+		Random rng = new Random(3);
+		double[] doubles = new double[50000];
+		int[] ints = new int[50000];
+		StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root>\n");
+		sb.append("<float_array id=\"d\" count=\"").append(doubles.length).append("\">");
+		for (int i = 0; i < doubles.length; i++) {
+			doubles[i] = Double.parseDouble(String.format(Locale.ROOT, "%.6f", rng.nextGaussian()*100.0d));
+			sb.append(String.format(Locale.ROOT, "%.6f", doubles[i])).append(i % 10 == 9 ? "\r\n" : " ");
+		}
+		sb.append("</float_array>\n<p id=\"i\">\n");
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = rng.nextInt(1000000) - 1000;
+			sb.append(ints[i]).append('\t');
+		}
+		sb.append("</p>\n<float_array id=\"e\" count=\"0\"></float_array>\n");
+		sb.append("<name id=\"s\">  some text  </name>\n</root>\n");
+
+		File file = File.createTempFile("TestXmlParser", ".xml");
+		file.deleteOnExit();
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			out.write(sb.toString());
+		}
+
+		XmlParser parser = new XmlParser(file.toURI().toURL());
+		parser.setDoubleArrayTags(Arrays.asList("float_array"));
+		parser.setIntArrayTags(Arrays.asList("p"));
+		parser.setBooleanArrayTags(new ArrayList<String>());
+		parser.setStringArrayTags(new ArrayList<String>());
+		parser.parse();
+
+		assertTrue(Arrays.equals((double[])parser.getNodeByID("d").getContent(), doubles));
+		assertTrue(Arrays.equals((int[])parser.getNodeByID("i").getContent(), ints));
+		assertTrue(((double[])parser.getNodeByID("e").getContent()).length == 0);
+		assertTrue(parser.getNodeByID("s").getContent().equals("some text"));
+	}
+
+}